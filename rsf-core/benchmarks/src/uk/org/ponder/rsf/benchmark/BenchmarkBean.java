@@ -0,0 +1,18 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** The request-scope model bean for the benchmark view. Each row of the view
+ * binds an input to one entry of <code>values</code>. */
+
+public class BenchmarkBean {
+  public Map values = new HashMap();
+
+  public String submit() {
+    return "submitted";
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.Properties;
+
+import org.apache.log4j.PropertyConfigurator;
+import org.springframework.context.ApplicationContext;
+
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/**
+ * The RSF application under benchmark - the standard "bare" full-cycle test
+ * environment, extended with the benchmark's own producer, template and
+ * request beans. Each benchmark state holds one of these for the duration of
+ * a trial, and launches its request cycles through the
+ * {@link uk.org.ponder.rsf.bare.RequestLauncher} dispensed from it.
+ */
+
+public class BenchmarkEnvironment extends MultipleRSFTests {
+
+  public BenchmarkEnvironment() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/benchmark/benchmark-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/benchmark/benchmark-application-context.xml");
+  }
+
+  // Log only errors, so that console output does not distort the timings.
+  protected void initLogging() {
+    Properties props = new Properties();
+    props.put("log4j.rootLogger", "error, stdout");
+    props.put("log4j.appender.stdout", "org.apache.log4j.ConsoleAppender");
+    props.put("log4j.appender.stdout.layout", "org.apache.log4j.PatternLayout");
+    props.put("log4j.appender.stdout.layout.ConversionPattern", "%d %p (%F:%L) - <%m>%n");
+
+    PropertyConfigurator.configure(props);
+  }
+
+  /** Load the application context and RSAC container */
+  public void start() throws Exception {
+    setUp();
+  }
+
+  /** Destroy the application context */
+  public void stop() throws Exception {
+    tearDown();
+  }
+
+  public ApplicationContext getApplicationContext() {
+    return applicationContext;
+  }
+
+  public Object getBean(String name) {
+    return applicationContext.getBean(name);
+  }
+}
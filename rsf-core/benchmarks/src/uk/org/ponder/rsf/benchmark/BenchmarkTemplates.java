@@ -0,0 +1,68 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.streamutil.StreamCopyUtil;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/** Sources of template markup for the template-level benchmarks. */
+
+public class BenchmarkTemplates {
+  public static final String LIST_TEMPLATE = "uk/org/ponder/rsf/benchmark/list.html";
+
+  private static final String HEAD = "<html xmlns=\"http://www.w3.org/1999/xhtml\" xmlns:rsf=\"http://ponder.org.uk/rsf\">\n"
+      + "<head><title rsf:id=\"title\">RSF benchmark</title></head>\n"
+      + "<body><form rsf:id=\"form\" method=\"post\" action=\"#\"><table><tbody>\n";
+
+  private static final String ROW = "<tr rsf:id=\"row:\"><td rsf:id=\"index\">0</td>"
+      + "<td><input type=\"text\" rsf:id=\"value\" /></td>"
+      + "<td><a rsf:id=\"link\" href=\"#\">k0</a></td></tr>\n";
+
+  private static final String TAIL = "</tbody></table>\n"
+      + "<input type=\"submit\" rsf:id=\"submit\" value=\"Submit\" />\n"
+      + "</form></body></html>\n";
+
+  /**
+   * Returns the markup of a version of the benchmark template padded with the
+   * specified number of rows of static markup, encoded in UTF-8.
+   */
+  public static byte[] listTemplate(int staticrows) {
+    StringBuffer togo = new StringBuffer(HEAD);
+    for (int i = 0; i < staticrows; ++i) {
+      togo.append("<tr class=\"static\"><td>").append(i).append(
+          "</td><td>Static cell &amp; text</td><td><a href=\"#row").append(i)
+          .append("\">Row ").append(i).append("</a></td></tr>\n");
+    }
+    togo.append(ROW);
+    togo.append(TAIL);
+    try {
+      return togo.toString().getBytes("UTF-8");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
+  /** Parses the supplied template markup without any parse interceptors */
+  public static XMLViewTemplate parse(byte[] template) {
+    return (XMLViewTemplate) new XMLViewTemplateParser()
+        .parse(new ByteArrayInputStream(template));
+  }
+
+  /** Returns the markup of the benchmark view's own template */
+  public static byte[] loadListTemplate() {
+    InputStream is = BenchmarkTemplates.class.getClassLoader()
+        .getResourceAsStream(LIST_TEMPLATE);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    StreamCopyUtil.inputToOutput(is, baos, null);
+    return baos.toByteArray();
+  }
+}
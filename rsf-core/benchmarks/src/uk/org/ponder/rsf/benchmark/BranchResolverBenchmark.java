@@ -0,0 +1,56 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.renderer.BranchResolver;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.view.ViewRoot;
+
+/**
+ * Measures BranchResolver.resolveBranches, matching the component tree of the
+ * benchmark view against its template, for increasing numbers of rows.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class BranchResolverBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int rows;
+
+  private XMLViewTemplate template;
+  private ViewRoot viewroot;
+
+  @Setup
+  public void setup() {
+    template = BenchmarkTemplates.parse(BenchmarkTemplates.loadListTemplate());
+    viewroot = new ViewRoot();
+    new ListProducer().fillComponents(viewroot, new ListParams(rows), null);
+  }
+
+  @Benchmark
+  public Map resolveBranches() {
+    return BranchResolver.resolveBranches(template.globalmap, viewroot,
+        template.rootlump, new HashMap());
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.beanutil.WriteableBeanLocator;
+import uk.org.ponder.mapping.DARList;
+import uk.org.ponder.mapping.DAREnvironment;
+import uk.org.ponder.mapping.DataAlterationRequest;
+import uk.org.ponder.mapping.support.DARApplier;
+import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsac.RSACBeanLocator;
+
+/**
+ * Measures DARApplier.applyAlterations for a batch of EL assignments into a
+ * request bean, as performed for a submitted form of the given number of
+ * rows. A single RSAC request is held open for the duration of the trial.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class DARApplierBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int rows;
+
+  private RSACBeanLocator rsacbl;
+  private WriteableBeanLocator requestbeans;
+  private DARApplier darapplier;
+  private String[] paths;
+
+  @Setup
+  public void setup(EnvironmentState state) {
+    state.environment.getRequestLauncher();
+    rsacbl = state.environment.getRSACBeanLocator();
+    requestbeans = rsacbl.getBeanLocator();
+    darapplier = (DARApplier) state.environment.getBean("DARApplier");
+    paths = new String[rows];
+    for (int i = 0; i < rows; ++i) {
+      paths[i] = "benchmarkBean.values.k" + i;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    rsacbl.endRequest();
+  }
+
+  @Benchmark
+  public TargettedMessageList applyAlterations() {
+    DARList toapply = new DARList();
+    for (int i = 0; i < paths.length; ++i) {
+      toapply.add(new DataAlterationRequest(paths[i], "value " + i));
+    }
+    TargettedMessageList messages = new TargettedMessageList();
+    darapplier.applyAlterations(requestbeans, toapply, new DAREnvironment(
+        messages));
+    return messages;
+  }
+}
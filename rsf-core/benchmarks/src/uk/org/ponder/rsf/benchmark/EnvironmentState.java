@@ -0,0 +1,30 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** JMH state holding a single {@link BenchmarkEnvironment} shared by all
+ * threads of a trial. RSAC request state is held per thread, so that
+ * benchmarks run with several threads will launch independent requests. */
+
+@State(Scope.Benchmark)
+public class EnvironmentState {
+  public BenchmarkEnvironment environment;
+
+  @Setup(Level.Trial)
+  public void start() throws Exception {
+    environment = new BenchmarkEnvironment();
+    environment.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() throws Exception {
+    environment.stop();
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.IDGenerator;
+import uk.org.ponder.hashutil.ShardedIDGenerator;
+
+/** Measures the throughput of token generation with a single generator
+ * shared between all threads, as for flow and error tokens. Run with
+ * <code>-t 1</code>, <code>-t 4</code>, ... to compare the scaling of the
+ * implementations with the number of cores.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class IDGeneratorBenchmark {
+  @Param({ "eighteen", "sharded" })
+  public String generator;
+
+  private IDGenerator idgenerator;
+
+  @Setup
+  public void setup() {
+    idgenerator = generator.equals("eighteen") ? (IDGenerator) new EighteenIDGenerator()
+        : new ShardedIDGenerator();
+  }
+
+  @Benchmark
+  public String generateID() {
+    return idgenerator.generateID();
+  }
+}
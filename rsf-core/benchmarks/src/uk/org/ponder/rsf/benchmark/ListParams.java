@@ -0,0 +1,27 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+/** ViewParameters for the benchmark view, specifying the number of rows to
+ * be rendered, and the row selected by any link. */
+
+public class ListParams extends SimpleViewParameters {
+  public int rows;
+  public String selected;
+
+  public ListParams() {
+  }
+
+  public ListParams(int rows) {
+    this.viewID = ListProducer.VIEW_ID;
+    this.rows = rows;
+  }
+
+  public ListParams(int rows, String selected) {
+    this(rows);
+    this.selected = selected;
+  }
+}
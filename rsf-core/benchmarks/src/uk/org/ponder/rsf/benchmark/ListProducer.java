@@ -0,0 +1,47 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.components.UIInput;
+import uk.org.ponder.rsf.components.UIInternalLink;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParamsReporter;
+
+/** Produces the benchmark view - a form holding a table of the requested
+ * number of rows, each of which holds an output, an input and a link. */
+
+public class ListProducer implements ViewComponentProducer, ViewParamsReporter {
+  public static final String VIEW_ID = "list";
+
+  public String getViewID() {
+    return VIEW_ID;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    ListParams params = (ListParams) viewparams;
+    UIOutput.make(tofill, "title", "RSF benchmark: " + params.rows + " rows");
+    UIForm form = UIForm.make(tofill, "form");
+    for (int i = 0; i < params.rows; ++i) {
+      String key = "k" + i;
+      UIBranchContainer row = UIBranchContainer.make(form, "row:", key);
+      UIOutput.make(row, "index", Integer.toString(i));
+      UIInput.make(row, "value", "benchmarkBean.values." + key, "value " + i);
+      UIInternalLink.make(row, "link", key, new ListParams(params.rows, key));
+    }
+    UICommand.make(form, "submit", "Submit", "benchmarkBean.submit");
+  }
+
+  public ViewParameters getViewParameters() {
+    return new ListParams();
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+
+/**
+ * Measures an RSAC request cycle which fetches a single request bean - from
+ * startRequest through bean creation to endRequest. The beans range from one
+ * with no dependencies, through the parsed ViewParameters, to the ViewRender
+ * whose creation requires most of the render pipeline.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class RSACBenchmark {
+  @Param({ "targettedMessageList", "viewParameters", "viewRender" })
+  public String beanname;
+
+  @Benchmark
+  public Object getBean(EnvironmentState state) {
+    // the RequestLauncher starts the request, and seeds the parsed request
+    // information which the view beans depend on.
+    state.environment.getRequestLauncher();
+    RSACBeanLocator rsacbl = state.environment.getRSACBeanLocator();
+    try {
+      return rsacbl.getBeanLocator().locateBean(beanname);
+    }
+    finally {
+      rsacbl.endRequest();
+    }
+  }
+}
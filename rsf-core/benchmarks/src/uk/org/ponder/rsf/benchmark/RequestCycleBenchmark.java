@@ -0,0 +1,68 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.bare.ActionResponse;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.components.UICommand;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * Measures complete RSF render and action cycles for the benchmark view,
+ * launched through the bare RequestLauncher. The render cycle covers the
+ * whole of ViewRender.render, together with view production and the rest of
+ * the request scope.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class RequestCycleBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int rows;
+
+  private UIForm form;
+  private UICommand command;
+
+  @Setup
+  public void setup(EnvironmentState state) {
+    RenderResponse response = render(state);
+    if (response.viewWrapper == null) {
+      throw UniversalRuntimeException.accumulate(new IllegalStateException(),
+          "Benchmark view failed to render: " + response.markup);
+    }
+    form = (UIForm) response.viewWrapper.queryComponent(new UIForm());
+    command = (UICommand) response.viewWrapper.queryComponent(new UICommand());
+  }
+
+  @Benchmark
+  public RenderResponse render(EnvironmentState state) {
+    return state.environment.getRequestLauncher().renderView(
+        new ListParams(rows));
+  }
+
+  @Benchmark
+  public ActionResponse submit(EnvironmentState state) {
+    return state.environment.getRequestLauncher().submitForm(
+        new ListParams(rows), form, command);
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+
+/** Measures XMLViewTemplateParser.parse for templates of increasing size */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class TemplateParseBenchmark {
+  @Param({ "0", "100", "1000" })
+  public int staticrows;
+
+  private byte[] template;
+
+  @Setup
+  public void setup() {
+    template = BenchmarkTemplates.listTemplate(staticrows);
+  }
+
+  @Benchmark
+  public XMLViewTemplate parse() {
+    return BenchmarkTemplates.parse(template);
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.benchmark;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ponder.rsf.viewstate.RawURLState;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsMapper;
+
+/** Measures the conversion of ViewParameters to and from URL state by
+ * ViewParamsMapper, as is performed for every link rendered */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class ViewParamsBenchmark {
+  private ViewParamsMapper mapper;
+  private ListParams params;
+  private RawURLState rawstate;
+
+  @Setup
+  public void setup(EnvironmentState state) {
+    mapper = (ViewParamsMapper) state.environment.getBean("viewParamsMapper");
+    params = new ListParams(100, "k42");
+    rawstate = mapper.renderViewParams(params);
+  }
+
+  @Benchmark
+  public RawURLState renderViewParams() {
+    return mapper.renderViewParams(params);
+  }
+
+  @Benchmark
+  public ListParams parseViewParams() {
+    ListParams togo = new ListParams();
+    mapper.parseViewParams(togo, rawstate, new HashMap());
+    return togo;
+  }
+}
@@ -20,7 +20,7 @@ import uk.org.ponder.rsf.request.SubmittedValueEntry;
  * @author Antranig Basman (amb26@ponder.org.uk)
  */
 
-public class BindingFixer implements ComponentProcessor {
+public class BindingFixer implements ConcurrentComponentProcessor {
 
   private FossilizedConverter fossilizedconverter;
 
@@ -0,0 +1,25 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.componentprocessor;
+
+/**
+ * A marker interface for a ComponentProcessor which declares that it is
+ * thread-safe, and that its processing of any component is independent of
+ * its processing of any other. When parallel fixup is enabled for large
+ * trees, the {@link ViewProcessor} may apply such a processor to different
+ * components concurrently and in any order, although each component still
+ * sees all processors in their configured order.
+ * <p>
+ * Such a processor may be invoked from a thread other than the request
+ * thread, to which the request context has been attached. The request beans
+ * it uses must be safe for concurrent reads. Since lazy creation of request
+ * beans is not thread-safe, the processor is first applied on the request
+ * thread to one component of each class before the others are distributed;
+ * it must not cause request beans to be created which depend on anything
+ * other than the class of the component being processed.
+ */
+
+public interface ConcurrentComponentProcessor extends ComponentProcessor {
+
+}
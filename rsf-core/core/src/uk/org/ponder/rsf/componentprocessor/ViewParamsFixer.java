@@ -18,7 +18,7 @@ import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParamsInterceptor;
 import uk.org.ponder.rsf.viewstate.ViewStateHandler;
 
-public class ViewParamsFixer implements ComponentProcessor {
+public class ViewParamsFixer implements ConcurrentComponentProcessor {
   private ViewStateHandler viewstatehandler;
   private InternalURLRewriter inturlrewriter;
   private ViewParamsInterceptor environmentalInterceptor;
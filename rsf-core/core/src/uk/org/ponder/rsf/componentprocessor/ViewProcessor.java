@@ -4,9 +4,15 @@
 package uk.org.ponder.rsf.componentprocessor;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACRequestContext;
 import uk.org.ponder.rsf.components.ComponentList;
 import uk.org.ponder.rsf.components.FixableComponent;
 import uk.org.ponder.rsf.components.UIBound;
@@ -26,6 +32,13 @@ import uk.org.ponder.util.Logger;
  * performs "fixups" as specified by a list of ComponentProcessor objects,
  * including applying the system's form model, resolving URLs and any
  * application-registered processing.
+ * <p>
+ * If a parallel threshold is set, then for trees with at least this many
+ * components, each run of consecutive {@link ConcurrentComponentProcessor}s
+ * in the processor list is applied across the whole tree in parallel in a
+ * ForkJoinPool, with the request context attached to the worker threads.
+ * The runs of other processors on either side are applied sequentially as
+ * usual, so that every component still sees the processors in list order.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
@@ -42,6 +55,29 @@ public class ViewProcessor {
     this.clientprocessors = clientprocessors;
   }
 
+  private int parallelthreshold = 0;
+
+  private ForkJoinPool forkjoinpool;
+
+  private RSACBeanLocator rsacbl;
+
+  /** Sets the minimum number of components in a tree for which
+   * ConcurrentComponentProcessors will be applied in parallel. A value of 0
+   * (the default) disables parallel processing. */
+  public void setParallelThreshold(int parallelthreshold) {
+    this.parallelthreshold = parallelthreshold;
+  }
+
+  /** Sets the pool in which parallel processing will be performed. If none is
+   * set, the JVM's common pool will be used. */
+  public void setForkJoinPool(ForkJoinPool forkjoinpool) {
+    this.forkjoinpool = forkjoinpool;
+  }
+
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
+
   // List of components found in the tree. We may
   // not use the tree directly because of possible folding mutations.
   private ComponentList worklist;
@@ -89,18 +125,29 @@ public class ViewProcessor {
       view.registerComponent(child);
     }
     OrphanFinder finder = new OrphanFinder();
-    for (int compind = 0; compind < worklist.size(); ++compind) {
-      UIComponent child = worklist.componentAt(compind);
-      for (int procind = 0; procind < processors.size(); ++procind) {
-        ComponentProcessor proc = (ComponentProcessor) processors.get(procind);
-        try {
-          proc.processComponent(child);
+    if (parallelthreshold > 0 && worklist.size() >= parallelthreshold) {
+      List segments = segmentProcessors(processors);
+      for (int segind = 0; segind < segments.size(); ++segind) {
+        List segment = (List) segments.get(segind);
+        if (segment.get(0) instanceof ConcurrentComponentProcessor) {
+          processParallel(segment);
         }
-        catch (Exception e) {
-          Logger.log.warn("Error processing component " + child + " with ID " + child.getFullID(), e);
+        else {
+          for (int compind = 0; compind < worklist.size(); ++compind) {
+            processComponent(segment, worklist.componentAt(compind));
+          }
         }
       }
-      finder.processComponent(child);
+      for (int compind = 0; compind < worklist.size(); ++compind) {
+        finder.processComponent(worklist.componentAt(compind));
+      }
+    }
+    else {
+      for (int compind = 0; compind < worklist.size(); ++compind) {
+        UIComponent child = worklist.componentAt(compind);
+        processComponent(processors, child);
+        finder.processComponent(child);
+      }
     }
     for (int compind = 0; compind < worklist.size(); ++compind) {
       UIComponent thischild = worklist.componentAt(compind);
@@ -111,6 +158,106 @@ public class ViewProcessor {
     finder.report();
   }
 
+  private static void processComponent(List processors, UIComponent child) {
+    for (int procind = 0; procind < processors.size(); ++procind) {
+      ComponentProcessor proc = (ComponentProcessor) processors.get(procind);
+      try {
+        proc.processComponent(child);
+      }
+      catch (Exception e) {
+        Logger.log.warn("Error processing component " + child + " with ID " + child.getFullID(), e);
+      }
+    }
+  }
+
+  /** Divides the processor list into maximal runs of processors which are,
+   * and are not, ConcurrentComponentProcessors, preserving their order */
+  private static List segmentProcessors(List processors) {
+    List segments = new ArrayList();
+    List segment = null;
+    boolean concurrent = false;
+    for (int procind = 0; procind < processors.size(); ++procind) {
+      Object proc = processors.get(procind);
+      boolean isconcurrent = proc instanceof ConcurrentComponentProcessor;
+      if (segment == null || isconcurrent != concurrent) {
+        segment = new ArrayList();
+        segments.add(segment);
+        concurrent = isconcurrent;
+      }
+      segment.add(proc);
+    }
+    return segments;
+  }
+
+  private void processParallel(List processors) {
+    // Request beans are not safe for concurrent lazy creation - apply the
+    // processors first on this thread to one component of each class, so
+    // that any beans they require for each kind of component already exist
+    // before the workers start.
+    boolean[] done = new boolean[worklist.size()];
+    Set seen = new HashSet();
+    for (int compind = 0; compind < worklist.size(); ++compind) {
+      UIComponent child = worklist.componentAt(compind);
+      if (seen.add(child.getClass())) {
+        processComponent(processors, child);
+        done[compind] = true;
+      }
+    }
+    ForkJoinPool pool = forkjoinpool == null ? ForkJoinPool.commonPool()
+        : forkjoinpool;
+    RSACRequestContext context = rsacbl == null ? null
+        : rsacbl.getRequestContext();
+    pool.invoke(new ParallelFixup(processors, context, done, 0,
+        worklist.size()));
+  }
+
+  // The number of components below which a parallel fixup task will not
+  // divide its range further
+  private static final int PARALLEL_GRAIN = 256;
+
+  private class ParallelFixup extends RecursiveAction {
+    private List processors;
+    private RSACRequestContext context;
+    private boolean[] done;
+    private int start;
+    private int limit;
+
+    ParallelFixup(List processors, RSACRequestContext context,
+        boolean[] done, int start, int limit) {
+      this.processors = processors;
+      this.context = context;
+      this.done = done;
+      this.start = start;
+      this.limit = limit;
+    }
+
+    protected void compute() {
+      if (limit - start <= PARALLEL_GRAIN) {
+        // this may run on the request thread itself, which already has the
+        // context attached
+        RSACRequestContext previous = context == null ? null
+            : rsacbl.attachRequest(context);
+        try {
+          for (int compind = start; compind < limit; ++compind) {
+            if (!done[compind]) {
+              processComponent(processors, worklist.componentAt(compind));
+            }
+          }
+        }
+        finally {
+          if (context != null) {
+            rsacbl.attachRequest(previous);
+          }
+        }
+      }
+      else {
+        int mid = (start + limit) >>> 1;
+        invokeAll(new ParallelFixup(processors, context, done, start, mid),
+            new ParallelFixup(processors, context, done, mid, limit));
+      }
+    }
+  }
+
   private void generateWorkList() {
     worklist = new ComponentList();
     appendContainer(view.viewroot);
@@ -0,0 +1,52 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.components.decorators;
+
+/**
+ * Marks a {@link uk.org.ponder.rsf.components.UIBranchContainer} as one whose
+ * rendered markup may be cached and shared between requests, for example a
+ * navigation menu or footer which is the same for every user. Cached markup
+ * is keyed on the supplied key, the full ID of the branch, the view (by
+ * default including its full ViewParameters state), the request locale and
+ * the values of any selected bean paths. It will be served in place of 
+ * rendering the branch until the time to live expires.
+ * <p>
+ * A producer may avoid producing the contents of the branch altogether on a
+ * cache hit by consulting 
+ * {@link uk.org.ponder.rsf.renderer.cache.BranchFragmentCache#isCached(uk.org.ponder.rsf.components.UIBranchContainer)}
+ * after decorating it.
+ * <p>
+ * Since cached markup is shared between all users, this must not be applied
+ * to any branch whose rendering depends on any other state, or which
+ * contains any input components. A branch whose rendering assigns any XML
+ * ids, or which contains branches from other templates contributing to the
+ * head, is never cached, since these could not be reproduced on a cache hit.
+ */
+
+public class UICacheDecorator implements UIDecorator {
+  /** An application-chosen key identifying the content of the branch */
+  public String key;
+  /** The time in milliseconds for which rendered markup may be reused */
+  public long ttl;
+  /** If <code>true</code> (the default), the full ViewParameters state of the
+   * view forms part of the key, rather than just its view ID */
+  public boolean varyByViewParameters = true;
+  /** Any EL paths (without #{}) whose values at request scope form part of 
+   * the key */
+  public String[] varyByPaths;
+
+  public UICacheDecorator() {
+  }
+
+  public UICacheDecorator(String key, long ttl) {
+    this.key = key;
+    this.ttl = ttl;
+  }
+
+  public UICacheDecorator(String key, long ttl, String[] varyByPaths) {
+    this.key = key;
+    this.ttl = ttl;
+    this.varyByPaths = varyByPaths;
+  }
+}
@@ -4,7 +4,7 @@
 package uk.org.ponder.rsf.flow.lite;
 
 import uk.org.ponder.beanutil.BeanLocator;
-import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.ShardedIDGenerator;
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsf.flow.ARIResult;
 import uk.org.ponder.rsf.flow.FlowIDHolder;
@@ -34,7 +34,7 @@ import uk.org.ponder.util.Logger;
  */
 public class FlowActionProxyBean implements ActionTarget {
   // less hassle to keep this here than manage as a dependency....
-  private static EighteenIDGenerator idgenerator = new EighteenIDGenerator();
+  private static ShardedIDGenerator idgenerator = new ShardedIDGenerator();
   private Flow flow;
 
   private ReflectiveCache reflectivecache;
@@ -7,6 +7,7 @@ import java.util.Collections;
 
 import uk.org.ponder.rsf.flow.FlowIDHolder;
 import uk.org.ponder.rsf.state.LockGetter;
+import uk.org.ponder.rsf.state.TimedLockGetter;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.RunnableInvoker;
@@ -20,8 +21,9 @@ import uk.org.ponder.util.RunnableInvoker;
  * since this condition could only be triggered by multiple simultaneous
  * requests from the same user/browser. Could be a liability however if under
  * some (possibly failure) condition, normal request handling might take an
- * unbounded time - in this case you may want to replace this wrapper with an
- * implementation performing wait/notify with a timeout.
+ * unbounded time - in this case supply a {@link TimedLockGetter}, which will
+ * be used to acquire each lock with a timeout rather than waiting on its
+ * monitor.
  * <p>
  * If operating in a clustered environment where handling of different requests
  * belonging to the same flow cannot be guaranteed to be passed to the same JVM,
@@ -60,11 +62,32 @@ public class BasicScopedAlterationWrapper implements RunnableInvoker {
       return;
     }
     Collections.sort(completelocks); // Avoid potential Dedlocks!
+    if (lockgetter instanceof TimedLockGetter) {
+      invokeTimed((TimedLockGetter) lockgetter, completelocks, towrap);
+    }
+    else {
+      try {
+        lockUUPP(completelocks, towrap, 0);
+      }
+      finally {
+        lockgetter.returnLock(flowtoken);
+      }
+    }
+  }
+
+  private void invokeTimed(TimedLockGetter timedgetter,
+      StringList completelocks, Runnable towrap) {
+    int acquired = 0;
     try {
-      lockUUPP(completelocks, towrap, 0);
+      for (; acquired < completelocks.size(); ++acquired) {
+        timedgetter.acquireLock(completelocks.stringAt(acquired));
+      }
+      towrap.run();
     }
     finally {
-      lockgetter.returnLock(flowtoken);
+      while (--acquired >= 0) {
+        timedgetter.releaseLock(completelocks.stringAt(acquired));
+      }
     }
   }
 
@@ -8,6 +8,7 @@ import uk.org.ponder.rsf.componentprocessor.ViewProcessor;
 import uk.org.ponder.rsf.processor.RenderHandler;
 import uk.org.ponder.rsf.renderer.ViewRender;
 import uk.org.ponder.rsf.state.support.ErrorStateManager;
+import uk.org.ponder.rsf.util.RSFUtil;
 import uk.org.ponder.rsf.view.View;
 import uk.org.ponder.rsf.view.support.ViewGenerator;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
@@ -72,11 +73,20 @@ public class RSFRenderHandler implements RenderHandler {
 
 
   public void handle(PrintOutputStream pos) {
+    viewrender.setDebugRender(enableDebugRendering && viewparams.debugrender != null);
+    viewrender.setRenderBranch(viewparams.renderbranch);
+    // In streaming mode, send the document head to the client before the
+    // producers do their work
+    viewrender.renderHead(pos);
     requestInvoker.invokeRunnable(new Runnable() {
       public void run() {
         // this must now be AFTER restoration since the templateexpander may
         // access the model. Shucks!!
         view = viewgenerator.generateView();
+        if (viewparams.renderbranch != null) {
+          // spare the processors any work outside the requested branch
+          RSFUtil.pruneToBranch(view.viewroot, viewparams.renderbranch);
+        }
         viewprocessor.setView(view);
         view = viewprocessor.getProcessedView();
       }
@@ -85,7 +95,6 @@ public class RSFRenderHandler implements RenderHandler {
     // TODO: globaltargetid detection has not been investigated for a while
     viewrender.setGlobalMessageTarget(errorstatemanager.errorstate.globaltargetid);
     viewrender.setView(view);
-    viewrender.setDebugRender(enableDebugRendering && viewparams.debugrender != null);
     viewrender.render(pos);
   }
 
@@ -76,14 +76,22 @@ public abstract class RootHandlerBeanBase {
     AnyViewParameters redirect = handlerhook == null? null : handlerhook.handle();
     if (redirect == null) {
       if (requesttype.equals(EarlyRequestParser.RENDER_REQUEST)) {
-        handleGet();
+        if (!handleCached()) {
+          handleGet();
+        }
       }
       else {
         handlePost();
       }
     }
     else if (!(redirect instanceof NoViewParameters)) {
-      issueRedirect(redirect, setupResponseWriter());
+      PrintOutputStream pos = setupResponseWriter();
+      try {
+        issueRedirect(redirect, pos);
+      }
+      finally {
+        abandonResponseWriter(pos);
+      }
     }
     return true;
   }
@@ -101,6 +109,7 @@ public abstract class RootHandlerBeanBase {
       }
     }
     catch (Throwable t) {
+      renderFailed();
       String strategy = 
         DefaultFatalErrorHandler.handleFatalErrorStrategy(fatalErrorHandler, t,
           pos);
@@ -109,6 +118,9 @@ public abstract class RootHandlerBeanBase {
       }
     }
     finally {
+      if (rethrow != null || redirect != null) {
+        abandonResponseWriter(pos);
+      }
       if (rethrow != null) {
         UniversalRuntimeException tothrow = UniversalRuntimeException.accumulate(rethrow, "Error handling request");
         tothrow.setCategory(ForcibleException.class);
@@ -127,7 +139,27 @@ public abstract class RootHandlerBeanBase {
     issueRedirect(redirect, null);
   }
 
+  /** Answers a render request without rendering, for example from a cache.
+   * @return <code>true</code> if the response has been sent.
+   */
+  protected boolean handleCached() {
+    return false;
+  }
+
+  /** Called when a render cycle fails with a fatal error, before any error
+   * is written to the response */
+  protected void renderFailed() {
+  }
+
   public abstract PrintOutputStream setupResponseWriter();
+
+  /** Called in place of closing a stream returned from 
+   * {@link #setupResponseWriter()} whose body will not be completed, since the
+   * response has been redirected or is failing upstairs, to release any
+   * resources held by it. The stream may already have been closed.
+   */
+  protected void abandonResponseWriter(PrintOutputStream pos) {
+  }
   
   public abstract void issueRedirect(AnyViewParameters viewparamso, PrintOutputStream pos);
   
@@ -7,8 +7,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
-import org.apache.log4j.Level;
-
 import uk.org.ponder.rsf.components.UIBranchContainer;
 import uk.org.ponder.rsf.components.UIComponent;
 import uk.org.ponder.rsf.components.UIContainer;
@@ -18,11 +16,21 @@ import uk.org.ponder.rsf.template.XMLLumpList;
 import uk.org.ponder.rsf.template.XMLLumpMMap;
 import uk.org.ponder.rsf.util.SplitID;
 import uk.org.ponder.rsf.view.ViewRoot;
+import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.util.Logger;
 
 /**
  * Performs a first "light" pass of the template and component tree to resolve references
  * by UIBranchContainer components to the correct tag targets.
+ * <p>
+ * The resolution of a container depends only on its ID, its kind, and the IDs
+ * of its children in order - its "shape". Each resolution is memoised for
+ * the rendering against the source lump and shape, so that the many
+ * containers of the same shape issued for (say) the rows of a table are
+ * scored against the candidate lumps only once.
+ * <p>
+ * The resolution may be traced into a request-local {@link RenderTrace};
+ * otherwise it is traced to the logger at debug level.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
@@ -35,38 +43,68 @@ public class BranchResolver {
 
   private Map rewritemap;
 
+  // Map of source scope XMLLump to a Map of shape key to resolved XMLLump
+  // (or NO_MATCH)
+  private HashMap memo = new HashMap();
+  private static final Object NO_MATCH = new Object();
+  private CharWrap shapekey = new CharWrap();
+
+  private RenderTrace trace;
+  private boolean tracing;
+
   private static class BestMatch {
     public XMLLump bestlump;
     public int deficit = Integer.MAX_VALUE;
   }
 
   public BranchResolver(XMLLumpMMap globalmap, Map rewritemap) {
+    this(globalmap, rewritemap, null);
+  }
+
+  /** @param trace A trace to receive the diagnostics of this resolution, or
+   * <code>null</code> if they should be sent to the logger at debug level. */
+  public BranchResolver(XMLLumpMMap globalmap, Map rewritemap,
+      RenderTrace trace) {
     this.globalmap = globalmap;
     this.rewritemap = rewritemap;
+    this.trace = trace;
+    tracing = trace != null || Logger.log.isDebugEnabled();
   }
 
-  /** Returns a map of UIBranchContainer to XMLLump */
+  /** Returns a map of UIBranchContainer to XMLLump. If the base container is
+   * a {@link ViewRoot} marked for debug, the resolution is traced and the
+   * trace logged via {@link RenderTrace#emit(String)}.
+   */
   public static Map resolveBranches(XMLLumpMMap globalmap,
       UIBranchContainer basecontainer, XMLLump parentlump, Map rewritemap) {
-    boolean debug = false;
-    Level oldlevel = null;
-    if (basecontainer instanceof ViewRoot) {
-      debug = ((ViewRoot) basecontainer).debug;
-    }
+    boolean debug = basecontainer instanceof ViewRoot
+        && ((ViewRoot) basecontainer).debug;
+    RenderTrace trace = debug ? new RenderTrace() : null;
+    Map togo = resolveBranches(globalmap, basecontainer, parentlump,
+        rewritemap, trace);
     if (debug) {
-      oldlevel = Logger.log.getLevel();
-      Logger.log.setLevel(Level.DEBUG);
-    }
-    try {
-      BranchResolver resolver = new BranchResolver(globalmap, rewritemap);
-      resolver.branchmap.put(basecontainer, parentlump);
-      resolver.resolveRecurse(basecontainer, parentlump);
-      return resolver.branchmap;
-    }
-    finally {
-      if (debug) {
-        Logger.log.setLevel(oldlevel);
-      }
+      trace.emit("Branch resolution for " + basecontainer.getFullID() + ":");
+    }
+    return togo;
+  }
+
+  /** Returns a map of UIBranchContainer to XMLLump, tracing the resolution
+   * into the supplied trace if it is not <code>null</code>. */
+  public static Map resolveBranches(XMLLumpMMap globalmap,
+      UIBranchContainer basecontainer, XMLLump parentlump, Map rewritemap,
+      RenderTrace trace) {
+    BranchResolver resolver = new BranchResolver(globalmap, rewritemap, trace);
+    resolver.branchmap.put(basecontainer, parentlump);
+    resolver.resolveRecurse(basecontainer, parentlump);
+    return resolver.branchmap;
+  }
+
+  private void trace(String line) {
+    if (trace != null) {
+      trace.trace(line);
+    }
+    else {
+      Logger.log.debug(line);
     }
   }
 
@@ -77,14 +115,14 @@ public class BranchResolver {
         UIContainer branch = (UIContainer) flatchildren[i];
         // ups! Do not resolve here if does not actually occur in parentlump.
         XMLLump resolved = resolveCall(parentlump, branch);
-        if (Logger.log.isDebugEnabled()) {
-          Logger.log.debug("Resolving call for component " + branch.getClass().getName()
+        if (tracing) {
+          trace("Resolving call for component " + branch.getClass().getName()
               + " fullID " + branch.getFullID());
           if (resolved == null) {
-            Logger.log.debug("No target found!");
+            trace("No target found!");
           }
           else {
-            Logger.log.debug(resolved.toDebugString());
+            trace(resolved.toDebugString());
           }
           // Logger.log.info("for component with ID " + child.ID + " to ");
           // System.out.println(debugLump(resolved));
@@ -125,29 +163,69 @@ public class BranchResolver {
   }
 
   private void resolveInScope(String searchID, String defprefix, BestMatch bestmatch,
-      XMLLumpMMap scope, UIContainer child) {
+      XMLLumpMMap scope, UIComponent[] children, String[] prefixes) {
     XMLLumpList scopelumps = scope.headsForID(searchID);
-    passDeficit(bestmatch, child, scopelumps);
+    passDeficit(bestmatch, children, prefixes, scopelumps);
     if (bestmatch.deficit == 0)
       return;
     if (!defprefix.equals(searchID)) {
       XMLLumpList scopedeflumps = scope.headsForID(defprefix);
-      passDeficit(bestmatch, child, scopedeflumps);
+      passDeficit(bestmatch, children, prefixes, scopedeflumps);
+    }
+  }
+
+  // Returns a key encoding everything about the call that resolution depends
+  // on, other than the source scope
+  private String getShapeKey(String searchID, UIContainer child,
+      UIComponent[] children) {
+    shapekey.clear();
+    shapekey.append(child instanceof UIBranchContainer ? 'B' : 'C');
+    shapekey.append(searchID);
+    for (int i = 0; i < children.length; ++i) {
+      shapekey.append('\u0000').append(children[i].ID);
     }
+    return shapekey.toString();
   }
 
   private XMLLump resolveCall(XMLLump sourcescope, UIContainer child) {
     String searchID = child instanceof UIJointContainer ? ((UIJointContainer) child).jointID
         : child.ID;
+    UIComponent[] children = child.flatChildren();
+    String key = getShapeKey(searchID, child, children);
+    Map scopememo = (Map) memo.get(sourcescope);
+    if (scopememo == null) {
+      scopememo = new HashMap();
+      memo.put(sourcescope, scopememo);
+    }
+    Object memoised = scopememo.get(key);
+    if (memoised != null) {
+      if (tracing) {
+        trace("Reusing resolution of call for ID " + searchID
+            + " from container of the same shape");
+      }
+      return memoised == NO_MATCH ? null : (XMLLump) memoised;
+    }
+    XMLLump togo = resolveCall(sourcescope, child, searchID, children);
+    scopememo.put(key, togo == null ? NO_MATCH : togo);
+    return togo;
+  }
+
+  private XMLLump resolveCall(XMLLump sourcescope, UIContainer child,
+      String searchID, UIComponent[] children) {
+    String[] prefixes = new String[children.length];
+    for (int i = 0; i < children.length; ++i) {
+      prefixes[i] = SplitID.getPrefixColon(children[i].ID);
+    }
     SplitID split = new SplitID(searchID);
     String defprefix = split.prefix + SplitID.SEPARATOR;
     BestMatch bestmatch = new BestMatch();
-    if (Logger.log.isDebugEnabled()) {
-      Logger.log.debug("Resolving call for ID " + searchID + " from container "
+    if (tracing) {
+      trace("Resolving call for ID " + searchID + " from container "
           + child.debugChildren());
     }
     // first get lumps in THIS SCOPE with EXACTLY MATCHING ID.
-    resolveInScope(searchID, defprefix, bestmatch, sourcescope.downmap, child);
+    resolveInScope(searchID, defprefix, bestmatch, sourcescope.downmap,
+        children, prefixes);
     if (bestmatch.deficit == 0) {
       return bestmatch.bestlump;
     }
@@ -156,20 +234,22 @@ public class BranchResolver {
       if (sourcescope.parent.isstatictemplate) {
         // make sure we can resolve local (intra-template) branches in the static case
         resolveInScope(searchID, defprefix, bestmatch, sourcescope.parent.globalmap,
-            child);
+            children, prefixes);
       }
-      resolveInScope(searchID, defprefix, bestmatch, globalmap, child);
+      resolveInScope(searchID, defprefix, bestmatch, globalmap, children,
+          prefixes);
     }
     return bestmatch.bestlump;
 
   }
 
-  private void passDeficit(BestMatch bestmatch, UIContainer container, XMLLumpList tocheck) {
+  private void passDeficit(BestMatch bestmatch, UIComponent[] children,
+      String[] prefixes, XMLLumpList tocheck) {
     if (tocheck == null)
       return;
     for (int i = 0; i < tocheck.size(); ++i) {
       XMLLump lump = tocheck.lumpAt(i);
-      int deficit = evalDeficit(container, lump);
+      int deficit = evalDeficit(children, prefixes, lump);
       if (deficit < bestmatch.deficit) {
         bestmatch.deficit = deficit;
         bestmatch.bestlump = lump;
@@ -190,14 +270,15 @@ public class BranchResolver {
   // that are not found within children of the target lump.
   // A match is either an exact match in prefix and suffix, or else a "default
   // match" produced by looking for a "default" member in the template with the
-  // name "prefix:" for the issued component prefix.
-  private int evalDeficit(UIContainer container, XMLLump lump) {
+  // name "prefix:" for the issued component prefix. The prefixes of the
+  // children are supplied precomputed, in parallel with them.
+  private int evalDeficit(UIComponent[] children, String[] prefixes,
+      XMLLump lump) {
     int deficit = 0;
-    UIComponent[] children = container.flatChildren();
     doneprefix.clear();
     for (int i = 0; i < children.length; ++i) {
       UIComponent child = children[i];
-      String prefix = SplitID.getPrefixColon(child.ID);
+      String prefix = prefixes[i];
       boolean matches = lump.downmap != null && lump.downmap.hasID(child.ID);
       if (matches) {
         if (prefix != null)
@@ -223,8 +304,8 @@ public class BranchResolver {
     // that are NOT ISSUED by producer. This is a balance between resolution
     // cost here (extra hashmap) and cost of searching for each template child
     // later. There may also be some layout issues.
-    if (Logger.log.isDebugEnabled()) {
-      Logger.log.debug("Call to " + lump.toDebugString() + " deficit " + deficit);
+    if (tracing) {
+      trace("Call to " + lump.toDebugString() + " deficit " + deficit);
     }
     return deficit;
   }
@@ -24,9 +24,24 @@ public class IDAssigner {
   private static final int[] USED_ONCE = new int[] {1};
   private Map assigned = new HashMap();
   private String defaultstrategy;
+  private int emitted;
   public IDAssigner(String defaultstrategy) {
     this.defaultstrategy = defaultstrategy;
   }
+
+  /** Forgets all IDs assigned so far, so that this assigner may be reused for
+   * a fresh rendering with the supplied strategy. */
+  public void reset(String defaultstrategy) {
+    this.defaultstrategy = defaultstrategy;
+    assigned.clear();
+    emitted = 0;
+  }
+
+  /** Returns the number of id attributes which have been assigned since
+   * this assigner was last reset */
+  public int getEmittedCount() {
+    return emitted;
+  }
   
   public void adjustForID(Map attrcopy, UIComponent component) {
     String ID = null;
@@ -65,6 +80,7 @@ public class IDAssigner {
         assigned.put(ID, USED_ONCE);
       }
       attrcopy.put("id", ID);
+      ++emitted;
     }
     if (!IDstrategy.equals(ContentTypeInfo.ID_RSF)) {
       attrcopy.remove(XMLLump.ID_ATTRIBUTE);
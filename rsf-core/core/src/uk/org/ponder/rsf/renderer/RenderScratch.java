@@ -0,0 +1,67 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.org.ponder.rsf.template.XMLLumpMMap;
+
+/**
+ * The working structures used by {@link ViewRender} to render a single view,
+ * which are reset and returned to a shared pool between renderings rather
+ * than being allocated afresh for every request. This includes the attribute
+ * maps used for each tag rendered, which are borrowed from the
+ * {@link RenderSystemContext}.
+ * <p>
+ * The pool is not associated with any thread, so that idle structures are
+ * neither retained by container threads once the webapp is undeployed, nor
+ * lost on threads which are not reused. At most {@link #MAX_IDLE} idle
+ * structures are retained - a rendering which finds the pool empty is given
+ * fresh structures, which are discarded if the pool is full on release.
+ */
+
+class RenderScratch {
+  /** The maximum number of idle scratch structures retained */
+  public static final int MAX_IDLE = 256;
+
+  private static final ConcurrentLinkedQueue idle = new ConcurrentLinkedQueue();
+  private static final AtomicInteger idlecount = new AtomicInteger();
+
+  final IDAssigner IDassigner = new IDAssigner(null);
+  final XMLLumpMMap collected = new XMLLumpMMap();
+  final HashMap idrewritemap = new HashMap();
+  final RenderSystemContext rsc = new RenderSystemContext(false, null, null,
+      null, IDassigner, collected, idrewritemap);
+
+  /** Returns scratch structures for a single rendering, which must be
+   * returned with {@link #release()} once rendering is complete. */
+  static RenderScratch acquire() {
+    RenderScratch togo = (RenderScratch) idle.poll();
+    if (togo == null) {
+      return new RenderScratch();
+    }
+    idlecount.decrementAndGet();
+    return togo;
+  }
+
+  /** Clears all structures, so that nothing from this request is retained,
+   * and returns them to the pool */
+  void release() {
+    IDassigner.reset(null);
+    collected.clear();
+    idrewritemap.clear();
+    rsc.view = null;
+    rsc.pos = null;
+    rsc.xmlw = null;
+    rsc.resetAttributes();
+    if (idlecount.incrementAndGet() <= MAX_IDLE) {
+      idle.offer(this);
+    }
+    else {
+      idlecount.decrementAndGet();
+    }
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import uk.org.ponder.rsf.template.XMLLumpMMap;
 import uk.org.ponder.rsf.view.View;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.xml.FlatAttributeMap;
 import uk.org.ponder.xml.XMLWriter;
 
 /**
@@ -35,6 +36,11 @@ public class RenderSystemContext {
   public IDAssigner IDassigner;
   public XMLLumpMMap collecteds;
   public Map idrewritemap;
+  
+  // attribute maps for the tags currently being rendered, reused from tag
+  // to tag
+  private FlatAttributeMap[] attributes = new FlatAttributeMap[4];
+  private int attributedepth;
 
   public RenderSystemContext(boolean debugrender, View view,
       PrintOutputStream pos, XMLWriter xmlw, IDAssigner IDassigner,
@@ -48,4 +54,36 @@ public class RenderSystemContext {
     this.idrewritemap = idrewritemap;
   }
 
+  /**
+   * Returns an empty attribute map for a tag about to be rendered, which
+   * must be returned via {@link #releaseAttributes(FlatAttributeMap)} once
+   * the tag has been rendered.
+   */
+  public FlatAttributeMap borrowAttributes() {
+    if (attributedepth == attributes.length) {
+      FlatAttributeMap[] newattributes = new FlatAttributeMap[attributedepth * 2];
+      System.arraycopy(attributes, 0, newattributes, 0, attributedepth);
+      attributes = newattributes;
+    }
+    FlatAttributeMap togo = attributes[attributedepth];
+    if (togo == null) {
+      togo = attributes[attributedepth] = new FlatAttributeMap();
+    }
+    ++attributedepth;
+    return togo;
+  }
+
+  /** Returns the most recently borrowed attribute map */
+  public void releaseAttributes(FlatAttributeMap released) {
+    released.clear();
+    --attributedepth;
+  }
+
+  /** Clears any attribute maps left borrowed by a failed rendering */
+  public void resetAttributes() {
+    while (attributedepth > 0) {
+      attributes[--attributedepth].clear();
+    }
+  }
+
 }
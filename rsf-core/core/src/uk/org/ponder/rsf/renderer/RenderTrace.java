@@ -0,0 +1,71 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import uk.org.ponder.stringutil.CharWrap;
+
+/**
+ * A request-local buffer collecting diagnostic traces of the rendering of a
+ * single view, such as the scoring performed by the {@link BranchResolver}.
+ * This allows one view to be debugged (for example by setting
+ * {@link uk.org.ponder.rsf.view.ViewRoot#debug}) without raising the level of
+ * any shared logger, which would cost every concurrent request.
+ * <p>
+ * A completed trace may be rendered into the response in debug render mode,
+ * and/or written as a single message to its own log category,
+ * <code>uk.org.ponder.rsf.renderer.RenderTrace</code>, which may be directed
+ * to a separate appender.
+ */
+
+public class RenderTrace {
+  public static final Logger log = Logger.getLogger(RenderTrace.class);
+  /** The maximum number of characters of trace retained, counting a line
+   * terminator for each line, beyond which all further lines are discarded */
+  public static final int MAX_SIZE = 1 << 20;
+
+  private List lines = new ArrayList();
+  private int size;
+  private boolean truncated;
+
+  /** Appends a single line to this trace */
+  public void trace(String line) {
+    if (truncated || size + line.length() + 1 > MAX_SIZE) {
+      truncated = true;
+      return;
+    }
+    lines.add(line);
+    size += line.length() + 1;
+  }
+
+  /** Returns a List of the String lines traced so far */
+  public List getLines() {
+    return lines;
+  }
+
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  /** Writes the complete trace to this class's log category as a single
+   * message. This is done at ERROR level, as is the dump of a debug view
+   * tree, so that the trace appears whatever level is configured. */
+  public void emit(String title) {
+    if (lines.isEmpty()) return;
+    CharWrap message = new CharWrap(size + title.length() + 64);
+    message.append(title).append('\n');
+    for (int i = 0; i < lines.size(); ++i) {
+      message.append((String) lines.get(i)).append('\n');
+    }
+    if (truncated) {
+      message.append("(trace truncated at " + MAX_SIZE + " characters)");
+    }
+    log.log(Level.ERROR, message.toString());
+  }
+}
@@ -27,6 +27,7 @@ import uk.org.ponder.rsf.template.XMLLump;
 import uk.org.ponder.rsf.template.XMLLumpComparator;
 import uk.org.ponder.rsf.template.XMLLumpList;
 import uk.org.ponder.rsf.template.XMLLumpMMap;
+import uk.org.ponder.rsf.template.XMLRenderPlan;
 import uk.org.ponder.rsf.template.XMLViewTemplate;
 import uk.org.ponder.rsf.view.View;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
@@ -48,8 +49,11 @@ public class RenderUtil {
     // for (; start < limit; ++ start) {
     // target.print(lumps[start].text);
     // }
-    target.write(lumps[start].parent.buffer, lumps[start].start,
-        lumps[limit].start - lumps[start].start);
+    XMLViewTemplate template = lumps[start].parent;
+    if (!template.getRenderPlan().writeEncoded(start, limit, target)) {
+      target.write(template.buffer, lumps[start].start, lumps[limit].start
+          - lumps[start].start);
+    }
     return limit;
   }
 
@@ -61,28 +65,38 @@ public class RenderUtil {
    * main scanning loop runs until we reduce BELOW RECURSION LEVEL OF PARENT,
    * i.e. we output its closing tag and then return. The glue loop requires that
    * we DO NOT OUTPUT THE CLOSING TAG OF PARENT because we may have some number
-   * of repetitive components still to render.
+   * of repetitive components still to render. Outside a leaf, the extent of
+   * the static run is read from the template's compiled render plan, which
+   * will also supply it pre-encoded if the target accepts bytes.
    */
   public static int dumpScan(XMLLump[] lumps, int renderindex, int basedepth,
       PrintOutputStream target, boolean closeparent, boolean insideleaf) {
+    int startindex = renderindex;
     int start = lumps[renderindex].start;
-    char[] buffer = lumps[renderindex].parent.buffer;
-    while (true) {
-      if (renderindex == lumps.length)
-        break;
-      XMLLump lump = lumps[renderindex];
-      if (lump.nestingdepth < basedepth)
-        break;
-      if (lump.rsfID != null) {
-        if (!insideleaf) break;
-        if (insideleaf && lump.nestingdepth > basedepth + (closeparent?0:1) ) {
-          Logger.log.warn("Error in component tree - leaf component found to contain further components - at " +
-              lump.toString());
+    XMLViewTemplate template = lumps[renderindex].parent;
+    char[] buffer = template.buffer;
+    XMLRenderPlan renderplan = template.getRenderPlan();
+    if (!insideleaf) {
+      renderindex = renderplan.scanStop(lumps, renderindex, basedepth);
+    }
+    else {
+      while (true) {
+        if (renderindex == lumps.length)
+          break;
+        XMLLump lump = lumps[renderindex];
+        if (lump.nestingdepth < basedepth)
+          break;
+        if (lump.rsfID != null) {
+          if (!insideleaf) break;
+          if (insideleaf && lump.nestingdepth > basedepth + (closeparent?0:1) ) {
+            Logger.log.warn("Error in component tree - leaf component found to contain further components - at " +
+                lump.toString());
+          }
+          else break;
         }
-        else break;
+        // target.print(lump.text);
+        ++renderindex;
       }
-      // target.print(lump.text);
-      ++renderindex;
     }
     // ASSUMPTIONS: close tags are ONE LUMP
     if (!closeparent && (renderindex == lumps.length || lumps[renderindex].rsfID == null))
@@ -90,7 +104,9 @@ public class RenderUtil {
     int limit = (renderindex == lumps.length ? buffer.length
         : lumps[renderindex].start);
 
-    target.write(buffer, start, limit - start);
+    if (!renderplan.writeEncoded(startindex, renderindex, target)) {
+      target.write(buffer, start, limit - start);
+    }
     return renderindex;
   }
 
@@ -200,16 +216,23 @@ public class RenderUtil {
     }
     else {
       CollectingSCR collector = (CollectingSCR) scr;
-      String[] tocollect = collector.getCollectingNames();
-      XMLLumpList collected = new XMLLumpList();
-      for (int i = 0; i < tocollect.length; ++i) {
-        XMLLumpList thiscollect = collecteds.headsForID(tocollect[i]);
-        if (thiscollect != null) {
-          collected.addAll(thiscollect);
-        }
+      return collector.render(getCollected(collector, collecteds), trc);
+    }
+  }
+
+  /** Returns all lumps in the supplied map which were contributed under any
+   * of the names collected by the supplied CollectingSCR. */
+  public static XMLLumpList getCollected(CollectingSCR collector,
+      XMLLumpMMap collecteds) {
+    String[] tocollect = collector.getCollectingNames();
+    XMLLumpList collected = new XMLLumpList();
+    for (int i = 0; i < tocollect.length; ++i) {
+      XMLLumpList thiscollect = collecteds.headsForID(tocollect[i]);
+      if (thiscollect != null) {
+        collected.addAll(thiscollect);
       }
-      return collector.render(collected, trc);
     }
+    return collected;
   }
 
   public static boolean isFirstSCR(XMLLump lump, String scrname) {
@@ -11,27 +11,38 @@ import java.util.Map;
 import java.util.Set;
 
 import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.components.ComponentList;
 import uk.org.ponder.rsf.components.UIBranchContainer;
 import uk.org.ponder.rsf.components.UIComponent;
 import uk.org.ponder.rsf.components.UIContainer;
 import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.renderer.cache.BranchFragmentCache;
 import uk.org.ponder.rsf.renderer.decorator.DecoratorManager;
+import uk.org.ponder.rsf.renderer.html.HeadCollectingSCR;
 import uk.org.ponder.rsf.renderer.message.MessageFlyweight;
 import uk.org.ponder.rsf.renderer.message.MessageRenderer;
 import uk.org.ponder.rsf.renderer.message.MessageTargetMap;
 import uk.org.ponder.rsf.renderer.message.MessageTargetter;
+import uk.org.ponder.rsf.renderer.scr.StaticComponentRenderer;
+import uk.org.ponder.rsf.renderer.scr.StaticRendererCollection;
 import uk.org.ponder.rsf.template.XMLCompositeViewTemplate;
 import uk.org.ponder.rsf.template.XMLLump;
 import uk.org.ponder.rsf.template.XMLLumpList;
 import uk.org.ponder.rsf.template.XMLLumpMMap;
+import uk.org.ponder.rsf.template.XMLRenderPlan;
+import uk.org.ponder.rsf.template.XMLRenderSlot;
 import uk.org.ponder.rsf.template.XMLViewTemplate;
 import uk.org.ponder.rsf.util.RSFUtil;
 import uk.org.ponder.rsf.util.SplitID;
 import uk.org.ponder.rsf.view.View;
 import uk.org.ponder.rsf.view.ViewTemplate;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.streamutil.write.POSMulticaster;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.StringPOS;
 import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.util.Logger;
+import uk.org.ponder.xml.FlatAttributeMap;
 import uk.org.ponder.xml.XMLUtil;
 import uk.org.ponder.xml.XMLWriter;
 
@@ -39,6 +50,32 @@ import uk.org.ponder.xml.XMLWriter;
  * Encapsulates the request-specific process of rendering a view - a
  * request-scope bean containing the implementation of the IKAT rendering
  * algorithm.
+ * <p>
+ * In streaming mode, {@link #renderHead(PrintOutputStream)} may be called as
+ * soon as the template is resolved, before the view has been produced, to
+ * write and flush the document up to and including the material collected
+ * into its &lt;head&gt;. The output is then flushed again after each branch
+ * container rendered no deeper in the template than the configured flush
+ * depth.
+ * <p>
+ * If a branch is set via {@link #setRenderBranch(String)}, only the markup for
+ * that single branch container is rendered, without the rest of its
+ * template.
+ * <p>
+ * Branch containers decorated with a
+ * {@link uk.org.ponder.rsf.components.decorators.UICacheDecorator} are served
+ * from, or rendered into, the {@link BranchFragmentCache} if one is set. The
+ * markup of a branch is not cached if rendering it assigned any XML ids, or
+ * if it contains branches from other templates which contribute to the head,
+ * since neither of these could be reproduced on a cache hit.
+ * <p>
+ * The working structures of the rendering, and the attribute maps for each
+ * tag, are drawn from a pooled {@link RenderScratch} and reset once it is
+ * complete.
+ * <p>
+ * In debug render mode, or for a view marked for debug, branch resolution is
+ * traced into a request-local {@link RenderTrace}, which is rendered into the
+ * markup or logged respectively.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
@@ -54,9 +91,11 @@ public class ViewRender {
 
   // a map of UIBranchContainer to XMLLump
   private Map branchmap;
-  private XMLLumpMMap collected = new XMLLumpMMap();
-
-  private Map idrewritemap = new HashMap();
+  // material which a composite template must always collect
+  private XMLLumpMMap mustcollect;
+  // the following are drawn from a pooled RenderScratch during render
+  private XMLLumpMMap collected;
+  private Map idrewritemap;
   
   private MessageFlyweight messageFlyweight;
   private XMLLump messagelump;
@@ -74,12 +113,24 @@ public class ViewRender {
   private boolean debugrender;
   private RenderSystemContext rsc;
 
+  private StaticRendererCollection scrc;
+  private boolean streaming;
+  private int flushdepth;
+  // the head collector and its lump, if the head was streamed by renderHead
+  private HeadCollectingSCR headscr;
+  private XMLLump headlump;
+  // the URLs of the linked resources already streamed within the head
+  private Set headused;
+  
+  private String renderbranch;
+  private BranchFragmentCache fragmentcache;
+
   public void setViewTemplate(ViewTemplate viewtemplateo) {
     if (viewtemplateo instanceof XMLCompositeViewTemplate) {
       XMLCompositeViewTemplate viewtemplate = (XMLCompositeViewTemplate) viewtemplateo;
       roott = viewtemplate.roottemplate;
       globalmap = viewtemplate.globalmap;
-      collected.aggregate(viewtemplate.mustcollectmap);
+      mustcollect = viewtemplate.mustcollectmap;
     }
     else {
       roott = (XMLViewTemplate) viewtemplateo;
@@ -125,15 +176,64 @@ public class ViewRender {
     this.debugrender = debugrender;
   }
 
-  private void collectContributions() {
+  public void setStaticRenderers(StaticRendererCollection scrc) {
+    this.scrc = scrc;
+  }
+
+  /**
+   * Sets the full ID of a single UIBranchContainer, to which rendering will be
+   * restricted, or <code>null</code> to render the entire view.
+   */
+  public void setRenderBranch(String renderbranch) {
+    this.renderbranch = renderbranch;
+  }
+
+  public void setBranchFragmentCache(BranchFragmentCache fragmentcache) {
+    this.fragmentcache = fragmentcache;
+  }
+
+  /** Set to <code>true</code> to render in streaming mode */
+  public void setStreamingRender(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  private void debugTrace(RenderTrace trace) {
+    renderer.renderDebugMessage(rsc, "Branch resolution trace:");
+    List lines = trace.getLines();
+    for (int i = 0; i < lines.size(); ++i) {
+      renderer.renderDebugMessage(rsc, (String) lines.get(i));
+    }
+    if (trace.isTruncated()) {
+      renderer.renderDebugMessage(rsc, "(trace truncated)");
+    }
+    renderer.renderDebugMessage(rsc, "");
+  }
+
+  /**
+   * In streaming mode, the output will be flushed after rendering any branch
+   * container whose template tag is at this nesting depth or shallower.
+   * Negative values disable flushing at branches.
+   */
+  public void setStreamingFlushDepth(int flushdepth) {
+    this.flushdepth = flushdepth;
+  }
+
+  // Aggregates the contributions of all templates reached by the branch
+  // resolution, returning those which were not already streamed by renderHead
+  private XMLLumpMMap collectContributions() {
     Set seenset = new HashSet();
+    XMLLumpMMap late = new XMLLumpMMap();
     for (Iterator lumpit = branchmap.values().iterator(); lumpit.hasNext();) {
       XMLLump headlump = (XMLLump) lumpit.next();
       if (!seenset.contains(headlump.parent)) {
         collected.aggregate(headlump.parent.collectmap);
+        if (headlump.parent != roott) {
+          late.aggregate(headlump.parent.collectmap);
+        }
         seenset.add(headlump.parent);
       }
     }
+    return late;
   }
 
   private void debugGlobalTargets() {
@@ -152,36 +252,216 @@ public class ViewRender {
     renderer.renderDebugMessage(rsc, "");
   }
 
+  /**
+   * In streaming mode, writes the document from its start up to and including
+   * the opening of its &lt;head&gt;, together with all the collected material
+   * which is known before the view has been produced, and flushes it. This is
+   * only possible when the &lt;head&gt; is the first dynamic tag in the root
+   * template. Material contributed by further templates which are only
+   * reached by the view's branches will be added to the head by
+   * {@link #render(PrintOutputStream)}, which will resume from the point
+   * reached here.
+   * 
+   * @return <code>true</code> if the head was written.
+   */
+  public boolean renderHead(PrintOutputStream pos) {
+    if (!streaming || renderbranch != null || scrc == null) {
+      return false;
+    }
+    XMLLump[] lumps = roott.lumps;
+    int basedepth = roott.rootlump.nestingdepth;
+    XMLRenderPlan renderplan = roott.getRenderPlan();
+    int headindex = renderplan.scanStop(lumps, roott.roottagindex, basedepth);
+    if (headindex == lumps.length) {
+      return false;
+    }
+    XMLRenderSlot slot = renderplan.slots[headindex];
+    if (slot == null || slot.iselide || slot.scrname == null) {
+      return false;
+    }
+    StaticComponentRenderer scr = scrc.getSCR(slot.scrname);
+    if (!(scr instanceof HeadCollectingSCR)) {
+      return false;
+    }
+    headscr = (HeadCollectingSCR) scr;
+    headlump = lumps[headindex];
+    headused = new HashSet();
+
+    String declaration = contenttypeinfo.get().declaration;
+    if (declaration != null)
+      pos.print(declaration);
+    this.pos = pos;
+    this.xmlw = new XMLWriter(pos);
+    RenderUtil.dumpScan(lumps, roott.roottagindex, basedepth, pos, true, false);
+    RenderUtil.dumpTillLump(lumps, headindex,
+        headlump.open_end.lumpindex + 1, pos);
+    XMLLumpMMap early = new XMLLumpMMap();
+    if (mustcollect != null) {
+      early.aggregate(mustcollect);
+    }
+    early.aggregate(roott.collectmap);
+    renderCollectedHead(early);
+    pos.flush();
+    return true;
+  }
+
+  private void renderCollectedHead(XMLLumpMMap contributions) {
+    TagRenderContext trc = new TagRenderContext(new HashMap(), headlump,
+        headlump.open_end, headlump.close_tag, pos, xmlw,
+        headlump.open_end.lumpindex + 1, false);
+    headscr.renderCollected(RenderUtil.getCollected(headscr, contributions),
+        headused, trc);
+  }
+
   public void render(PrintOutputStream pos) {
-    IDassigner = new IDAssigner(debugrender ? ContentTypeInfo.ID_FORCE
+    RenderScratch scratch = RenderScratch.acquire();
+    try {
+      render(pos, scratch);
+    }
+    finally {
+      scratch.release();
+      rsc = null;
+      IDassigner = null;
+      collected = null;
+      idrewritemap = null;
+    }
+  }
+
+  private void render(PrintOutputStream pos, RenderScratch scratch) {
+    IDassigner = scratch.IDassigner;
+    IDassigner.reset(debugrender ? ContentTypeInfo.ID_FORCE
         : contenttypeinfo.IDStrategy);
+    collected = scratch.collected;
+    if (mustcollect != null) {
+      collected.aggregate(mustcollect);
+    }
+    idrewritemap = scratch.idrewritemap;
     // Add and remove the flyweight immediately around "resolveBranches" - instances of it
     // will be dynamically "invented" around the tree wherever there are messages
     messageFlyweight = new MessageFlyweight(view.viewroot);
+    RenderTrace trace = debugrender || view.viewroot.debug ? new RenderTrace()
+        : null;
     branchmap = BranchResolver.resolveBranches(globalmap, view.viewroot,
-        roott.rootlump, idrewritemap);
+        roott.rootlump, idrewritemap, trace);
     view.viewroot.remove(messageFlyweight.rsfMessages);    
     messagelump = (XMLLump) branchmap.get(messageFlyweight.rsfMessages);
     
-    collectContributions();
+    XMLLumpMMap late = collectContributions();
     messagetargets = MessageTargetter.targetMessages(branchmap, view,
         messagelist, globalmessagetarget);
-    String declaration = contenttypeinfo.get().declaration;
-    if (declaration != null)
-      pos.print(declaration);
-    this.pos = pos;
-    this.xmlw = new XMLWriter(pos);
-    rsc = new RenderSystemContext(debugrender, view, pos, xmlw, IDassigner,
-        collected, idrewritemap);
+    if (headlump == null && renderbranch == null) {
+      String declaration = contenttypeinfo.get().declaration;
+      if (declaration != null)
+        pos.print(declaration);
+    }
+    if (headlump == null) {
+      this.pos = pos;
+      this.xmlw = new XMLWriter(pos);
+    }
+    rsc = scratch.rsc;
+    rsc.debugrender = debugrender;
+    rsc.view = view;
+    rsc.pos = pos;
+    rsc.xmlw = xmlw;
     rendereddeadletters = false;
+    if (headlump != null) {
+      // the head was streamed by renderHead - complete it, and resume
+      renderCollectedHead(late);
+    }
     if (debugrender) {
       debugGlobalTargets();
+      debugTrace(trace);
     }
-    renderRecurse(view.viewroot, roott.rootlump,
-        roott.lumps[roott.roottagindex]);
+    if (view.viewroot.debug) {
+      ViewParameters viewparams = view.viewroot.viewParameters;
+      trace.emit("Branch resolution for view"
+          + (viewparams == null ? "" : " " + viewparams.viewID) + ":");
+    }
+    if (renderbranch != null) {
+      renderBranch();
+      return;
+    }
+    XMLLump startlump = headlump == null ? roott.lumps[roott.roottagindex]
+        : roott.lumps[headlump.open_end.lumpindex + 1];
+    renderRecurse(view.viewroot, roott.rootlump, startlump);
+  }
+
+  // Renders only the requested branch, from its opening tag to its close
+  private void renderBranch() {
+    UIComponent branch = view.getComponent(renderbranch);
+    XMLLump targetlump = branch instanceof UIBranchContainer ? (XMLLump) branchmap
+        .get(branch)
+        : null;
+    if (targetlump == null) {
+      Logger.log.info("No branch container with full ID " + renderbranch
+          + " was found to render in the view");
+      return;
+    }
+    renderContainer((UIContainer) branch, targetlump);
   }
 
   private void renderContainer(UIContainer child, XMLLump targetlump) {
+    if (fragmentcache != null && !debugrender
+        && child instanceof UIBranchContainer) {
+      UIBranchContainer branch = (UIBranchContainer) child;
+      String fragment = fragmentcache.getFragment(branch);
+      if (fragment != null) {
+        pos.print(fragment);
+        return;
+      }
+      if (fragmentcache.isCacheable(branch)) {
+        int emitted = IDassigner.getEmittedCount();
+        String markup = renderCapturing(child, targetlump);
+        if (IDassigner.getEmittedCount() == emitted
+            && !contributesToHead(branch, targetlump.parent)) {
+          fragmentcache.putFragment(branch, markup);
+        }
+        return;
+      }
+    }
+    renderContainerDirect(child, targetlump);
+  }
+
+  // Determines whether any branch within the supplied one was resolved from
+  // another template which contributes to the head. These contributions
+  // would be lost if the branch was not produced because it was cached.
+  private boolean contributesToHead(UIContainer container,
+      XMLViewTemplate template) {
+    ComponentList children = container.flattenChildren();
+    for (int i = 0; i < children.size(); ++i) {
+      UIComponent child = children.componentAt(i);
+      if (child instanceof UIContainer) {
+        XMLLump lump = (XMLLump) branchmap.get(child);
+        if (lump != null && lump.parent != template
+            && lump.parent.collectmap.iterator().hasNext()
+            || contributesToHead((UIContainer) child, template)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Renders the container, returning a copy of the markup written for it
+  private String renderCapturing(UIContainer child, XMLLump targetlump) {
+    PrintOutputStream oldpos = pos;
+    XMLWriter oldxmlw = xmlw;
+    StringPOS capture = new StringPOS();
+    POSMulticaster multicaster = new POSMulticaster(oldpos);
+    multicaster.addTarget(capture);
+    pos = rsc.pos = multicaster;
+    xmlw = rsc.xmlw = new XMLWriter(multicaster);
+    try {
+      renderContainerDirect(child, targetlump);
+    }
+    finally {
+      pos = rsc.pos = oldpos;
+      xmlw = rsc.xmlw = oldxmlw;
+    }
+    return capture.toString();
+  }
+
+  private void renderContainerDirect(UIContainer child, XMLLump targetlump) {
     // may have jumped template file
     XMLViewTemplate t2 = targetlump.parent;
     XMLLump firstchild = t2.lumps[targetlump.open_end.lumpindex + 1];
@@ -216,21 +496,18 @@ public class ViewRender {
       if (lump.nestingdepth < basedepth)
         break;
 
-      String id = lump.rsfID;
-      if (id == null) {
+      XMLRenderSlot slot = tl.getRenderPlan().slots[renderindex];
+      if (slot == null) {
         throw new IllegalArgumentException("Fatal internal error during rendering - no rsf:id found on stopping tag " + lump);
       }
-      if (id.startsWith(XMLLump.ELISION_PREFIX)) {
-        id = id.substring(XMLLump.ELISION_PREFIX.length());
-      }
-      boolean ismessagefor = id.startsWith(XMLLump.FORID_PREFIX);
+      String id = slot.id;
      
-      if (!ismessagefor && SplitID.isSplit(id)) {
+      if (slot.type == XMLRenderSlot.BRANCH) {
         // we have entered a repetitive domain, by diagnosis of the template.
         // Seek in the component tree for the child list that must be here
         // at this component, and process them in order, looking them up in
         // the forward map, which must ALSO be here.
-        String prefix = SplitID.getPrefix(id); 
+        String prefix = slot.prefix;
         List children = RenderUtil.fetchComponents(basecontainer, prefix);
         // these are all children with the same prefix, which will be rendered
         // synchronously.
@@ -249,6 +526,9 @@ public class ViewRender {
                   renderComment("Branch returned for " + child.getFullID()
                       + " to " + lump + " from " + targetlump);
                 }
+                if (streaming && targetlump.nestingdepth <= flushdepth) {
+                  pos.flush();
+                }
               }
               else {
                 if (debugrender) {
@@ -319,8 +599,7 @@ public class ViewRender {
         // at this point, magically locate the "postamble" from lump, and
         // reset the index.
 
-        XMLLump finallump = lump.uplump.getFinal(prefix); 
-          //parentlump.downmap.getFinal(prefix);
+        XMLLump finallump = slot.finallump;
         XMLLump closefinal = finallump.close_tag;
         renderindex = closefinal.lumpindex + 1;
         if (debugrender) {
@@ -329,7 +608,7 @@ public class ViewRender {
               + " to " + closefinal.toString());
         }
       }
-      else if (ismessagefor) {
+      else if (slot.type == XMLRenderSlot.MESSAGE_FOR) {
         TargettedMessageList messages = messagetargets.getMessages(lump);
         if (messages == null)
           messages = new TargettedMessageList();
@@ -360,13 +639,10 @@ public class ViewRender {
         // no colon - continue template-driven.
         // it is a single, irrepitable component - just render it, and skip
         // on, or skip completely if there is no peer in the component tree.
-        UIComponent component = null;
-        if (id != null) {
-          if (debugrender) {
-            rendered.add(id);
-          }
-          component = fetchComponent(basecontainer, id, lump);
+        if (debugrender) {
+          rendered.add(id);
         }
+        UIComponent component = fetchComponent(basecontainer, slot);
         // Form rendering is now subject to "fairly normal" branch rendering logic
         // That is, a UIContainer may now also be a leaf
         if (component instanceof UIContainer) {
@@ -404,13 +680,12 @@ public class ViewRender {
   }
 
   private UIComponent fetchComponent(UIContainer basecontainer,
-      String id, XMLLump lump) {
-    if (id.startsWith(XMLLump.MSG_PREFIX)) {
-      String key = id.substring(XMLLump.MSG_PREFIX.length());
-      return messagerenderer.renderMessage(basecontainer, 
-          (String) lump.attributemap.get("id"), key);
+      XMLRenderSlot slot) {
+    if (slot.type == XMLRenderSlot.MESSAGE) {
+      return messagerenderer.renderMessage(basecontainer, slot.messageid,
+          slot.messagekey);
     }
-    return RenderUtil.fetchComponent(basecontainer, id);
+    return RenderUtil.fetchComponent(basecontainer, slot.id);
   }
 
   private XMLLump findChild(XMLLump sourcescope, UIComponent child) {
@@ -433,16 +708,22 @@ public class ViewRender {
   }
 
   private void dumpBranchHead(UIBranchContainer branch, XMLLump targetlump) {
-    HashMap attrcopy = new HashMap();
-    attrcopy.putAll(targetlump.attributemap);
-    IDassigner.adjustForID(attrcopy, branch);
-    decoratormanager.decorate(branch.decorators, targetlump.getTag(), attrcopy);
-    // TODO: normalise this silly space business
-    pos
-        .write(targetlump.parent.buffer, targetlump.start,
-            targetlump.length - 1);
-    XMLUtil.dumpAttributes(attrcopy, xmlw);
-    pos.print(">");
+    XMLRenderSlot slot = targetlump.parent.getRenderPlan().slots[targetlump.lumpindex];
+    FlatAttributeMap attrcopy = rsc.borrowAttributes();
+    try {
+      attrcopy.setAll(slot.attrnames, slot.attrvalues);
+      IDassigner.adjustForID(attrcopy, branch);
+      decoratormanager.decorate(branch.decorators, targetlump.getTag(), attrcopy);
+      // TODO: normalise this silly space business
+      pos
+          .write(targetlump.parent.buffer, targetlump.start,
+              targetlump.length - 1);
+      XMLUtil.dumpAttributes(attrcopy, xmlw);
+      pos.print(">");
+    }
+    finally {
+      rsc.releaseAttributes(attrcopy);
+    }
   }
 
   public static String debugLump(XMLLump debug) {
@@ -0,0 +1,153 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer.cache;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import uk.org.ponder.beanutil.BeanGetter;
+import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.decorators.DecoratorList;
+import uk.org.ponder.rsf.components.decorators.UICacheDecorator;
+import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsURLMemo;
+import uk.org.ponder.stringutil.CharWrap;
+
+/**
+ * The request scope view of the {@link FragmentCache}, which determines the
+ * cache keys for branches decorated with a {@link UICacheDecorator}. Caching
+ * is suppressed entirely for any request which has messages to render, since
+ * these may be targetted at components within a cached branch.
+ * <p>
+ * Once a producer has been told by {@link #isCached(UIBranchContainer)} that
+ * a branch is cached, the markup is retained for the rest of the request, so
+ * that the branch will still be rendered correctly should it expire from the
+ * shared cache in the meantime.
+ * <p>
+ * The ViewRender will not store the markup of a branch whose rendering
+ * assigned XML ids or depended on head contributions from other templates,
+ * so that such a branch is always reported as uncached, and produced.
+ */
+
+public class BranchFragmentCache {
+  private FragmentCache fragmentcache;
+  private ViewParameters viewparams;
+  private ViewParamsURLMemo urlmemo;
+  private Locale locale;
+  private BeanGetter beangetter;
+  private TargettedMessageList messages;
+  private ContentTypeInfo contenttypeinfo;
+
+  // map of UIBranchContainer to key, and to any markup promised to a producer
+  private Map keys = new HashMap();
+  private Map pinned = new HashMap();
+
+  public void setFragmentCache(FragmentCache fragmentcache) {
+    this.fragmentcache = fragmentcache;
+  }
+
+  public void setViewParameters(ViewParameters viewparams) {
+    this.viewparams = viewparams;
+  }
+
+  public void setURLMemo(ViewParamsURLMemo urlmemo) {
+    this.urlmemo = urlmemo;
+  }
+
+  public void setLocale(Locale locale) {
+    this.locale = locale;
+  }
+
+  public void setBeanGetter(BeanGetter beangetter) {
+    this.beangetter = beangetter;
+  }
+
+  public void setTargettedMessageList(TargettedMessageList messages) {
+    this.messages = messages;
+  }
+
+  public void setContentTypeInfo(ContentTypeInfo contenttypeinfo) {
+    this.contenttypeinfo = contenttypeinfo;
+  }
+
+  /** Returns the UICacheDecorator attached to the supplied branch, or
+   * <code>null</code> if there is none */
+  public static UICacheDecorator getCacheDecorator(UIBranchContainer branch) {
+    DecoratorList decorators = branch.decorators;
+    if (decorators != null) {
+      for (int i = 0; i < decorators.size(); ++i) {
+        if (decorators.decoratorAt(i) instanceof UICacheDecorator) {
+          return (UICacheDecorator) decorators.decoratorAt(i);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Determines whether the markup for the supplied branch may be cached in
+   * this request */
+  public boolean isCacheable(UIBranchContainer branch) {
+    return messages.size() == 0 && getCacheDecorator(branch) != null;
+  }
+
+  /**
+   * Determines whether markup for the supplied branch, which must already
+   * have been decorated and added to the component tree, is available. If
+   * so, it is guaranteed to be used when the branch is rendered, and so the
+   * producer need not fill the branch.
+   */
+  public boolean isCached(UIBranchContainer branch) {
+    return getFragment(branch) != null;
+  }
+
+  /**
+   * Returns any markup available for the supplied branch, or
+   * <code>null</code> if it must be rendered.
+   */
+  public String getFragment(UIBranchContainer branch) {
+    String togo = (String) pinned.get(branch);
+    if (togo == null && isCacheable(branch)) {
+      togo = fragmentcache.get(getKey(branch));
+      if (togo != null) {
+        pinned.put(branch, togo);
+      }
+    }
+    return togo;
+  }
+
+  /** Stores newly rendered markup for the supplied branch */
+  public void putFragment(UIBranchContainer branch, String markup) {
+    if (isCacheable(branch)) {
+      fragmentcache.put(getKey(branch), markup, getCacheDecorator(branch).ttl);
+    }
+  }
+
+  private String getKey(UIBranchContainer branch) {
+    String togo = (String) keys.get(branch);
+    if (togo == null) {
+      UICacheDecorator decorator = getCacheDecorator(branch);
+      CharWrap key = new CharWrap(128);
+      key.append(decorator.key).append('\n').append(branch.getFullID())
+          .append('\n').append(contenttypeinfo.get().typename).append('\n')
+          .append(decorator.varyByViewParameters ? urlmemo
+              .toHTTPRequest(viewparams)
+              : viewparams.viewID).append('\n')
+          .append(locale == null ? ""
+              : locale.toString());
+      if (decorator.varyByPaths != null) {
+        for (int i = 0; i < decorator.varyByPaths.length; ++i) {
+          String path = decorator.varyByPaths[i];
+          key.append('\n').append(path).append('=').append(
+              String.valueOf(beangetter.getBean(path)));
+        }
+      }
+      togo = key.toString();
+      keys.put(branch, togo);
+    }
+    return togo;
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer.cache;
+
+/**
+ * A complete rendered response held in the {@link ResponseCache}, together
+ * with its gzip-encoded form.
+ */
+
+public class CachedResponse {
+  /** The ETag header value for the identity encoded body, including quotes.
+   * The ETag of the gzip encoded body is derived from it. */
+  public String etag;
+  /** Any version key reported by the view, or <code>null</code> */
+  public String versionkey;
+  public String contenttype;
+  public byte[] body;
+  /** The body in gzip encoding, or <code>null</code> if it does not compress */
+  public byte[] gzipped;
+  public long expiry;
+
+  /** The number of bytes of memory occupied by the response bodies */
+  public int getSize() {
+    return body.length + (gzipped == null ? 0 : gzipped.length);
+  }
+}
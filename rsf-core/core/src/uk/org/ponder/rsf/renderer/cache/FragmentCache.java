@@ -0,0 +1,168 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An application scope, in-memory cache of rendered markup fragments, keyed
+ * by String. Each fragment expires after its own time to live, and once the
+ * total size of cached markup exceeds the configured maximum, the least
+ * recently used fragments are evicted until it falls to three quarters of it.
+ * <p>
+ * Fragments are held in a ConcurrentHashMap, each stamped with the time of its
+ * last use, so that lookups do not contend with each other. Eviction is
+ * performed by a single thread at a time, whilst others continue to use the
+ * cache.
+ */
+
+public class FragmentCache {
+  /** The default maximum size of cached markup, in characters */
+  public static final int DEFAULT_MAX_SIZE = 1 << 21;
+
+  private static class Fragment {
+    String markup;
+    long expiry;
+    volatile long lastused;
+
+    Fragment(String markup, long expiry, long lastused) {
+      this.markup = markup;
+      this.expiry = expiry;
+      this.lastused = lastused;
+    }
+  }
+
+  // a fragment considered for eviction, with its time of use fixed whilst
+  // the candidates are sorted
+  private static class Candidate {
+    String key;
+    Fragment fragment;
+    long lastused;
+
+    Candidate(String key, Fragment fragment) {
+      this.key = key;
+      this.fragment = fragment;
+      this.lastused = fragment.lastused;
+    }
+  }
+
+  private static final Comparator LEAST_RECENT = new Comparator() {
+    public int compare(Object o1, Object o2) {
+      long used1 = ((Candidate) o1).lastused;
+      long used2 = ((Candidate) o2).lastused;
+      return used1 < used2 ? -1 : (used1 == used2 ? 0 : 1);
+    }
+  };
+
+  // a map of String key to Fragment
+  private ConcurrentHashMap fragments = new ConcurrentHashMap();
+  private AtomicLong size = new AtomicLong();
+  // a logical clock ordering uses of fragments
+  private AtomicLong clock = new AtomicLong();
+  private ReentrantLock evictionlock = new ReentrantLock();
+  private long maxsize = DEFAULT_MAX_SIZE;
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+  private AtomicLong evictions = new AtomicLong();
+
+  /** Sets the maximum total size of cached markup, in characters */
+  public void setMaxSize(long maxsize) {
+    this.maxsize = maxsize;
+  }
+
+  /** Returns the unexpired markup stored for the supplied key, or 
+   * <code>null</code> if there is none */
+  public String get(String key) {
+    Fragment fragment = (Fragment) fragments.get(key);
+    if (fragment != null && fragment.expiry <= System.currentTimeMillis()) {
+      remove(key, fragment);
+      fragment = null;
+    }
+    if (fragment == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    fragment.lastused = clock.incrementAndGet();
+    hits.incrementAndGet();
+    return fragment.markup;
+  }
+
+  /** Stores markup for the supplied key, which will expire after 
+   * <code>ttl</code> milliseconds */
+  public void put(String key, String markup, long ttl) {
+    if (ttl <= 0 || markup.length() > maxsize) return;
+    Fragment fragment = new Fragment(markup, System.currentTimeMillis() + ttl,
+        clock.incrementAndGet());
+    Fragment old = (Fragment) fragments.put(key, fragment);
+    size.addAndGet(markup.length()
+        - (old == null ? 0 : old.markup.length()));
+    if (size.get() > maxsize && evictionlock.tryLock()) {
+      try {
+        evict();
+      }
+      finally {
+        evictionlock.unlock();
+      }
+    }
+  }
+
+  private void remove(String key, Fragment fragment) {
+    if (fragments.remove(key, fragment)) {
+      size.addAndGet(-fragment.markup.length());
+    }
+  }
+
+  // Removes the least recently used fragments until the size falls to the
+  // low water mark, so that eviction is not repeated on every put
+  private void evict() {
+    List candidates = new ArrayList();
+    for (Iterator entryit = fragments.entrySet().iterator(); entryit
+        .hasNext();) {
+      Map.Entry entry = (Map.Entry) entryit.next();
+      candidates.add(new Candidate((String) entry.getKey(),
+          (Fragment) entry.getValue()));
+    }
+    Collections.sort(candidates, LEAST_RECENT);
+    long target = maxsize - maxsize / 4;
+    for (int i = 0; size.get() > target && i < candidates.size(); ++i) {
+      Candidate candidate = (Candidate) candidates.get(i);
+      remove(candidate.key, candidate.fragment);
+      evictions.incrementAndGet();
+    }
+  }
+
+  public void clear() {
+    for (Iterator entryit = fragments.entrySet().iterator(); entryit
+        .hasNext();) {
+      Map.Entry entry = (Map.Entry) entryit.next();
+      remove((String) entry.getKey(), (Fragment) entry.getValue());
+    }
+  }
+
+  /** The total size of cached markup, in characters */
+  public long getSize() {
+    return size.get();
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.renderer.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An application scope, in-memory cache of complete rendered responses,
+ * keyed by String. Responses expire individually, and the least recently
+ * used are evicted once the total size of cached bodies exceeds the
+ * configured maximum.
+ */
+
+public class ResponseCache {
+  /** The default maximum size of cached bodies, in bytes */
+  public static final long DEFAULT_MAX_SIZE = 1 << 24;
+
+  // a map of String key to CachedResponse, held in access order
+  private LinkedHashMap responses = new LinkedHashMap(16, 0.75f, true);
+  private long size;
+  private long maxsize = DEFAULT_MAX_SIZE;
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+  private AtomicLong evictions = new AtomicLong();
+
+  /** Sets the maximum total size of cached bodies, in bytes */
+  public void setMaxSize(long maxsize) {
+    this.maxsize = maxsize;
+  }
+
+  /** Returns the unexpired response stored for the supplied key, or 
+   * <code>null</code> if there is none */
+  public CachedResponse get(String key) {
+    long now = System.currentTimeMillis();
+    synchronized (responses) {
+      CachedResponse response = (CachedResponse) responses.get(key);
+      if (response != null && response.expiry <= now) {
+        responses.remove(key);
+        size -= response.getSize();
+        response = null;
+      }
+      (response == null ? misses : hits).incrementAndGet();
+      return response;
+    }
+  }
+
+  public void put(String key, CachedResponse response) {
+    if (response.getSize() > maxsize) return;
+    synchronized (responses) {
+      CachedResponse old = (CachedResponse) responses.put(key, response);
+      if (old != null) {
+        size -= old.getSize();
+      }
+      size += response.getSize();
+      for (Iterator respit = responses.values().iterator(); size > maxsize
+          && respit.hasNext();) {
+        CachedResponse eldest = (CachedResponse) respit.next();
+        respit.remove();
+        size -= eldest.getSize();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (responses) {
+      responses.clear();
+      size = 0;
+    }
+  }
+
+  /** The total size of cached bodies, in bytes */
+  public long getSize() {
+    synchronized (responses) {
+      return size;
+    }
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+}
@@ -3,7 +3,6 @@
  */
 package uk.org.ponder.rsf.renderer.html;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import uk.org.ponder.rsf.components.UIBasicListMember;
@@ -21,10 +20,12 @@ import uk.org.ponder.rsf.renderer.scr.StaticRendererCollection;
 import uk.org.ponder.rsf.request.FossilizedConverter;
 import uk.org.ponder.rsf.request.SubmittedValueEntry;
 import uk.org.ponder.rsf.template.XMLLump;
-import uk.org.ponder.rsf.template.XMLLumpList;
+import uk.org.ponder.rsf.template.XMLRenderPlan;
+import uk.org.ponder.rsf.template.XMLRenderSlot;
 import uk.org.ponder.util.Constants;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
+import uk.org.ponder.xml.FlatAttributeMap;
 
 /**
  * The implementation of the standard XHTML rendering System. This class is due
@@ -103,92 +104,98 @@ public class BasicHTMLRenderSystem implements RenderSystem {
 
     nextpos = outerclose.lumpindex + 1;
 
-    XMLLumpList payloadlist = lump.downmap == null ? null
-        : lump.downmap.headsForID(XMLLump.PAYLOAD_COMPONENT);
-    XMLLump payload = payloadlist == null ? null
-        : payloadlist.lumpAt(0);
+    XMLRenderPlan renderplan = lump.parent.getRenderPlan();
+    XMLRenderSlot slot = renderplan.slots[lumpindex];
+    XMLLump payload = slot.payload;
 
-    boolean iselide = lump.rsfID.startsWith(XMLLump.ELISION_PREFIX);
+    boolean iselide = slot.iselide;
     
     XMLLump endopen = outerendopen;
     XMLLump close = outerclose;
     XMLLump uselump = lump;
     
-    HashMap attrcopy = new HashMap();
-    attrcopy.putAll((payload == null? uselump : payload).attributemap);
-    attrcopy.remove(XMLLump.ID_ATTRIBUTE);
+    XMLRenderSlot attrslot = payload == null ? slot
+        : renderplan.slots[payload.lumpindex];
+    FlatAttributeMap attrcopy = rsc.borrowAttributes();
+    try {
+      attrcopy.setAll(attrslot.attrnames, attrslot.attrvalues);
+      attrcopy.remove(XMLLump.ID_ATTRIBUTE);
     
-    TagRenderContext rendercontext = new TagRenderContext(attrcopy, uselump,
-        endopen, close, rsc.pos, rsc.xmlw, nextpos, iselide);
+      TagRenderContext rendercontext = new TagRenderContext(attrcopy, uselump,
+          endopen, close, rsc.pos, rsc.xmlw, nextpos, iselide);
     
-    idRelationRewriter.rewrite(rsc.idrewritemap, rendercontext, context);
+      idRelationRewriter.rewrite(rsc.idrewritemap, rendercontext, context);
     
-    // if there is no peer component, it might still be a static resource holder
-    // that needs URLs rewriting.
-    // we assume there is no payload component here, since there is no producer
-    // ID that might govern selection. So we use "outer" indices.
-    if (torendero == null) {
-      if (lump.rsfID.indexOf(XMLLump.SCR_PREFIX) == (iselide? 1 : 0)) {
-        String scrname = lump.rsfID.substring(XMLLump.SCR_PREFIX.length() + (iselide? 1 : 0));
-        StaticComponentRenderer scr = scrc.getSCR(scrname);
-        if (scr == null) {
-          Logger.log
-              .info("Warning: unrecognised static component renderer reference with key "
-                  + scrname + " at lump " + lump.toString());
-          scr = NullRewriteSCR.instance;
+      // if there is no peer component, it might still be a static resource holder
+      // that needs URLs rewriting.
+      // we assume there is no payload component here, since there is no producer
+      // ID that might govern selection. So we use "outer" indices.
+      if (torendero == null) {
+        if (slot.scrname != null) {
+          String scrname = slot.scrname;
+          StaticComponentRenderer scr = scrc.getSCR(scrname);
+          if (scr == null) {
+            Logger.log
+                .info("Warning: unrecognised static component renderer reference with key "
+                    + scrname + " at lump " + lump.toString());
+            scr = NullRewriteSCR.instance;
+          }
+          int tagtype = RenderUtil.renderSCR(scr, rsc.collecteds, rendercontext);
+          nextpos = tagtype == ComponentRenderer.LEAF_TAG ? outerclose.lumpindex + 1
+              : outerendopen.lumpindex + 1;
+        }
+        else {
+          if (rsc.debugrender) {
+            renderDebugMessage(rsc, "Leaf component missing which was expected with template id " + 
+                lump.rsfID + " at " + lump.toString());
+          }
         }
-        int tagtype = RenderUtil.renderSCR(scr, rsc.collecteds, rendercontext);
-        nextpos = tagtype == ComponentRenderer.LEAF_TAG ? outerclose.lumpindex + 1
-            : outerendopen.lumpindex + 1;
       }
       else {
-        if (rsc.debugrender) {
-          renderDebugMessage(rsc, "Leaf component missing which was expected with template id " + 
-              lump.rsfID + " at " + lump.toString());
+        // else there IS a component and we are going to render it. First make
+        // sure we render any preamble.
+
+        if (payload != null) {
+          rendercontext.endopen = payload.open_end;
+          rendercontext.close = payload.close_tag;
+          rendercontext.uselump = payload;
+          RenderUtil.dumpTillLump(lumps, lumpindex, payload.lumpindex, rsc.pos);
+          lumpindex = payload.lumpindex;
         }
-      }
-    }
-    else {
-      // else there IS a component and we are going to render it. First make
-      // sure we render any preamble.
-
-      if (payload != null) {
-        rendercontext.endopen = payload.open_end;
-        rendercontext.close = payload.close_tag;
-        rendercontext.uselump = payload;
-        RenderUtil.dumpTillLump(lumps, lumpindex, payload.lumpindex, rsc.pos);
-        lumpindex = payload.lumpindex;
-      }
 
-      rsc.IDassigner.adjustForID(attrcopy, torendero);
-      decoratormanager.decorate(torendero.decorators, uselump.getTag(),
-          attrcopy);
+        rsc.IDassigner.adjustForID(attrcopy, torendero);
+        decoratormanager.decorate(torendero.decorators, uselump.getTag(),
+            attrcopy);
 
-      // ALWAYS dump the tag name, this can never be rewritten. (probably?!)
-      rendercontext.openTag();
+        // ALWAYS dump the tag name, this can never be rewritten. (probably?!)
+        rendercontext.openTag();
 
-      if (torendero instanceof UIBasicListMember) {
-        torendero = RenderUtil.resolveListMember(rsc.view,
-            (UIBasicListMember) torendero);
-      }
-      try {
-        componentRenderer.renderComponent(torendero, rsc.view, rendercontext);
-      }
-      catch (Exception e) {
-        throw UniversalRuntimeException.accumulate(e,
-            "Error rendering component " + torendero.getClass()
-                + " with full ID " + torendero.getFullID()
-                + " at template location " + rendercontext.uselump);
-      }
-      // if there is a payload, dump the postamble.
-      if (payload != null) {
-        // the default case is initialised to tag close
-        if (rendercontext.nextpos == nextpos) {
-          RenderUtil.dumpTillLump(lumps, rendercontext.close.lumpindex + 1,
-              outerclose.lumpindex + 1, rsc.pos);
+        if (torendero instanceof UIBasicListMember) {
+          torendero = RenderUtil.resolveListMember(rsc.view,
+              (UIBasicListMember) torendero);
+        }
+        try {
+          componentRenderer.renderComponent(torendero, rsc.view, rendercontext);
+        }
+        catch (Exception e) {
+          throw UniversalRuntimeException.accumulate(e,
+              "Error rendering component " + torendero.getClass()
+                  + " with full ID " + torendero.getFullID()
+                  + " at template location " + rendercontext.uselump);
         }
+        // if there is a payload, dump the postamble.
+        if (payload != null) {
+          // the default case is initialised to tag close
+          if (rendercontext.nextpos == nextpos) {
+            RenderUtil.dumpTillLump(lumps, rendercontext.close.lumpindex + 1,
+                outerclose.lumpindex + 1, rsc.pos);
+          }
+        }
+        nextpos = rendercontext.nextpos;
       }
-      nextpos = rendercontext.nextpos;
+    }
+    finally {
+      rsc.releaseAttributes(attrcopy);
     }
 
     return nextpos;
@@ -44,7 +44,22 @@ public class HeadCollectingSCR implements CollectingSCR {
       RenderUtil.dumpTillLump(trc.uselump.parent.lumps, trc.uselump.lumpindex,
         trc.uselump.open_end.lumpindex + 1, trc.pos);
     }
-    Set used = new HashSet();
+    renderCollected(collected, new HashSet(), trc);
+    if (trc.iselide) {
+      trc.dumpTemplateBody();
+    }
+    return trc.iselide? ComponentRenderer.LEAF_TAG : ComponentRenderer.NESTING_TAG;
+  }
+
+  /**
+   * Emits the supplied collected material only, without the peering tag. Any
+   * linked resource whose URL is already in <code>used</code> is skipped, and
+   * the URLs of those emitted are added to it. This allows the collected
+   * material to be emitted in more than one pass, as is done when the head
+   * of the document is streamed ahead of the rest of the view.
+   */
+  public void renderCollected(XMLLumpList collected, Set used,
+      TagRenderContext trc) {
     for (int i = 0; i < collected.size(); ++i) {
       XMLLump collump = collected.lumpAt(i);
       String attr = URLRewriteSCR.getLinkAttribute(collump);
@@ -72,10 +87,6 @@ public class HeadCollectingSCR implements CollectingSCR {
           collump.open_end.lumpindex + 1, collump.close_tag.lumpindex + 1, trc.pos);
       trc.pos.println();
     }
-    if (trc.iselide) {
-      trc.dumpTemplateBody();
-    }
-    return trc.iselide? ComponentRenderer.LEAF_TAG : ComponentRenderer.NESTING_TAG;
   }
 
 }
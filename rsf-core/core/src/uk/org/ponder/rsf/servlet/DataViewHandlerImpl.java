@@ -3,11 +3,12 @@
  */
 package uk.org.ponder.rsf.servlet;
 
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.stream.BaseStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -25,10 +26,27 @@ import uk.org.ponder.rsf.view.DataViewHandler;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.streamutil.StreamCopyUtil;
 import uk.org.ponder.streamutil.read.StringRIS;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.UniversalRuntimeException;
 
+/**
+ * Writes the data of DataViews to the response, and passes request bodies to
+ * DataInputHandlers.
+ * <p>
+ * Data is written to the response as it is generated, so that large or
+ * lazily computed data need never be held in memory. The first
+ * {@link #BUFFER_SIZE} bytes are held back, so that a failure while
+ * generating a smaller response leaves the response uncommitted to be
+ * reported as an error. A failure after that point leaves a committed,
+ * truncated response, which the client can only detect as malformed JSON or
+ * XML.
+ */
+
 public class DataViewHandlerImpl implements DataViewHandler {
+  /** The number of bytes of data held back before any is sent */
+  public static final int BUFFER_SIZE = 64 * 1024;
+
   private HttpServletRequest requestProxy;
   private HttpServletResponse responseProxy;
 
@@ -59,6 +77,66 @@ public class DataViewHandlerImpl implements DataViewHandler {
     this.contentTypeInfoProxy = contentTypeInfoProxy;
   }
 
+  // Holds back the first BUFFER_SIZE bytes of the data, and sends it only
+  // once it is complete or has exceeded this size.
+  private class DataBAOS extends ByteArrayOutputStream {
+    private OutputStream os;
+
+    private void spill() throws IOException {
+      os = responseProxy.getOutputStream();
+      writeTo(os);
+      reset();
+    }
+
+    public void write(int b) {
+      try {
+        if (os != null) {
+          os.write(b);
+        }
+        else {
+          super.write(b);
+          if (size() > BUFFER_SIZE) {
+            spill();
+          }
+        }
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e, "Error writing data view");
+      }
+    }
+
+    public void write(byte[] b, int off, int len) {
+      try {
+        if (os != null) {
+          os.write(b, off, len);
+        }
+        else {
+          super.write(b, off, len);
+          if (size() > BUFFER_SIZE) {
+            spill();
+          }
+        }
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e, "Error writing data view");
+      }
+    }
+
+    public void flush() throws IOException {
+      if (os != null) {
+        os.flush();
+      }
+    }
+
+    public void close() throws IOException {
+      if (os == null) {
+        responseProxy.setContentLength(size());
+        spill();
+      }
+      os.close();
+    }
+  }
+
   public void handleView(DataView view, ViewParameters viewparams) {
     ContentTypeInfo cti = contentTypeInfoProxy.get();
     if (!cti.typename.equals(ContentTypeInfoRegistry.CUSTOM)) {
@@ -66,44 +144,40 @@ public class DataViewHandlerImpl implements DataViewHandler {
     }
     Object data = view.getData(viewparams);
 
+    DataBAOS os = new DataBAOS();
     try {
-      OutputStream os = responseProxy.getOutputStream();
-      String rendered = null;
-      byte[] bytes = null;
-      InputStream is = null;
-      if (cti.typename.equals(ContentTypeInfoRegistry.CUSTOM)) {
-        if (data instanceof InputStream) {
-          is = (InputStream) data;
-        }
-        else if (data instanceof String) {
-          rendered = (String) data;
-        }
-        else if (data instanceof byte[]) {
-          bytes = (byte[]) data;
-        }
-      }
-      else if (cti.typename.equals(ContentTypeInfoRegistry.AJAX)) {
-        rendered = generalConverter.render(data, DataAlterationRequest.XML_ENCODING);
+      if (cti.typename.equals(ContentTypeInfoRegistry.AJAX)) {
+        generalConverter.render(data, DataAlterationRequest.XML_ENCODING, os);
       }
       else if (cti.typename.equals(ContentTypeInfoRegistry.JSON)) {
-        rendered = generalConverter.render(data, DataAlterationRequest.JSON_ENCODING);
+        generalConverter.render(data, DataAlterationRequest.JSON_ENCODING, os);
       }
-
-      if (rendered != null) {
-        bytes = rendered.getBytes("UTF-8");
+      else if (data instanceof InputStream) {
+        StreamCopyUtil.inputToOutput((InputStream) data, os, true, false,
+            new byte[4096]);
+      }
+      else if (data instanceof byte[]) {
+        os.write((byte[]) data);
       }
-      if (bytes != null) {
-        is = new ByteArrayInputStream(bytes);
+      else if (data instanceof String) {
+        UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(os);
+        pos.print((String) data);
+        pos.flush();
       }
-      if (is == null) {
+      else {
         throw new UnsupportedOperationException("Unrecognised data from dataView of "
-            + data.getClass());
+            + (data == null ? null : data.getClass()));
       }
-      StreamCopyUtil.inputToOutput(is, os, new byte[4096]);
+      os.close();
     }
     catch (Exception e) {
       throw UniversalRuntimeException.accumulate(e, "Error rendering data view");
     }
+    finally {
+      if (data instanceof BaseStream) {
+        ((BaseStream) data).close();
+      }
+    }
   }
 
 
@@ -65,7 +65,7 @@ public class ReasonableSpringServlet extends HttpServlet {
       }
     }
     finally {
-      rsacbeanlocator.endRequest();
+      RSACUtils.endServletRequest(request, rsacbeanlocator);
     }
   }
 }
@@ -0,0 +1,301 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.renderer.cache.CachedResponse;
+import uk.org.ponder.rsf.renderer.cache.ResponseCache;
+import uk.org.ponder.rsf.view.CacheableView;
+import uk.org.ponder.rsf.view.ViewResolver;
+import uk.org.ponder.rsf.viewstate.AnyViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.servletutil.ServletResponseWriter;
+import uk.org.ponder.streamutil.CompressingOutputStream;
+import uk.org.ponder.streamutil.DeflaterPool;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A request-scope bean which serves render requests for {@link CacheableView}s
+ * from the {@link ResponseCache}, and captures the rendered responses for
+ * those which miss. Every response served for such a view carries an
+ * <code>ETag</code>, and a matching <code>If-None-Match</code> is answered 
+ * with <code>304 Not Modified</code>. Bodies are cached together with their
+ * gzip encoding, which is served to any client which accepts it. Since the
+ * two encodings are different representations, each has its own ETag.
+ * <p>
+ * Responses are keyed on the full request URL, including the host, together
+ * with the content type and the request locale, and are sent with a
+ * <code>Vary</code> header naming the request headers on which they depend.
+ */
+
+public class ServletResponseCacher implements
+    ServletResponseWriter.CompletionHandler {
+  /** The Vary header sent with every response for a CacheableView */
+  public static final String VARY = "Accept-Encoding, Accept-Language";
+  /** The suffix distinguishing the ETag of a gzip-encoded body */
+  public static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+  private HttpServletRequest request;
+  private HttpServletResponse response;
+  private AnyViewParameters viewparams;
+  private ViewResolver viewresolver;
+  private ResponseCache responsecache;
+  private TargettedMessageList messages;
+  private Locale locale;
+  private ContentTypeInfo contenttypeinfo;
+
+  // state for a response being captured
+  private String key;
+  private String versionkey;
+  private long ttl;
+  private boolean capturing;
+
+  public void setHttpServletRequest(HttpServletRequest request) {
+    this.request = request;
+  }
+
+  public void setHttpServletResponse(HttpServletResponse response) {
+    this.response = response;
+  }
+
+  public void setViewParameters(AnyViewParameters viewparams) {
+    this.viewparams = viewparams;
+  }
+
+  public void setViewResolver(ViewResolver viewresolver) {
+    this.viewresolver = viewresolver;
+  }
+
+  public void setResponseCache(ResponseCache responsecache) {
+    this.responsecache = responsecache;
+  }
+
+  public void setTargettedMessageList(TargettedMessageList messages) {
+    this.messages = messages;
+  }
+
+  public void setLocale(Locale locale) {
+    this.locale = locale;
+  }
+
+  public void setContentTypeInfo(ContentTypeInfo contenttypeinfo) {
+    this.contenttypeinfo = contenttypeinfo;
+  }
+
+  /**
+   * Answers the current render request from the cache if possible.
+   * @return <code>true</code> if the response has been sent. Otherwise, if
+   * the view is cacheable the rendered response will be captured by
+   * {@link #complete(byte[], HttpServletResponse)}.
+   */
+  public boolean handleCached() {
+    if (!"GET".equals(request.getMethod())
+        || !(viewparams instanceof ViewParameters)) {
+      return false;
+    }
+    ViewParameters viewparams = (ViewParameters) this.viewparams;
+    if (viewparams.flowtoken != null || viewparams.errortoken != null
+        || viewparams.debugrender != null || messages.size() != 0) {
+      return false;
+    }
+    CacheableView cacheable = findCacheable(viewparams.viewID);
+    if (cacheable == null) {
+      return false;
+    }
+    String contenttype = contenttypeinfo.get().contentTypeHeader;
+    String query = request.getQueryString();
+    key = contenttype + "\n" + (locale == null ? "" : locale.toString())
+        + "\n" + request.getRequestURL() + (query == null ? "" : "?" + query);
+    versionkey = cacheable.getVersionKey(viewparams);
+    String ifnonematch = request.getHeader("If-None-Match");
+    if (versionkey != null) {
+      String etag = computeETag((key + "\n" + versionkey).getBytes());
+      // the encoding that would be sent is not known without the body, so 
+      // accept the ETag of either
+      String matched = matchETag(ifnonematch, acceptsGzip(request
+          .getHeader("Accept-Encoding")) ? new String[] {
+          codedETag(etag, true), etag }
+          : new String[] { etag, codedETag(etag, true) });
+      if (matched != null) {
+        sendNotModified(matched);
+        return true;
+      }
+    }
+    CachedResponse cached = responsecache.get(key);
+    if (cached != null
+        && (versionkey == null || versionkey.equals(cached.versionkey))) {
+      try {
+        send(cached, ifnonematch);
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error writing cached response");
+      }
+      return true;
+    }
+    ttl = cacheable.getCacheTTL();
+    capturing = ttl > 0;
+    return false;
+  }
+
+  /** Returns <code>true</code> if the rendered response should be supplied
+   * to {@link #complete(byte[], HttpServletResponse)} */
+  public boolean isCapturing() {
+    return capturing;
+  }
+
+  /** Prevents the response currently being rendered from being cached */
+  public void abandon() {
+    capturing = false;
+  }
+
+  public boolean complete(byte[] body, HttpServletResponse response)
+      throws IOException {
+    if (!capturing || messages.size() != 0) {
+      return false;
+    }
+    CachedResponse cached = new CachedResponse();
+    cached.versionkey = versionkey;
+    cached.etag = computeETag(versionkey == null ? body
+        : (key + "\n" + versionkey).getBytes());
+    cached.contenttype = contenttypeinfo.get().contentTypeHeader;
+    cached.body = body;
+    cached.gzipped = gzip(body);
+    cached.expiry = System.currentTimeMillis() + ttl;
+    responsecache.put(key, cached);
+    send(cached, request.getHeader("If-None-Match"));
+    return true;
+  }
+
+  private CacheableView findCacheable(String viewID) {
+    List producers;
+    try {
+      producers = viewresolver.getProducers(viewID);
+    }
+    catch (Exception e) {
+      // leave any unknown view to be reported by the render cycle
+      return null;
+    }
+    if (producers != null) {
+      for (int i = 0; i < producers.size(); ++i) {
+        if (producers.get(i) instanceof CacheableView) {
+          return (CacheableView) producers.get(i);
+        }
+      }
+    }
+    return null;
+  }
+
+  private void send(CachedResponse cached, String ifnonematch)
+      throws IOException {
+    boolean gzip = cached.gzipped != null
+        && acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = codedETag(cached.etag, gzip);
+    if (matchETag(ifnonematch, new String[] {etag}) != null) {
+      sendNotModified(etag);
+      return;
+    }
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", VARY);
+    response.setContentType(cached.contenttype);
+    byte[] body = cached.body;
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+      body = cached.gzipped;
+    }
+    response.setContentLength(body.length);
+    OutputStream os = response.getOutputStream();
+    os.write(body);
+    os.flush();
+  }
+
+  private void sendNotModified(String etag) {
+    Logger.log.debug("Answering request for " + request.getRequestURI()
+        + " with 304 Not Modified");
+    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", VARY);
+  }
+
+  /** Returns the ETag of the identity encoded body with the supplied ETag,
+   * when sent in gzip encoding if <code>gzip</code> is <code>true</code> */
+  static String codedETag(String etag, boolean gzip) {
+    return gzip ? etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX
+        + '"' : etag;
+  }
+
+  /** Returns the first of the supplied ETags which matches the If-None-Match
+   * header, or <code>null</code> if none does */
+  static String matchETag(String ifnonematch, String[] etags) {
+    if (ifnonematch == null) return null;
+    if (ifnonematch.trim().equals("*")) return etags[0];
+    String[] tags = ifnonematch.split(",");
+    for (int i = 0; i < etags.length; ++i) {
+      for (int j = 0; j < tags.length; ++j) {
+        String tag = tags[j].trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals(etags[i])) return etags[i];
+      }
+    }
+    return null;
+  }
+
+  static boolean acceptsGzip(String acceptencoding) {
+    if (acceptencoding == null) return false;
+    String[] codings = acceptencoding.split(",");
+    for (int i = 0; i < codings.length; ++i) {
+      String coding = codings[i].trim();
+      int semipos = coding.indexOf(';');
+      String name = semipos == -1 ? coding : coding.substring(0, semipos).trim();
+      if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+        return semipos == -1 || !coding.substring(semipos + 1).replaceAll(" ", "")
+            .matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  static String computeETag(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+      StringBuffer togo = new StringBuffer(digest.length * 2 + 2);
+      togo.append('"');
+      for (int i = 0; i < digest.length; ++i) {
+        togo.append(Character.forDigit((digest[i] >> 4) & 0xf, 16));
+        togo.append(Character.forDigit(digest[i] & 0xf, 16));
+      }
+      return togo.append('"').toString();
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e, "Error computing ETag");
+    }
+  }
+
+  // Returns the gzip encoding of the body, or null if it is no smaller. Since
+  // this is done once per cached body, use the highest level.
+  static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(body.length / 4 + 64);
+    OutputStream gzos = new CompressingOutputStream(baos,
+        CompressingOutputStream.GZIP, Deflater.BEST_COMPRESSION,
+        DeflaterPool.instance());
+    gzos.write(body);
+    gzos.close();
+    return baos.size() < body.length ? baos.toByteArray() : null;
+  }
+}
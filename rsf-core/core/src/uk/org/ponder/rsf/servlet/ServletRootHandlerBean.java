@@ -16,10 +16,11 @@ import uk.org.ponder.rsf.viewstate.NoViewParameters;
 import uk.org.ponder.rsf.viewstate.RawViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.servletutil.ServletResponseWriter;
-import uk.org.ponder.streamutil.write.OutputStreamPOS;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
+import uk.org.ponder.xml.XMLWriter;
 
 /**
  * The RootHandlerBean is the main entry point for handling of the
@@ -35,6 +36,10 @@ import uk.org.ponder.util.UniversalRuntimeException;
 public class ServletRootHandlerBean extends RootHandlerBeanBase {
   private HttpServletResponse response;
   private HttpServletRequest request;
+  private boolean streamingRender;
+  private ServletResponseCacher responsecacher;
+  private int compressionlevel;
+  private ServletResponseWriter responsewriter;
 
   public void setHttpServletRequest(HttpServletRequest request) {
     this.request = request;
@@ -44,6 +49,32 @@ public class ServletRootHandlerBean extends RootHandlerBeanBase {
     this.response = response;
   }
 
+  public void setStreamingRender(boolean streamingRender) {
+    this.streamingRender = streamingRender;
+  }
+
+  /** Sets the level, from 1 to 9, at which rendered responses will be
+   * compressed for clients which accept it, or 0 (the default) to disable
+   * compression.
+   */
+  public void setCompressionLevel(int compressionlevel) {
+    this.compressionlevel = compressionlevel;
+  }
+
+  public void setResponseCacher(ServletResponseCacher responsecacher) {
+    this.responsecacher = responsecacher;
+  }
+
+  protected boolean handleCached() {
+    return responsecacher != null && responsecacher.handleCached();
+  }
+
+  protected void renderFailed() {
+    if (responsecacher != null) {
+      responsecacher.abandon();
+    }
+  }
+
   // If this is a web service request, send the required redirect URL
   // to the client via the body of the POST response. Otherwise, issue
   // the redirect directly to the client via this connection.
@@ -59,6 +90,17 @@ public class ServletRootHandlerBean extends RootHandlerBeanBase {
     // TODO: This is a hack, pending a bit more thought.
 
     Logger.log.info("Redirecting to " + path);
+    if (response.isCommitted() && pos != null) {
+      // A streamed response has already been partly sent - the best we can
+      // do is to ask the client to redirect itself.
+      Logger.log.warn("Response already committed - redirecting to " + path
+          + " via markup");
+      pos.print("<meta http-equiv=\"refresh\" content=\"0;url=");
+      new XMLWriter(pos).write(path);
+      pos.print("\"/>");
+      pos.close();
+      return;
+    }
     try {
       if (contenttypeinfo.get().directRedirects && viewparamso instanceof ViewParameters)  {
         ViewParameters viewparams = (ViewParameters) viewparamso;
@@ -76,12 +118,69 @@ public class ServletRootHandlerBean extends RootHandlerBeanBase {
 
   public static PrintOutputStream setupResponseWriter(HttpServletRequest request, 
        HttpServletResponse response, String contenttype) {
+    return setupResponseWriter(request, response, contenttype, false);
+  }
+
+  /**
+   * @param streaming If <code>true</code>, flushing the returned stream will
+   *          send the material written so far to the client.
+   */
+  public static PrintOutputStream setupResponseWriter(HttpServletRequest request, 
+       HttpServletResponse response, String contenttype, boolean streaming) {
+    return setupResponseWriter(request, response, contenttype, streaming, null);
+  }
+
+  /**
+   * @param handler If not <code>null</code>, will be supplied with the 
+   *          complete body of any response which was not streamed.
+   */
+  public static PrintOutputStream setupResponseWriter(HttpServletRequest request, 
+       HttpServletResponse response, String contenttype, boolean streaming, 
+       ServletResponseWriter.CompletionHandler handler) {
+    return setupResponseWriter(request, response, contenttype, streaming, 
+        handler, 0);
+  }
+
+  /**
+   * @param compressionlevel If greater than 0, the level at which the 
+   *          response will be compressed, if the client accepts a compressed
+   *          encoding. 
+   */
+  public static PrintOutputStream setupResponseWriter(HttpServletRequest request, 
+       HttpServletResponse response, String contenttype, boolean streaming, 
+       ServletResponseWriter.CompletionHandler handler, int compressionlevel) {
+    return setupResponseWriter(request, response, contenttype, 
+        createResponseWriter(request, response, streaming, handler, 
+            compressionlevel));
+  }
+
+  private static ServletResponseWriter createResponseWriter(
+      HttpServletRequest request, HttpServletResponse response, 
+      boolean streaming, ServletResponseWriter.CompletionHandler handler, 
+      int compressionlevel) {
+    ServletResponseWriter srw = new ServletResponseWriter(response, streaming);
+    srw.setCompletionHandler(handler);
+    if (compressionlevel > 0) {
+      response.setHeader("Vary", "Accept-Encoding");
+      String encoding = ServletResponseWriter.negotiateContentEncoding(request
+          .getHeader("Accept-Encoding"));
+      if (encoding != null) {
+        srw.setContentEncoding(encoding, compressionlevel);
+      }
+    }
+    return srw;
+  }
+
+  private static PrintOutputStream setupResponseWriter(HttpServletRequest request, 
+      HttpServletResponse response, String contenttype, 
+      ServletResponseWriter srw) {
     try {
       response.setContentType(contenttype);
 
-      ServletResponseWriter srw = new ServletResponseWriter(response);
       OutputStream os = srw.getOutputStream();
-      PrintOutputStream pos = new OutputStreamPOS(os, "UTF-8");
+      // Encode straight to bytes - static template text will be copied in
+      // pre-encoded, and if compressing, precompressed.
+      PrintOutputStream pos = new UTF8OutputStreamPOS(os);
 
       String acceptHeader = request.getHeader("Accept");
 
@@ -104,7 +203,20 @@ public class ServletRootHandlerBean extends RootHandlerBeanBase {
   }
 
   public PrintOutputStream setupResponseWriter() {
-    return setupResponseWriter(request, response, contenttypeinfo.get().contentTypeHeader);
+    // a response which is to be cached must be complete before it is sent
+    boolean capturing = responsecacher != null && responsecacher.isCapturing();
+    responsewriter = createResponseWriter(request, response,
+        streamingRender && !capturing, capturing ? responsecacher : null, 
+        // a captured body is compressed by the cacher itself
+        capturing ? 0 : compressionlevel);
+    return setupResponseWriter(request, response,
+        contenttypeinfo.get().contentTypeHeader, responsewriter);
+  }
+
+  protected void abandonResponseWriter(PrintOutputStream pos) {
+    if (responsewriter != null) {
+      responsewriter.abandon();
+    }
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.state;
+
+/** Thrown when a lock on flow or scoped state could not be acquired within
+ * the configured time.
+ */
+
+public class LockTimeoutException extends RuntimeException {
+
+}
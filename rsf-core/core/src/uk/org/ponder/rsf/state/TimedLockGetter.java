@@ -0,0 +1,23 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.state;
+
+/**
+ * A LockGetter which can itself perform the locking, waiting only for a
+ * bounded time for a lock held by another thread. Every successful call to
+ * <code>acquireLock</code> must be balanced by a call to
+ * <code>releaseLock</code> from the same thread.
+ * 
+ */
+
+public interface TimedLockGetter extends LockGetter {
+  /**
+   * Acquires the lock with the supplied name, waiting no longer than the
+   * configured timeout for it to become free. Throws a
+   * {@link LockTimeoutException} if the lock could not be acquired.
+   */
+  public void acquireLock(String lockname);
+
+  public void releaseLock(String lockname);
+}
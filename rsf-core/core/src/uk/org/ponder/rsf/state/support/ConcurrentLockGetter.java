@@ -0,0 +1,208 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import uk.org.ponder.rsf.state.LockTimeoutException;
+import uk.org.ponder.rsf.state.TimedLockGetter;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * An application scope LockGetter suitable for a single-JVM application,
+ * which unlike {@link InMemoryLockGetter} takes no global lock. Locks are held
+ * in a concurrent map and reference counted, so that each is discarded as
+ * soon as the last request interested in it returns it, and a lock which is
+ * still in use by one request can never be removed by another.
+ * <p>
+ * Locks are acquired with a timeout (default 60 seconds), so that a request
+ * thread can never wait forever on a flow whose holder has stalled. Simple
+ * contention metrics are kept, which may be inspected for example by
+ * exposing this bean through JMX.
+ *
+ */
+
+public class ConcurrentLockGetter implements TimedLockGetter {
+  public static final long DEFAULT_TIMEOUT = 60000;
+
+  private static class LockEntry {
+    ReentrantLock lock = new ReentrantLock();
+    // the number of requests holding or waiting for this entry. Once it
+    // reaches 0 the entry is retired and may not be revived.
+    AtomicInteger refs = new AtomicInteger(1);
+    // the time at which the lock was last acquired, written and read only by
+    // the holding thread
+    long acquiredat;
+
+    boolean retain() {
+      while (true) {
+        int current = refs.get();
+        if (current == 0) return false;
+        if (refs.compareAndSet(current, current + 1)) return true;
+      }
+    }
+  }
+
+  private ConcurrentHashMap locks = new ConcurrentHashMap();
+  private long timeout = DEFAULT_TIMEOUT;
+
+  private AtomicInteger waiters = new AtomicInteger();
+  private AtomicLong acquisitions = new AtomicLong();
+  private AtomicLong contended = new AtomicLong();
+  private AtomicLong timeouts = new AtomicLong();
+  private AtomicLong totalwait = new AtomicLong();
+  private AtomicLong maxwait = new AtomicLong();
+  private AtomicLong totalhold = new AtomicLong();
+  private AtomicLong maxhold = new AtomicLong();
+
+  /** Sets the maximum time in milliseconds that a request will wait to
+   * acquire a lock before failing */
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  private LockEntry reference(String lockname) {
+    while (true) {
+      LockEntry existing = (LockEntry) locks.get(lockname);
+      if (existing == null) {
+        LockEntry created = new LockEntry();
+        existing = (LockEntry) locks.putIfAbsent(lockname, created);
+        if (existing == null) return created;
+      }
+      if (existing.retain()) return existing;
+      // the entry was retired between our lookup and retain - it will
+      // shortly be removed by its last holder, so help it out and retry
+      locks.remove(lockname, existing);
+    }
+  }
+
+  private void dereference(String lockname, LockEntry entry) {
+    if (entry.refs.decrementAndGet() == 0) {
+      locks.remove(lockname, entry);
+    }
+  }
+
+  /** Returns a reference counted object suitable for use as a monitor. Each
+   * call must be balanced by a call to {@link #returnLock(String)}.
+   */
+  public Object getLock(String lockname) {
+    return reference(lockname);
+  }
+
+  public void returnLock(String lockname) {
+    if (lockname == null) return;
+    LockEntry entry = (LockEntry) locks.get(lockname);
+    if (entry != null) {
+      dereference(lockname, entry);
+    }
+  }
+
+  public void acquireLock(String lockname) {
+    LockEntry entry = reference(lockname);
+    ReentrantLock lock = entry.lock;
+    if (lock.tryLock()) {
+      acquired(entry);
+      return;
+    }
+    long start = System.nanoTime();
+    waiters.incrementAndGet();
+    boolean success = false;
+    try {
+      success = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      dereference(lockname, entry);
+      throw UniversalRuntimeException.accumulate(e,
+          "Interrupted while waiting for lock " + lockname);
+    }
+    finally {
+      waiters.decrementAndGet();
+    }
+    if (!success) {
+      timeouts.incrementAndGet();
+      dereference(lockname, entry);
+      throw UniversalRuntimeException.accumulate(new LockTimeoutException(),
+          "Unable to acquire lock " + lockname + " within " + timeout + "ms");
+    }
+    contended.incrementAndGet();
+    long waited = System.nanoTime() - start;
+    totalwait.addAndGet(waited);
+    updateMax(maxwait, waited);
+    acquired(entry);
+  }
+
+  private void acquired(LockEntry entry) {
+    acquisitions.incrementAndGet();
+    if (entry.lock.getHoldCount() == 1) {
+      entry.acquiredat = System.nanoTime();
+    }
+  }
+
+  public void releaseLock(String lockname) {
+    LockEntry entry = (LockEntry) locks.get(lockname);
+    if (entry == null || !entry.lock.isHeldByCurrentThread()) {
+      throw new IllegalStateException("Lock " + lockname
+          + " is not held by the current thread");
+    }
+    if (entry.lock.getHoldCount() == 1) {
+      long held = System.nanoTime() - entry.acquiredat;
+      totalhold.addAndGet(held);
+      updateMax(maxhold, held);
+    }
+    entry.lock.unlock();
+    dereference(lockname, entry);
+  }
+
+  private static void updateMax(AtomicLong max, long value) {
+    while (true) {
+      long current = max.get();
+      if (value <= current || max.compareAndSet(current, value)) return;
+    }
+  }
+
+  /** The number of locks currently held or awaited */
+  public int getActiveLockCount() {
+    return locks.size();
+  }
+
+  /** The number of threads currently waiting to acquire a lock */
+  public int getWaiterCount() {
+    return waiters.get();
+  }
+
+  public long getAcquisitionCount() {
+    return acquisitions.get();
+  }
+
+  /** The number of acquisitions which had to wait for another holder */
+  public long getContendedCount() {
+    return contended.get();
+  }
+
+  public long getTimeoutCount() {
+    return timeouts.get();
+  }
+
+  public long getTotalWaitNanos() {
+    return totalwait.get();
+  }
+
+  public long getMaxWaitNanos() {
+    return maxwait.get();
+  }
+
+  public long getTotalHoldNanos() {
+    return totalhold.get();
+  }
+
+  public long getMaxHoldNanos() {
+    return maxhold.get();
+  }
+
+}
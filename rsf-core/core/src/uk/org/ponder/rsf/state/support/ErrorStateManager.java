@@ -3,7 +3,7 @@
  */
 package uk.org.ponder.rsf.state.support;
 
-import uk.org.ponder.hashutil.EighteenIDGenerator;
+import uk.org.ponder.hashutil.ShardedIDGenerator;
 import uk.org.ponder.messageutil.TargettedMessageList;
 import uk.org.ponder.rsf.request.RequestSubmittedValueCache;
 import uk.org.ponder.rsf.state.TokenStateHolder;
@@ -102,7 +102,7 @@ public class ErrorStateManager {
     this.requestrsvc = requestrsvc;
   }
 
-  private static EighteenIDGenerator idgenerator = new EighteenIDGenerator();
+  private static ShardedIDGenerator idgenerator = new ShardedIDGenerator();
 
   public String allocateToken() {
     return idgenerator.generateID();
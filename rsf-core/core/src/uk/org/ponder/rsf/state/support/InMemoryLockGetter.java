@@ -37,6 +37,8 @@ public class InMemoryLockGetter implements LockGetter {
   }
 
   public void returnLock(String flowtoken) {
-    flowlockmap.remove(flowtoken);
+    synchronized (flowlockmap) {
+      flowlockmap.remove(flowtoken);
+    }
   }
 }
@@ -4,7 +4,12 @@
 package uk.org.ponder.rsf.state.support;
 
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
 
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsf.state.TokenStateHolder;
@@ -12,44 +17,124 @@ import uk.org.ponder.util.Logger;
 
 /**
  * The repository of all inter-request state in RSF. This is held in entries of
- * TokenRequestState in a (probably very large) ConcurrentHashMap which is
- * perpetually expired on a TTL basis. More rapid expiry may occur through
- * explicit session-closing and wizard-ending procedures.
+ * TokenState in a (probably very large) in-memory map which is perpetually
+ * expired on a TTL basis. More rapid expiry may occur through explicit
+ * session-closing and wizard-ending procedures.
+ * <p>
+ * Expiry is measured from the last access to each token. The map is divided
+ * into a number of segments, each of which is held in access order, so that
+ * the head of each segment is both its least recently used entry and the
+ * first to expire. The JVM-wide {@link TokenStateReaper} trims expired entries
+ * from the segment heads in the background, and if a maximum entry count is
+ * configured, the least recently used entries are evicted as it is exceeded.
  * <p>
  * High-requirement applications would presumably reimplement this class to push
  * this state into a database or some sort of clustered broadcast.
- * 
- * NB!! Expiry not yet implemented! Do not use this class in production!
+ *
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
-public class InMemoryTSH implements TokenStateHolder {
+public class InMemoryTSH implements TokenStateHolder,
+    TokenStateReaper.Reapable, DisposableBean {
+  /** The number of independently locked segments of the token cache */
+  public static final int SEGMENTS = 16;
+
+  private class Segment extends LinkedHashMap {
+    Segment() {
+      super(16, 0.75f, true);
+    }
+
+    protected boolean removeEldestEntry(Map.Entry eldest) {
+      if (maxsegmentsize > 0 && size() > maxsegmentsize) {
+        evictions.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
 
-  // a map of String error token IDs to ErrorStateEntries.
-  // the idea is that this be a timeout cache which is cleared out every
-  // hour or so... all this functionality to be moved to another class.
-  private Map tokencache;
+  private Segment[] segments;
 
   private int expiryseconds;
+  private int maxentries;
+  private int maxsegmentsize;
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+  private AtomicLong puts = new AtomicLong();
+  private AtomicLong expirations = new AtomicLong();
+  private AtomicLong evictions = new AtomicLong();
+
+  public InMemoryTSH() {
+    segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; ++i) {
+      segments[i] = new Segment();
+    }
+    TokenStateReaper.instance().attach(this);
+  }
 
+  /** No longer required - retained for compatibility with existing
+   * configuration. */
   public void setReflectiveCache(ReflectiveCache reflectiveCache) {
-    //this.reflectiveCache = reflectiveCache;
-    tokencache = reflectiveCache.getConcurrentMap(16);
   }
 
-  TokenState getTokenStateRaw(String tokenID) {
-    return (TokenState) tokencache.get(tokenID);
+  /**
+   * Sets the time in seconds after its last access at which a token will
+   * expire. A value of 0 or less will disable expiry.
+   */
+  public void setExpirySeconds(int seconds) {
+    this.expiryseconds = seconds;
+  }
+
+  /**
+   * Sets the maximum number of tokens which will be held - once this is
+   * exceeded, the least recently used tokens will be evicted. The limit is
+   * applied per segment, and so is approximate. A value of 0 (the default)
+   * imposes no limit.
+   */
+  public void setMaxEntries(int maxentries) {
+    this.maxentries = maxentries;
+    this.maxsegmentsize = maxentries <= 0 ? 0
+        : Math.max(1, (maxentries + SEGMENTS - 1) / SEGMENTS);
+  }
+
+  public int getMaxEntries() {
+    return maxentries;
   }
 
-  // TODO: The plan is that this thread is JVM-wide, and InMemoryTSH
-  // are in charge of attaching and detaching their caches to it on init and
-  // destruction. Managing the necessary IPC will be an annoyance. ANDY!!
-  private void launchExpirralThread() {
+  private Segment segmentFor(String tokenID) {
+    int hash = tokenID.hashCode();
+    hash ^= (hash >>> 16);
+    return segments[(hash & 0x7fffffff) % SEGMENTS];
+  }
 
+  private long expiryFrom(long now) {
+    return expiryseconds <= 0 ? Long.MAX_VALUE
+        : now + expiryseconds * 1000L;
+  }
+
+  TokenState getTokenStateRaw(String tokenID) {
+    Segment segment = segmentFor(tokenID);
+    long now = System.currentTimeMillis();
+    synchronized (segment) {
+      TokenState state = (TokenState) segment.get(tokenID);
+      if (state != null) {
+        if (state.expiry.getTime() <= now) {
+          segment.remove(tokenID);
+          expirations.incrementAndGet();
+          state = null;
+        }
+        else {
+          state.expiry.setTime(expiryFrom(now));
+        }
+      }
+      (state == null ? misses : hits).incrementAndGet();
+      return state;
+    }
   }
 
   /**
    * Returns any TokenRequestState object with the specified ID.
-   * 
+   *
    * @return The required TRS object, or <code>null</code> if none is stored.
    */
   public Object getTokenState(String tokenID) {
@@ -60,30 +145,94 @@ public class InMemoryTSH implements TokenStateHolder {
 
   /** Stores the supplied TokenRequestState object in the repository */
   public void putTokenState(String tokenID, Object payload) {
-  
+
     TokenState trs = new TokenState();
     trs.payload = payload;
     trs.tokenID = tokenID;
-    Date current = new Date();
-    long forwardsecs = current.getTime() + expiryseconds * 1000;
-    trs.expiry = new Date(forwardsecs);
-    tokencache.put(trs.tokenID, trs);
+    trs.expiry = new Date(expiryFrom(System.currentTimeMillis()));
+    Segment segment = segmentFor(tokenID);
+    synchronized (segment) {
+      segment.put(trs.tokenID, trs);
+    }
+    puts.incrementAndGet();
   }
 
   public void clearTokenState(String tokenID) {
 
     Logger.log
         .info("Token state cleared from InMemoryTSH for token " + tokenID);
-    tokencache.remove(tokenID);
+    Segment segment = segmentFor(tokenID);
+    synchronized (segment) {
+      segment.remove(tokenID);
+    }
   }
 
+  /**
+   * Removes all expired tokens. Since each segment is held in access order,
+   * only the expired entries at its head need be visited.
+   */
+  public int reap(long now) {
+    int reaped = 0;
+    for (int i = 0; i < SEGMENTS; ++i) {
+      Segment segment = segments[i];
+      synchronized (segment) {
+        for (Iterator entryit = segment.values().iterator(); entryit.hasNext();) {
+          TokenState state = (TokenState) entryit.next();
+          if (state.expiry.getTime() > now) break;
+          entryit.remove();
+          ++reaped;
+        }
+      }
+    }
+    if (reaped > 0) {
+      expirations.addAndGet(reaped);
+    }
+    return reaped;
+  }
 
-  public void setExpirySeconds(int seconds) {
-    this.expiryseconds = seconds;
+  public void destroy() {
+    TokenStateReaper.instance().detach(this);
   }
 
   public String getId() {
     return null;
   }
 
+  /** Returns the number of tokens currently held */
+  public int size() {
+    int togo = 0;
+    for (int i = 0; i < SEGMENTS; ++i) {
+      synchronized (segments[i]) {
+        togo += segments[i].size();
+      }
+    }
+    return togo;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getPuts() {
+    return puts.get();
+  }
+
+  public long getExpirations() {
+    return expirations.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public String toString() {
+    return "InMemoryTSH: " + size() + " tokens, " + hits + " hits, " + misses
+        + " misses, " + puts + " puts, " + expirations + " expired, "
+        + evictions + " evicted";
+  }
+
 }
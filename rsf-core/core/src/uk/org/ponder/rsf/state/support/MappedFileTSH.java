@@ -0,0 +1,504 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import uk.org.ponder.conversion.SerializationProvider;
+import uk.org.ponder.reflect.ClassGetter;
+import uk.org.ponder.rsf.state.TokenStateHolder;
+import uk.org.ponder.util.Logger;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A TokenStateHolder which keeps its payloads out of the heap, in a local
+ * append-only store made up of memory-mapped segment files. Only a compact
+ * index of token locations is held in memory. The store is recovered from
+ * its directory on startup, so that token state will survive a restart of the
+ * node without requiring an external cache server.
+ * <p>
+ * Payloads are serialized using any configured {@link SerializationProvider}
+ * (for example the standard "XMLProvider" or "JSONProvider" beans), and
+ * otherwise through standard Java serialization. Expiry is measured from the
+ * last access to each token, as for {@link InMemoryTSH}, and is performed by
+ * the shared {@link TokenStateReaper} - note that the extension of expiry
+ * through access is not persisted. Segments whose live content has fallen
+ * below half their size are compacted into the current segment and deleted.
+ * <p>
+ * Reads take no lock. Appends to the store, and compaction, are serialized
+ * on a single write lock, which is not held while payloads are serialized or
+ * deserialized. By default each write is forced to the storage device before
+ * it returns, so that it will survive a crash of the host - this costs one
+ * synchronous flush per write, and may be disabled with
+ * {@link #setForceWrites(boolean)}, in which case the store will survive a
+ * restart of the JVM but durability across a crash of the host is
+ * best-effort.
+ * <p>
+ * Once destroyed, the holder may not be used again.
+ */
+
+public class MappedFileTSH implements TokenStateHolder,
+    TokenStateReaper.Reapable, DisposableBean {
+  /** The default size of each segment file, 16Mb */
+  public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+  public static final String SEGMENT_PREFIX = "tsh-";
+  public static final String SEGMENT_SUFFIX = ".seg";
+
+  private static final byte OP_PUT = 1;
+  private static final byte OP_CLEAR = 2;
+  // The fraction of live bytes below which a segment will be compacted
+  private static final double COMPACT_RATIO = 0.5;
+
+  private static class Segment {
+    int id;
+    File file;
+    FileChannel channel;
+    MappedByteBuffer buffer;
+    int position;
+    AtomicInteger livebytes = new AtomicInteger();
+  }
+
+  private static class Location {
+    Segment segment;
+    int offset;
+    int length;
+    volatile long expiry;
+  }
+
+  private File directory;
+  private int segmentbytes = DEFAULT_SEGMENT_BYTES;
+  private int expiryseconds;
+  private boolean forcewrites = true;
+  private SerializationProvider serializationProvider;
+
+  private ConcurrentHashMap index = new ConcurrentHashMap();
+  // the following are guarded by writelock
+  private Object writelock = new Object();
+  private List segments;
+  private Segment active;
+  private volatile boolean opened;
+  private volatile boolean closed;
+
+  /** Sets the directory in which the segment files will be held. It will be
+   * created if it does not exist. */
+  public void setDirectory(String directory) {
+    this.directory = new File(directory);
+  }
+
+  /** Sets the size in bytes of each segment file */
+  public void setSegmentBytes(int segmentbytes) {
+    this.segmentbytes = segmentbytes;
+  }
+
+  /**
+   * Sets the time in seconds after its last access at which a token will
+   * expire. A value of 0 or less will disable expiry.
+   */
+  public void setExpirySeconds(int seconds) {
+    this.expiryseconds = seconds;
+  }
+
+  /**
+   * Sets whether each write is forced to the storage device before it
+   * returns. Defaults to <code>true</code>.
+   */
+  public void setForceWrites(boolean forcewrites) {
+    this.forcewrites = forcewrites;
+  }
+
+  /**
+   * Sets the provider used to serialize payloads. If none is set, payloads
+   * must be Serializable.
+   */
+  public void setSerializationProvider(
+      SerializationProvider serializationProvider) {
+    this.serializationProvider = serializationProvider;
+  }
+
+  private long expiryFrom(long now) {
+    return expiryseconds <= 0 ? Long.MAX_VALUE
+        : now + expiryseconds * 1000L;
+  }
+
+  private void checkClosed() {
+    if (closed) {
+      throw new IllegalStateException(
+          "MappedFileTSH for " + directory + " has been destroyed");
+    }
+  }
+
+  private void ensureOpen() {
+    checkClosed();
+    if (opened)
+      return;
+    synchronized (writelock) {
+      checkClosed();
+      if (opened)
+        return;
+      open();
+      opened = true;
+    }
+    TokenStateReaper.instance().attach(this);
+  }
+
+  private void open() {
+    if (directory == null) {
+      throw new IllegalStateException(
+          "No directory has been configured for MappedFileTSH");
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalStateException("Unable to create token state directory "
+          + directory);
+    }
+    segments = new ArrayList();
+    File[] files = directory.listFiles();
+    Arrays.sort(files);
+    for (int i = 0; i < files.length; ++i) {
+      String name = files[i].getName();
+      if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+        int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+            name.length() - SEGMENT_SUFFIX.length()));
+        Segment segment = openSegment(id, files[i].length());
+        recoverSegment(segment);
+        segments.add(segment);
+      }
+    }
+    // Segments are listed in creation order since ids are zero-padded
+    active = segments.isEmpty() ? null
+        : (Segment) segments.get(segments.size() - 1);
+  }
+
+  private Segment openSegment(int id, long size) {
+    Segment togo = new Segment();
+    togo.id = id;
+    togo.file = new File(directory, SEGMENT_PREFIX
+        + Integer.toString(1000000000 + id).substring(1) + SEGMENT_SUFFIX);
+    try {
+      RandomAccessFile raf = new RandomAccessFile(togo.file, "rw");
+      togo.channel = raf.getChannel();
+      togo.buffer = togo.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error mapping token state segment " + togo.file);
+    }
+    return togo;
+  }
+
+  // Rebuild the index from a segment left by a previous run. A zero record
+  // length marks the unwritten remainder of the segment.
+  private void recoverSegment(Segment segment) {
+    ByteBuffer buffer = segment.buffer.duplicate();
+    long now = System.currentTimeMillis();
+    while (buffer.remaining() >= 4) {
+      int offset = buffer.position();
+      int length = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining())
+        break;
+      byte[] record = new byte[length];
+      buffer.get(record);
+      try {
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(
+            record));
+        byte op = dis.readByte();
+        long expiry = dis.readLong();
+        String tokenID = dis.readUTF();
+        Location old = (Location) index.remove(tokenID);
+        if (old != null) {
+          old.segment.livebytes.addAndGet(-old.length);
+        }
+        if (op == OP_PUT && expiry > now) {
+          Location location = new Location();
+          location.segment = segment;
+          location.offset = offset;
+          location.length = length + 4;
+          location.expiry = expiry;
+          index.put(tokenID, location);
+          segment.livebytes.addAndGet(location.length);
+        }
+      }
+      catch (IOException e) {
+        Logger.log.warn("Corrupt token state record in " + segment.file
+            + " at offset " + offset + ", discarding remainder of segment");
+        buffer.position(offset);
+        break;
+      }
+      segment.position = buffer.position();
+    }
+  }
+
+  // Append a record to the active segment, rolling over to a new segment if
+  // it will not fit. Returns the location of the record. Must be called
+  // holding writelock.
+  private Location append(byte[] record) {
+    int needed = record.length + 4;
+    if (active == null || active.buffer.capacity() - active.position < needed) {
+      int id = active == null ? 0 : active.id + 1;
+      active = openSegment(id, Math.max(segmentbytes, needed));
+      segments.add(active);
+    }
+    ByteBuffer buffer = active.buffer.duplicate();
+    buffer.position(active.position);
+    buffer.putInt(record.length);
+    buffer.put(record);
+    Location togo = new Location();
+    togo.segment = active;
+    togo.offset = active.position;
+    togo.length = needed;
+    active.position += needed;
+    return togo;
+  }
+
+  private byte[] readRecord(Location location) {
+    ByteBuffer buffer = location.segment.buffer.duplicate();
+    buffer.position(location.offset + 4);
+    byte[] togo = new byte[location.length - 4];
+    buffer.get(togo);
+    return togo;
+  }
+
+  private byte[] encode(byte op, long expiry, String tokenID, Object payload) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      DataOutputStream dos = new DataOutputStream(bos);
+      dos.writeByte(op);
+      dos.writeLong(expiry);
+      dos.writeUTF(tokenID);
+      if (op == OP_PUT) {
+        if (serializationProvider != null) {
+          dos.writeUTF(payload.getClass().getName());
+          dos.flush();
+          serializationProvider.writeObject(payload, bos);
+        }
+        else {
+          dos.writeUTF("");
+          dos.flush();
+          ObjectOutputStream oos = new ObjectOutputStream(bos);
+          oos.writeObject(payload);
+          oos.flush();
+        }
+      }
+      dos.flush();
+      return bos.toByteArray();
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error serializing token state for token " + tokenID);
+    }
+  }
+
+  private Object decode(byte[] record, String tokenID) {
+    try {
+      ByteArrayInputStream bis = new ByteArrayInputStream(record);
+      DataInputStream dis = new DataInputStream(bis);
+      dis.readByte();
+      dis.readLong();
+      dis.readUTF();
+      String classname = dis.readUTF();
+      if (classname.length() == 0) {
+        ObjectInputStream ois = new ObjectInputStream(bis);
+        return ois.readObject();
+      }
+      else {
+        return serializationProvider.readObject(ClassGetter.forName(classname),
+            bis);
+      }
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error deserializing token state for token " + tokenID);
+    }
+  }
+
+  public Object getTokenState(String tokenID) {
+    ensureOpen();
+    Location location = (Location) index.get(tokenID);
+    if (location == null)
+      return null;
+    long now = System.currentTimeMillis();
+    if (location.expiry <= now) {
+      remove(tokenID, location);
+      return null;
+    }
+    location.expiry = expiryFrom(now);
+    return decode(readRecord(location), tokenID);
+  }
+
+  public void putTokenState(String tokenID, Object payload) {
+    ensureOpen();
+    long expiry = expiryFrom(System.currentTimeMillis());
+    byte[] record = encode(OP_PUT, expiry, tokenID, payload);
+    Location location;
+    synchronized (writelock) {
+      checkClosed();
+      location = append(record);
+      location.expiry = expiry;
+      location.segment.livebytes.addAndGet(location.length);
+      Location old = (Location) index.put(tokenID, location);
+      if (old != null) {
+        old.segment.livebytes.addAndGet(-old.length);
+      }
+    }
+    force(location.segment);
+  }
+
+  public void clearTokenState(String tokenID) {
+    ensureOpen();
+    byte[] record = encode(OP_CLEAR, 0, tokenID, null);
+    Location location = null;
+    synchronized (writelock) {
+      checkClosed();
+      Location old = (Location) index.remove(tokenID);
+      if (old != null) {
+        old.segment.livebytes.addAndGet(-old.length);
+        // Record the clear, so that the token is not resurrected on recovery
+        location = append(record);
+      }
+    }
+    if (location != null) {
+      force(location.segment);
+    }
+  }
+
+  // Removes the token from the index only if it is still at the supplied
+  // location, that is, it has not been concurrently rewritten.
+  private void remove(String tokenID, Location location) {
+    if (index.remove(tokenID, location)) {
+      location.segment.livebytes.addAndGet(-location.length);
+    }
+  }
+
+  private void force(Segment segment) {
+    if (forcewrites) {
+      segment.buffer.force();
+    }
+  }
+
+  /**
+   * Removes expired tokens from the index, and compacts the oldest segment if
+   * its live content has fallen below half its size.
+   */
+  public int reap(long now) {
+    if (!opened || closed)
+      return 0;
+    int reaped = 0;
+    for (Iterator entryit = index.entrySet().iterator(); entryit.hasNext();) {
+      Map.Entry entry = (Map.Entry) entryit.next();
+      Location location = (Location) entry.getValue();
+      if (location.expiry <= now) {
+        remove((String) entry.getKey(), location);
+        ++reaped;
+      }
+    }
+    synchronized (writelock) {
+      if (closed || segments.isEmpty())
+        return reaped;
+      // Only the oldest segment is ever compacted, so that no record which
+      // clears a token can be discarded before the record which stored it
+      Segment oldest = (Segment) segments.get(0);
+      if (oldest != active
+          && oldest.livebytes.get() < oldest.buffer.capacity() * COMPACT_RATIO) {
+        compact(oldest);
+      }
+    }
+    return reaped;
+  }
+
+  // Copy all live records from the supplied segment to the active segment,
+  // and delete it. Must be called holding writelock.
+  private void compact(Segment segment) {
+    for (Iterator entryit = index.entrySet().iterator(); entryit.hasNext();) {
+      Map.Entry entry = (Map.Entry) entryit.next();
+      Location location = (Location) entry.getValue();
+      if (location.segment == segment) {
+        Location moved = append(readRecord(location));
+        moved.expiry = location.expiry;
+        // the token may have been concurrently expired by a reader, in which
+        // case the moved copy is left dead
+        if (index.replace(entry.getKey(), location, moved)) {
+          moved.segment.livebytes.addAndGet(moved.length);
+        }
+      }
+    }
+    // the moved records must be durable before their originals are deleted
+    active.buffer.force();
+    segments.remove(segment);
+    closeSegment(segment);
+    if (!segment.file.delete()) {
+      Logger.log.warn("Unable to delete compacted token state segment "
+          + segment.file);
+      segment.file.deleteOnExit();
+    }
+  }
+
+  private void closeSegment(Segment segment) {
+    try {
+      segment.buffer.force();
+      segment.channel.close();
+    }
+    catch (IOException e) {
+      Logger.log.warn("Error closing token state segment " + segment.file, e);
+    }
+  }
+
+  /**
+   * Closes all segment files. Any further use of this holder will throw an
+   * IllegalStateException.
+   */
+  public void destroy() {
+    synchronized (writelock) {
+      if (closed)
+        return;
+      closed = true;
+      if (segments != null) {
+        for (int i = 0; i < segments.size(); ++i) {
+          closeSegment((Segment) segments.get(i));
+        }
+      }
+      index.clear();
+      segments = null;
+      active = null;
+    }
+    TokenStateReaper.instance().detach(this);
+  }
+
+  public String getId() {
+    return null;
+  }
+
+  /** Returns the number of tokens currently held */
+  public int size() {
+    ensureOpen();
+    return index.size();
+  }
+
+  /** Returns the number of segment files currently in use */
+  public int getSegmentCount() {
+    ensureOpen();
+    synchronized (writelock) {
+      checkClosed();
+      return segments.size();
+    }
+  }
+}
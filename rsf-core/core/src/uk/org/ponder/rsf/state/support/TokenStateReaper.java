@@ -0,0 +1,104 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.state.support;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import uk.org.ponder.util.Logger;
+
+/**
+ * The JVM-wide background thread which expires token state. Holders of
+ * expiring state (for example {@link InMemoryTSH}) attach themselves to the
+ * single shared reaper on startup and detach on destruction. Holders are only
+ * weakly referenced, so that a holder which is never explicitly destroyed (for
+ * example on a hot redeploy) will not be kept alive by the reaper.
+ * <p>
+ * The reaper thread is a daemon, and is started lazily when the first holder
+ * attaches.
+ */
+
+public class TokenStateReaper {
+  /** Implemented by any holder of state which needs periodic expiry */
+  public interface Reapable {
+    /**
+     * Expire any state which has expired at the supplied time.
+     *
+     * @param now The current time in milliseconds.
+     * @return The number of entries which were expired.
+     */
+    public int reap(long now);
+  }
+
+  /** The interval in milliseconds at which attached holders are reaped */
+  public static final long REAP_INTERVAL = 1000;
+
+  private static TokenStateReaper instance = new TokenStateReaper();
+
+  public static TokenStateReaper instance() {
+    return instance;
+  }
+
+  private List holders = new ArrayList();
+  private Timer timer;
+
+  public synchronized void attach(Reapable reapable) {
+    holders.add(new WeakReference(reapable));
+    if (timer == null) {
+      timer = new Timer("RSF token state reaper", true);
+      timer.schedule(new TimerTask() {
+        public void run() {
+          reapAll();
+        }
+      }, REAP_INTERVAL, REAP_INTERVAL);
+    }
+  }
+
+  public synchronized void detach(Reapable reapable) {
+    for (Iterator holderit = holders.iterator(); holderit.hasNext();) {
+      Object holder = ((WeakReference) holderit.next()).get();
+      if (holder == null || holder == reapable) {
+        holderit.remove();
+      }
+    }
+    if (holders.isEmpty() && timer != null) {
+      timer.cancel();
+      timer = null;
+    }
+  }
+
+  private Reapable[] getLiveHolders() {
+    synchronized (this) {
+      List togo = new ArrayList(holders.size());
+      for (Iterator holderit = holders.iterator(); holderit.hasNext();) {
+        Object holder = ((WeakReference) holderit.next()).get();
+        if (holder == null) {
+          holderit.remove();
+        }
+        else {
+          togo.add(holder);
+        }
+      }
+      return (Reapable[]) togo.toArray(new Reapable[togo.size()]);
+    }
+  }
+
+  void reapAll() {
+    Reapable[] live = getLiveHolders();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < live.length; ++i) {
+      try {
+        live[i].reap(now);
+      }
+      catch (Exception e) {
+        // never let one faulty holder kill the shared thread
+        Logger.log.warn("Error expiring token state from " + live[i], e);
+      }
+    }
+  }
+}
@@ -68,6 +68,12 @@ public class XMLLumpMMap {
     ++concretes;
   }
 
+  /** Removes all lumps from this map, so that it may be reused */
+  public void clear() {
+    idtolumps.clear();
+    concretes = 0;
+  }
+
   public void aggregate(XMLLumpMMap toaccrete) {
     for (Iterator it = toaccrete.iterator(); it.hasNext();) {
       String key = (String) it.next();
@@ -0,0 +1,188 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.template;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.org.ponder.streamutil.DeflatedBlock;
+import uk.org.ponder.streamutil.DeflaterPool;
+import uk.org.ponder.streamutil.write.BytePrintOutputStream;
+import uk.org.ponder.streamutil.write.DeflatedPrintOutputStream;
+import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
+
+/**
+ * An immutable "render plan" compiled once from a parsed
+ * {@link XMLViewTemplate}, which spares the renderer from rediscovering on
+ * every request facts which depend only on the template. For each lump index
+ * the plan records the extent of the static run which begins there (the index
+ * of the next lump bearing an rsf:id, and the minimum nesting depth reached
+ * before it), allowing the whole run to be emitted as a single contiguous
+ * segment of the template buffer, together with an explicit list of dynamic
+ * {@link XMLRenderSlot}s for the lumps bearing rsf:ids.
+ * <p>
+ * The plan also holds the template text pre-encoded as UTF-8, so that static
+ * runs may be copied as bytes to a {@link BytePrintOutputStream} without
+ * being encoded afresh on every request. Where the target is writing a
+ * compressed response, each static run of at least {@link #DEFLATE_THRESHOLD}
+ * bytes is compressed once, on first use, and its compressed form copied to
+ * every later response.
+ */
+
+public class XMLRenderPlan {
+  /** The minimum length in bytes of a static run which will be sent in
+   * precompressed form. Each precompressed run requires the response's
+   * compressor to be fully flushed, costing a little compression on the
+   * material which follows it, which is only repaid for longer runs. */
+  public static final int DEFLATE_THRESHOLD = 1024;
+
+  /** For each lump index, the index of the first lump at or after it which
+   * bears an rsf:id, or the number of lumps if there is none. */
+  public final int[] nextstop;
+  /** For each lump index, the minimum nesting depth over the static run
+   * from that lump up to (but excluding) <code>nextstop</code>. */
+  public final int[] runmindepth;
+  /** For each lump index, the dynamic slot compiled for it, or
+   * <code>null</code> if the lump bears no rsf:id. */
+  public final XMLRenderSlot[] slots;
+  /** The lump indices of all dynamic slots, in document order. */
+  public final int[] slotindices;
+  /** The complete template buffer, encoded as UTF-8. */
+  public final byte[] utf8;
+  /** For each lump index, the offset in <code>utf8</code> at which the lump
+   * begins, with a final entry holding the length of <code>utf8</code>. */
+  public final int[] lumpbytes;
+  // Map of (startindex << 32 | limitindex) to DeflatedBlock, created on first
+  // use since most templates are never rendered to a compressed stream
+  private volatile ConcurrentHashMap deflated;
+
+  private XMLRenderPlan(XMLLump[] lumps, char[] buffer) {
+    int size = lumps.length;
+    nextstop = new int[size];
+    runmindepth = new int[size];
+    slots = new XMLRenderSlot[size];
+    int stop = size;
+    int mindepth = Integer.MAX_VALUE;
+    int slotcount = 0;
+    for (int i = size - 1; i >= 0; --i) {
+      XMLLump lump = lumps[i];
+      if (lump.rsfID != null) {
+        stop = i;
+        mindepth = Integer.MAX_VALUE;
+        slots[i] = new XMLRenderSlot(lump);
+        ++slotcount;
+      }
+      else if (lump.nestingdepth < mindepth) {
+        mindepth = lump.nestingdepth;
+      }
+      nextstop[i] = stop;
+      runmindepth[i] = mindepth;
+    }
+    slotindices = new int[slotcount];
+    int slotpos = 0;
+    for (int i = 0; i < size; ++i) {
+      if (slots[i] != null) {
+        slotindices[slotpos++] = i;
+      }
+    }
+    // Lump boundaries are always at markup, but encode lump by lump so that
+    // the offsets are exact in every case.
+    lumpbytes = new int[size + 1];
+    int bytepos = 0;
+    for (int i = 0; i < size; ++i) {
+      lumpbytes[i] = bytepos;
+      int limit = i + 1 < size ? lumps[i + 1].start : buffer.length;
+      bytepos += UTF8OutputStreamPOS.encodedLength(buffer, lumps[i].start,
+          limit - lumps[i].start);
+    }
+    lumpbytes[size] = bytepos;
+    utf8 = new byte[bytepos];
+    for (int i = 0; i < size; ++i) {
+      int limit = i + 1 < size ? lumps[i + 1].start : buffer.length;
+      UTF8OutputStreamPOS.encode(buffer, lumps[i].start, limit
+          - lumps[i].start, utf8, lumpbytes[i]);
+    }
+  }
+
+  /**
+   * Compiles the render plan for the supplied template, which must have
+   * completed parsing, and installs it as the template's
+   * <code>renderplan</code>.
+   */
+  public static XMLRenderPlan compile(XMLViewTemplate template) {
+    XMLRenderPlan togo = new XMLRenderPlan(template.lumps, template.buffer);
+    template.renderplan = togo;
+    return togo;
+  }
+
+  /**
+   * Returns the index at which a scan of static template material beginning
+   * at <code>renderindex</code> must stop, being either a lump bearing an
+   * rsf:id or one whose nesting depth is below <code>basedepth</code>.
+   */
+  public int scanStop(XMLLump[] lumps, int renderindex, int basedepth) {
+    if (runmindepth[renderindex] >= basedepth) {
+      return nextstop[renderindex];
+    }
+    int limit = nextstop[renderindex];
+    while (renderindex < limit && lumps[renderindex].nestingdepth >= basedepth) {
+      ++renderindex;
+    }
+    return renderindex;
+  }
+
+  /**
+   * Writes the template text from the start of lump <code>startindex</code>
+   * up to the start of lump <code>limitindex</code> (or the end of the
+   * template, if this is the number of lumps) to the supplied target as
+   * pre-encoded bytes, if it is able to accept them.
+   *
+   * @return <code>true</code> if the text was written, or <code>false</code>
+   *         if the target does not accept UTF-8 bytes, in which case the
+   *         caller must write the characters itself.
+   */
+  public boolean writeEncoded(int startindex, int limitindex,
+      PrintOutputStream target) {
+    if (!(target instanceof BytePrintOutputStream) || limitindex < startindex) {
+      return false;
+    }
+    BytePrintOutputStream bytetarget = (BytePrintOutputStream) target;
+    if (!UTF8OutputStreamPOS.ENCODING.equals(bytetarget.getEncoding())) {
+      return false;
+    }
+    int start = lumpbytes[startindex];
+    int length = lumpbytes[limitindex] - start;
+    if (length >= DEFLATE_THRESHOLD
+        && bytetarget instanceof DeflatedPrintOutputStream
+        && ((DeflatedPrintOutputStream) bytetarget).acceptsDeflated()) {
+      ((DeflatedPrintOutputStream) bytetarget).writeDeflated(getDeflated(
+          startindex, limitindex, start, length));
+    }
+    else {
+      bytetarget.writeBytes(utf8, start, length);
+    }
+    return true;
+  }
+
+  private DeflatedBlock getDeflated(int startindex, int limitindex,
+      int start, int length) {
+    ConcurrentHashMap blocks = deflated;
+    if (blocks == null) {
+      synchronized (this) {
+        if (deflated == null) {
+          deflated = new ConcurrentHashMap();
+        }
+        blocks = deflated;
+      }
+    }
+    Long key = Long.valueOf(((long) startindex << 32) | limitindex);
+    DeflatedBlock togo = (DeflatedBlock) blocks.get(key);
+    if (togo == null) {
+      // a race simply compresses the same run twice
+      togo = DeflatedBlock.deflate(utf8, start, length, DeflaterPool.instance());
+      blocks.put(key, togo);
+    }
+    return togo;
+  }
+}
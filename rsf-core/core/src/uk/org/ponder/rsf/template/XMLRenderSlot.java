@@ -0,0 +1,105 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.template;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import uk.org.ponder.rsf.util.SplitID;
+
+/**
+ * A "dynamic slot" within a compiled {@link XMLRenderPlan} - one for each lump
+ * in the template which bears an rsf:id. All of the analysis of the ID which
+ * depends only on the template (elision, repetition prefix, message and static
+ * renderer keys, payload lookup) is performed once at parse time and is held
+ * here immutably for the renderer, together with the lump's attributes in
+ * flat form, ready to be copied into a
+ * {@link uk.org.ponder.xml.FlatAttributeMap}.
+ */
+
+public class XMLRenderSlot {
+  /** A plain, unrepeated leaf or container component */
+  public static final int LEAF = 0;
+  /** A repetitive ("split") ID, containing a colon */
+  public static final int BRANCH = 1;
+  /** A "message-for:" target for message rendering */
+  public static final int MESSAGE_FOR = 2;
+  /** A "msg=" ID designating a simple internationalised message */
+  public static final int MESSAGE = 3;
+
+  /** The lump which holds the rsf:id this slot was compiled from */
+  public final XMLLump lump;
+  /** The rsf:id with any elision prefix removed */
+  public final String id;
+  /** <code>true</code> if the ID bore the elision prefix */
+  public final boolean iselide;
+  /** One of the type constants LEAF, BRANCH, MESSAGE_FOR or MESSAGE */
+  public final int type;
+  /** For a BRANCH, the raw prefix of the ID before the colon */
+  public final String prefix;
+  /** For a BRANCH, the final lump in this scope sharing its prefix */
+  public final XMLLump finallump;
+  /** For a MESSAGE, the message key */
+  public final String messagekey;
+  /** For a MESSAGE, the value of any template "id" attribute */
+  public final String messageid;
+  /** The name of the StaticComponentRenderer referenced by an "scr=" ID,
+   * or <code>null</code> */
+  public final String scrname;
+  /** Any lump nested within this one bearing the "payload-component" ID */
+  public final XMLLump payload;
+  /** The names of the lump's attributes (including the rsf:id), in the
+   * iteration order of its <code>attributemap</code> */
+  public final String[] attrnames;
+  /** The values of the lump's attributes, parallel to <code>attrnames</code> */
+  public final String[] attrvalues;
+
+  public XMLRenderSlot(XMLLump lump) {
+    this.lump = lump;
+    String rawid = lump.rsfID;
+    iselide = rawid.startsWith(XMLLump.ELISION_PREFIX);
+    id = iselide ? rawid.substring(XMLLump.ELISION_PREFIX.length()) : rawid;
+
+    if (id.startsWith(XMLLump.FORID_PREFIX)) {
+      type = MESSAGE_FOR;
+    }
+    else if (SplitID.isSplit(id)) {
+      type = BRANCH;
+    }
+    else if (id.startsWith(XMLLump.MSG_PREFIX)) {
+      type = MESSAGE;
+    }
+    else {
+      type = LEAF;
+    }
+    prefix = type == BRANCH ? SplitID.getPrefix(id) : null;
+    finallump = type == BRANCH && lump.uplump != null ? lump.uplump
+        .getFinal(prefix) : null;
+    messagekey = type == MESSAGE ? id.substring(XMLLump.MSG_PREFIX.length())
+        : null;
+    messageid = type == MESSAGE && lump.attributemap != null ? (String) lump.attributemap
+        .get("id")
+        : null;
+    scrname = id.startsWith(XMLLump.SCR_PREFIX) ? id
+        .substring(XMLLump.SCR_PREFIX.length())
+        : null;
+    XMLLumpList payloadlist = lump.downmap == null ? null
+        : lump.downmap.headsForID(XMLLump.PAYLOAD_COMPONENT);
+    payload = payloadlist == null ? null
+        : payloadlist.lumpAt(0);
+    Map attrs = lump.attributemap;
+    int attrcount = attrs == null ? 0 : attrs.size();
+    attrnames = new String[attrcount];
+    attrvalues = new String[attrcount];
+    if (attrs != null) {
+      int i = 0;
+      for (Iterator it = attrs.entrySet().iterator(); it.hasNext(); ++i) {
+        Map.Entry entry = (Map.Entry) it.next();
+        attrnames[i] = (String) entry.getKey();
+        attrvalues[i] = (String) entry.getValue();
+      }
+    }
+  }
+
+}
@@ -26,6 +26,9 @@ public class XMLViewTemplate extends GenericXMLViewTemplate implements BasedView
   public boolean isstatictemplate;
   
   public char[] buffer;
+  // the plan of static runs and dynamic slots compiled at parse time - use
+  // getRenderPlan(), since a template not built by the parser has none
+  public volatile XMLRenderPlan renderplan;
   // The template's full path, for debugging purposes
   public String fullpath;
   
@@ -49,4 +52,11 @@ public class XMLViewTemplate extends GenericXMLViewTemplate implements BasedView
     return resourcebase;
   }
 
+  /** Returns the render plan for this template, compiling it first if the
+   * template was assembled other than by the parser. */
+  public XMLRenderPlan getRenderPlan() {
+    XMLRenderPlan togo = renderplan;
+    return togo == null ? XMLRenderPlan.compile(this) : togo;
+  }
+
 }
\ No newline at end of file
@@ -365,6 +365,7 @@ public class XMLViewTemplateParser implements ViewTemplateParser {
     System.arraycopy(buffer.storage, 0, compacted, 0, buffer.size);
     t.buffer = compacted;
     buffer = null;
+    XMLRenderPlan.compile(t);
   }
 
 }
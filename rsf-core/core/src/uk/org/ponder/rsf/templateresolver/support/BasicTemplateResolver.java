@@ -5,7 +5,6 @@ package uk.org.ponder.rsf.templateresolver.support;
 
 import java.io.InputStream;
 import java.util.List;
-import java.util.Map;
 
 import org.springframework.core.io.ResourceLoader;
 
@@ -26,6 +25,7 @@ import uk.org.ponder.rsf.templateresolver.TemplateResolverStrategy;
 import uk.org.ponder.rsf.view.ViewTemplate;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.springutil.CachingInputStreamSource;
+import uk.org.ponder.streamutil.StreamCloseUtil;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.Logger;
 import uk.org.ponder.util.UniversalRuntimeException;
@@ -69,12 +69,19 @@ public class BasicTemplateResolver implements TemplateResolver {
     this.aggregator = aggregator;
   }
 
+  /** No longer required - retained for compatibility with existing
+   * configuration.
+   * @deprecated The template cache no longer uses the ReflectiveCache */
   public void setReflectiveCache(ReflectiveCache reflectiveCache) {
-    templates = reflectiveCache.getConcurrentMap(1);
+  }
+
+  /** Returns the cache of parsed templates, e.g. to inspect its statistics */
+  public TemplateCache getTemplateCache() {
+    return templates;
   }
   
-  // this is a map of viewID onto template file.
-  private Map templates;
+  // this is a cache of full template path onto parsed template.
+  private TemplateCache templates = new TemplateCache();
 
   private CachingInputStreamSource cachingiis;
 
@@ -192,44 +199,57 @@ public class BasicTemplateResolver implements TemplateResolver {
   public XMLViewTemplate parseTemplate(TemplateResolutionContext trc) {
     if (trc.is == null) return null;
     
-    XMLViewTemplate template = null;
-    if (trc.is == CachingInputStreamSource.UP_TO_DATE) {
-      template = (XMLViewTemplate) templates.get(trc.fullpath);
+    boolean uptodate = trc.is == CachingInputStreamSource.UP_TO_DATE;
+    TemplateCache.Entry entry = templates.getEntry(trc.fullpath);
+    XMLViewTemplate template = entry.getTemplate();
+    if (uptodate && template != null && !entry.isStale()) {
+      templates.recordHit();
+      return template;
     }
-    if (template == null) {
-      List tpis = aggregator.getFilteredTPIs();
-      try {
-        // possibly the reason is it had a parse error last time, which may have
-        // been corrected
-        if (trc.is == CachingInputStreamSource.UP_TO_DATE) {
-          trc.is = cachingiis.getNonCachingResolver().openStream(trc.fullpath);
-        }
-        XMLViewTemplateParser parser = new XMLViewTemplateParser();
-        parser.setTemplateParseInterceptors(tpis);
-        template = (XMLViewTemplate) parser.parse(trc.is);
-        // there WILL be one slash in the path.
-        int lastslashpos = trc.fullpath.lastIndexOf('/');
-        String resourcebaseext = trc.fullpath.substring(1, lastslashpos + 1);
-        if (trc.trs instanceof BaseAwareTemplateResolverStrategy) {
-          BaseAwareTemplateResolverStrategy batrs = (BaseAwareTemplateResolverStrategy) trc.trs;
-          String extresourcebase = batrs.getExternalURLBase();
-          template.setExtResourceBase(extresourcebase);
-        }
-        if (trc.trs instanceof ForceContributingTRS) {
-          ForceContributingTRS fctrs = (ForceContributingTRS) trc.trs;
-          if (fctrs.getMustContribute()) {
-            template.mustcollectmap = template.collectmap;
-          }
-        }
-        template.setRelativeResourceBase(resourcebaseext);
-        template.fullpath = trc.fullpath;
-        template.isstatictemplate = trc.trs.isStatic();
-        templates.put(trc.fullpath, template);
+    // Either the template is stale, or there is no parsed version - only one
+    // thread will parse it, others are served any previous version.
+    template = templates.beginParse(entry, uptodate);
+    if (template != null) {
+      if (!uptodate) {
+        StreamCloseUtil.closeInputStream(trc.is);
       }
-      catch (Exception e) {
-        throw UniversalRuntimeException.accumulate(e,
-            "Error parsing view template file " + trc.fullpath);
+      return template;
+    }
+    List tpis = aggregator.getFilteredTPIs();
+    try {
+      // possibly the reason is it had a parse error last time, which may have
+      // been corrected
+      if (uptodate) {
+        trc.is = cachingiis.getNonCachingResolver().openStream(trc.fullpath);
+      }
+      XMLViewTemplateParser parser = new XMLViewTemplateParser();
+      parser.setTemplateParseInterceptors(tpis);
+      template = (XMLViewTemplate) parser.parse(trc.is);
+      // there WILL be one slash in the path.
+      int lastslashpos = trc.fullpath.lastIndexOf('/');
+      String resourcebaseext = trc.fullpath.substring(1, lastslashpos + 1);
+      if (trc.trs instanceof BaseAwareTemplateResolverStrategy) {
+        BaseAwareTemplateResolverStrategy batrs = (BaseAwareTemplateResolverStrategy) trc.trs;
+        String extresourcebase = batrs.getExternalURLBase();
+        template.setExtResourceBase(extresourcebase);
+      }
+      if (trc.trs instanceof ForceContributingTRS) {
+        ForceContributingTRS fctrs = (ForceContributingTRS) trc.trs;
+        if (fctrs.getMustContribute()) {
+          template.mustcollectmap = template.collectmap;
+        }
       }
+      template.setRelativeResourceBase(resourcebaseext);
+      template.fullpath = trc.fullpath;
+      template.isstatictemplate = trc.trs.isStatic();
+    }
+    catch (Exception e) {
+      template = null;
+      throw UniversalRuntimeException.accumulate(e,
+          "Error parsing view template file " + trc.fullpath);
+    }
+    finally {
+      templates.endParse(entry, template);
     }
     return template;
   }
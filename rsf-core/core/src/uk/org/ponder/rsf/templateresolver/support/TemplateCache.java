@@ -0,0 +1,154 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.templateresolver.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+
+/**
+ * A concurrent cache of parsed view templates, keyed by full template path.
+ * Lookups of a template which is present are lock-free. Parsing of any
+ * particular path is "single-flight" - while one thread is (re)parsing a
+ * template, other threads requesting it will be served the previous version
+ * if there is one, and will otherwise wait for the parse to complete.
+ * <p>
+ * Each change to a template which is reported to the cache is given a stamp.
+ * A change reported while another thread is already parsing is not lost -
+ * the template stored by that parse is recorded as older than the change,
+ * and the entry remains stale until the template is parsed again.
+ * <p>
+ * Hit, miss and reparse counts are maintained for monitoring purposes.
+ */
+
+public class TemplateCache {
+  /** The state held for a single template path */
+  public static class Entry {
+    private volatile XMLViewTemplate template;
+    private boolean parsing;
+    // the stamp of the latest change reported for this template
+    private long changestamp;
+    // the stamp of the change being parsed, and of that which gave rise to
+    // the current template
+    private long parsingstamp;
+    private long templatestamp;
+    private volatile boolean stale;
+
+    public XMLViewTemplate getTemplate() {
+      return template;
+    }
+
+    /**
+     * Returns <code>true</code> if a change has been reported for this
+     * template which is more recent than the current parsed version.
+     */
+    public boolean isStale() {
+      return stale;
+    }
+  }
+
+  private ConcurrentMap entries = new ConcurrentHashMap();
+
+  private AtomicLong hits = new AtomicLong();
+  private AtomicLong misses = new AtomicLong();
+  private AtomicLong reparses = new AtomicLong();
+
+  /** Returns the cache entry for the supplied path, creating it if necessary */
+  public Entry getEntry(String fullpath) {
+    Entry togo = (Entry) entries.get(fullpath);
+    if (togo == null) {
+      Entry created = new Entry();
+      togo = (Entry) entries.putIfAbsent(fullpath, created);
+      if (togo == null) {
+        togo = created;
+      }
+    }
+    return togo;
+  }
+
+  /**
+   * Attempt to claim the right to parse the template for this entry.
+   *
+   * @param entry The entry for the template to be parsed.
+   * @param uptodate <code>true</code> if the caller has not detected the
+   *          template to be stale, in which case any template parsed by another
+   *          thread in the meantime is acceptable. <code>false</code> reports
+   *          a fresh change to the template.
+   * @return <code>null</code> if the caller has claimed the parse, and must
+   *         call {@link #endParse} on completion, or else a template which may
+   *         be served in its place.
+   */
+  public XMLViewTemplate beginParse(Entry entry, boolean uptodate) {
+    synchronized (entry) {
+      if (!uptodate) {
+        entry.changestamp++;
+        entry.stale = true;
+      }
+      while (entry.parsing && entry.template == null) {
+        try {
+          entry.wait();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      XMLViewTemplate existing = entry.template;
+      if (existing != null && (entry.parsing || uptodate && !entry.stale)) {
+        hits.incrementAndGet();
+        return existing;
+      }
+      entry.parsing = true;
+      entry.parsingstamp = entry.changestamp;
+      misses.incrementAndGet();
+      if (existing != null) {
+        reparses.incrementAndGet();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Complete a parse claimed by {@link #beginParse}. The supplied template
+   * will become the cached version, unless a newer one has already been
+   * stored - a <code>null</code> template indicates that the parse failed,
+   * and any previous version will be retained.
+   */
+  public void endParse(Entry entry, XMLViewTemplate template) {
+    synchronized (entry) {
+      if (template != null && entry.parsingstamp >= entry.templatestamp) {
+        entry.template = template;
+        entry.templatestamp = entry.parsingstamp;
+      }
+      // a failed parse consumes its change, so that a broken template is not
+      // reparsed on every request - only a later change makes it stale again
+      entry.stale = entry.parsingstamp < entry.changestamp;
+      entry.parsing = false;
+      entry.notifyAll();
+    }
+  }
+
+  /** Records a lock-free hit on a template which was found up to date */
+  public void recordHit() {
+    hits.incrementAndGet();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getReparses() {
+    return reparses.get();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+}
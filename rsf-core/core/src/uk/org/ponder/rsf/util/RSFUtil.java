@@ -234,6 +234,57 @@ public class RSFUtil {
     return togo;
   }
 
+  /**
+   * Prunes the component tree so that it holds only the branch container
+   * with the supplied full ID, its descendants, and the chain of containers
+   * leading to it from <code>root</code>. All other components are detached.
+   * 
+   * @return The branch container, or <code>null</code> if there is none with
+   *         this ID, in which case the tree is left unchanged.
+   */
+  public static UIBranchContainer pruneToBranch(UIContainer root, String fullID) {
+    UIBranchContainer branch = findBranch(root, fullID);
+    if (branch != null) {
+      UIComponent keep = branch;
+      for (UIContainer parent = branch.parent; parent != null; parent = parent.parent) {
+        ComponentList children = parent.flattenChildren();
+        for (int i = 0; i < children.size(); ++i) {
+          UIComponent child = children.componentAt(i);
+          if (child != keep) {
+            parent.remove(child);
+          }
+        }
+        keep = parent;
+      }
+    }
+    return branch;
+  }
+
+  // Only branch containers contribute to the full IDs of their descendants,
+  // so a branch is only descended into if its full ID is a prefix of the
+  // target's. Other containers, such as forms, may hold it at any depth.
+  private static UIBranchContainer findBranch(UIContainer container,
+      String fullID) {
+    ComponentList children = container.flattenChildren();
+    for (int i = 0; i < children.size(); ++i) {
+      UIComponent child = children.componentAt(i);
+      if (child instanceof UIContainer) {
+        boolean isbranch = child instanceof UIBranchContainer;
+        String childID = child.getFullID();
+        if (isbranch && childID.equals(fullID)) {
+          return (UIBranchContainer) child;
+        }
+        if (!isbranch || fullID.startsWith(childID)) {
+          UIBranchContainer togo = findBranch((UIContainer) child, fullID);
+          if (togo != null) {
+            return togo;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
   public static void failRemove(UIComponent failed) {
     throw new IllegalArgumentException("Tried to remove " + failed.getFullID()
         + " which is not a child of this container");
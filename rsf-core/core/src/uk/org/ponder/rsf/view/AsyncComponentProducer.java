@@ -0,0 +1,46 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.view;
+
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * A ComponentProducer whose work is split into a potentially slow
+ * {@link #fetchData(ViewParameters)} phase, for example a call to a remote
+ * service, and a {@link #fillComponents(UIContainer, ViewParameters,
+ * ComponentChecker, Object)} phase which builds components from the fetched
+ * data. The fetch phases of all the AsyncComponentProducers for a view are
+ * started together on an executor, so that the latency of a view depending on
+ * several slow services is that of the slowest rather than of all of them.
+ * The fill phases are then executed on the request thread, in the same order
+ * as for any other producers, so the resulting component tree is
+ * deterministic.
+ * <p>
+ * fetchData is executed on a thread other than the request thread, to which
+ * the request context is attached, concurrently with the fetches of the
+ * other producers for the view. It may read the request-scope beans that
+ * the producer was itself wired with, which already exist, but must not
+ * modify them or cause other request beans to be created, must not modify
+ * the ViewParameters, and must not touch the component tree. Any other
+ * request-scope dependencies should be consulted in fillComponents.
+ */
+
+public interface AsyncComponentProducer extends ComponentProducer {
+  /** Fetches the data required by this producer to render the specified view.
+   * May be called on any thread.
+   * @return An arbitrary object which will be passed to the four-argument
+   * form of fillComponents.
+   */
+  public Object fetchData(ViewParameters viewparams);
+
+  /** Fills components from data previously returned by fetchData. Always
+   * called on the request thread. The three-argument form of fillComponents
+   * should be implemented as 
+   * <code>fillComponents(tofill, viewparams, checker, fetchData(viewparams))</code>
+   * for callers which do not distinguish asynchronous producers.
+   */
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker, Object data);
+}
@@ -0,0 +1,34 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.view;
+
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/**
+ * Implemented by a ViewProducer whose complete rendered response may be 
+ * cached and served again to any client issuing a GET for the same URL, 
+ * locale and content type, without rendering. The response carries an 
+ * <code>ETag</code>, so clients which already hold it will be answered with 
+ * <code>304 Not Modified</code>.
+ * <p>
+ * This is only suitable for views whose rendering depends on nothing other
+ * than their ViewParameters and the version key - in particular, not on the
+ * identity of the user. Responses are never cached for requests which carry
+ * flow or error state, or which have messages to render.
+ */
+
+public interface CacheableView {
+  /** The time in milliseconds for which a rendered response may be reused */
+  public long getCacheTTL();
+
+  /**
+   * Returns a key which changes whenever the content of the view for the
+   * supplied parameters changes, for example the modification time of the
+   * underlying data. This is used to compute the ETag, allowing conditional
+   * requests to be answered without rendering even once the cached response
+   * has been discarded. If <code>null</code> is returned, the ETag is instead
+   * computed from a digest of the rendered response.
+   */
+  public String getVersionKey(ViewParameters viewparams);
+}
@@ -22,7 +22,10 @@ import uk.org.ponder.rsf.viewstate.ViewParamsReporter;
 public interface DataView extends ContentTypeReporter, ViewIDReporter {
   /** 
    * Return the object specifying the view to be rendered.
-   * In the case of 
+   * For JSON and XML views, this may be an Iterator or a 
+   * <code>java.util.stream.Stream</code>, whose elements will be serialized
+   * one at a time as they are written to the response, and which will be
+   * closed once rendering completes.
    */
   public Object getData(ViewParameters viewparams);
 }
@@ -4,9 +4,18 @@
 package uk.org.ponder.rsf.view.support;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACContextPropagator;
 import uk.org.ponder.rsf.components.UIContainer;
 import uk.org.ponder.rsf.producers.NullaryProducer;
+import uk.org.ponder.rsf.view.AsyncComponentProducer;
 import uk.org.ponder.rsf.view.ComponentChecker;
 import uk.org.ponder.rsf.view.ComponentProducer;
 import uk.org.ponder.rsf.view.ViewNotFoundException;
@@ -17,6 +26,15 @@ import uk.org.ponder.util.UniversalRuntimeException;
 /** Accretes together all ViewProducers proper, for the application,
  * and aggregates them into this single producer which fills the components
  * specific for this view.
+ * <p>
+ * If an executor has been supplied, the data for any 
+ * {@link AsyncComponentProducer}s is fetched concurrently on it, with the
+ * request context attached, and all fetches must complete within a single
+ * deadline for the request before any producer fills components. Components
+ * are always filled on the request thread in the order the producers were
+ * resolved. A fetch which is still running when the request fails keeps the
+ * request container attached, so that the container is not reused by another
+ * request until the fetch has finished.
  * @author Antranig Basman (amb26@ponder.org.uk)
  *
  */ 
@@ -25,6 +43,9 @@ public class ViewCollector implements NullaryProducer {
   private ViewResolver viewresolver;
   private ComponentChecker checker;
   private ViewParameters viewparams;
+  private ExecutorService executor;
+  private long asynctimeout = 30000;
+  private RSACBeanLocator rsacbl;
 
   public void setViewResolver(ViewResolver viewlocator) {
     this.viewresolver = viewlocator;
@@ -38,6 +59,25 @@ public class ViewCollector implements NullaryProducer {
     this.viewparams = viewparams;
   }
   
+  /** Sets the (application scope) executor on which the data for 
+   * AsyncComponentProducers will be fetched. If none is set, data is fetched
+   * sequentially on the request thread.
+   */
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+  
+  /** Sets the maximum time in milliseconds that the request will wait for 
+   * all of its AsyncComponentProducers to fetch their data */
+  public void setAsyncTimeout(long asynctimeout) {
+    this.asynctimeout = asynctimeout;
+  }
+
+  /** Sets the RSACBeanLocator whose request context will be attached to the
+   * threads fetching data for AsyncComponentProducers */
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
   
   /**
    * Returns the UIViewRoot for the view created by the View instance matching
@@ -50,12 +90,33 @@ public class ViewCollector implements NullaryProducer {
     List producers = viewresolver.getProducers(viewparams.viewID);
 
     if (producers != null) {
-      for (int i = 0; i < producers.size(); ++i) {
-        ComponentProducer producer = (ComponentProducer) producers.get(i);
-
-        producer.fillComponents(tofill, viewparams, checker);
+      long deadline = System.currentTimeMillis() + asynctimeout;
+      Future[] fetches = startFetches(producers);
+      try {
+        // await every fetch before filling, so that the request thread does
+        // not use the request context whilst any fetch may be reading it
+        Object[] data = new Object[producers.size()];
+        for (int i = 0; i < producers.size(); ++i) {
+          if (fetches != null && fetches[i] != null) {
+            data[i] = awaitFetch(fetches[i], (ComponentProducer) producers
+                .get(i), deadline);
+          }
+        }
+        for (int i = 0; i < producers.size(); ++i) {
+          ComponentProducer producer = (ComponentProducer) producers.get(i);
+          if (producer instanceof AsyncComponentProducer) {
+            AsyncComponentProducer async = (AsyncComponentProducer) producer;
+            async.fillComponents(tofill, viewparams, checker, fetches == null ? 
+                async.fetchData(viewparams) : data[i]);
+          }
+          else {
+            producer.fillComponents(tofill, viewparams, checker);
+          }
+        }
+      }
+      finally {
+        cancelFetches(fetches);
       }
-
     }
     else {
       throw UniversalRuntimeException.accumulate(new ViewNotFoundException(),
@@ -63,4 +124,61 @@ public class ViewCollector implements NullaryProducer {
     }
 
   }
+
+  private Future[] startFetches(List producers) {
+    if (executor == null) return null;
+    Future[] togo = null;
+    for (int i = 0; i < producers.size(); ++i) {
+      if (producers.get(i) instanceof AsyncComponentProducer) {
+        final AsyncComponentProducer producer = 
+          (AsyncComponentProducer) producers.get(i);
+        if (togo == null) {
+          togo = new Future[producers.size()];
+        }
+        Callable fetch = new Callable() {
+          public Object call() {
+            return producer.fetchData(viewparams);
+          }
+        };
+        togo[i] = executor.submit(rsacbl == null ? fetch
+            : RSACContextPropagator.wrap(rsacbl, fetch));
+      }
+    }
+    return togo;
+  }
+
+  private Object awaitFetch(Future fetch, ComponentProducer producer,
+      long deadline) {
+    try {
+      long remaining = deadline - System.currentTimeMillis();
+      return fetch.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+    }
+    catch (ExecutionException e) {
+      throw UniversalRuntimeException.accumulate(e.getCause(), 
+          "Error fetching data for producer " + producer.getClass());
+    }
+    catch (TimeoutException e) {
+      throw UniversalRuntimeException.accumulate(e, "Producer "
+          + producer.getClass() + " failed to fetch data within the "
+          + asynctimeout + "ms allowed for the request");
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw UniversalRuntimeException.accumulate(e, 
+          "Interrupted while waiting for data for producer " + producer.getClass());
+    }
+  }
+  
+  // Any fetches which are still outstanding (only after an error) are of no
+  // further use to anyone. Those which have not started never will, and
+  // those which ignore the interrupt retain the container until they finish
+  private static void cancelFetches(Future[] fetches) {
+    if (fetches != null) {
+      for (int i = 0; i < fetches.length; ++i) {
+        if (fetches[i] != null) {
+          fetches[i].cancel(true);
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,24 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.viewstate;
+
+/**
+ * A simple set of view parameters which additionally accepts the
+ * <code>renderbranch</code> field from the request, allowing a single branch
+ * of the view to be rendered on its own. A view opts in to branch rendering
+ * by reporting parameters of this class (or any whose parse spec includes
+ * <code>renderbranch</code>) through {@link ViewParamsReporter}.
+ */
+
+public class BranchViewParameters extends SimpleViewParameters {
+  public BranchViewParameters() {}
+
+  public BranchViewParameters(String viewID) {
+    super(viewID);
+  }
+
+  public String getParseSpec() {
+    return ViewParameters.BASE_PARSE_SPEC + ", renderbranch";
+  }
+}
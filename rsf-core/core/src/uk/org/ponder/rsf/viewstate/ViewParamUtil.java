@@ -111,7 +111,7 @@ public class ViewParamUtil {
    */
   
   public static String toHTTPRequest(RawURLState rawstate) {
-    CharWrap togo = new CharWrap();
+    CharWrap togo = new CharWrap(128);
     togo.append(URLUtil.toPathInfo(rawstate.pathinfo));
     boolean isfirst = true;
     for (Iterator keyit = rawstate.params.keySet().iterator(); keyit.hasNext();) {
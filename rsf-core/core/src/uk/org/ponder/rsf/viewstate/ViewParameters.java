@@ -135,6 +135,15 @@ public abstract class ViewParameters implements AnyViewParameters {
    */
   public String debugrender;
   
+  /** This field is set to the full ID of a single UIBranchContainer
+   * in the view, indicating that only the markup for that branch is to be
+   * rendered, for example in answer to an AJAX request to refresh part of 
+   * a page. Usually not set. This field is not part of the base parse spec -
+   * a view opts in to branch rendering by reporting ViewParameters whose
+   * parse spec includes it, such as {@link BranchViewParameters}.
+   */
+  public String renderbranch;
+  
   public static final String BASE_PARSE_SPEC = 
     "flowtoken, endflow, errortoken, errorredirect, debugrender, @0:viewID";
 
@@ -143,7 +152,7 @@ public abstract class ViewParameters implements AnyViewParameters {
    * default.
    */
   public static final String[] cloneexceptions = new String[] { "flowtoken",
-      "errortoken", "endflow", "parseSpec", "anchorField" };
+      "errortoken", "endflow", "renderbranch", "parseSpec", "anchorField" };
 
   /** Pea proxying method */
   public AnyViewParameters get() {
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import uk.org.ponder.rsf.viewstate.ViewParamsMapInfo;
+import uk.org.ponder.saxalizer.AccessMethod;
 
 /** (Cached) mapping information describing the mapping from URL attributes
  * onto bean paths for ViewParameters objects.
@@ -20,6 +21,12 @@ public class ConcreteViewParamsMapInfo implements ViewParamsMapInfo {
   public String[] paths;
   /** The EL paths (if any) to be parsed onto the URL pathinfo trunk */
   public String[] trunkpaths;
+  /** Accessors compiled for each of <code>paths</code>, navigating directly
+   * from the ViewParameters object, or <code>null</code> where the path
+   * could not be statically resolved */
+  AccessMethod[][] accessors;
+  /** Accessors compiled for each of <code>trunkpaths</code> */
+  AccessMethod[][] trunkaccessors;
   /** A lookup from the <code>paths</code> entry to <code>attrname</code> **/
   Map pathToAttr = new HashMap();
   /** A lookup from the <code>attrname</code> entry to <code>path</code> **/
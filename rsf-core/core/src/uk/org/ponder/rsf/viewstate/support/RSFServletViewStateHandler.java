@@ -35,6 +35,7 @@ public class RSFServletViewStateHandler implements ViewStateHandler {
   private Map ultimaterenderers = new HashMap();
   private ViewParamsCodec vpcodec;
   private ContextURLProvider cup;
+  private ViewParamsURLMemo urlmemo;
 
   public void setBaseURLProvider(BaseURLProvider urlprovider) {
     this.urlprovider = urlprovider;
@@ -52,10 +53,19 @@ public class RSFServletViewStateHandler implements ViewStateHandler {
     this.vpcodec = vpcodec;
   }
 
+  /** Sets an (optional) request-scope memo of rendered URL state, which
+   * will be used to avoid rendering equivalent ViewParameters more than once
+   * in a request.
+   */
+  public void setURLMemo(ViewParamsURLMemo urlmemo) {
+    this.urlmemo = urlmemo;
+  }
+
   public String getFullURL(ViewParameters viewparams) {
     // toHTTPRequest provides leading slash, and baseurl includes trailing slash
-    String requestparams = 
-      ViewParamUtil.toHTTPRequest(vpcodec, viewparams).substring(1);
+    String requestparams = (urlmemo == null ? 
+      ViewParamUtil.toHTTPRequest(vpcodec, viewparams)
+        : urlmemo.get().toHTTPRequest(viewparams)).substring(1);
 
     String usebaseurl = urlprovider.getBaseURL();
     String extraparams = "";
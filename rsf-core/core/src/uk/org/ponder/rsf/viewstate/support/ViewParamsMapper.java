@@ -3,12 +3,17 @@
  */
 package uk.org.ponder.rsf.viewstate.support;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import uk.org.ponder.beanutil.BeanModelAlterer;
+import uk.org.ponder.conversion.GeneralLeafParser;
+import uk.org.ponder.iterationutil.EnumerationConverter;
 import uk.org.ponder.mapping.DARList;
 import uk.org.ponder.mapping.DataAlterationRequest;
 import uk.org.ponder.rsf.viewstate.CoreViewParamsCodec;
@@ -16,6 +21,7 @@ import uk.org.ponder.rsf.viewstate.RawURLState;
 import uk.org.ponder.rsf.viewstate.ViewParamUtil;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParamsMapInfo;
+import uk.org.ponder.saxalizer.AccessMethod;
 import uk.org.ponder.stringutil.StringList;
 
 /**
@@ -32,8 +38,11 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
 
   private ViewParamsMappingInfoManager vpmim;
 
+  private GeneralLeafParser leafparser;
+
   public void setVPMappingInfoManager(ViewParamsMappingInfoManager vpmim) {
     this.vpmim = vpmim;
+    leafparser = vpmim.getSAXalizerMappingContext().generalLeafParser;
   }
 
   public ViewParamsMappingInfoManager getVPMappingInfoManager() {
@@ -129,8 +138,8 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     for (int i = 0; i < mapinfo.trunkpaths.length; ++i) {
       String trunkpath = mapinfo.trunkpaths[i];
       // errors would be checked at parse assembly time
-      String attrval = (String) bma.getFlattenedValue(trunkpath, toconvert,
-          null, null);
+      String attrval = (String) getFlattenedValue(mapinfo.trunkaccessors[i],
+          trunkpath, toconvert);
       if (attrval != null) {
         if (nullstarted) {
           throw new IllegalArgumentException(
@@ -156,9 +165,8 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     Map togo = new HashMap();
     ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(toconvert);
     for (int i = 0; i < mapinfo.attrnames.length; ++i) {
-      String attrname = mapinfo.attrnames[i];
-      String path = mapinfo.paths[i];
-      putAttr(togo, path, attrname, toconvert);
+      putAttr(togo, mapinfo.accessors[i], mapinfo.paths[i],
+          mapinfo.attrnames[i], toconvert);
     }
     return togo;
   }
@@ -172,13 +180,15 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     Map togo = renderViewParamAttributes(torender);
     ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(torender);
     for (int i = 0; i < mapinfo.trunkpaths.length; ++ i) {
-      putAttr(togo, mapinfo.trunkpaths[i], ViewParamUtil.getAttrIndex(i, highpriority), torender);
+      putAttr(togo, mapinfo.trunkaccessors[i], mapinfo.trunkpaths[i],
+          ViewParamUtil.getAttrIndex(i, highpriority), torender);
     }
     return togo;
   }
 
-  private void putAttr(Map target, String path, String attrname, ViewParameters torender) {
-    Object attrval = bma.getFlattenedValue(path, torender, null, null);
+  private void putAttr(Map target, AccessMethod[] accessors, String path,
+      String attrname, ViewParameters torender) {
+    Object attrval = getFlattenedValue(accessors, path, torender);
     if (attrval instanceof String[]) {
       target.put(attrname, attrval);
     }
@@ -187,4 +197,116 @@ public class ViewParamsMapper implements CoreViewParamsCodec {
     }
   }
   
+  /**
+   * Equivalent to <code>bma.getFlattenedValue(path, torender, null, null)</code>,
+   * but navigating through the accessors compiled for the path, if any. Any
+   * value which is not a simple leaf, as well as any failure of navigation, is
+   * handed back to the BeanModelAlterer.
+   */
+  private Object getFlattenedValue(AccessMethod[] accessors, String path,
+      ViewParameters torender) {
+    if (accessors != null) {
+      Object moveobj = torender;
+      int i = 0;
+      for (; i < accessors.length && moveobj != null; ++i) {
+        moveobj = accessors[i].getChildObject(moveobj);
+      }
+      if (i == accessors.length) {
+        if (moveobj == null || moveobj instanceof String) {
+          return moveobj;
+        }
+        else if (!EnumerationConverter.isEnumerable(moveobj.getClass())) {
+          return leafparser.render(moveobj);
+        }
+      }
+    }
+    return bma.getFlattenedValue(path, torender, null, null);
+  }
+
+  /**
+   * Returns a key which will compare equal for any two ViewParameters objects
+   * which will render to the same URL state, or <code>null</code> if none can
+   * be cheaply determined. The key holds the raw values of the mapped paths,
+   * read through their compiled accessors without being rendered. State
+   * with a path which could not be compiled, or holding any value other than
+   * an immutable leaf or a String array, has no key.
+   */
+  public Object getURLStateKey(ViewParameters torender) {
+    ConcreteViewParamsMapInfo mapinfo = vpmim.getMappingInfo(torender);
+    int attrs = mapinfo.paths.length;
+    Object[] values = new Object[attrs + mapinfo.trunkpaths.length + 2];
+    values[0] = torender.getClass();
+    for (int i = 0; i < attrs; ++i) {
+      values[i + 1] = getKeyValue(mapinfo.accessors[i], torender);
+      if (values[i + 1] == NO_KEY) {
+        return null;
+      }
+    }
+    for (int i = 0; i < mapinfo.trunkpaths.length; ++i) {
+      values[attrs + i + 1] = getKeyValue(mapinfo.trunkaccessors[i], torender);
+      if (values[attrs + i + 1] == NO_KEY) {
+        return null;
+      }
+    }
+    String anchorfield = torender.getAnchorField();
+    if (anchorfield != null) {
+      values[values.length - 1] = anchorfield + "="
+          + bma.getFlattenedValue(anchorfield, torender, String.class, null);
+    }
+    return new URLStateKey(values);
+  }
+
+  private static final Object NO_KEY = new Object();
+
+  // Leaf types whose values may safely be held in a key
+  private static final Set immutabletypes = new HashSet();
+
+  static {
+    immutabletypes.add(String.class);
+    immutabletypes.add(Boolean.class);
+    immutabletypes.add(Character.class);
+    immutabletypes.add(Byte.class);
+    immutabletypes.add(Short.class);
+    immutabletypes.add(Integer.class);
+    immutabletypes.add(Long.class);
+    immutabletypes.add(Float.class);
+    immutabletypes.add(Double.class);
+  }
+
+  private static Object getKeyValue(AccessMethod[] accessors, Object moveobj) {
+    if (accessors == null) {
+      return NO_KEY;
+    }
+    for (int i = 0; i < accessors.length && moveobj != null; ++i) {
+      moveobj = accessors[i].getChildObject(moveobj);
+    }
+    if (moveobj == null || immutabletypes.contains(moveobj.getClass())) {
+      return moveobj;
+    }
+    else if (moveobj instanceof String[]) {
+      // copied, since the array may be altered once the key is stored
+      return ((String[]) moveobj).clone();
+    }
+    return NO_KEY;
+  }
+
+  private static class URLStateKey {
+    private Object[] values;
+    private int hashCode;
+
+    URLStateKey(Object[] values) {
+      this.values = values;
+      hashCode = Arrays.deepHashCode(values);
+    }
+
+    public int hashCode() {
+      return hashCode;
+    }
+
+    public boolean equals(Object other) {
+      return other instanceof URLStateKey
+          && Arrays.deepEquals(values, ((URLStateKey) other).values);
+    }
+  }
+
 }
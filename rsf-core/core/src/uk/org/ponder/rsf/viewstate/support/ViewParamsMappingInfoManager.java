@@ -6,7 +6,9 @@ package uk.org.ponder.rsf.viewstate.support;
 import java.util.Map;
 
 import uk.org.ponder.arrayutil.ListUtil;
+import uk.org.ponder.beanutil.BeanLocator;
 import uk.org.ponder.beanutil.PathUtil;
+import uk.org.ponder.beanutil.support.IndexedPropertyAccessor;
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParamUtil;
@@ -45,6 +47,10 @@ public class ViewParamsMappingInfoManager {
     this.mappingcontext = mappingcontext;
   }
 
+  public SAXalizerMappingContext getSAXalizerMappingContext() {
+    return mappingcontext;
+  }
+
   /**
    * This fetches a cached copy of a VPMI (or creates a new one and caches it if
    * none exists already) for a given VP
@@ -180,6 +186,48 @@ public class ViewParamsMappingInfoManager {
       togo.attrToPath.put(highattr, togo.trunkpaths[i]);
       togo.attrToPath.put(lowattr, togo.trunkpaths[i]);
     }
+    togo.accessors = compilePaths(viewparams.getClass(), togo.paths);
+    togo.trunkaccessors = compilePaths(viewparams.getClass(), togo.trunkpaths);
+    return togo;
+  }
+
+  private AccessMethod[][] compilePaths(Class rootclass, String[] paths) {
+    AccessMethod[][] togo = new AccessMethod[paths.length][];
+    for (int i = 0; i < paths.length; ++i) {
+      togo[i] = compilePath(rootclass, paths[i]);
+    }
+    return togo;
+  }
+
+  /**
+   * Resolves the chain of accessors which will navigate the supplied path
+   * from an object of the supplied class, as would be done by
+   * {@link uk.org.ponder.beanutil.BeanUtil#navigate}. Returns
+   * <code>null</code> if any component of the path may not be statically
+   * resolved - for example, if it passes through a Map or BeanLocator.
+   */
+  private AccessMethod[] compilePath(Class rootclass, String path) {
+    if (path == null || path.length() == 0) {
+      return null;
+    }
+    String[] components = PathUtil.splitPath(path);
+    AccessMethod[] togo = new AccessMethod[components.length];
+    Class moveclass = rootclass;
+    for (int i = 0; i < components.length; ++i) {
+      if (moveclass == Object.class || moveclass.isInterface()
+          || Map.class.isAssignableFrom(moveclass)
+          || BeanLocator.class.isAssignableFrom(moveclass)
+          || IndexedPropertyAccessor.isIndexed(moveclass)) {
+        return null;
+      }
+      AccessMethod method = mappingcontext.getAnalyser(moveclass)
+          .getAccessMethod(components[i]);
+      if (method == null || !method.canGet()) {
+        return null;
+      }
+      togo[i] = method;
+      moveclass = method.getAccessedType();
+    }
     return togo;
   }
 
@@ -0,0 +1,69 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.viewstate.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.org.ponder.rsf.viewstate.ViewParamUtil;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParamsCodec;
+
+/**
+ * A request-scope memo of the URL state rendered for ViewParameters objects,
+ * so that a view rendering many links with identical state (for example,
+ * repeated navigation links in a table) only encodes each distinct state
+ * once. Only ViewParameters rendered by the standard {@link ViewParamsMapper}
+ * are memoised, since only for these can equality of URL state be cheaply
+ * determined.
+ * <p>
+ * The memo may be used concurrently by threads working on behalf of the
+ * request, such as parallel component processors or asynchronous producers.
+ */
+
+public class ViewParamsURLMemo {
+  private ViewParamsCodec vpcodec;
+  private ViewParamsMapper vpmapper;
+  // Map of URLStateKey to the rendered URL "mid-portion"
+  private Map memo = new ConcurrentHashMap();
+
+  public void setViewParamsCodec(ViewParamsCodec vpcodec) {
+    this.vpcodec = vpcodec;
+  }
+
+  public void setViewParamsMapper(ViewParamsMapper vpmapper) {
+    this.vpmapper = vpmapper;
+  }
+
+  /**
+   * Returns the result of
+   * {@link ViewParamUtil#toHTTPRequest(ViewParamsCodec, ViewParameters)} for
+   * the supplied ViewParameters, reusing any previous result for equivalent
+   * state in this request.
+   */
+  public String toHTTPRequest(ViewParameters viewparams) {
+    ViewParamsCodec codec = vpcodec instanceof ViewParamsCodecManager ?
+        ((ViewParamsCodecManager) vpcodec).getCodec(viewparams) : vpcodec;
+    if (codec != vpmapper) {
+      return ViewParamUtil.toHTTPRequest(vpcodec, viewparams);
+    }
+    Object key = vpmapper.getURLStateKey(viewparams);
+    if (key == null) {
+      return ViewParamUtil.toHTTPRequest(vpmapper, viewparams);
+    }
+    String togo = (String) memo.get(key);
+    if (togo == null) {
+      togo = ViewParamUtil.toHTTPRequest(vpmapper, viewparams);
+      memo.put(key, togo);
+    }
+    return togo;
+  }
+
+  /** A method useful to breach proxy boundaries. Call if using this object
+   * from an application-scope bean.
+   */
+  public ViewParamsURLMemo get() {
+    return this;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.async;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACRequestContext;
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.AsyncComponentProducer;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** An AsyncComponentProducer whose fetch waits for all the fetches sharing
+ * its latch, and so can only complete promptly if they run concurrently. It
+ * records the thread and request context which its fetch ran with */
+
+public class RegionProducer implements AsyncComponentProducer,
+    ViewComponentProducer {
+  private String name;
+  private CountDownLatch latch;
+  private RSACBeanLocator rsacbl;
+  public Thread fetchthread;
+  public RSACRequestContext fetchcontext;
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setLatch(CountDownLatch latch) {
+    this.latch = latch;
+  }
+
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public Object fetchData(ViewParameters viewparams) {
+    fetchthread = Thread.currentThread();
+    fetchcontext = rsacbl.getRequestContext();
+    latch.countDown();
+    try {
+      return latch.await(5, TimeUnit.SECONDS) ? "concurrent"
+          : "sequential";
+    }
+    catch (InterruptedException e) {
+      return "interrupted";
+    }
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker, Object data) {
+    UIBranchContainer branch = UIBranchContainer.make(tofill, "row:");
+    UIOutput.make(branch, "value", name + " " + data);
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    fillComponents(tofill, viewparams, checker, fetchData(viewparams));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.async;
+
+import java.util.concurrent.CountDownLatch;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACRequestContext;
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.AsyncComponentProducer;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** An AsyncComponentProducer whose fetch ignores interruption and stalls
+ * until it is released, and so outlives a request which times out. It
+ * records the request context which its fetch ran with, both at its start
+ * and once it is released.
+ */
+
+public class StallingProducer implements AsyncComponentProducer,
+    ViewComponentProducer {
+  public static class Stall {
+    public CountDownLatch started = new CountDownLatch(1);
+    public CountDownLatch release = new CountDownLatch(1);
+    public CountDownLatch finished = new CountDownLatch(1);
+    public volatile RSACRequestContext context;
+    public volatile RSACRequestContext latecontext;
+  }
+
+  private Stall stall;
+  private RSACBeanLocator rsacbl;
+
+  public void setStall(Stall stall) {
+    this.stall = stall;
+  }
+
+  public void setRSACBeanLocator(RSACBeanLocator rsacbl) {
+    this.rsacbl = rsacbl;
+  }
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public Object fetchData(ViewParameters viewparams) {
+    stall.context = rsacbl.getRequestContext();
+    stall.started.countDown();
+    boolean interrupted = false;
+    while (true) {
+      try {
+        stall.release.await();
+        break;
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    stall.latecontext = rsacbl.getRequestContext();
+    stall.finished.countDown();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return "late";
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker, Object data) {
+    UIOutput.make(tofill, "value", "Stalled " + data);
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    fillComponents(tofill, viewparams, checker, fetchData(viewparams));
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.async;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test for concurrent fetching of data by AsyncComponentProducers, and
+ * the ordering of the components they produce.
+ */
+
+public class TestAsyncProducers extends MultipleRSFTests {
+
+  public TestAsyncProducers() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-request-context.xml");
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/async/async-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-application-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/async/async-application-context.xml");
+  }
+
+  @Test
+  public void testAsyncProducers() {
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    String markup = response.markup;
+    assertContains(response, "First concurrent");
+    assertContains(response, "Second concurrent");
+    // components are produced in order of producer definition
+    int view = markup.indexOf("Row 0");
+    int first = markup.indexOf("First concurrent");
+    int second = markup.indexOf("Second concurrent");
+    Assert.assertTrue(view < first && first < second);
+
+    RegionProducer producer = (RegionProducer) response.requestContext
+        .locateBean("firstRegion");
+    Assert.assertNotSame(Thread.currentThread(), producer.fetchthread);
+    // the fetch ran with the request context attached
+    Assert.assertNotNull(producer.fetchcontext);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.async;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test that a request whose AsyncComponentProducer fails to fetch its data
+ * in time reports an error, and that the fetch, which outlives the request,
+ * never shares its request container with a later request.
+ */
+
+public class TestAsyncTimeout extends MultipleRSFTests {
+
+  public TestAsyncTimeout() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-request-context.xml");
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/async/timeout-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-application-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/async/timeout-application-context.xml");
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    StallingProducer.Stall stall = (StallingProducer.Stall) applicationContext
+        .getBean("stall");
+    try {
+      RenderResponse response = getRequestLauncher().renderView();
+      assertRenderError(response, true);
+      Assert.assertTrue(stall.started.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, stall.finished.getCount());
+      // the request has ended, but its fetch still has its container
+      RSACBeanLocator rsacbl = getRSACBeanLocator();
+      rsacbl.startRequest();
+      Assert.assertNotSame(stall.context, rsacbl.getRequestContext());
+      rsacbl.endRequest();
+    }
+    finally {
+      stall.release.countDown();
+    }
+    Assert.assertTrue(stall.finished.await(5, TimeUnit.SECONDS));
+    Assert.assertSame(stall.context, stall.latecontext);
+  }
+}
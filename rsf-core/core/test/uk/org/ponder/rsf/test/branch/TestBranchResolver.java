@@ -0,0 +1,106 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.branch;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UILink;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.renderer.BranchResolver;
+import uk.org.ponder.rsf.template.XMLLump;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.rsf.view.ViewRoot;
+
+/** Tests that BranchResolver's memo of resolutions by container shape never
+ * serves a resolution computed for a container of a different shape.
+ */
+
+public class TestBranchResolver extends TestCase {
+  private static final String TEMPLATE =
+      "<html xmlns:rsf=\"http://ponder.org.uk/rsf\"><body>\n"
+      + "<div rsf:id=\"row:\" class=\"plain\"><span rsf:id=\"label\">L</span>"
+      + "<span rsf:id=\"value\">V</span>"
+      + "<p rsf:id=\"item:\" class=\"plainitem\"><span rsf:id=\"value\">V</span></p>"
+      + "</div>\n"
+      + "<div rsf:id=\"row:\" class=\"linked\"><span rsf:id=\"label\">L</span>"
+      + "<a rsf:id=\"link\" href=\"#\">K</a>"
+      + "<p rsf:id=\"item:\" class=\"linkeditem\"><a rsf:id=\"link\" href=\"#\">K</a></p>"
+      + "</div>\n"
+      + "</body></html>";
+
+  private XMLViewTemplate template;
+
+  protected void setUp() throws Exception {
+    template = (XMLViewTemplate) new XMLViewTemplateParser()
+        .parse(new ByteArrayInputStream(TEMPLATE.getBytes("UTF-8")));
+  }
+
+  // Issues a row whose own children, and those of its nested item, are
+  // either a plain value or a link, returning the row and its item
+  private static UIBranchContainer[] makeRow(ViewRoot root, String localID,
+      boolean linked, boolean linkeditem) {
+    UIBranchContainer row = UIBranchContainer.make(root, "row:", localID);
+    UIOutput.make(row, "label", "label " + localID);
+    if (linked) {
+      UILink.make(row, "link", "link " + localID, "#");
+    }
+    else {
+      UIOutput.make(row, "value", "value " + localID);
+    }
+    UIBranchContainer item = UIBranchContainer.make(row, "item:");
+    if (linkeditem) {
+      UILink.make(item, "link", "item " + localID, "#");
+    }
+    else {
+      UIOutput.make(item, "value", "item " + localID);
+    }
+    return new UIBranchContainer[] { row, item };
+  }
+
+  private Map resolve(ViewRoot root) {
+    return BranchResolver.resolveBranches(template.globalmap, root,
+        template.rootlump, new HashMap());
+  }
+
+  private static String resolvedClass(Map branchmap, UIBranchContainer branch) {
+    XMLLump lump = (XMLLump) branchmap.get(branch);
+    return lump == null ? null : (String) lump.attributemap.get("class");
+  }
+
+  public void testSiblingShapes() {
+    // the shapes of the siblings alternate, so each shape is memoised before
+    // a sibling of the other shape is resolved, and met again after it
+    boolean[][] shapes = { { false, false }, { true, true }, { false, true },
+        { true, false }, { false, false }, { true, true }, { false, true },
+        { true, false } };
+    String[] expected = { "plain", "linked", "plain", "linked" };
+    String[] expecteditems = { "plainitem", "linkeditem", "linkeditem",
+        "plainitem" };
+
+    ViewRoot root = new ViewRoot();
+    UIBranchContainer[][] rows = new UIBranchContainer[shapes.length][];
+    for (int i = 0; i < shapes.length; ++i) {
+      rows[i] = makeRow(root, Integer.toString(i), shapes[i][0], shapes[i][1]);
+    }
+    Map branchmap = resolve(root);
+
+    for (int i = 0; i < shapes.length; ++i) {
+      assertEquals(expected[i % 4], resolvedClass(branchmap, rows[i][0]));
+      assertEquals(expecteditems[i % 4], resolvedClass(branchmap, rows[i][1]));
+      // each must agree with a resolution from which no other shape was memoised
+      ViewRoot alone = new ViewRoot();
+      UIBranchContainer[] row = makeRow(alone, Integer.toString(i),
+          shapes[i][0], shapes[i][1]);
+      Map alonemap = resolve(alone);
+      assertSame(alonemap.get(row[0]), branchmap.get(rows[i][0]));
+      assertSame(alonemap.get(row[1]), branchmap.get(rows[i][1]));
+    }
+  }
+
+}
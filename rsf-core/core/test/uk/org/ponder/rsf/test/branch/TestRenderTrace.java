@@ -0,0 +1,127 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.branch;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.LoggingEvent;
+
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.renderer.BranchResolver;
+import uk.org.ponder.rsf.renderer.RenderTrace;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.rsf.view.ViewRoot;
+import uk.org.ponder.util.Logger;
+
+/** Tests that branch resolution for a debug view is traced into a
+ * request-local RenderTrace, emitted as a single message to its own
+ * category, without raising the level of the shared logger.
+ */
+
+public class TestRenderTrace extends TestCase {
+  private static final String TEMPLATE =
+      "<html xmlns:rsf=\"http://ponder.org.uk/rsf\"><body>\n"
+      + "<div rsf:id=\"row:\"><span rsf:id=\"value\">V</span></div>\n"
+      + "</body></html>";
+
+  private static class RecordingAppender extends AppenderSkeleton {
+    List events = new ArrayList();
+
+    protected void append(LoggingEvent event) {
+      events.add(event);
+    }
+
+    public boolean requiresLayout() {
+      return false;
+    }
+
+    public void close() {
+    }
+  }
+
+  private RecordingAppender appender = new RecordingAppender();
+  private Level sharedlevel;
+
+  protected void setUp() {
+    sharedlevel = Logger.log.getLevel();
+    Logger.log.setLevel(Level.INFO);
+    RenderTrace.log.addAppender(appender);
+  }
+
+  protected void tearDown() {
+    RenderTrace.log.removeAppender(appender);
+    Logger.log.setLevel(sharedlevel);
+  }
+
+  private static ViewRoot makeView(boolean debug) {
+    ViewRoot togo = new ViewRoot();
+    togo.debug = debug;
+    for (int i = 0; i < 3; ++i) {
+      UIBranchContainer row = UIBranchContainer.make(togo, "row:",
+          Integer.toString(i));
+      UIOutput.make(row, "value", "value " + i);
+    }
+    return togo;
+  }
+
+  private void resolve(ViewRoot view) throws Exception {
+    XMLViewTemplate template = (XMLViewTemplate) new XMLViewTemplateParser()
+        .parse(new ByteArrayInputStream(TEMPLATE.getBytes("UTF-8")));
+    BranchResolver.resolveBranches(template.globalmap, view,
+        template.rootlump, new HashMap());
+  }
+
+  public void testDebugView() throws Exception {
+    resolve(makeView(true));
+    assertEquals(Level.INFO, Logger.log.getLevel());
+    assertEquals(1, appender.events.size());
+    String message = (String) ((LoggingEvent) appender.events.get(0))
+        .getMessage();
+    assertTrue(message.startsWith("Branch resolution for"));
+    assertTrue(message.indexOf("Resolving call for ID row:") != -1);
+    // the later rows reuse the memoised resolution
+    assertTrue(message.indexOf("Reusing resolution") != -1);
+  }
+
+  public void testPlainView() throws Exception {
+    resolve(makeView(false));
+    assertEquals(Level.INFO, Logger.log.getLevel());
+    assertEquals(0, appender.events.size());
+  }
+
+  public void testTruncation() {
+    RenderTrace trace = new RenderTrace();
+    StringBuffer line = new StringBuffer();
+    for (int i = 0; i < 999; ++i) {
+      line.append('x');
+    }
+    int lines = 0;
+    while (!trace.isTruncated()) {
+      trace.trace(line.toString());
+      ++lines;
+    }
+    // each line costs its length plus a terminator
+    assertEquals(RenderTrace.MAX_SIZE / 1000, trace.getLines().size());
+    assertEquals(lines - 1, trace.getLines().size());
+    // once truncated, even a line which would fit is discarded
+    trace.trace("x");
+    assertEquals(lines - 1, trace.getLines().size());
+
+    trace.emit("Truncated trace");
+    assertEquals(1, appender.events.size());
+    String message = (String) ((LoggingEvent) appender.events.get(0))
+        .getMessage();
+    assertTrue(message.endsWith("(trace truncated at " + RenderTrace.MAX_SIZE
+        + " characters)"));
+  }
+}
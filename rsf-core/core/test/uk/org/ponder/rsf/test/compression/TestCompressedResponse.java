@@ -0,0 +1,135 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.org.ponder.rsf.components.ParameterList;
+import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.processor.FatalErrorHandler;
+import uk.org.ponder.rsf.processor.RedirectingHandlerHook;
+import uk.org.ponder.rsf.processor.support.RenderHandlerBracketer;
+import uk.org.ponder.rsf.request.EarlyRequestParser;
+import uk.org.ponder.rsf.servlet.ServletRootHandlerBean;
+import uk.org.ponder.rsf.viewstate.AnyViewParameters;
+import uk.org.ponder.rsf.viewstate.RawViewParameters;
+import uk.org.ponder.streamutil.DeflaterPool;
+import uk.org.ponder.streamutil.write.PrintOutputStream;
+
+/** Tests that compressed responses return their Deflaters to the pool,
+ * whether they complete, are redirected, or fail.
+ */
+
+public class TestCompressedResponse extends TestCase {
+  private static final String REDIRECT = "http://localhost/app/other";
+
+  // "renders" enough markup to pass through the writer's buffer into the
+  // compressor, and then redirects, fails or completes
+  private static class WritingBracketer extends RenderHandlerBracketer {
+    AnyViewParameters redirect;
+    RuntimeException failure;
+
+    public AnyViewParameters handle(PrintOutputStream pos) {
+      for (int i = 0; i < 1000; ++i) {
+        pos.print("<div>Rendered markup</div>\n");
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return redirect;
+    }
+  }
+
+  private MockHttpServletResponse response;
+  private WritingBracketer bracketer;
+  private ServletRootHandlerBean handler;
+  private int borrowed;
+
+  protected void setUp() {
+    borrowed = DeflaterPool.instance().getBorrowedCount();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET",
+        "/app/view");
+    request.addHeader("Accept", "text/html");
+    request.addHeader("Accept-Encoding", "gzip");
+    response = new MockHttpServletResponse();
+    bracketer = new WritingBracketer();
+    handler = new ServletRootHandlerBean();
+    handler.setHttpServletRequest(request);
+    handler.setHttpServletResponse(response);
+    handler.setCompressionLevel(6);
+    handler.setRequestType(EarlyRequestParser.RENDER_REQUEST);
+    handler.setRenderHandlerBracketer(bracketer);
+    handler.setOutgoingParams(new ParameterList());
+    ContentTypeInfo typeinfo = new ContentTypeInfo("HTML", "html", null,
+        "text/html; charset=UTF-8");
+    typeinfo.directRedirects = false;
+    handler.setContentTypeInfo(typeinfo);
+  }
+
+  private void assertPoolReturned() {
+    assertEquals(borrowed, DeflaterPool.instance().getBorrowedCount());
+  }
+
+  private static String gunzip(byte[] compressed) throws Exception {
+    InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed));
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int got;
+    while ((got = is.read(buffer)) != -1) {
+      baos.write(buffer, 0, got);
+    }
+    return baos.toString("UTF-8");
+  }
+
+  public void testComplete() throws Exception {
+    handler.handle();
+    assertPoolReturned();
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    String markup = gunzip(response.getContentAsByteArray());
+    assertTrue(markup.startsWith("<div>Rendered markup</div>"));
+  }
+
+  public void testRedirectAfterRender() {
+    bracketer.redirect = new RawViewParameters(REDIRECT);
+    handler.handle();
+    assertPoolReturned();
+    assertTrue(response.getRedirectedUrl().startsWith(REDIRECT));
+    assertNull(response.getHeader("Content-Encoding"));
+  }
+
+  public void testRedirectFromHook() {
+    handler.setHandlerHook(new RedirectingHandlerHook() {
+      public AnyViewParameters handle() {
+        return new RawViewParameters(REDIRECT);
+      }
+    });
+    handler.handle();
+    assertPoolReturned();
+    assertTrue(response.getRedirectedUrl().startsWith(REDIRECT));
+  }
+
+  public void testFailureUpstairs() {
+    bracketer.failure = new IllegalStateException("render failed");
+    handler.setFatalErrorHandler(new FatalErrorHandler() {
+      public String handleFatalError(Throwable t, PrintOutputStream pos) {
+        return HANDLE_EXCEPTION_UPSTAIRS;
+      }
+    });
+    try {
+      handler.handle();
+      fail();
+    }
+    catch (RuntimeException e) {
+    }
+    assertPoolReturned();
+  }
+}
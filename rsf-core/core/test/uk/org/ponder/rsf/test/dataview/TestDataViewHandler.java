@@ -0,0 +1,106 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.dataview;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.content.ContentTypeInfoRegistry;
+import uk.org.ponder.rsf.servlet.DataViewHandlerImpl;
+import uk.org.ponder.rsf.view.DataView;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** Tests that DataViewHandlerImpl holds back the start of a data view, so
+ * that a failure while generating a small response can still be reported.
+ */
+
+public class TestDataViewHandler extends TestCase {
+
+  // Supplies the specified number of bytes, and then fails if requested
+  private static class GeneratedInputStream extends InputStream {
+    private int remaining;
+    private boolean fail;
+
+    GeneratedInputStream(int length, boolean fail) {
+      this.remaining = length;
+      this.fail = fail;
+    }
+
+    public int read() throws IOException {
+      if (remaining == 0) {
+        if (fail) {
+          throw new IOException("Data generation failed");
+        }
+        return -1;
+      }
+      --remaining;
+      return 'x';
+    }
+  }
+
+  private MockHttpServletResponse response;
+
+  private void handle(final int length, boolean fail) {
+    response = new MockHttpServletResponse();
+    DataViewHandlerImpl handler = new DataViewHandlerImpl();
+    handler.setResponseProxy(response);
+    handler.setContentTypeInfoProxy(new ContentTypeInfo(
+        ContentTypeInfoRegistry.CUSTOM, null, null, null));
+    final InputStream data = new GeneratedInputStream(length, fail);
+    handler.handleView(new DataView() {
+      public Object getData(ViewParameters viewparams) {
+        return data;
+      }
+
+      public String getContentType() {
+        return ContentTypeInfoRegistry.CUSTOM;
+      }
+
+      public String getViewID() {
+        return "data";
+      }
+    }, new SimpleViewParameters("data"));
+  }
+
+  public void testSmall() {
+    handle(1000, false);
+    assertEquals(1000, response.getContentLength());
+    assertEquals(1000, response.getContentAsByteArray().length);
+  }
+
+  public void testSmallFailure() {
+    try {
+      handle(1000, true);
+      fail();
+    }
+    catch (RuntimeException e) {
+    }
+    // nothing has been sent, so the failure may still be reported
+    assertFalse(response.isCommitted());
+    assertEquals(0, response.getContentAsByteArray().length);
+  }
+
+  public void testLarge() {
+    int length = DataViewHandlerImpl.BUFFER_SIZE * 3;
+    handle(length, false);
+    assertEquals(length, response.getContentAsByteArray().length);
+  }
+
+  public void testLargeFailure() {
+    try {
+      handle(DataViewHandlerImpl.BUFFER_SIZE * 3, true);
+      fail();
+    }
+    catch (RuntimeException e) {
+    }
+    // the start of the data has already been sent
+    assertTrue(response.getContentAsByteArray().length > 0);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.fragmentcache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.components.decorators.UICacheDecorator;
+import uk.org.ponder.rsf.renderer.cache.BranchFragmentCache;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** Produces a cached menu row, which is only filled when it is not cached,
+ * an uncached body row, and a cached row which carries XML ids */
+
+public class CachingProducer implements ViewComponentProducer {
+  private BranchFragmentCache branchFragmentCache;
+  private AtomicInteger fillCount;
+  private AtomicInteger idFillCount;
+
+  public void setBranchFragmentCache(BranchFragmentCache branchFragmentCache) {
+    this.branchFragmentCache = branchFragmentCache;
+  }
+
+  public void setFillCount(AtomicInteger fillCount) {
+    this.fillCount = fillCount;
+  }
+
+  public void setIdFillCount(AtomicInteger idFillCount) {
+    this.idFillCount = idFillCount;
+  }
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    UIBranchContainer menu = UIBranchContainer.make(tofill, "row:", "menu");
+    menu.decorate(new UICacheDecorator("menu", 60000));
+    if (!branchFragmentCache.isCached(menu)) {
+      UIOutput.make(menu, "value", "Menu " + fillCount.incrementAndGet());
+    }
+    UIBranchContainer body = UIBranchContainer.make(tofill, "row:", "body");
+    UIOutput.make(body, "value", "Body " + fillCount.get());
+
+    UIBranchContainer ids = UIBranchContainer.make(tofill, "row:", "ids");
+    ids.decorate(new UICacheDecorator("ids", 60000));
+    if (!branchFragmentCache.isCached(ids)) {
+      UIOutput.make(ids, "label", "Ids " + idFillCount.incrementAndGet());
+      UIOutput.make(ids, "target", "Target");
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.fragmentcache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test for caching of the markup of branches decorated with 
+ * UICacheDecorator between requests.
+ */
+
+public class TestFragmentCache extends MultipleRSFTests {
+
+  public TestFragmentCache() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/fragmentcache/fragmentcache-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-application-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/fragmentcache/fragmentcache-application-context.xml");
+  }
+
+  private int count(String markup, String expected) {
+    int togo = 0;
+    for (int index = markup.indexOf(expected); index != -1; index = markup
+        .indexOf(expected, index + 1)) {
+      ++togo;
+    }
+    return togo;
+  }
+
+  @Test
+  public void testFragmentCache() {
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    assertContains(response, "Menu 1");
+    assertContains(response, "Body 1");
+
+    RenderResponse response2 = getRequestLauncher().renderView();
+    assertRenderError(response2, false);
+    // the menu was neither produced nor rendered again, but the body was
+    assertContains(response2, "Menu 1");
+    assertContains(response2, "Body 1");
+    AtomicInteger fillCount = (AtomicInteger) applicationContext.getBean("fillCount");
+    Assert.assertEquals(1, fillCount.get());
+  }
+
+  @Test
+  public void testBranchWithIDs() {
+    getRequestLauncher().renderView();
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    // the branch carrying ids was produced and rendered afresh, so that its
+    // ids are assigned in this rendering and its label still finds them
+    assertContains(response, "Ids 2");
+    String targetID = "row:ids:target";
+    Assert.assertEquals(1, count(response.markup, "id=\"" + targetID + "\""));
+    assertContains(response, "for=\"" + targetID + "\"");
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.fragmentcache;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.renderer.cache.FragmentCache;
+
+/** Tests size accounting and least recently used eviction of FragmentCache */
+
+public class TestFragmentCacheEviction extends TestCase {
+
+  public void testEvictsLeastRecentlyUsed() {
+    FragmentCache cache = new FragmentCache();
+    cache.setMaxSize(40);
+    cache.put("a", "0123456789", 60000);
+    cache.put("b", "0123456789", 60000);
+    cache.put("c", "0123456789", 60000);
+    cache.put("d", "0123456789", 60000);
+    assertEquals(40, cache.getSize());
+    // touch "a", so that "b" and "c" are the least recently used
+    assertNotNull(cache.get("a"));
+    cache.put("e", "0123456789", 60000);
+    assertNull(cache.get("b"));
+    assertNull(cache.get("c"));
+    assertNotNull(cache.get("a"));
+    assertNotNull(cache.get("d"));
+    assertNotNull(cache.get("e"));
+    assertEquals(30, cache.getSize());
+    assertEquals(2, cache.getEvictionCount());
+  }
+
+  public void testReplaceAndExpire() throws InterruptedException {
+    FragmentCache cache = new FragmentCache();
+    cache.put("a", "0123456789", 60000);
+    cache.put("a", "01234", 60000);
+    assertEquals(5, cache.getSize());
+    cache.put("b", "0123456789", 1);
+    Thread.sleep(5);
+    assertNull(cache.get("b"));
+    assertEquals(5, cache.getSize());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+}
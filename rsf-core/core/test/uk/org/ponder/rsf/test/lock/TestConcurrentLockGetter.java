@@ -0,0 +1,62 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.lock;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.state.LockTimeoutException;
+import uk.org.ponder.rsf.state.support.ConcurrentLockGetter;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/** Tests reference counting and timed acquisition of ConcurrentLockGetter */
+
+public class TestConcurrentLockGetter extends TestCase {
+
+  public void testReferenceCounting() {
+    ConcurrentLockGetter getter = new ConcurrentLockGetter();
+    Object lock1 = getter.getLock("flow1");
+    Object lock2 = getter.getLock("flow1");
+    assertSame(lock1, lock2);
+    getter.returnLock("flow1");
+    // still referenced once, so must not have been discarded
+    assertEquals(1, getter.getActiveLockCount());
+    assertSame(lock1, getter.getLock("flow1"));
+    getter.returnLock("flow1");
+    getter.returnLock("flow1");
+    assertEquals(0, getter.getActiveLockCount());
+
+    getter.acquireLock("flow1");
+    getter.acquireLock("flow1");
+    getter.releaseLock("flow1");
+    assertEquals(1, getter.getActiveLockCount());
+    getter.releaseLock("flow1");
+    assertEquals(0, getter.getActiveLockCount());
+    assertEquals(2, getter.getAcquisitionCount());
+  }
+
+  public void testTimeout() throws InterruptedException {
+    final ConcurrentLockGetter getter = new ConcurrentLockGetter();
+    getter.setTimeout(50);
+    getter.acquireLock("flow1");
+    final Throwable[] thrown = new Throwable[1];
+    Thread other = new Thread() {
+      public void run() {
+        try {
+          getter.acquireLock("flow1");
+        }
+        catch (Throwable t) {
+          thrown[0] = t;
+        }
+      }
+    };
+    other.start();
+    other.join();
+    getter.releaseLock("flow1");
+    assertTrue(thrown[0] instanceof UniversalRuntimeException);
+    assertTrue(((UniversalRuntimeException) thrown[0]).getTargetException()
+        instanceof LockTimeoutException);
+    assertEquals(1, getter.getTimeoutCount());
+    assertEquals(0, getter.getWaiterCount());
+    assertEquals(0, getter.getActiveLockCount());
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.parallel;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import uk.org.ponder.rsf.componentprocessor.ConcurrentComponentProcessor;
+import uk.org.ponder.rsf.components.UIComponent;
+import uk.org.ponder.rsf.components.UIOutput;
+
+/** A concurrent processor which marks every UIOutput it sees. The first
+ * time it runs on each pool thread, it waits until it has been entered on 
+ * another pool thread, and so will only see its latch released if 
+ * components are processed concurrently */
+
+public class SuffixingProcessor implements ConcurrentComponentProcessor {
+  public CountDownLatch overlap = new CountDownLatch(2);
+  private Set threads = Collections.synchronizedSet(new HashSet());
+
+  public void processComponent(UIComponent toprocess) {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof ForkJoinWorkerThread && threads.add(thread)) {
+      overlap.countDown();
+      try {
+        overlap.await(5, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        thread.interrupt();
+      }
+    }
+    if (toprocess instanceof UIOutput) {
+      UIOutput output = (UIOutput) toprocess;
+      output.setValue(output.getValue() + " fixed");
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.parallel;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.componentprocessor.ViewProcessor;
+
+/** Test for parallel application of ConcurrentComponentProcessors to a 
+ * large component tree.
+ */
+
+public class TestParallelFixup extends MultipleRSFTests {
+
+  public TestParallelFixup() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-request-context.xml");
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/parallel/parallel-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/rows/rows-application-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/parallel/parallel-application-context.xml");
+  }
+
+  private ViewProcessor viewProcessor(RequestLauncher launcher) {
+    ViewProcessor togo = (ViewProcessor) launcher.getRSACBeanLocator()
+        .getBeanLocator().locateBean("viewProcessor");
+    togo.setClientComponentProcessors(Collections
+        .singletonList(applicationContext.getBean("suffixingProcessor")));
+    return togo;
+  }
+
+  @Test
+  public void testParallelFixup() {
+    RequestLauncher launcher = getRequestLauncher();
+    viewProcessor(launcher).setParallelThreshold(0);
+    RenderResponse sequential = launcher.renderView();
+    assertRenderError(sequential, false);
+
+    launcher = getRequestLauncher();
+    viewProcessor(launcher);
+    RenderResponse parallel = launcher.renderView();
+    assertRenderError(parallel, false);
+    for (int i = 0; i < 1000; i += 99) {
+      assertContains(parallel, "Row " + i + " fixed<");
+    }
+    Assert.assertEquals(-1, parallel.markup.indexOf("fixed fixed"));
+    // the links were fixed up by the ViewParamsFixer in the pool
+    Assert.assertEquals(-1, parallel.markup.indexOf("href=\"#\""));
+    Assert.assertEquals(sequential.markup, parallel.markup);
+
+    SuffixingProcessor processor = (SuffixingProcessor) 
+      applicationContext.getBean("suffixingProcessor");
+    Assert.assertEquals(0, processor.overlap.getCount());
+  }
+}
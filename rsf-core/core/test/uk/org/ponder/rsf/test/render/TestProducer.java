@@ -7,6 +7,7 @@ import uk.org.ponder.rsf.bare.RequestLauncher;
 import uk.org.ponder.rsf.components.ELReference;
 import uk.org.ponder.rsf.components.UIBranchContainer;
 import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIForm;
 import uk.org.ponder.rsf.components.UIInitBlock;
 import uk.org.ponder.rsf.components.UILink;
 import uk.org.ponder.rsf.components.UIMessage;
@@ -16,14 +17,21 @@ import uk.org.ponder.rsf.components.UISelect;
 import uk.org.ponder.rsf.components.UIVerbatim;
 import uk.org.ponder.rsf.view.ComponentChecker;
 import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.BranchViewParameters;
 import uk.org.ponder.rsf.viewstate.ViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParamsReporter;
 
-public class TestProducer implements ViewComponentProducer {
+public class TestProducer implements ViewComponentProducer,
+    ViewParamsReporter {
 
   public String getViewID() {
     return RequestLauncher.TEST_VIEW;
   }
 
+  public ViewParameters getViewParameters() {
+    return new BranchViewParameters();
+  }
+
   public void fillComponents(UIContainer tofill, ViewParameters viewparams,
       ComponentChecker checker) {
     UIVerbatim.make(tofill, "verbatim-test", "verbatim.label").setMessageKey();
@@ -35,6 +43,11 @@ public class TestProducer implements ViewComponentProducer {
       UIBranchContainer branch = UIBranchContainer.make(tofill, "row:");
       UIOutput.make(branch, "target");
     }
+    UIForm form = UIForm.make(tofill, "branch-form");
+    for (int i = 0; i < 2; ++i) {
+      UIBranchContainer branch = UIBranchContainer.make(form, "form-row:");
+      UIOutput.make(branch, "form-value", "Form row " + i);
+    }
     String[] choices = {"1", "2", "3", "4", "5"};
     UISelect select = UISelect.make(tofill, "select-1", choices, choices, "2", false);
     select.groupnames = UIOutputMany.make(new String[] {null, "", "A", "A"});
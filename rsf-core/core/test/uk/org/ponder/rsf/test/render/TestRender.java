@@ -3,11 +3,20 @@
  */
 package uk.org.ponder.rsf.test.render;
 
+import org.junit.Assert;
+import org.junit.Test;
+
 import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.RequestLauncher;
 import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+import uk.org.ponder.rsf.components.ComponentList;
+import uk.org.ponder.rsf.components.UIForm;
+import uk.org.ponder.rsf.viewstate.BranchViewParameters;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
 
 /** Test for ID NPE RSF-71, Verbatim RSF-85, UIMessage RSF-73, 
- * Relation target RSF-77, UISelect grouping RSF-108, cluster ID computation RSF-65
+ * Relation target RSF-77, UISelect grouping RSF-108, cluster ID computation RSF-65,
+ * rendering of a single branch
  */
 
 public class TestRender extends MultipleRSFTests {
@@ -42,4 +51,55 @@ public class TestRender extends MultipleRSFTests {
     assertContains(response, "<input  value=\"Button\" type=\"button\"/>");
     assertContains(response, "class=\"one\"");
   }
+
+  @Test
+  public void testRenderBranch() {
+    BranchViewParameters viewparams = new BranchViewParameters(RequestLauncher.TEST_VIEW);
+    viewparams.renderbranch = "row:1:";
+    RenderResponse response = getRequestLauncher().renderView(viewparams);
+    assertRenderError(response, false);
+    
+    String markup = response.markup.trim();
+    Assert.assertTrue(markup.startsWith("<div"));
+    Assert.assertTrue(markup.endsWith("</div>"));
+    assertContains(response, "for=\"row:1:target\"");
+    Assert.assertEquals(-1, markup.indexOf("row::target"));
+    Assert.assertEquals(-1, markup.indexOf("Test Message ID View"));
+    Assert.assertEquals(-1, markup.indexOf("optgroup"));
+  }
+
+  @Test
+  public void testRenderBranchInForm() {
+    BranchViewParameters viewparams = new BranchViewParameters(RequestLauncher.TEST_VIEW);
+    viewparams.renderbranch = "form-row:1:";
+    RenderResponse response = getRequestLauncher().renderView(viewparams);
+    assertRenderError(response, false);
+
+    String markup = response.markup.trim();
+    Assert.assertTrue(markup.startsWith("<div"));
+    Assert.assertTrue(markup.endsWith("</div>"));
+    assertContains(response, "Form row 1");
+    Assert.assertEquals(-1, markup.indexOf("Form row 0"));
+    // the tree was pruned to the branch through its enclosing form
+    ComponentList children = response.viewWrapper.getViewRoot().flattenChildren();
+    Assert.assertEquals(1, children.size());
+    UIForm form = (UIForm) children.componentAt(0);
+    Assert.assertEquals("branch-form", form.ID);
+    children = form.flattenChildren();
+    Assert.assertEquals(1, children.size());
+    Assert.assertEquals("form-row:1:", children.componentAt(0).getFullID());
+    Assert.assertEquals(-1, markup.indexOf("<form"));
+    Assert.assertEquals(-1, markup.indexOf("Test Message ID View"));
+  }
+
+  @Test
+  public void testRenderBranchNotReported() {
+    // a view only renders a single branch if its parameters accept one
+    SimpleViewParameters viewparams = new SimpleViewParameters(RequestLauncher.TEST_VIEW);
+    viewparams.renderbranch = "row:1:";
+    RenderResponse response = getRequestLauncher().renderView(viewparams);
+    assertRenderError(response, false);
+    assertContains(response, "Test Message ID View");
+    assertContains(response, "for=\"row::target\"");
+  }
 }
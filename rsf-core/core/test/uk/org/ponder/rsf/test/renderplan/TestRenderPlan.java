@@ -0,0 +1,46 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.renderplan;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.renderer.RenderUtil;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.template.XMLViewTemplateParser;
+import uk.org.ponder.streamutil.write.StringPOS;
+
+/** Tests that a template assembled without a render plan is rendered as
+ * though the parser had compiled one.
+ */
+
+public class TestRenderPlan extends TestCase {
+  private static final String TEMPLATE =
+      "<html xmlns:rsf=\"http://ponder.org.uk/rsf\"><body>\n"
+      + "<p>Static</p><span rsf:id=\"value\">V</span>\n"
+      + "</body></html>";
+
+  private static XMLViewTemplate parse() throws Exception {
+    return (XMLViewTemplate) new XMLViewTemplateParser()
+        .parse(new ByteArrayInputStream(TEMPLATE.getBytes("UTF-8")));
+  }
+
+  private static String dumpStatic(XMLViewTemplate template) {
+    StringPOS pos = new StringPOS();
+    RenderUtil.dumpScan(template.lumps, 0, 0, pos, true, false);
+    return pos.toString();
+  }
+
+  public void testMissingPlan() throws Exception {
+    String planned = dumpStatic(parse());
+    assertTrue(planned.endsWith("Static</p>"));
+
+    XMLViewTemplate template = parse();
+    template.renderplan = null;
+    assertEquals(planned, dumpStatic(template));
+    assertNotNull(template.renderplan);
+    assertNotNull(template.getRenderPlan().slots[template.renderplan
+        .nextstop[0]]);
+  }
+}
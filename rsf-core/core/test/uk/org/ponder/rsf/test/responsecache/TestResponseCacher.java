@@ -0,0 +1,185 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.responsecache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.org.ponder.messageutil.TargettedMessage;
+import uk.org.ponder.messageutil.TargettedMessageList;
+import uk.org.ponder.rsf.content.ContentTypeInfo;
+import uk.org.ponder.rsf.renderer.cache.ResponseCache;
+import uk.org.ponder.rsf.servlet.ServletResponseCacher;
+import uk.org.ponder.rsf.view.CacheableView;
+import uk.org.ponder.rsf.view.ViewResolver;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** Tests for serving cached responses and conditional GETs for 
+ * CacheableViews.
+ */
+
+public class TestResponseCacher extends TestCase {
+  private static final String BODY = "<html><body>A cacheable view, repeated, "
+      + "repeated, repeated, repeated, repeated</body></html>";
+
+  private static class TestView implements CacheableView {
+    String versionkey;
+
+    public long getCacheTTL() {
+      return 60000;
+    }
+
+    public String getVersionKey(ViewParameters viewparams) {
+      return versionkey;
+    }
+  }
+
+  private ResponseCache cache = new ResponseCache();
+  private TestView view = new TestView();
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+  private TargettedMessageList messages;
+  private String host = "localhost";
+  private String acceptEncoding = "gzip, deflate";
+
+  private ServletResponseCacher makeCacher(String ifnonematch) {
+    request = new MockHttpServletRequest("GET", "/app/view");
+    request.setServerName(host);
+    if (ifnonematch != null) {
+      request.addHeader("If-None-Match", ifnonematch);
+    }
+    if (acceptEncoding != null) {
+      request.addHeader("Accept-Encoding", acceptEncoding);
+    }
+    messages = new TargettedMessageList();
+    response = new MockHttpServletResponse();
+    ServletResponseCacher togo = new ServletResponseCacher();
+    togo.setHttpServletRequest(request);
+    togo.setHttpServletResponse(response);
+    togo.setViewParameters(new SimpleViewParameters("view"));
+    togo.setViewResolver(new ViewResolver() {
+      public List getProducers(String viewid) {
+        List producers = new ArrayList();
+        producers.add(view);
+        return producers;
+      }
+    });
+    togo.setResponseCache(cache);
+    togo.setTargettedMessageList(messages);
+    togo.setLocale(Locale.ENGLISH);
+    togo.setContentTypeInfo(new ContentTypeInfo("HTML", "html", null,
+        "text/html; charset=UTF-8"));
+    return togo;
+  }
+
+  public void testDigestETag() throws Exception {
+    ServletResponseCacher cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.isCapturing());
+    assertTrue(cacher.complete(BODY.getBytes("UTF-8"), response));
+    String etag = (String) response.getHeader("ETag");
+    assertNotNull(etag);
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals(ServletResponseCacher.VARY, response.getHeader("Vary"));
+
+    cacher = makeCacher(null);
+    assertTrue(cacher.handleCached());
+    assertEquals(etag, response.getHeader("ETag"));
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertTrue(response.getContentAsByteArray().length > 0);
+
+    cacher = makeCacher(etag);
+    assertTrue(cacher.handleCached());
+    assertEquals(304, response.getStatus());
+    assertEquals(0, response.getContentAsByteArray().length);
+    assertEquals(etag, response.getHeader("ETag"));
+    assertEquals(ServletResponseCacher.VARY, response.getHeader("Vary"));
+  }
+
+  public void testETagPerEncoding() throws Exception {
+    ServletResponseCacher cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.complete(BODY.getBytes("UTF-8"), response));
+    String gzipETag = (String) response.getHeader("ETag");
+
+    acceptEncoding = null;
+    cacher = makeCacher(null);
+    assertTrue(cacher.handleCached());
+    assertNull(response.getHeader("Content-Encoding"));
+    String identityETag = (String) response.getHeader("ETag");
+    assertFalse(gzipETag.equals(identityETag));
+    assertEquals(BODY, response.getContentAsString());
+
+    // the ETag of the gzip body does not validate the identity body
+    cacher = makeCacher(gzipETag);
+    assertTrue(cacher.handleCached());
+    assertEquals(200, response.getStatus());
+    cacher = makeCacher(identityETag);
+    assertTrue(cacher.handleCached());
+    assertEquals(304, response.getStatus());
+  }
+
+  public void testKeyedOnHost() throws Exception {
+    ServletResponseCacher cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.complete(BODY.getBytes("UTF-8"), response));
+    assertTrue(makeCacher(null).handleCached());
+
+    host = "other.example.org";
+    cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.isCapturing());
+  }
+
+  public void testVersionETag() throws Exception {
+    view.versionkey = "1";
+    ServletResponseCacher cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.complete(BODY.getBytes("UTF-8"), response));
+    String etag = (String) response.getHeader("ETag");
+
+    // answered without consulting the cache
+    cache.clear();
+    cacher = makeCacher(etag);
+    assertTrue(cacher.handleCached());
+    assertEquals(304, response.getStatus());
+
+    // a new version invalidates both the ETag and the cached response
+    view.versionkey = "2";
+    cacher = makeCacher(etag);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.isCapturing());
+  }
+
+  public void testAbandon() throws Exception {
+    ServletResponseCacher cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    cacher.abandon();
+    assertFalse(cacher.complete(BODY.getBytes("UTF-8"), response));
+    assertEquals(0, cache.getSize());
+  }
+
+  public void testMessagesNotCached() throws Exception {
+    // messages queued before the render bypass the cache altogether
+    ServletResponseCacher cacher = makeCacher(null);
+    messages.addMessage(new TargettedMessage("early"));
+    assertFalse(cacher.handleCached());
+    assertFalse(cacher.isCapturing());
+
+    // messages raised during the render prevent the response being cached
+    cacher = makeCacher(null);
+    assertFalse(cacher.handleCached());
+    assertTrue(cacher.isCapturing());
+    messages.addMessage(new TargettedMessage("during render"));
+    assertFalse(cacher.complete(BODY.getBytes("UTF-8"), response));
+    assertEquals(0, cache.getSize());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.rows;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIInternalLink;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+/** A producer for the test view, shared between the tests which require a
+ * view made of some number of simple rows. Each row holds an output and a
+ * link back to the view. */
+
+public class RowsProducer implements ViewComponentProducer {
+  private int rows = 1;
+
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    for (int i = 0; i < rows; ++i) {
+      UIBranchContainer branch = UIBranchContainer.make(tofill, "row:",
+          Integer.toString(i));
+      UIOutput.make(branch, "value", "Row " + i);
+      UIInternalLink.make(branch, "link", new SimpleViewParameters(
+          RequestLauncher.TEST_VIEW));
+    }
+  }
+}
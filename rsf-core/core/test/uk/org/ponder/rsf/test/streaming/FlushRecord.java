@@ -0,0 +1,12 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.streaming;
+
+/** Records the markup which had been flushed to the client when the view
+ * producer ran */
+
+public class FlushRecord {
+  public String flushed = "";
+  public String atProduction;
+}
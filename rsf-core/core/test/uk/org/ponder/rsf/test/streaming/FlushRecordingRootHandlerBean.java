@@ -0,0 +1,53 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.streaming;
+
+import uk.org.ponder.rsf.bare.BareRootHandlerBean;
+import uk.org.ponder.streamutil.write.PrintOutputStream;
+
+/** A BareRootHandlerBean which records the markup written at each flush of
+ * its response stream */
+
+public class FlushRecordingRootHandlerBean extends BareRootHandlerBean {
+  private FlushRecord flushRecord;
+
+  public void setFlushRecord(FlushRecord flushRecord) {
+    this.flushRecord = flushRecord;
+  }
+
+  public PrintOutputStream setupResponseWriter() {
+    final PrintOutputStream target = super.setupResponseWriter();
+    return new PrintOutputStream() {
+      public void println(String toprint) {
+        target.println(toprint);
+      }
+
+      public void flush() {
+        target.flush();
+        flushRecord.flushed = getMarkup();
+      }
+
+      public void close() {
+        target.close();
+      }
+
+      public PrintOutputStream print(String string) {
+        target.print(string);
+        return this;
+      }
+
+      public void println() {
+        target.println();
+      }
+
+      public void println(Object obj) {
+        target.println(obj);
+      }
+
+      public void write(char[] storage, int offset, int size) {
+        target.write(storage, offset, size);
+      }
+    };
+  }
+}
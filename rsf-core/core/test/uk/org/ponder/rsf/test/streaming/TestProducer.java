@@ -0,0 +1,33 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.streaming;
+
+import uk.org.ponder.rsf.bare.RequestLauncher;
+import uk.org.ponder.rsf.components.UIBranchContainer;
+import uk.org.ponder.rsf.components.UIContainer;
+import uk.org.ponder.rsf.components.UIOutput;
+import uk.org.ponder.rsf.view.ComponentChecker;
+import uk.org.ponder.rsf.view.ViewComponentProducer;
+import uk.org.ponder.rsf.viewstate.ViewParameters;
+
+public class TestProducer implements ViewComponentProducer {
+  private FlushRecord flushRecord;
+
+  public void setFlushRecord(FlushRecord flushRecord) {
+    this.flushRecord = flushRecord;
+  }
+
+  public String getViewID() {
+    return RequestLauncher.TEST_VIEW;
+  }
+
+  public void fillComponents(UIContainer tofill, ViewParameters viewparams,
+      ComponentChecker checker) {
+    flushRecord.atProduction = flushRecord.flushed;
+    for (int i = 1; i <= 2; ++i) {
+      UIBranchContainer branch = UIBranchContainer.make(tofill, "row:");
+      UIOutput.make(branch, "value", "Row " + i);
+    }
+  }
+}
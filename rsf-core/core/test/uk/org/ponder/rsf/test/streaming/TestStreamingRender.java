@@ -0,0 +1,54 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.streaming;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsf.bare.RenderResponse;
+import uk.org.ponder.rsf.bare.junit.MultipleRSFTests;
+
+/** Test for streaming render, where the document head is written before
+ * the view is produced.
+ */
+
+public class TestStreamingRender extends MultipleRSFTests {
+
+  public TestStreamingRender() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsf/test/streaming/streaming-request-context.xml");
+    contributeConfigLocation("classpath:uk/org/ponder/rsf/test/streaming/streaming-application-context.xml");
+  }
+
+  @Test
+  public void testStreamingRender() {
+    RenderResponse response = getRequestLauncher().renderView();
+    assertRenderError(response, false);
+    String markup = response.markup;
+
+    int headpos = markup.indexOf("<head");
+    int headclose = markup.indexOf("</head>");
+    Assert.assertTrue(headpos != -1 && headclose > headpos);
+    Assert.assertEquals(headpos, markup.lastIndexOf("<head"));
+    assertContains(response, "Streaming Test</title>");
+    // the contributed script must have been collected into the head
+    int scriptpos = markup.indexOf("streaming.js");
+    Assert.assertTrue(scriptpos > headpos && scriptpos < headclose);
+
+    assertContains(response, "Row 1");
+    assertContains(response, "Row 2");
+    Assert.assertTrue(markup.indexOf("Row 2") > markup.indexOf("Row 1"));
+    assertContains(response, "</html>");
+
+    // the head had already been flushed to the client when the producer ran
+    FlushRecord record = (FlushRecord) response.requestContext
+        .locateBean("flushRecord");
+    String flushed = record.atProduction;
+    Assert.assertNotNull(flushed);
+    Assert.assertTrue(flushed.indexOf("<head") != -1);
+    Assert.assertTrue(flushed.indexOf("streaming.js") != -1);
+    Assert.assertEquals(-1, flushed.indexOf("Streaming Test"));
+    Assert.assertEquals(-1, flushed.indexOf("Row 1"));
+    Assert.assertTrue(markup.startsWith(flushed));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.templatecache;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.template.XMLViewTemplate;
+import uk.org.ponder.rsf.templateresolver.support.TemplateCache;
+
+/** Tests single-flight parsing and change tracking of TemplateCache */
+
+public class TestTemplateCache extends TestCase {
+
+  public void testSharedEntry() {
+    TemplateCache cache = new TemplateCache();
+    TemplateCache.Entry entry = cache.getEntry("/a.html");
+    assertSame(entry, cache.getEntry("/a.html"));
+    assertNotSame(entry, cache.getEntry("/b.html"));
+    assertEquals(2, cache.size());
+  }
+
+  public void testChangeDuringParse() {
+    TemplateCache cache = new TemplateCache();
+    TemplateCache.Entry entry = cache.getEntry("/a.html");
+    XMLViewTemplate first = new XMLViewTemplate();
+    assertNull(cache.beginParse(entry, false));
+    cache.endParse(entry, first);
+    assertFalse(entry.isStale());
+    assertSame(first, cache.beginParse(entry, true));
+
+    // a change is detected and claimed by one thread
+    assertNull(cache.beginParse(entry, false));
+    // a second change arrives while it is parsing - the old version is served
+    assertSame(first, cache.beginParse(entry, false));
+    XMLViewTemplate second = new XMLViewTemplate();
+    cache.endParse(entry, second);
+    assertSame(second, entry.getTemplate());
+    // the stored parse predates the second change, which must not be lost
+    assertTrue(entry.isStale());
+
+    // a caller with no change of its own must now claim the reparse
+    assertNull(cache.beginParse(entry, true));
+    XMLViewTemplate third = new XMLViewTemplate();
+    cache.endParse(entry, third);
+    assertFalse(entry.isStale());
+    assertSame(third, cache.beginParse(entry, true));
+    assertEquals(2, cache.getReparses());
+  }
+
+  public void testFailedParse() {
+    TemplateCache cache = new TemplateCache();
+    TemplateCache.Entry entry = cache.getEntry("/a.html");
+    XMLViewTemplate first = new XMLViewTemplate();
+    assertNull(cache.beginParse(entry, false));
+    cache.endParse(entry, first);
+
+    assertNull(cache.beginParse(entry, false));
+    cache.endParse(entry, null);
+    // the previous version is retained, and not reparsed on every request
+    assertSame(first, entry.getTemplate());
+    assertFalse(entry.isStale());
+    assertSame(first, cache.beginParse(entry, true));
+  }
+}
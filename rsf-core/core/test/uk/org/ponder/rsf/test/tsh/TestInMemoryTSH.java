@@ -0,0 +1,47 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.tsh;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.state.support.InMemoryTSH;
+
+/** Tests expiry and size limiting of InMemoryTSH */
+
+public class TestInMemoryTSH extends TestCase {
+
+  public void testExpiry() {
+    InMemoryTSH tsh = new InMemoryTSH();
+    try {
+      tsh.setExpirySeconds(10);
+      tsh.putTokenState("token1", "value1");
+      assertEquals("value1", tsh.getTokenState("token1"));
+      assertEquals(0, tsh.reap(System.currentTimeMillis()));
+      assertEquals(1, tsh.reap(System.currentTimeMillis() + 20000));
+      assertNull(tsh.getTokenState("token1"));
+      assertEquals(1, tsh.getHits());
+      assertEquals(1, tsh.getMisses());
+      assertEquals(1, tsh.getExpirations());
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testEviction() {
+    InMemoryTSH tsh = new InMemoryTSH();
+    try {
+      tsh.setMaxEntries(InMemoryTSH.SEGMENTS * 4);
+      for (int i = 0; i < 1000; ++i) {
+        tsh.putTokenState("token" + i, new Integer(i));
+      }
+      assertTrue(tsh.size() <= InMemoryTSH.SEGMENTS * 4);
+      assertEquals(1000 - tsh.size(), tsh.getEvictions());
+      // the most recent token always survives
+      assertEquals(new Integer(999), tsh.getTokenState("token999"));
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+}
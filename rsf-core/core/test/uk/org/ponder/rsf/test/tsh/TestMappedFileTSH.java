@@ -0,0 +1,127 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.tsh;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import uk.org.ponder.rsf.state.support.MappedFileTSH;
+
+/** Tests recovery, compaction, expiry and destruction of MappedFileTSH */
+
+public class TestMappedFileTSH extends TestCase {
+  private File directory;
+
+  protected void setUp() throws IOException {
+    directory = File.createTempFile("mappedtsh", "");
+    directory.delete();
+    directory.mkdirs();
+  }
+
+  protected void tearDown() {
+    File[] files = directory.listFiles();
+    for (int i = 0; files != null && i < files.length; ++i) {
+      files[i].delete();
+    }
+    directory.delete();
+  }
+
+  private MappedFileTSH open(int segmentbytes) {
+    MappedFileTSH tsh = new MappedFileTSH();
+    tsh.setDirectory(directory.getPath());
+    tsh.setSegmentBytes(segmentbytes);
+    tsh.setExpirySeconds(60);
+    return tsh;
+  }
+
+  public void testReopen() {
+    MappedFileTSH tsh = open(4096);
+    tsh.putTokenState("token1", "value1");
+    tsh.putTokenState("token2", "value2");
+    tsh.putTokenState("token1", "value1b");
+    tsh.putTokenState("token3", new Integer(3));
+    tsh.clearTokenState("token2");
+    tsh.destroy();
+
+    MappedFileTSH reopened = open(4096);
+    try {
+      assertEquals("value1b", reopened.getTokenState("token1"));
+      // a cleared token must not be resurrected
+      assertNull(reopened.getTokenState("token2"));
+      assertEquals(new Integer(3), reopened.getTokenState("token3"));
+      assertEquals(2, reopened.size());
+      // further writes continue the recovered segment
+      reopened.putTokenState("token4", "value4");
+      assertEquals(1, reopened.getSegmentCount());
+    }
+    finally {
+      reopened.destroy();
+    }
+  }
+
+  public void testCompaction() {
+    MappedFileTSH tsh = open(1024);
+    for (int i = 0; i < 200; ++i) {
+      tsh.putTokenState("token" + (i % 4), "value" + i);
+    }
+    int segments = tsh.getSegmentCount();
+    assertTrue(segments > 2);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < segments; ++i) {
+      tsh.reap(now);
+    }
+    assertTrue(tsh.getSegmentCount() < segments);
+    // compacted segment files are deleted
+    assertEquals(tsh.getSegmentCount(), directory.listFiles().length);
+    for (int i = 0; i < 4; ++i) {
+      assertEquals("value" + (196 + i), tsh.getTokenState("token" + i));
+    }
+    tsh.destroy();
+
+    MappedFileTSH reopened = open(1024);
+    try {
+      assertEquals(4, reopened.size());
+      for (int i = 0; i < 4; ++i) {
+        assertEquals("value" + (196 + i), reopened.getTokenState("token" + i));
+      }
+    }
+    finally {
+      reopened.destroy();
+    }
+  }
+
+  public void testExpiry() {
+    MappedFileTSH tsh = open(4096);
+    try {
+      tsh.putTokenState("token1", "value1");
+      assertEquals(0, tsh.reap(System.currentTimeMillis()));
+      assertEquals(1, tsh.reap(System.currentTimeMillis() + 120000));
+      assertNull(tsh.getTokenState("token1"));
+      assertEquals(0, tsh.size());
+    }
+    finally {
+      tsh.destroy();
+    }
+  }
+
+  public void testDestroyed() {
+    MappedFileTSH tsh = open(4096);
+    tsh.putTokenState("token1", "value1");
+    tsh.destroy();
+    try {
+      tsh.getTokenState("token1");
+      fail("Read from destroyed holder");
+    }
+    catch (IllegalStateException e) {
+    }
+    try {
+      tsh.putTokenState("token2", "value2");
+      fail("Write to destroyed holder");
+    }
+    catch (IllegalStateException e) {
+    }
+    assertEquals(0, tsh.reap(System.currentTimeMillis()));
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.urlmemo;
+
+import java.util.Date;
+
+import uk.org.ponder.rsf.viewstate.SimpleViewParameters;
+
+public class MemoViewParameters extends SimpleViewParameters {
+  public String name;
+  public Integer count;
+  public String[] tags;
+  public Date date;
+
+  public MemoViewParameters() {
+  }
+
+  public MemoViewParameters(String name, int count) {
+    super("memo");
+    this.name = name;
+    this.count = new Integer(count);
+  }
+
+  public String getParseSpec() {
+    return BASE_PARSE_SPEC + ", name, count, tags, date";
+  }
+}
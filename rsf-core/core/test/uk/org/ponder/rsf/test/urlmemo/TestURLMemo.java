@@ -0,0 +1,111 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsf.test.urlmemo;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uk.org.ponder.rsf.bare.junit.PlainRSFTests;
+import uk.org.ponder.rsf.viewstate.ViewParamUtil;
+import uk.org.ponder.rsf.viewstate.ViewParamsCodec;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsMapper;
+import uk.org.ponder.rsf.viewstate.support.ViewParamsURLMemo;
+
+/** Tests that the request-scope memo of rendered URL state only reuses a
+ * rendering for equivalent state */
+
+public class TestURLMemo extends PlainRSFTests {
+
+  private ViewParamsURLMemo getMemo() {
+    return (ViewParamsURLMemo) locateRequestBean("viewParamsURLMemo");
+  }
+
+  private String direct(MemoViewParameters viewparams) {
+    ViewParamsCodec codec = (ViewParamsCodec) applicationContext
+        .getBean("viewParamsCodec");
+    return ViewParamUtil.toHTTPRequest(codec, viewparams);
+  }
+
+  @Test
+  public void testMemoised() {
+    ViewParamsURLMemo memo = getMemo();
+    String url = memo.toHTTPRequest(new MemoViewParameters("thing", 3));
+    Assert.assertEquals(direct(new MemoViewParameters("thing", 3)), url);
+    Assert.assertTrue(url.indexOf("thing") != -1);
+    // an equivalent object is served the same rendering
+    Assert.assertSame(url, memo.toHTTPRequest(new MemoViewParameters("thing",
+        3)));
+
+    MemoViewParameters other = new MemoViewParameters("thing", 4);
+    String otherurl = memo.toHTTPRequest(other);
+    Assert.assertFalse(url.equals(otherurl));
+    Assert.assertEquals(direct(other), otherurl);
+  }
+
+  @Test
+  public void testArrayValue() {
+    ViewParamsURLMemo memo = getMemo();
+    MemoViewParameters viewparams = new MemoViewParameters("thing", 3);
+    viewparams.tags = new String[] { "a", "b" };
+    String url = memo.toHTTPRequest(viewparams);
+    Assert.assertEquals(direct(viewparams), url);
+    // altering the array after it has been memoised must not return the
+    // earlier rendering
+    viewparams.tags[1] = "c";
+    String altered = memo.toHTTPRequest(viewparams);
+    Assert.assertFalse(url.equals(altered));
+    Assert.assertEquals(direct(viewparams), altered);
+  }
+
+  @Test
+  public void testUnkeyed() {
+    // a mutable leaf such as a Date is rendered afresh every time
+    MemoViewParameters viewparams = new MemoViewParameters("thing", 3);
+    viewparams.date = new Date(0);
+    ViewParamsMapper mapper = (ViewParamsMapper) applicationContext
+        .getBean("viewParamsMapper");
+    Assert.assertNull(mapper.getURLStateKey(viewparams));
+    String url = getMemo().toHTTPRequest(viewparams);
+    Assert.assertEquals(direct(viewparams), url);
+    viewparams.date.setTime(1000000);
+    Assert.assertEquals(direct(viewparams), getMemo().toHTTPRequest(
+        viewparams));
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final ViewParamsURLMemo memo = getMemo();
+    final List failures = new ArrayList();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < 500; ++j) {
+            MemoViewParameters viewparams = new MemoViewParameters("thing",
+                j % 20);
+            String url = memo.toHTTPRequest(viewparams);
+            if (url.indexOf("count=" + (j % 20)) == -1) {
+              synchronized (failures) {
+                failures.add(url);
+              }
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i].join();
+    }
+    Assert.assertEquals(0, failures.size());
+    for (int j = 0; j < 20; ++j) {
+      MemoViewParameters viewparams = new MemoViewParameters("thing", j);
+      Assert.assertEquals(direct(viewparams), memo.toHTTPRequest(viewparams));
+    }
+  }
+}
@@ -3,8 +3,11 @@
  */
 package uk.org.ponder.conversion;
 
+import java.io.OutputStream;
+
 import uk.org.ponder.mapping.DataAlterationRequest;
 import uk.org.ponder.streamutil.read.StringRIS;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
 
 /**
  * Converts objects to and from strings using one of a repertoire of strategies (leaf
@@ -54,6 +57,43 @@ public class GeneralConverter {
           + " using leaf encoding");
   }
 
+  /**
+   * Writes the same rendering of the object as {@link #render(Object, String)}
+   * to the supplied stream, encoded as UTF-8. Where the provider for the
+   * encoding is a {@link StreamingSerializationProvider}, the rendering is
+   * written incrementally without being built in memory. The stream is
+   * flushed but not closed.
+   */
+  public void render(Object torender, String encoding, OutputStream os) {
+    if (torender == null || leafParser.isLeafType(torender.getClass())) {
+      UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(os);
+      pos.print(leafParser.render(torender));
+      pos.flush();
+    }
+    else if (encoding.equals(DataAlterationRequest.JSON_ENCODING)) {
+      write(JSONProvider, torender, os);
+    }
+    else if (encoding.equals(DataAlterationRequest.XML_ENCODING)) {
+      write(XMLProvider, torender, os);
+    }
+    else
+      throw new IllegalArgumentException("Cannot convert non-leaf " + torender.getClass()
+          + " using leaf encoding");
+  }
+
+  // toString(Object) of both providers is the compact form
+  private static void write(SerializationProvider provider, Object torender,
+      OutputStream os) {
+    if (provider instanceof StreamingSerializationProvider) {
+      ((StreamingSerializationProvider) provider).writeObject(torender, os, true);
+    }
+    else {
+      UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(os);
+      pos.print(provider.toString(torender));
+      pos.flush();
+    }
+  }
+
   public Object parse(String toparse, Class targetclass, String encoding) {
     if (encoding == null && !leafParser.isLeafType(targetclass)) {
       return toparse;
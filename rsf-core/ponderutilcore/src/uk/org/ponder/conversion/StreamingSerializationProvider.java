@@ -0,0 +1,18 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.conversion;
+
+import java.io.OutputStream;
+
+/**
+ * A version of {@link SerializationProvider} which can write any of the forms
+ * it renders incrementally to a stream, without building them in memory.
+ */
+
+public interface StreamingSerializationProvider extends SerializationProvider {
+  /** Writes the object incrementally to the stream, in the same form as 
+   * would be returned from {@link #toString(Object, boolean)}. The stream is
+   * flushed but not closed. */
+  public void writeObject(Object towrite, OutputStream os, boolean compact);
+}
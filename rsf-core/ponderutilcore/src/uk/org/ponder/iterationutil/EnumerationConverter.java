@@ -11,6 +11,7 @@ import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.BaseStream;
 
 import uk.org.ponder.arrayutil.ArrayEnumeration;
 import uk.org.ponder.arrayutil.PrimitiveArrayEnumeration;
@@ -34,7 +35,7 @@ public class EnumerationConverter {
     return Enumeration.class.isAssignableFrom(c)
         || Collection.class.isAssignableFrom(c)
         || Map.class.isAssignableFrom(c) || Iterator.class.isAssignableFrom(c)
-        || c.isArray();
+        || BaseStream.class.isAssignableFrom(c) || c.isArray();
   }
 
   // Maps are not currently denumerable! Pending some scheme for
@@ -79,6 +80,10 @@ public class EnumerationConverter {
     if (o instanceof Enumeration) {
       return (Enumeration) o;
     }
+    else if (o instanceof BaseStream) {
+      // consumed lazily, as for an Iterator
+      return getEnumeration(((BaseStream) o).iterator());
+    }
     else if (o instanceof Iterator) {
       return new Enumeration() {
         public boolean hasMoreElements() {
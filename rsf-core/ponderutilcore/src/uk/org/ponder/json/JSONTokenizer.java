@@ -0,0 +1,489 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A pull tokenizer for UTF-8 encoded JSON, reading directly from a byte
+ * buffer which is either supplied whole or refilled from an InputStream.
+ * Strings are decoded into a reusable character buffer, and numbers may be
+ * parsed from it directly, so that a String need only be constructed for
+ * those tokens which are really wanted as Strings.
+ * <p>
+ * For compatibility with the historical parser, unquoted values are read
+ * leniently - any run of characters up to the next whitespace or delimiter
+ * forms a {@link #LITERAL} token, which the caller may test for being
+ * <code>null</code>, <code>true</code>, <code>false</code> or a number.
+ */
+
+public class JSONTokenizer {
+  /** The end of the input has been reached */
+  public static final int END = 0;
+  public static final int START_OBJECT = 1;
+  public static final int END_OBJECT = 2;
+  public static final int START_ARRAY = 3;
+  public static final int END_ARRAY = 4;
+  public static final int COLON = 5;
+  public static final int COMMA = 6;
+  /** A quoted string, whose decoded text is available from {@link #getText()} */
+  public static final int STRING = 7;
+  /** Any unquoted value, whose text is available from {@link #getText()} */
+  public static final int LITERAL = 8;
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  // exact powers of ten representable as doubles
+  private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+      1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+      1e19, 1e20, 1e21, 1e22 };
+  // the number of recently seen keys retained by getKey()
+  private static final int KEY_CACHE_SIZE = 64;
+
+  private InputStream is;
+  private byte[] buf;
+  private int pos;
+  private int limit;
+  // the input position of buf[0], for error reporting
+  private int bufstart;
+
+  private int token;
+  private char[] text = new char[64];
+  private int textlength;
+
+  private long longvalue;
+  private double doublevalue;
+
+  private String[] keycache;
+
+  /** Reads JSON from the supplied region of a byte array, which is not copied */
+  public JSONTokenizer(byte[] bytes, int offset, int length) {
+    buf = bytes;
+    pos = offset;
+    limit = offset + length;
+    bufstart = -offset;
+  }
+
+  public JSONTokenizer(byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Reads JSON from the remaining contents of the supplied buffer, without
+   * altering its position. A heap buffer is read in place, a direct buffer is
+   * first copied.
+   */
+  public JSONTokenizer(ByteBuffer bytes) {
+    if (bytes.hasArray()) {
+      buf = bytes.array();
+      pos = bytes.arrayOffset() + bytes.position();
+      limit = bytes.arrayOffset() + bytes.limit();
+    }
+    else {
+      buf = new byte[bytes.remaining()];
+      bytes.duplicate().get(buf);
+      limit = buf.length;
+    }
+    bufstart = -pos;
+  }
+
+  /** Reads JSON from the supplied stream, which will not be closed. */
+  public JSONTokenizer(InputStream is) {
+    this(is, DEFAULT_BUFFER_SIZE);
+  }
+
+  public JSONTokenizer(InputStream is, int buffersize) {
+    this.is = is;
+    buf = new byte[buffersize];
+  }
+
+  private boolean fill() {
+    if (is == null) {
+      return false;
+    }
+    bufstart += limit;
+    pos = 0;
+    limit = 0;
+    try {
+      int read;
+      while ((read = is.read(buf, 0, buf.length)) == 0) {
+      }
+      if (read == -1) {
+        is = null;
+        return false;
+      }
+      limit = read;
+      return true;
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e,
+          "Error reading JSON from stream");
+    }
+  }
+
+  private int nextByte() {
+    if (pos == limit && !fill()) {
+      throw error("Unexpected end of input");
+    }
+    return buf[pos++] & 0xff;
+  }
+
+  /** Advances to the next token, and returns its type */
+  public int next() {
+    while (pos < limit || fill()) {
+      byte b = buf[pos++];
+      switch (b) {
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+      case '\f':
+        continue;
+      case '{':
+        return token = START_OBJECT;
+      case '}':
+        return token = END_OBJECT;
+      case '[':
+        return token = START_ARRAY;
+      case ']':
+        return token = END_ARRAY;
+      case ':':
+        return token = COLON;
+      case ',':
+        return token = COMMA;
+      case '"':
+        readString();
+        return token = STRING;
+      default:
+        --pos;
+        readLiteral();
+        return token = LITERAL;
+      }
+    }
+    return token = END;
+  }
+
+  /** Returns the type of the current token */
+  public int getToken() {
+    return token;
+  }
+
+  private void readString() {
+    int length = 0;
+    while (true) {
+      if (pos == limit && !fill()) {
+        throw error("Unterminated string");
+      }
+      int b = buf[pos++];
+      if (b == '"') {
+        break;
+      }
+      if (length + 2 > text.length) {
+        growText();
+      }
+      if (b == '\\') {
+        text[length++] = readEscape();
+      }
+      else if (b >= 0) {
+        text[length++] = (char) b;
+      }
+      else {
+        length = decodeUTF8(b, length);
+      }
+    }
+    textlength = length;
+  }
+
+  private void readLiteral() {
+    int length = 0;
+    while (pos < limit || fill()) {
+      int b = buf[pos];
+      if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f'
+          || b == ':' || b == ',' || b == ']' || b == '}') {
+        break;
+      }
+      ++pos;
+      if (length + 2 > text.length) {
+        growText();
+      }
+      if (b == '\\') {
+        text[length++] = readEscape();
+      }
+      else if (b >= 0) {
+        text[length++] = (char) b;
+      }
+      else {
+        length = decodeUTF8(b, length);
+      }
+    }
+    textlength = length;
+  }
+
+  private void growText() {
+    char[] newtext = new char[text.length * 2];
+    System.arraycopy(text, 0, newtext, 0, text.length);
+    text = newtext;
+  }
+
+  private char readEscape() {
+    int c = nextByte();
+    switch (c) {
+    case 'b':
+      return '\b';
+    case 'f':
+      return '\f';
+    case 'n':
+      return '\n';
+    case 'r':
+      return '\r';
+    case 't':
+      return '\t';
+    case 'u':
+      int value = 0;
+      for (int i = 0; i < 4; ++i) {
+        int digit = Character.digit((char) nextByte(), 16);
+        if (digit == -1) {
+          throw error("Invalid unicode escape");
+        }
+        value = value << 4 | digit;
+      }
+      return (char) value;
+    default:
+      if (c >= 0x80) {
+        throw error("Invalid escape");
+      }
+      // includes quote, backslash and solidus
+      return (char) c;
+    }
+  }
+
+  private int continuation() {
+    int c = nextByte();
+    if ((c & 0xc0) != 0x80) {
+      throw error("Invalid UTF-8 sequence");
+    }
+    return c & 0x3f;
+  }
+
+  private int decodeUTF8(int b, int length) {
+    int lead = b & 0xff;
+    if ((lead & 0xe0) == 0xc0) {
+      text[length++] = (char) ((lead & 0x1f) << 6 | continuation());
+    }
+    else if ((lead & 0xf0) == 0xe0) {
+      text[length++] = (char) ((lead & 0x0f) << 12 | continuation() << 6 | continuation());
+    }
+    else if ((lead & 0xf8) == 0xf0) {
+      int c = ((lead & 0x07) << 18 | continuation() << 12
+          | continuation() << 6 | continuation()) - 0x10000;
+      text[length++] = (char) (0xd800 | c >> 10);
+      text[length++] = (char) (0xdc00 | c & 0x3ff);
+    }
+    else {
+      throw error("Invalid UTF-8 sequence");
+    }
+    return length;
+  }
+
+  /** Returns the text of the current STRING or LITERAL token as a new String */
+  public String getText() {
+    return new String(text, 0, textlength);
+  }
+
+  /**
+   * Returns the text of the current token as a String, which will be the same
+   * String returned for any recent token with the same text. Suitable for
+   * object keys, which are typically drawn from a small set.
+   */
+  public String getKey() {
+    int hash = 0;
+    for (int i = 0; i < textlength; ++i) {
+      hash = 31 * hash + text[i];
+    }
+    int slot = (hash ^ hash >>> 16) & (KEY_CACHE_SIZE - 1);
+    if (keycache == null) {
+      keycache = new String[KEY_CACHE_SIZE];
+    }
+    String cached = keycache[slot];
+    if (cached == null || !textEquals(cached)) {
+      cached = getText();
+      keycache[slot] = cached;
+    }
+    return cached;
+  }
+
+  /** The buffer holding the text of the current token, which is valid up to
+   * {@link #getTextLength()} and is overwritten by the next token. */
+  public char[] getTextBuffer() {
+    return text;
+  }
+
+  public int getTextLength() {
+    return textlength;
+  }
+
+  /** Determines whether the text of the current token is equal to the supplied
+   * String */
+  public boolean textEquals(String string) {
+    if (string.length() != textlength) {
+      return false;
+    }
+    for (int i = 0; i < textlength; ++i) {
+      if (text[i] != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Attempts to parse the text of the current token as a decimal integer of
+   * at most 18 digits, as would be accepted by <code>Long.parseLong</code>.
+   *
+   * @return <code>true</code> if successful, in which case the value is
+   *         available from {@link #getLongValue()}.
+   */
+  public boolean parseLong() {
+    int i = 0;
+    boolean negative = false;
+    if (textlength > 0 && (text[0] == '-' || text[0] == '+')) {
+      negative = text[0] == '-';
+      i = 1;
+    }
+    if (i == textlength || textlength - i > 18) {
+      return false;
+    }
+    long value = 0;
+    for (; i < textlength; ++i) {
+      int digit = text[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return false;
+      }
+      value = value * 10 + digit;
+    }
+    longvalue = negative ? -value : value;
+    return true;
+  }
+
+  public long getLongValue() {
+    return longvalue;
+  }
+
+  /**
+   * Attempts to parse the text of the current token as a decimal number, for
+   * those cases where the result may be computed exactly from at most 15
+   * significant digits and an exponent of at most 22. The result is then
+   * identical to that of <code>Double.parseDouble</code>, which should be used
+   * for any text on which this method fails.
+   *
+   * @return <code>true</code> if successful, in which case the value is
+   *         available from {@link #getDoubleValue()}.
+   */
+  public boolean parseDouble() {
+    int i = 0;
+    boolean negative = false;
+    if (textlength > 0 && (text[0] == '-' || text[0] == '+')) {
+      negative = text[0] == '-';
+      i = 1;
+    }
+    long mantissa = 0;
+    int significant = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean point = false;
+    for (; i < textlength; ++i) {
+      char c = text[i];
+      if (c >= '0' && c <= '9') {
+        ++digits;
+        if (mantissa != 0 || c != '0') {
+          if (++significant > 15) {
+            return false;
+          }
+          mantissa = mantissa * 10 + (c - '0');
+        }
+        if (point) {
+          --exponent;
+        }
+      }
+      else if (c == '.' && !point) {
+        point = true;
+      }
+      else
+        break;
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < textlength) {
+      char c = text[i++];
+      if (c != 'e' && c != 'E' || i == textlength) {
+        return false;
+      }
+      boolean negexp = false;
+      if (text[i] == '-' || text[i] == '+') {
+        negexp = text[i] == '-';
+        if (++i == textlength) {
+          return false;
+        }
+      }
+      if (textlength - i > 3) {
+        return false;
+      }
+      int explicit = 0;
+      for (; i < textlength; ++i) {
+        int digit = text[i] - '0';
+        if (digit < 0 || digit > 9) {
+          return false;
+        }
+        explicit = explicit * 10 + digit;
+      }
+      exponent += negexp ? -explicit : explicit;
+    }
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    }
+    else if (exponent >= 0 && exponent < POWERS.length) {
+      value = mantissa * POWERS[exponent];
+    }
+    else if (exponent < 0 && -exponent < POWERS.length) {
+      value = mantissa / POWERS[-exponent];
+    }
+    else
+      return false;
+    doublevalue = negative ? -value : value;
+    return true;
+  }
+
+  public double getDoubleValue() {
+    return doublevalue;
+  }
+
+  /** Returns the number of bytes of input consumed so far */
+  public int getPosition() {
+    return bufstart + pos;
+  }
+
+  /** Returns a short excerpt of the input following the current position,
+   * for diagnostic purposes */
+  public String getPending() {
+    int length = Math.min(limit - pos, 80);
+    try {
+      return new String(buf, pos, length, JSONWriter.DEFAULT_ENCODING);
+    }
+    catch (UnsupportedEncodingException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
+  private RuntimeException error(String message) {
+    return new UniversalRuntimeException(message + " at byte "
+        + getPosition());
+  }
+}
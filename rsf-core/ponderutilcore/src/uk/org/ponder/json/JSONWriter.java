@@ -6,8 +6,8 @@ package uk.org.ponder.json;
 import java.io.OutputStream;
 import java.io.Writer;
 
-import uk.org.ponder.streamutil.write.OutputStreamPOS;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
 import uk.org.ponder.streamutil.write.WriterPOS;
 import uk.org.ponder.stringutil.CharWrap;
 
@@ -32,7 +32,7 @@ public class JSONWriter {
    */
 
   public JSONWriter(OutputStream os) {
-    internalwriter = new OutputStreamPOS(os, DEFAULT_ENCODING);
+    internalwriter = new UTF8OutputStreamPOS(os);
   }
 
   /**
@@ -49,6 +49,11 @@ public class JSONWriter {
     this.internalwriter = pos;
   }
   
+  /** Writes any buffered output to the underlying stream, and flushes it */
+  public void flush() {
+    internalwriter.flush();
+  }
+
   public JSONWriter writeRaw(String tag) {
     internalwriter.print(tag);
     return this;
@@ -13,55 +13,79 @@ import uk.org.ponder.beanutil.PropertyAccessor;
 import uk.org.ponder.conversion.GeneralLeafParser;
 import uk.org.ponder.iterationutil.Denumeration;
 import uk.org.ponder.iterationutil.EnumerationConverter;
+import uk.org.ponder.json.JSONTokenizer;
+import uk.org.ponder.json.JSONWriter;
 import uk.org.ponder.reflect.ReflectUtils;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
 import uk.org.ponder.saxalizer.support.MethodAnalyser;
-import uk.org.ponder.streamutil.DirectInputStreamReader;
-import uk.org.ponder.streamutil.read.LexUtil;
-import uk.org.ponder.streamutil.read.PushbackRIS;
 import uk.org.ponder.streamutil.read.ReadInputStream;
-import uk.org.ponder.streamutil.read.ReaderRIS;
-import uk.org.ponder.stringutil.CharParser;
 import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.util.UniversalRuntimeException;
 
-/** Converts a stream holding JSON data into a recognizable Java object tree * */
+/** Converts a stream holding JSON data into a recognizable Java object tree.
+ * Bean properties are bound through a {@link JSONBindingCache}, which should
+ * be shared between instances using the same mapping context. */
 
 public class DeJSONalizer {
-  private GeneralLeafParser leafParser = new GeneralLeafParser();
   private SAXalizerMappingContext mappingContext;
-  private PushbackRIS lr;
+  private JSONBindingCache bindings;
+  private JSONTokenizer tokenizer;
 
-  public DeJSONalizer(SAXalizerMappingContext smc, InputStream is) {
+  public DeJSONalizer(SAXalizerMappingContext smc, JSONBindingCache bindings,
+      JSONTokenizer tokenizer) {
     this.mappingContext = smc;
-    lr = new PushbackRIS(new ReaderRIS(new DirectInputStreamReader(is)));
+    this.bindings = bindings;
+    this.tokenizer = tokenizer;
+  }
+
+  public DeJSONalizer(SAXalizerMappingContext smc, InputStream is) {
+    this(smc, new JSONBindingCache(smc), new JSONTokenizer(is));
   }
 
   public DeJSONalizer(SAXalizerMappingContext smc, ReadInputStream ris) {
-    this.mappingContext = smc;
-    lr = ris instanceof PushbackRIS ? (PushbackRIS) ris
-        : new PushbackRIS(ris);
+    this(smc, new JSONBindingCache(smc), new JSONTokenizer(drain(ris)));
+  }
+
+  private static byte[] drain(ReadInputStream ris) {
+    CharWrap cw = new CharWrap();
+    for (char c = ris.get(); c != ReadInputStream.EOF; c = ris.get()) {
+      cw.append(c);
+    }
+    try {
+      return cw.toString().getBytes(JSONWriter.DEFAULT_ENCODING);
+    }
+    catch (Exception e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
   }
 
   public Object readObject(Object base, Class clazz) {
     try {
-      LexUtil.skipWhite(lr);
-      char c = lr.get();
-      if (c == '[') {
-        return readArray(base == null ? clazz : base);
-      }
-      else if (c == '{') {
-        return readHash(base, clazz);
-      }
-      else {
-        lr.unread(c);
-        return readLeaf(clazz);
-      }
+      return readValue(tokenizer.next(), base, clazz);
     }
     catch (Exception e) {
       throw UniversalRuntimeException.accumulate(e,
-          "Error reading JSON-encoded data - still to read: " + LexUtil.getPending(lr));
+          "Error reading JSON-encoded data at byte " + tokenizer.getPosition()
+              + " - still to read: " + tokenizer.getPending());
+    }
+  }
+
+  private Object readValue(int token, Object base, Class clazz) {
+    // an untyped property holds whatever type of value is encoded
+    if (clazz == Object.class) {
+      clazz = null;
     }
+    if (token == JSONTokenizer.START_ARRAY) {
+      return readArray(base == null ? clazz : base);
+    }
+    else if (token == JSONTokenizer.START_OBJECT) {
+      return readHash(base, clazz);
+    }
+    else if (token == JSONTokenizer.STRING || token == JSONTokenizer.LITERAL) {
+      return readLeaf(token, clazz);
+    }
+    else
+      throw unexpected(token, "value");
   }
 
   private Object readHash(Object base, Class clazz) {
@@ -71,108 +95,101 @@ public class DeJSONalizer {
       }
       base = mappingContext.getReflectiveCache().construct(clazz);
     }
-    LexUtil.skipWhite(lr);
-    PropertyAccessor pa = MethodAnalyser.getPropertyAccessor(base, mappingContext);
+    Class baseclass = base.getClass();
+    // resolved only for properties which have no cached binding
+    PropertyAccessor pa = null;
+    int token = tokenizer.next();
+    if (token == JSONTokenizer.END_OBJECT) {
+      return base;
+    }
     while (true) {
-      String key = (String) readLeaf(String.class);
-      LexUtil.skipWhite(lr);
-      LexUtil.expect(lr, ":");
-      Class type = pa.getPropertyType(base, key);
-      if (type == Object.class) {
-        type = HashMap.class;
-      }
-      Object object = pa.getProperty(base, key);
+      if (token != JSONTokenizer.STRING && token != JSONTokenizer.LITERAL) {
+        throw unexpected(token, "property name");
+      }
+      String key = tokenizer.getKey();
+      token = tokenizer.next();
+      if (token != JSONTokenizer.COLON) {
+        throw unexpected(token, "':'");
+      }
+      JSONBindingCache.PropertyBinding binding = bindings.getPropertyBinding(
+          baseclass, key);
+      Class type;
+      Object object;
+      if (binding != null) {
+        type = binding.type;
+        object = binding.method.getChildObject(base);
+      }
+      else {
+        if (pa == null) {
+          pa = MethodAnalyser.getPropertyAccessor(base, mappingContext);
+        }
+        type = pa.getPropertyType(base, key);
+        object = pa.getProperty(base, key);
+      }
       if (object != null) {
         type = object.getClass();
       }
-      Object newobject = readObject(object, type);
+      Object newobject = readValue(tokenizer.next(), object, type);
       if (newobject != object) {
-        pa.setProperty(base, key, newobject);
+        if (binding != null && binding.method.canSet()) {
+          binding.method.setChildObject(base, newobject);
+        }
+        else {
+          if (pa == null) {
+            pa = MethodAnalyser.getPropertyAccessor(base, mappingContext);
+          }
+          pa.setProperty(base, key, newobject);
+        }
       }
-      LexUtil.skipWhite(lr);
-      char c = lr.get();
-      if (c == '}')
+      token = tokenizer.next();
+      if (token == JSONTokenizer.END_OBJECT)
         break;
-      LexUtil.skipWhite(lr);
-      LexUtil.unexpectEmpty(lr, "hash");
+      if (token != JSONTokenizer.COMMA) {
+        throw unexpected(token, "',' or '}'");
+      }
+      token = tokenizer.next();
     }
     return base;
   }
 
-  private char[] chars = new char[4];
-
-  private Object readLeaf(Class clazz) {
-    if (clazz == null || clazz == Object.class || !leafParser.isLeafType(clazz)) {
-      clazz = String.class;
-    }
-
-    char c = lr.get();
-    CharWrap cw = new CharWrap();
-    boolean quoted = (c == '\"');
-    if (!quoted)
-      lr.unread(c);
-    boolean escape = false;
-    while (true) {
-      char c2 = lr.get();
-      if (escape) {
-        if (c2 == 'b')
-          cw.append('\b');
-        else if (c2 == 't')
-          cw.append('t');
-        else if (c2 == 'n')
-          cw.append('n');
-        else if (c2 == 'r')
-          cw.append('r');
-        else if (c2 == 'u') {
-          for (int i = 0; i < 4; ++i) {
-            chars[i] = lr.get();
-          }
-          cw.append(CharParser.parseHexInt(chars, 0, 4));
-        }
-        else {
-          cw.append(c2);
-        }
-        escape = false;
+  private Object readLeaf(int token, Class clazz) {
+    if (token == JSONTokenizer.LITERAL) {
+      if (tokenizer.textEquals("null")) {
+        return null;
       }
-      else {
-        if (c2 == '\\') {
-          escape = true;
-        }
-        else if (quoted && c2 == '"') {
-          break;
-        }
-        else if (!quoted
-            && (Character.isWhitespace(c2) || c2 == ':' || c2 == ',' || c2 == ']' || c2 == '}' || c2 == ReadInputStream.EOF)) {
-          lr.unread(c2);
-          break;
-        }
-        else if (c2 == ReadInputStream.EOF) {
-          LexUtil.unexpectEmpty(lr, "leaf node");
-        }
-        else
-          cw.append(c2);
+      else if (tokenizer.textEquals("true")) {
+        return Boolean.TRUE;
+      }
+      else if (tokenizer.textEquals("false")) {
+        return Boolean.FALSE;
       }
     }
-    String leaf = cw.toString();
-    Object togo = UNSET;
-    if (!quoted) {
-      if (leaf.equals("null")) {
-        togo = null;
+    Class leaftype = bindings.getLeafType(clazz);
+    if (leaftype == Integer.class) {
+      if (tokenizer.parseLong()) {
+        long value = tokenizer.getLongValue();
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+          return Integer.valueOf((int) value);
+        }
       }
-      else if (leaf.equals("true")) {
-        togo = Boolean.TRUE;
+    }
+    else if (leaftype == Long.class) {
+      if (tokenizer.parseLong()) {
+        return Long.valueOf(tokenizer.getLongValue());
       }
-      else if (leaf.equals("false")) {
-        togo = Boolean.FALSE;
+    }
+    else if (leaftype == Double.class) {
+      if (tokenizer.parseDouble()) {
+        return new Double(tokenizer.getDoubleValue());
       }
     }
-    if (togo == UNSET) {
-      togo = leafParser.parse(clazz, leaf);
+    else if (leaftype == String.class
+        && !tokenizer.textEquals(GeneralLeafParser.NULL_STRING)) {
+      return tokenizer.getText();
     }
-    return togo;
+    // any other type, or text not handled above, takes the general route
+    return bindings.getLeafParser().parse(leaftype, tokenizer.getText());
   }
-  
-  private static Object UNSET = new Object();
 
   private Object readArray(Object objorclass) {
     Class clazz = objorclass instanceof Class ? (Class) objorclass
@@ -192,23 +209,21 @@ public class DeJSONalizer {
     }
     else
       accrete = new ArrayList();
-    while (true) {
-      LexUtil.skipWhite(lr);
-      char c = lr.get();
-      if (c == ReadInputStream.EOF)
-        LexUtil.unexpectEmpty(lr, "array");
-      if (c == ']')
-        break;
-      lr.unread(c);
-      Object element = readObject(null, comptype);
-      if (comptype == null && element != null) {
-        infertype = inferBase(element, infertype);
-      }
-      accrete.add(element);
-      LexUtil.skipWhite(lr);
-      char c2 = lr.get();
-      if (c2 != ',') {
-        lr.unread(c2);
+    int token = tokenizer.next();
+    if (token != JSONTokenizer.END_ARRAY) {
+      while (true) {
+        Object element = readValue(token, null, comptype);
+        if (comptype == null && element != null) {
+          infertype = inferBase(element, infertype);
+        }
+        accrete.add(element);
+        token = tokenizer.next();
+        if (token == JSONTokenizer.END_ARRAY)
+          break;
+        if (token != JSONTokenizer.COMMA) {
+          throw unexpected(token, "',' or ']'");
+        }
+        token = tokenizer.next();
       }
     }
     if (accrete != objorclass) {
@@ -226,6 +241,12 @@ public class DeJSONalizer {
     return accrete;
   }
 
+  private UniversalRuntimeException unexpected(int token, String expected) {
+    return new UniversalRuntimeException(
+        (token == JSONTokenizer.END ? "Unexpected end of data"
+            : "Unexpected token") + " whilst expecting " + expected);
+  }
+
   private Class inferBase(Object element, Class comptype) {
     if (comptype == null) {
       return element.getClass();
@@ -35,6 +35,11 @@ public class EnJSONalizer {
     this.writer = new JSONWriter(pos);
   }
 
+  /** Writes any buffered output to the underlying stream, and flushes it */
+  public void flush() {
+    writer.flush();
+  }
+
   public void writeObject(Object towrite) {
     if (towrite == null) {
       writer.write(null);
@@ -0,0 +1,114 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.json.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.org.ponder.beanutil.BeanLocator;
+import uk.org.ponder.beanutil.support.IndexedPropertyAccessor;
+import uk.org.ponder.conversion.GeneralLeafParser;
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+
+/**
+ * Caches, per class, the information required by the {@link DeJSONalizer} to
+ * bind JSON onto objects of that class - the accessor and target type of each
+ * property of a bean, and the type into which leaf values are to be parsed.
+ * An instance is shared between all decoders using the same mapping context,
+ * and is safe for concurrent use.
+ * <p>
+ * Leaf status is determined once per class, after which parsing leaves of
+ * that class only reads from the leaf parser, which may then be shared.
+ */
+
+public class JSONBindingCache {
+  /** The binding of a single bean property */
+  static class PropertyBinding {
+    final AccessMethod method;
+    final Class type;
+
+    PropertyBinding(AccessMethod method) {
+      this.method = method;
+      type = method.getAccessedType();
+    }
+  }
+
+  // marks a class which is not bound through a MethodAnalyser
+  private static final Map NOT_BEAN = new HashMap();
+
+  private SAXalizerMappingContext mappingContext;
+  // a private parser, as used historically by the DeJSONalizer, which is only
+  // modified whilst resolving leaf types below
+  private GeneralLeafParser leafParser = new GeneralLeafParser();
+  // Map of Class to Map of property name to PropertyBinding, or NOT_BEAN
+  private ConcurrentHashMap classbindings = new ConcurrentHashMap();
+  // Map of Class to the Class into which leaves of that type are parsed
+  private ConcurrentHashMap leaftypes = new ConcurrentHashMap();
+
+  public JSONBindingCache(SAXalizerMappingContext mappingContext) {
+    this.mappingContext = mappingContext;
+  }
+
+  public GeneralLeafParser getLeafParser() {
+    return leafParser;
+  }
+
+  /**
+   * Returns the binding of the named property of a plain bean class, or
+   * <code>null</code> if the class is a Map, BeanLocator or indexed type, or
+   * has no such property, in which case its generic PropertyAccessor should be
+   * used.
+   */
+  PropertyBinding getPropertyBinding(Class clazz, String name) {
+    Map properties = (Map) classbindings.get(clazz);
+    if (properties == null) {
+      properties = BeanLocator.class.isAssignableFrom(clazz)
+          || Map.class.isAssignableFrom(clazz)
+          || IndexedPropertyAccessor.isIndexed(clazz) ? NOT_BEAN
+          : new ConcurrentHashMap();
+      Map existing = (Map) classbindings.putIfAbsent(clazz, properties);
+      if (existing != null) {
+        properties = existing;
+      }
+    }
+    if (properties == NOT_BEAN) {
+      return null;
+    }
+    PropertyBinding binding = (PropertyBinding) properties.get(name);
+    if (binding == null) {
+      MethodAnalyser analyser = mappingContext.getAnalyser(clazz);
+      AccessMethod method = analyser.getAccessMethod(name);
+      // unknown properties are not cached, since their names are arbitrary
+      if (method == null) {
+        return null;
+      }
+      binding = new PropertyBinding(method);
+      properties.put(name, binding);
+    }
+    return binding;
+  }
+
+  /**
+   * Returns the class into which a leaf value expected to be of the supplied
+   * type should be parsed - the type itself (or its wrapper, if primitive) if
+   * it is a leaf type, or else String.
+   */
+  public Class getLeafType(Class clazz) {
+    if (clazz == null) {
+      return String.class;
+    }
+    Class leaftype = (Class) leaftypes.get(clazz);
+    if (leaftype == null) {
+      synchronized (leafParser) {
+        leaftype = clazz == Object.class || !leafParser.isLeafType(clazz) ? String.class
+            : GeneralLeafParser.wrapClass(clazz);
+      }
+      leaftypes.put(clazz, leaftype);
+    }
+    return leaftype;
+  }
+}
@@ -5,29 +5,37 @@ package uk.org.ponder.json.support;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 
-import uk.org.ponder.conversion.SerializationProvider;
+import uk.org.ponder.conversion.StreamingSerializationProvider;
+import uk.org.ponder.json.JSONTokenizer;
+import uk.org.ponder.json.JSONWriter;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
 import uk.org.ponder.streamutil.read.ReadInputStream;
-import uk.org.ponder.streamutil.read.StringRIS;
 import uk.org.ponder.streamutil.write.StringPOS;
+import uk.org.ponder.util.UniversalRuntimeException;
 
 
-public class JSONProvider implements SerializationProvider {
+public class JSONProvider implements StreamingSerializationProvider {
 
   private SAXalizerMappingContext mappingContext;
+  private JSONBindingCache bindings;
   
   /**
    * @param mappingContext the mappingContext to set
    */
   public void setMappingContext(SAXalizerMappingContext mappingContext) {
     this.mappingContext = mappingContext;
+    this.bindings = new JSONBindingCache(mappingContext);
   }
   
   public Object fromString(String toread) {
-    StringRIS ris = new StringRIS(toread);
-    DeJSONalizer deJSONalizer = new DeJSONalizer(mappingContext, ris);
-    return deJSONalizer.readObject(null, null);
+    try {
+      return readObject(null, new JSONTokenizer(toread.getBytes(JSONWriter.DEFAULT_ENCODING)));
+    }
+    catch (UnsupportedEncodingException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
   }
 
   public Object readObject(Object classorobject, ReadInputStream ris) {
@@ -37,7 +45,14 @@ public class JSONProvider implements SerializationProvider {
   }
   
   public Object readObject(Object classorobject, InputStream is) {
-    DeJSONalizer deJSONalizer = new DeJSONalizer(mappingContext, is);
+    return readObject(classorobject, new JSONTokenizer(is));
+  }
+
+  /** Reads an object from the supplied tokenizer, which may be constructed
+   * over a byte array or ByteBuffer already holding the data. 
+   */
+  public Object readObject(Object classorobject, JSONTokenizer tokenizer) {
+    DeJSONalizer deJSONalizer = new DeJSONalizer(mappingContext, bindings, tokenizer);
     return deJSONalizer.readObject(classorobject instanceof Class? null : classorobject, 
         classorobject instanceof Class? (Class)classorobject : null);
   }
@@ -57,6 +72,11 @@ public class JSONProvider implements SerializationProvider {
   public void writeObject(Object towrite, OutputStream os) {
     EnJSONalizer enJSONalizer = new EnJSONalizer(mappingContext, os);
     enJSONalizer.writeObject(towrite);
+    enJSONalizer.flush();
+  }
+
+  public void writeObject(Object towrite, OutputStream os, boolean compact) {
+    writeObject(towrite, os);
   }
 
 }
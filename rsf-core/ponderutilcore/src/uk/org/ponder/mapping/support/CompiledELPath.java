@@ -0,0 +1,113 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.mapping.support;
+
+import uk.org.ponder.beanutil.BeanUtil;
+import uk.org.ponder.beanutil.PathUtil;
+import uk.org.ponder.beanutil.PropertyAccessor;
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * An EL path whose segments have been parsed once, together with the
+ * accessors most recently used to navigate each segment. Each accessor is
+ * cached against the class of the object it was resolved for, and is
+ * resolved again whenever an object of a different class is encountered at
+ * that position. Navigation has exactly the semantics of
+ * {@link BeanUtil#navigateOne(Object, String, SAXalizerMappingContext)}.
+ * <p>
+ * Instances are shared between threads - cached accessors are immutable,
+ * and a lost update simply causes one to be resolved again.
+ */
+
+class CompiledELPath {
+  private static class Accessor {
+    final Class clazz;
+    final PropertyAccessor pa;
+    // non-null if pa is a MethodAnalyser which has an accessor for the segment
+    final AccessMethod method;
+
+    Accessor(Class clazz, PropertyAccessor pa, AccessMethod method) {
+      this.clazz = clazz;
+      this.pa = pa;
+      this.method = method;
+    }
+  }
+
+  /** The decoded segments of the path, which must not be modified */
+  final String[] segments;
+  private Accessor[] accessors;
+
+  CompiledELPath(String fullpath) {
+    segments = PathUtil.splitPath(fullpath);
+    accessors = new Accessor[segments.length];
+  }
+
+  private Accessor getAccessor(int i, Object moveobj,
+      SAXalizerMappingContext mappingcontext) {
+    Accessor accessor = accessors[i];
+    Class clazz = moveobj.getClass();
+    if (accessor == null || accessor.clazz != clazz) {
+      PropertyAccessor pa = MethodAnalyser.getPropertyAccessor(moveobj,
+          mappingcontext);
+      AccessMethod method = pa instanceof MethodAnalyser ? ((MethodAnalyser) pa)
+          .getAccessMethod(segments[i])
+          : null;
+      accessor = new Accessor(clazz, pa, method);
+      accessors[i] = accessor;
+    }
+    return accessor;
+  }
+
+  /**
+   * Navigates the segment at index <code>i</code> from the supplied object,
+   * returning {@link BeanUtil#UNREADABLE_PROPERTY} if it is not readable.
+   */
+  Object navigateOne(int i, Object moveobj,
+      SAXalizerMappingContext mappingcontext) {
+    String segment = segments[i];
+    if (segment.length() == 0) {
+      return moveobj;
+    }
+    if (moveobj == null) {
+      throw UniversalRuntimeException.accumulate(
+          new IllegalArgumentException(),
+          "Null value encounted in bean path at component " + segment);
+    }
+    Accessor accessor = getAccessor(i, moveobj, mappingcontext);
+    if (accessor.method != null) {
+      return accessor.method.canGet() ? accessor.method.getChildObject(moveobj)
+          : BeanUtil.UNREADABLE_PROPERTY;
+    }
+    return accessor.pa.canGet(segment) ? accessor.pa.getProperty(moveobj,
+        segment)
+        : BeanUtil.UNREADABLE_PROPERTY;
+  }
+
+  /** Navigates the entire path from the supplied root, as would be done by
+   * {@link BeanUtil#navigate(Object, String, SAXalizerMappingContext)}.
+   */
+  Object navigate(Object rootobj, SAXalizerMappingContext mappingcontext) {
+    Object moveobj = rootobj;
+    for (int comp = 0; comp < segments.length; ++comp) {
+      if (moveobj == null) {
+        throw UniversalRuntimeException.accumulate(
+            new IllegalArgumentException(),
+            "Null value encounted in bean path at component "
+                + (comp == 0 ? "<root>"
+                    : segments[comp - 1] + " while traversing for "
+                        + segments[comp]));
+      }
+      Object parent = moveobj;
+      moveobj = navigateOne(comp, moveobj, mappingcontext);
+      if (moveobj == BeanUtil.UNREADABLE_PROPERTY) {
+        throw new IllegalArgumentException("Property " + segments[comp]
+            + " is not readable for object of " + parent.getClass());
+      }
+    }
+    return moveobj;
+  }
+}
@@ -5,6 +5,7 @@ package uk.org.ponder.mapping.support;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import uk.org.ponder.arrayutil.ArrayUtil;
 import uk.org.ponder.beanutil.BeanModelAlterer;
@@ -46,6 +47,9 @@ public class DARApplier implements BeanModelAlterer {
   private VectorCapableParser vcp;
   private ReflectiveCache reflectivecache;
   private DARApplierImpl impl = new DARApplierImpl();
+  // A map of EL path to CompiledELPath
+  private Map pathcache;
+  private int maxCachedPaths = 4096;
 
   public void setGeneralConverter(GeneralConverter generalConverter) {
     impl.setGeneralConverter(generalConverter);
@@ -63,6 +67,31 @@ public class DARApplier implements BeanModelAlterer {
   public void setReflectiveCache(ReflectiveCache reflectivecache) {
     this.reflectivecache = reflectivecache;
     impl.setReflectiveCache(reflectivecache);
+    pathcache = reflectivecache.getConcurrentMap(1);
+  }
+
+  /**
+   * Sets the maximum number of distinct EL paths whose parsed form will be
+   * cached (default 4096). Should this be exceeded, for example by paths
+   * embedding unboundedly many entity IDs, the cache is simply cleared.
+   */
+  public void setMaxCachedPaths(int maxCachedPaths) {
+    this.maxCachedPaths = maxCachedPaths;
+  }
+
+  private CompiledELPath getCompiledPath(String fullpath) {
+    if (pathcache == null) {
+      return new CompiledELPath(fullpath);
+    }
+    CompiledELPath togo = (CompiledELPath) pathcache.get(fullpath);
+    if (togo == null) {
+      togo = new CompiledELPath(fullpath);
+      if (pathcache.size() >= maxCachedPaths) {
+        pathcache.clear();
+      }
+      pathcache.put(fullpath, togo);
+    }
+    return togo;
   }
 
   public void setVectorCapableParser(VectorCapableParser vcp) {
@@ -127,7 +156,8 @@ public class DARApplier implements BeanModelAlterer {
       BeanPredicateModel addressibleModel) {
     try {
       checkAccess(fullpath, addressibleModel, "Reading from");
-      Object togo = BeanUtil.navigate(rbl, fullpath, mappingcontext);
+      Object togo = fullpath == null ? rbl
+          : getCompiledPath(fullpath).navigate(rbl, mappingcontext);
       return togo;
     }
     catch (Exception e) {
@@ -219,13 +249,14 @@ public class DARApplier implements BeanModelAlterer {
     Object moveobj = rootobj;
     List shells = new ArrayList();
     shells.add(rootobj);
-    String[] segments = PathUtil.splitPath(fullpath);
+    CompiledELPath path = getCompiledPath(fullpath);
+    String[] segments = path.segments;
     for (int i = 0; i < segments.length; ++i) {
       if (expectMethod) {
         if (ReflectUtils.hasMethod(moveobj, segments[i]))
           break;
       }
-      moveobj = BeanUtil.navigateOne(moveobj, segments[i], mappingcontext);
+      moveobj = path.navigateOne(i, moveobj, mappingcontext);
       if (moveobj == null || moveobj == BeanUtil.UNREADABLE_PROPERTY) {
         break;
       }
@@ -235,7 +266,7 @@ public class DARApplier implements BeanModelAlterer {
       }
     }
     ShellInfo togo = new ShellInfo();
-    togo.segments = segments;
+    togo.segments = (String[]) segments.clone();
     togo.shells = shells.toArray();
     return togo;
   }
@@ -259,9 +290,10 @@ public class DARApplier implements BeanModelAlterer {
       // Do not check for receivers if this is an interceptor-only trigger
       if (dar.data != DataAlterationRequest.INAPPLICABLE_VALUE) {
         Object moveobj = rootobj;
-        String[] segments = PathUtil.splitPath(oldpath);
+        CompiledELPath path = getCompiledPath(oldpath);
+        String[] segments = path.segments;
         for (int i = 0; i < segments.length - 1; ++i) {
-          moveobj = BeanUtil.navigateOne(moveobj, segments[i], mappingcontext);
+          moveobj = path.navigateOne(i, moveobj, mappingcontext);
           if (moveobj == null) {
             throw new NullPointerException("Null value in EL path at path '"
                 + PathUtil.buildPath(segments, 0, i + 1) + "'");
@@ -0,0 +1,118 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A ReflectiveCache which resolves no-arg constructors and methods to
+ * <code>MethodHandle</code>s adapted to a generic signature, which avoid the
+ * access checking and argument array allocation of the JDK reflective calls.
+ * Selecting this implementation as the <code>reflectiveCache</code> bean also
+ * causes the SAXAccessMethods of any mapping context using it to be compiled
+ * to MethodHandles.
+ * <p>
+ * Members which cannot be reached through the public lookup fall back to
+ * reflective invocation. Failures are reported exactly as by
+ * JDKReflectiveCache - an exception thrown by a constructor or method is
+ * wrapped in an InvocationTargetException before being accumulated into a
+ * UniversalRuntimeException.
+ */
+
+public class MethodHandleReflectiveCache extends JDKReflectiveCache {
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType
+      .methodType(Object.class);
+  private static final MethodType GETTER_TYPE = MethodType.methodType(
+      Object.class, Object.class);
+
+  /**
+   * Returns a MethodHandle for the supplied no-arg constructor, of generic type
+   * <code>()Object</code>, or <code>null</code> if it is not accessible.
+   */
+  public static MethodHandle constructorHandle(Constructor cons) {
+    try {
+      return MethodHandles.publicLookup().unreflectConstructor(cons).asType(
+          CONSTRUCTOR_TYPE);
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a MethodHandle for the supplied no-arg method, of generic type
+   * <code>(Object)Object</code>, or <code>null</code> if it is not
+   * accessible.
+   */
+  public static MethodHandle methodHandle(Method method) {
+    try {
+      return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  public boolean useMethodHandles() {
+    return true;
+  }
+
+  public Object construct(Class clazz) {
+    Map classmap = getClassMap(clazz);
+    Object cons = classmap.get(CONSTRUCTOR_KEY);
+    if (cons == null) {
+      Constructor jdkcons = getConstructor(clazz);
+      MethodHandle handle = constructorHandle(jdkcons);
+      cons = handle == null ? (Object) jdkcons
+          : handle;
+      classmap.put(CONSTRUCTOR_KEY, cons);
+    }
+    if (cons instanceof MethodHandle) {
+      try {
+        return (Object) ((MethodHandle) cons).invokeExact();
+      }
+      catch (Throwable t) {
+        throw UniversalRuntimeException.accumulate(
+            new InvocationTargetException(t), "Error constructing instance of "
+                + clazz);
+      }
+    }
+    return invokeConstructor((Constructor) cons);
+  }
+
+  public Object invokeMethod(Object target, String name) {
+    if (target instanceof MethodInvokingProxy) {
+      return ((MethodInvokingProxy) target).invokeMethod(name, null);
+    }
+    Class clazz = target.getClass();
+    Map classmap = getClassMap(clazz);
+    Object method = classmap.get(name);
+    if (method == null) {
+      Method jdkmethod = ReflectiveCache.getMethod(clazz, name);
+      MethodHandle handle = methodHandle(jdkmethod);
+      method = handle == null ? (Object) jdkmethod
+          : handle;
+      classmap.put(name, method);
+    }
+    if (method instanceof MethodHandle) {
+      try {
+        return (Object) ((MethodHandle) method).invokeExact(target);
+      }
+      catch (Throwable t) {
+        throw UniversalRuntimeException.accumulate(new InvocationTargetException(
+            t));
+      }
+    }
+    return invokeMethod((Method) method, target);
+  }
+
+}
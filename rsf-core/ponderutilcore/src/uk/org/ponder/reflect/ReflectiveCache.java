@@ -25,7 +25,9 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * in this class, or in SAXAccessMethod.
  * 
  * 
- * This implementation will probably shortly be replaced by a FastClass variant.
+ * The default JDKReflectiveCache uses JDK reflection throughout - the
+ * MethodHandleReflectiveCache variant may be configured in its place to
+ * accelerate construction and access.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  * 
@@ -124,6 +126,15 @@ public abstract class ReflectiveCache {
     } 
   }
   
+  /**
+   * Returns <code>true</code> if bean accessors (SAXAccessMethods) created in
+   * mapping contexts using this cache should be compiled to MethodHandles
+   * rather than invoked reflectively.
+   */
+  public boolean useMethodHandles() {
+    return false;
+  }
+
   public abstract Object construct(Class clazz);
   public abstract Object invokeMethod(Object bean, String method);
   protected abstract Object invokeMethod(Object target, String name, Class[] infer, Object[] args);
@@ -365,6 +365,14 @@ public class MethodAnalyser implements PropertyAccessor {
       bodymethod = new SAXAccessMethod(bodymethodspec, objclass);
     }
     bodymethodspec = null;
+    if (context.getReflectiveCache() != null
+        && context.getReflectiveCache().useMethodHandles()) {
+      tagmethods.compileHandles();
+      attrmethods.compileHandles();
+      if (bodymethod != null) {
+        bodymethod.compileHandles();
+      }
+    }
     assembleGetters();
   }
 
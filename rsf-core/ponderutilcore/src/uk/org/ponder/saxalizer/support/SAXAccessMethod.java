@@ -1,6 +1,10 @@
 package uk.org.ponder.saxalizer.support;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import uk.org.ponder.iterationutil.EnumerationConverter;
@@ -27,6 +31,15 @@ public class SAXAccessMethod implements AccessMethod {
   Field field; 
   Method getmethod; // The actual Method object to be invoked
   Method setmethod;
+  /** MethodHandles for getting and setting, of generic type, if compiled */
+  MethodHandle gethandle;
+  MethodHandle sethandle;
+  /** The receiver types of the handles, and the boxed argument type of the
+   * setter, outside which the reflective members are used instead */
+  Class gettarget;
+  Class settarget;
+  Class setargument;
+  boolean setprimitive;
   /** The type of subobject (or superclass thereof) handled by this method */
   Class clazz;
   /** The actual (declared) return or field type in code (maybe container) */
@@ -226,8 +239,67 @@ public class SAXAccessMethod implements AccessMethod {
         + parentclazz + " tagname " + tagname;
   }
 
+  /**
+   * Compiles MethodHandles for the getter and setter of this access method,
+   * which will be used in preference to reflection for all subsequent accesses.
+   * Any member which cannot be reached through the public lookup will continue
+   * to be accessed reflectively.
+   * <p>
+   * The exceptions thrown are those of the reflective accessors - an
+   * exception thrown by the member itself is reported wrapped in an
+   * InvocationTargetException, and an access with a null or mistyped target
+   * or argument is passed to the reflective member to fail in the usual way.
+   */
+  public void compileHandles() {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    MethodType gettype = MethodType.methodType(Object.class, Object.class);
+    MethodType settype = MethodType.methodType(Void.TYPE, Object.class,
+        Object.class);
+    try {
+      if (field != null) {
+        gethandle = lookup.unreflectGetter(field).asType(gettype);
+        gettarget = field.getDeclaringClass();
+      }
+      else if (getmethod != null) {
+        gethandle = lookup.unreflect(getmethod).asType(gettype);
+        gettarget = getmethod.getDeclaringClass();
+      }
+    }
+    catch (Exception e) {
+      gethandle = null;
+    }
+    try {
+      Class argument = null;
+      if (field != null) {
+        sethandle = lookup.unreflectSetter(field).asType(settype);
+        settarget = field.getDeclaringClass();
+        argument = field.getType();
+      }
+      else if (setmethod != null) {
+        sethandle = lookup.unreflect(setmethod).asType(settype);
+        settarget = setmethod.getDeclaringClass();
+        argument = setmethod.getParameterTypes()[0];
+      }
+      if (argument != null) {
+        setargument = MethodType.methodType(argument).wrap().returnType();
+        setprimitive = argument.isPrimitive();
+      }
+    }
+    catch (Exception e) {
+      sethandle = null;
+    }
+  }
+
   public Object getChildObject(Object parent) {
     try {
+      if (gethandle != null && gettarget.isInstance(parent)) {
+        try {
+          return (Object) gethandle.invokeExact(parent);
+        }
+        catch (Throwable t) {
+          throw new InvocationTargetException(t);
+        }
+      }
       if (field != null) {
         return field.get(parent);
       }
@@ -243,7 +315,17 @@ public class SAXAccessMethod implements AccessMethod {
 
   public void setChildObject(Object parent, Object newchild) {
     try {
-      if (field != null) {
+      if (sethandle != null && settarget.isInstance(parent)
+          && (newchild == null ? !setprimitive
+              : setargument.isInstance(newchild))) {
+        try {
+          sethandle.invokeExact(parent, newchild);
+        }
+        catch (Throwable t) {
+          throw new InvocationTargetException(t);
+        }
+      }
+      else if (field != null) {
         field.set(parent, newchild);
       }
       else if (setmethod != null) {
@@ -37,6 +37,13 @@ public class SAXAccessMethodHash {
       this.methods[i] = new SAXAccessMethod(samslist.SAMSAt(i), parentclass);
     }
   }
+  /** Compiles MethodHandles for all the access methods held here */
+  public void compileHandles() {
+    for (int i = 0; i < methods.length; ++i) {
+      methods[i].compileHandles();
+    }
+  }
+  
   /** An iterator for all gettable methods */
   public class HashSAMIterator implements SAMIterator {
     //int methodtype;
@@ -8,6 +8,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 
+import uk.org.ponder.conversion.StreamingSerializationProvider;
 import uk.org.ponder.saxalizer.DeSAXalizer;
 import uk.org.ponder.saxalizer.SAXalizerHelper;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
@@ -21,7 +22,8 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  *  
  */
-public class SAXalXMLProvider implements MappableXMLProvider {
+public class SAXalXMLProvider implements MappableXMLProvider,
+    StreamingSerializationProvider {
   private SAXalizerMappingContext mappingcontext;
   private EntityResolverStash entityresolverstash;
   
@@ -50,6 +52,10 @@ public class SAXalXMLProvider implements MappableXMLProvider {
   }
 
   public void writeObject(Object towrite, OutputStream os) {
+    writeObject(towrite, os, false);
+  }
+
+  public void writeObject(Object towrite, OutputStream os, boolean compactmode) {
     DeSAXalizer desaxalizer = getDeSAXalizer();
     String resourcename = mappingcontext.classnamemanager.getClassName(towrite.getClass());
     if (resourcename == null) {
@@ -57,7 +63,8 @@ public class SAXalXMLProvider implements MappableXMLProvider {
           + towrite.getClass() + " supplied to writeXML");
     }
     try {
-      desaxalizer.serializeSubtree(towrite, resourcename, os);
+      desaxalizer.serializeSubtree(towrite, resourcename, os, 
+          compactmode ? DeSAXalizer.COMPACT_MODE : 0);
     }
     catch (Throwable t) {
       throw UniversalRuntimeException.accumulate(t,
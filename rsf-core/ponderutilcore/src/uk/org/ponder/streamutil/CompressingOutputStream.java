@@ -0,0 +1,180 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * An OutputStream which compresses its output in either gzip or zlib
+ * ("deflate" in HTTP) format, using a Deflater drawn from a
+ * {@link DeflaterPool}. The Deflater is only borrowed once material is first
+ * written, and is returned when the stream is closed - a stream which will
+ * not be closed, since its output is being discarded, must instead be
+ * {@link #abandon() abandoned}. Unlike
+ * {@link java.util.zip.GZIPOutputStream}, precompressed material may be
+ * written via {@link #writeDeflated(DeflatedBlock)}, and a flush sends all
+ * the material written so far.
+ */
+
+public class CompressingOutputStream extends OutputStream {
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED,
+      0, 0, 0, 0, 0, 0, (byte) 0xff };
+  private static final byte[] ZLIB_HEADER = { 0x78, (byte) 0x9c };
+
+  private OutputStream target;
+  private boolean gzip;
+  private int level;
+  private DeflaterPool pool;
+  private Deflater deflater;
+  private Checksum checksum;
+  private int total;
+  private byte[] buffer = new byte[8192];
+  private byte[] single;
+  private boolean started;
+  private boolean closed;
+
+  /**
+   * @param encoding Either {@link #GZIP} or {@link #DEFLATE}
+   * @param level The compression level, as for {@link Deflater}
+   */
+  public CompressingOutputStream(OutputStream target, String encoding,
+      int level, DeflaterPool pool) {
+    if (!GZIP.equals(encoding) && !DEFLATE.equals(encoding)) {
+      throw new IllegalArgumentException("Unsupported encoding " + encoding);
+    }
+    this.target = target;
+    this.gzip = GZIP.equals(encoding);
+    this.level = level;
+    this.pool = pool;
+    this.checksum = gzip ? (Checksum) new CRC32() : new Adler32();
+  }
+
+  private void start() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (!started) {
+      deflater = pool.borrow(level);
+      started = true;
+      target.write(gzip ? GZIP_HEADER : ZLIB_HEADER);
+    }
+  }
+
+  // returns the Deflater, if one was borrowed, to the pool
+  private void release() {
+    closed = true;
+    if (deflater != null) {
+      pool.release(deflater, level);
+      deflater = null;
+    }
+  }
+
+  // writes compressed output until the Deflater requires more input
+  private void drainInput() throws IOException {
+    while (!deflater.needsInput()) {
+      int got = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+      target.write(buffer, 0, got);
+    }
+  }
+
+  // writes all pending compressed output, ending on a byte boundary
+  private void drainFlush(int flushmode) throws IOException {
+    while (true) {
+      int got = deflater.deflate(buffer, 0, buffer.length, flushmode);
+      target.write(buffer, 0, got);
+      if (got < buffer.length) break;
+    }
+  }
+
+  public void write(int b) throws IOException {
+    if (single == null) {
+      single = new byte[1];
+    }
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    start();
+    if (length == 0) return;
+    checksum.update(bytes, offset, length);
+    total += length;
+    deflater.setInput(bytes, offset, length);
+    drainInput();
+  }
+
+  /**
+   * Writes a block of precompressed material. The stream is first fully
+   * flushed, so that the block may be decompressed without reference to
+   * anything before it, and nothing after it will refer back to the
+   * material preceding it.
+   */
+  public void writeDeflated(DeflatedBlock block) throws IOException {
+    start();
+    drainFlush(Deflater.FULL_FLUSH);
+    target.write(block.deflated);
+    checksum.update(block.raw, block.offset, block.length);
+    total += block.length;
+  }
+
+  /** Sends all material written so far in compressed form, and flushes the
+   * underlying stream. */
+  public void flush() throws IOException {
+    if (deflater != null) {
+      drainFlush(Deflater.SYNC_FLUSH);
+    }
+    target.flush();
+  }
+
+  public void close() throws IOException {
+    if (closed) return;
+    try {
+      start();
+      deflater.finish();
+      while (!deflater.finished()) {
+        int got = deflater.deflate(buffer);
+        target.write(buffer, 0, got);
+      }
+      long check = checksum.getValue();
+      if (gzip) {
+        writeIntLE((int) check);
+        writeIntLE(total);
+      }
+      else {
+        target.write((int) (check >>> 24));
+        target.write((int) (check >>> 16));
+        target.write((int) (check >>> 8));
+        target.write((int) check);
+      }
+    }
+    finally {
+      release();
+      target.close();
+    }
+  }
+
+  /**
+   * Discards this stream without completing its output, returning its
+   * Deflater to the pool. The underlying stream is left open. Has no effect
+   * if the stream has already been closed.
+   */
+  public void abandon() {
+    release();
+  }
+
+  private void writeIntLE(int value) throws IOException {
+    target.write(value);
+    target.write(value >>> 8);
+    target.write(value >>> 16);
+    target.write(value >>> 24);
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * A run of bytes, together with its compressed form as a self-contained
+ * sequence of raw deflate blocks, ending on a byte boundary with a full flush.
+ * The compressed form makes no reference to any preceding data, so may be
+ * spliced into any deflate stream which has itself been fully flushed - see
+ * {@link CompressingOutputStream#writeDeflated(DeflatedBlock)}. This allows
+ * material which is sent repeatedly to be compressed just once, at the
+ * highest level.
+ */
+
+public class DeflatedBlock {
+  /** The buffer holding the uncompressed bytes, which must not be modified */
+  public final byte[] raw;
+  public final int offset;
+  public final int length;
+  /** The compressed bytes */
+  public final byte[] deflated;
+
+  public DeflatedBlock(byte[] raw, int offset, int length, byte[] deflated) {
+    this.raw = raw;
+    this.offset = offset;
+    this.length = length;
+    this.deflated = deflated;
+  }
+
+  /** Compresses the specified bytes at the highest level, using a Deflater
+   * drawn from the supplied pool. */
+  public static DeflatedBlock deflate(byte[] raw, int offset, int length,
+      DeflaterPool pool) {
+    int level = Deflater.BEST_COMPRESSION;
+    Deflater deflater = pool.borrow(level);
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 4 + 16);
+      byte[] buffer = new byte[Math.min(length + 64, 8192)];
+      deflater.setInput(raw, offset, length);
+      while (true) {
+        int got = deflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+        baos.write(buffer, 0, got);
+        if (got < buffer.length) break;
+      }
+      return new DeflatedBlock(raw, offset, length, baos.toByteArray());
+    }
+    finally {
+      pool.release(deflater, level);
+    }
+  }
+}
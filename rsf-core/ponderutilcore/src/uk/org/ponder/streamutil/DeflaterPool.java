@@ -0,0 +1,86 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of {@link Deflater}s producing raw deflate data (that is, with no
+ * zlib wrapper), held separately for each compression level. Deflaters are
+ * expensive to create, since each allocates a substantial amount of native
+ * memory, which is only released promptly if they are explicitly ended.
+ * Pooling them allows every response to be compressed without either cost.
+ */
+
+public class DeflaterPool {
+  /** The default maximum number of idle Deflaters retained for each level */
+  public static final int DEFAULT_MAX_IDLE = 32;
+
+  private static final DeflaterPool instance = new DeflaterPool();
+
+  /** Returns the JVM-wide shared pool */
+  public static DeflaterPool instance() {
+    return instance;
+  }
+
+  // indexed by level + 1, to accommodate Deflater.DEFAULT_COMPRESSION
+  private ConcurrentLinkedQueue[] idle = new ConcurrentLinkedQueue[11];
+  private AtomicInteger[] idlecounts = new AtomicInteger[11];
+  private AtomicInteger borrowed = new AtomicInteger();
+  private int maxidle = DEFAULT_MAX_IDLE;
+
+  public DeflaterPool() {
+    for (int i = 0; i < idle.length; ++i) {
+      idle[i] = new ConcurrentLinkedQueue();
+      idlecounts[i] = new AtomicInteger();
+    }
+  }
+
+  /** Sets the maximum number of idle Deflaters retained for each level */
+  public void setMaxIdle(int maxidle) {
+    this.maxidle = maxidle;
+  }
+
+  private static int slot(int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level " + level);
+    }
+    return level + 1;
+  }
+
+  /** Returns a raw Deflater at the specified level, which must be returned
+   * with {@link #release(Deflater, int)} once it is finished with */
+  public Deflater borrow(int level) {
+    int slot = slot(level);
+    borrowed.incrementAndGet();
+    Deflater togo = (Deflater) idle[slot].poll();
+    if (togo == null) {
+      return new Deflater(level, true);
+    }
+    idlecounts[slot].decrementAndGet();
+    return togo;
+  }
+
+  /** Returns the number of Deflaters currently borrowed from this pool
+   * which have not yet been released */
+  public int getBorrowedCount() {
+    return borrowed.get();
+  }
+
+  /** Returns a Deflater borrowed at the specified level to the pool */
+  public void release(Deflater deflater, int level) {
+    int slot = slot(level);
+    borrowed.decrementAndGet();
+    deflater.reset();
+    if (idlecounts[slot].incrementAndGet() <= maxidle) {
+      idle[slot].offer(deflater);
+    }
+    else {
+      idlecounts[slot].decrementAndGet();
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil.write;
+
+/**
+ * A PrintOutputStream whose target is ultimately a stream of bytes, and which
+ * will also accept material which has already been encoded. This allows
+ * text which is written repeatedly (for example the static parts of a
+ * template) to be encoded just once, and then copied directly to the output.
+ */
+
+public interface BytePrintOutputStream extends PrintOutputStream {
+  /** Returns the name of the character encoding in which this stream writes
+   * characters, and hence in which encoded material must be supplied. */
+  public String getEncoding();
+
+  /**
+   * Writes the supplied bytes, which must already be encoded in this stream's
+   * encoding, to the output without conversion.
+   */
+  public void writeBytes(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,26 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil.write;
+
+import uk.org.ponder.streamutil.DeflatedBlock;
+
+/**
+ * A BytePrintOutputStream which may be writing to a compressed stream, and
+ * which will then accept material which has already been compressed. This
+ * allows text which is written repeatedly (for example the static parts of a
+ * template) to be compressed just once, and then copied directly to the
+ * output.
+ */
+
+public interface DeflatedPrintOutputStream extends BytePrintOutputStream {
+  /** Returns <code>true</code> if this stream is currently writing to a
+   * compressed stream, which will make use of precompressed material. */
+  public boolean acceptsDeflated();
+
+  /**
+   * Writes the supplied block, whose raw bytes must be encoded in this
+   * stream's encoding, using its compressed form if possible.
+   */
+  public void writeDeflated(DeflatedBlock block);
+}
@@ -0,0 +1,286 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.streamutil.write;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import uk.org.ponder.streamutil.CompressingOutputStream;
+import uk.org.ponder.streamutil.DeflatedBlock;
+import uk.org.ponder.streamutil.StreamCloseUtil;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/**
+ * A BytePrintOutputStream which encodes characters as UTF-8 directly into a
+ * single reusable byte buffer, without the intermediate CharBuffer and
+ * CharsetEncoder of {@link OutputStreamPOS}. Runs of ASCII characters, which
+ * make up the bulk of markup, are copied with a single test per character.
+ * Pre-encoded UTF-8 material may be written with <code>writeBytes</code>,
+ * and large blocks of it bypass the buffer altogether. If the target is a
+ * {@link CompressingOutputStream}, precompressed blocks are passed straight
+ * through to it.
+ * <p>
+ * Unpaired surrogate characters are written as '?', as would be done by the
+ * JDK's encoder.
+ */
+
+public class UTF8OutputStreamPOS implements DeflatedPrintOutputStream {
+  public static final String ENCODING = "UTF-8";
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final byte REPLACEMENT = (byte) '?';
+
+  private OutputStream os;
+  private byte[] buffer;
+  private int pos;
+  // a high surrogate which ended the previous write, awaiting its partner
+  private char pendinghigh;
+  // reusable buffers for characters drawn from Strings
+  private char[] scratch;
+  private char[] scratchchar = new char[1];
+
+  public UTF8OutputStreamPOS(OutputStream os) {
+    this(os, DEFAULT_BUFFER_SIZE);
+  }
+
+  public UTF8OutputStreamPOS(OutputStream os, int buffersize) {
+    this.os = os;
+    buffer = new byte[Math.max(buffersize, 16)];
+  }
+
+  /**
+   * Returns the number of bytes which the specified characters will occupy
+   * when encoded by {@link #encode(char[], int, int, byte[], int)}.
+   */
+  public static int encodedLength(char[] chars, int start, int length) {
+    int togo = 0;
+    int limit = start + length;
+    for (int i = start; i < limit; ++i) {
+      char c = chars[i];
+      if (c < 0x80) {
+        ++togo;
+      }
+      else if (c < 0x800) {
+        togo += 2;
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < limit
+          && Character.isLowSurrogate(chars[i + 1])) {
+        togo += 4;
+        ++i;
+      }
+      else if (Character.isSurrogate(c)) {
+        ++togo;
+      }
+      else {
+        togo += 3;
+      }
+    }
+    return togo;
+  }
+
+  /**
+   * Encodes the specified characters as UTF-8 into the supplied array, which
+   * must have sufficient space for them.
+   *
+   * @return The position in <code>target</code> following the last byte
+   *         written.
+   */
+  public static int encode(char[] chars, int start, int length, byte[] target,
+      int targetpos) {
+    int limit = start + length;
+    for (int i = start; i < limit; ++i) {
+      char c = chars[i];
+      if (c < 0x80) {
+        target[targetpos++] = (byte) c;
+      }
+      else if (c < 0x800) {
+        target[targetpos++] = (byte) (0xc0 | (c >> 6));
+        target[targetpos++] = (byte) (0x80 | (c & 0x3f));
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < limit
+          && Character.isLowSurrogate(chars[i + 1])) {
+        targetpos = encodeCodePoint(Character.toCodePoint(c, chars[++i]),
+            target, targetpos);
+      }
+      else if (Character.isSurrogate(c)) {
+        target[targetpos++] = REPLACEMENT;
+      }
+      else {
+        target[targetpos++] = (byte) (0xe0 | (c >> 12));
+        target[targetpos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        target[targetpos++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    return targetpos;
+  }
+
+  private static int encodeCodePoint(int cp, byte[] target, int targetpos) {
+    target[targetpos++] = (byte) (0xf0 | (cp >> 18));
+    target[targetpos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+    target[targetpos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+    target[targetpos++] = (byte) (0x80 | (cp & 0x3f));
+    return targetpos;
+  }
+
+  public String getEncoding() {
+    return ENCODING;
+  }
+
+  private void flushBuffer() {
+    if (pos > 0) {
+      try {
+        os.write(buffer, 0, pos);
+      }
+      catch (IOException e) {
+        throw UniversalRuntimeException.accumulate(e);
+      }
+      pos = 0;
+    }
+  }
+
+  private void flushPending() {
+    if (pendinghigh != 0) {
+      pendinghigh = 0;
+      if (pos == buffer.length) {
+        flushBuffer();
+      }
+      buffer[pos++] = REPLACEMENT;
+    }
+  }
+
+  // encode a single non-ASCII character, or any character following a
+  // pending high surrogate
+  private void encodeChar(char c) {
+    if (buffer.length - pos < 4) {
+      flushBuffer();
+    }
+    if (pendinghigh != 0) {
+      char high = pendinghigh;
+      pendinghigh = 0;
+      if (Character.isLowSurrogate(c)) {
+        pos = encodeCodePoint(Character.toCodePoint(high, c), buffer, pos);
+        return;
+      }
+      buffer[pos++] = REPLACEMENT;
+    }
+    if (Character.isHighSurrogate(c)) {
+      pendinghigh = c;
+    }
+    else {
+      scratchchar[0] = c;
+      pos = encode(scratchchar, 0, 1, buffer, pos);
+    }
+  }
+
+  public void write(char[] storage, int offset, int size) {
+    int limit = offset + size;
+    byte[] buf = buffer;
+    int i = offset;
+    while (i < limit) {
+      if (pendinghigh == 0) {
+        int p = pos;
+        int runlimit = Math.min(limit, i + buf.length - p);
+        while (i < runlimit) {
+          char c = storage[i];
+          if (c >= 0x80) break;
+          buf[p++] = (byte) c;
+          ++i;
+        }
+        pos = p;
+        if (i == limit) break;
+        if (p == buf.length) {
+          flushBuffer();
+          continue;
+        }
+      }
+      encodeChar(storage[i++]);
+    }
+  }
+
+  public PrintOutputStream print(String string) {
+    if (string == null) string = "null";
+    if (scratch == null) {
+      scratch = new char[256];
+    }
+    int length = string.length();
+    for (int start = 0; start < length; start += scratch.length) {
+      int towrite = Math.min(scratch.length, length - start);
+      string.getChars(start, start + towrite, scratch, 0);
+      write(scratch, 0, towrite);
+    }
+    return this;
+  }
+
+  public void writeBytes(byte[] bytes, int offset, int length) {
+    flushPending();
+    if (length <= buffer.length - pos) {
+      System.arraycopy(bytes, offset, buffer, pos, length);
+      pos += length;
+    }
+    else {
+      flushBuffer();
+      if (length >= buffer.length) {
+        try {
+          os.write(bytes, offset, length);
+        }
+        catch (IOException e) {
+          throw UniversalRuntimeException.accumulate(e);
+        }
+      }
+      else {
+        System.arraycopy(bytes, offset, buffer, 0, length);
+        pos = length;
+      }
+    }
+  }
+
+  public boolean acceptsDeflated() {
+    return os instanceof CompressingOutputStream;
+  }
+
+  public void writeDeflated(DeflatedBlock block) {
+    if (!acceptsDeflated()) {
+      writeBytes(block.raw, block.offset, block.length);
+      return;
+    }
+    flushPending();
+    flushBuffer();
+    try {
+      ((CompressingOutputStream) os).writeDeflated(block);
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
+  public void println(String toprint) {
+    print(toprint);
+    print("\n");
+  }
+
+  public void println() {
+    print("\n");
+  }
+
+  public void println(Object obj) {
+    print(obj.toString());
+    print("\n");
+  }
+
+  public void flush() {
+    flushBuffer();
+    try {
+      os.flush();
+    }
+    catch (IOException e) {
+      throw UniversalRuntimeException.accumulate(e);
+    }
+  }
+
+  public void close() {
+    flushPending();
+    flush();
+    StreamCloseUtil.closeOutputStream(os);
+  }
+
+}
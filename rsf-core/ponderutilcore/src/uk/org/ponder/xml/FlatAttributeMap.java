@@ -0,0 +1,197 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.xml;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A Map of XML attribute names to values, held as a pair of parallel arrays
+ * rather than a hash table. Tags bear few enough attributes that a linear
+ * scan is faster than hashing, and the map may be cleared and refilled from
+ * tag to tag without allocating. Attributes iterate in the order in which
+ * they were first added, and a replaced value keeps its position.
+ * <p>
+ * Both names and values must be Strings.
+ */
+
+public class FlatAttributeMap extends AbstractMap {
+  private String[] names;
+  private String[] values;
+  private int size;
+
+  public FlatAttributeMap() {
+    this(8);
+  }
+
+  public FlatAttributeMap(int capacity) {
+    names = new String[Math.max(capacity, 1)];
+    values = new String[names.length];
+  }
+
+  private void ensureCapacity(int required) {
+    if (required > names.length) {
+      int newlength = Math.max(required, names.length * 2);
+      String[] newnames = new String[newlength];
+      String[] newvalues = new String[newlength];
+      System.arraycopy(names, 0, newnames, 0, size);
+      System.arraycopy(values, 0, newvalues, 0, size);
+      names = newnames;
+      values = newvalues;
+    }
+  }
+
+  /** Replaces the contents of this map with the supplied parallel arrays of
+   * names and values, which must hold distinct names. */
+  public void setAll(String[] newnames, String[] newvalues) {
+    clear();
+    ensureCapacity(newnames.length);
+    System.arraycopy(newnames, 0, names, 0, newnames.length);
+    System.arraycopy(newvalues, 0, values, 0, newnames.length);
+    size = newnames.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Returns the name of the attribute at the specified position */
+  public String getName(int i) {
+    return names[i];
+  }
+
+  /** Returns the value of the attribute at the specified position */
+  public String getValue(int i) {
+    return values[i];
+  }
+
+  private int indexOf(Object name) {
+    for (int i = 0; i < size; ++i) {
+      if (names[i].equals(name)) return i;
+    }
+    return -1;
+  }
+
+  public boolean containsKey(Object name) {
+    return indexOf(name) != -1;
+  }
+
+  public Object get(Object name) {
+    int index = indexOf(name);
+    return index == -1 ? null : values[index];
+  }
+
+  public Object put(Object name, Object value) {
+    int index = indexOf(name);
+    if (index != -1) {
+      String old = values[index];
+      values[index] = (String) value;
+      return old;
+    }
+    ensureCapacity(size + 1);
+    names[size] = (String) name;
+    values[size] = (String) value;
+    ++size;
+    return null;
+  }
+
+  private void removeAt(int index) {
+    int tomove = size - index - 1;
+    System.arraycopy(names, index + 1, names, index, tomove);
+    System.arraycopy(values, index + 1, values, index, tomove);
+    --size;
+    names[size] = null;
+    values[size] = null;
+  }
+
+  public Object remove(Object name) {
+    int index = indexOf(name);
+    if (index == -1) return null;
+    String old = values[index];
+    removeAt(index);
+    return old;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; ++i) {
+      names[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+  }
+
+  private class Entry implements Map.Entry {
+    private int index;
+
+    Entry(int index) {
+      this.index = index;
+    }
+
+    public Object getKey() {
+      return names[index];
+    }
+
+    public Object getValue() {
+      return values[index];
+    }
+
+    public Object setValue(Object value) {
+      String old = values[index];
+      values[index] = (String) value;
+      return old;
+    }
+
+    public boolean equals(Object other) {
+      if (!(other instanceof Map.Entry)) return false;
+      Map.Entry entry = (Map.Entry) other;
+      return names[index].equals(entry.getKey())
+          && (values[index] == null ? entry.getValue() == null
+              : values[index].equals(entry.getValue()));
+    }
+
+    public int hashCode() {
+      return names[index].hashCode()
+          ^ (values[index] == null ? 0 : values[index].hashCode());
+    }
+  }
+
+  public Set entrySet() {
+    return new AbstractSet() {
+      public int size() {
+        return size;
+      }
+
+      public Iterator iterator() {
+        return new Iterator() {
+          private int next = 0;
+          private boolean canremove;
+
+          public boolean hasNext() {
+            return next < size;
+          }
+
+          public Object next() {
+            if (next >= size) {
+              throw new NoSuchElementException();
+            }
+            canremove = true;
+            return new Entry(next++);
+          }
+
+          public void remove() {
+            if (!canremove) {
+              throw new IllegalStateException();
+            }
+            removeAt(--next);
+            canremove = false;
+          }
+        };
+      }
+    };
+  }
+}
@@ -14,6 +14,13 @@ import uk.org.ponder.stringutil.CharWrap;
 public class XMLUtil {
 
   public static void dumpAttributes(Map attrs, XMLWriter xmlw) {
+    if (attrs instanceof FlatAttributeMap) {
+      FlatAttributeMap flat = (FlatAttributeMap) attrs;
+      for (int i = 0; i < flat.size(); ++i) {
+        dumpAttribute(flat.getName(i), flat.getValue(i), xmlw);
+      }
+      return;
+    }
     for (Iterator keyit = attrs.keySet().iterator(); keyit.hasNext();) {
       String key = (String) keyit.next();
       String attrvalue = (String) attrs.get(key);
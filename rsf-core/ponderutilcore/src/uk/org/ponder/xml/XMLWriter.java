@@ -4,8 +4,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
 
-import uk.org.ponder.streamutil.write.OutputStreamPOS;
+import uk.org.ponder.streamutil.write.BytePrintOutputStream;
 import uk.org.ponder.streamutil.write.PrintOutputStream;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
 import uk.org.ponder.streamutil.write.WriterPOS;
 import uk.org.ponder.stringutil.CharWrap;
 import uk.org.ponder.util.Logger;
@@ -16,6 +17,10 @@ import uk.org.ponder.util.Logger;
  * methods with similar names to <code>Writer</code> which escape all
  * mandatory XML/HTML entities, and methods named with suffix <code>Raw</code>
  * which write the data without transformation.
+ * <p>
+ * If the wrapped stream is a UTF-8 {@link BytePrintOutputStream}, escaped
+ * data is written straight through to its byte buffer, with entities copied
+ * in pre-encoded form.
  */
 
 public class XMLWriter {
@@ -32,6 +37,8 @@ public class XMLWriter {
   public static final String DEFAULT_ENCODING = "UTF-8";
   private static String DEFAULT_DECLARATION = "<?xml version=\"1.0\" ?>\n";
   private PrintOutputStream internalwriter;
+  // non-null if internalwriter accepts UTF-8 bytes directly
+  private BytePrintOutputStream bytewriter;
 
   public PrintOutputStream getInternalWriter() {
     return internalwriter;
@@ -46,7 +53,7 @@ public class XMLWriter {
    */
 
   public XMLWriter(OutputStream os) {
-    internalwriter = new OutputStreamPOS(os, DEFAULT_ENCODING);
+    this(new UTF8OutputStreamPOS(os));
   }
 
   /**
@@ -62,6 +69,11 @@ public class XMLWriter {
 
   public XMLWriter(PrintOutputStream pos) {
     this.internalwriter = pos;
+    if (pos instanceof BytePrintOutputStream
+        && UTF8OutputStreamPOS.ENCODING.equals(((BytePrintOutputStream) pos)
+            .getEncoding())) {
+      bytewriter = (BytePrintOutputStream) pos;
+    }
   }
 
   /**
@@ -249,6 +261,10 @@ public class XMLWriter {
   }
 
   public final void writeSlow(char[] towrite, int start, int length) {
+    if (bytewriter != null) {
+      writeEscapedBytes(towrite, start, length);
+      return;
+    }
     // AMAZINGLY, in 1.5 it is quicker to create this here than economise it.
     CharWrap svb = new CharWrap(length + 10);
     int limit = start + length;
@@ -294,6 +310,40 @@ public class XMLWriter {
     internalwriter.write(svb.storage, svb.offset, svb.size);
   }
 
+  private static byte[][] entitybytes = new byte[entitytable.length][];
+
+  static {
+    for (int i = 0; i < entitytable.length; ++i) {
+      if (entitytable[i] != null) {
+        char[] entity = entitytable[i].toCharArray();
+        entitybytes[i] = new byte[entity.length];
+        UTF8OutputStreamPOS.encode(entity, 0, entity.length, entitybytes[i], 0);
+      }
+    }
+  }
+
+  // Write unescaped runs directly to the byte writer, and entities from
+  // their pre-encoded forms, rather than assembling an escaped copy.
+  private void writeEscapedBytes(char[] towrite, int start, int length) {
+    int limit = start + length;
+    int runstart = start;
+    for (int i = start; i < limit; ++i) {
+      char c = towrite[i];
+      byte[] entity = c < entitybytes.length ? entitybytes[c]
+          : null;
+      if (entity != null) {
+        if (i > runstart) {
+          bytewriter.write(towrite, runstart, i - runstart);
+        }
+        bytewriter.writeBytes(entity, 0, entity.length);
+        runstart = i + 1;
+      }
+    }
+    if (limit > runstart) {
+      bytewriter.write(towrite, runstart, limit - runstart);
+    }
+  }
+
   /**
    * Writes the supplied data to the wrapped stream, escaping all mandatory
    * XML/HTML entities, being &amp;, &lt;, &gt;, &quot; and &#39;. &#39; is
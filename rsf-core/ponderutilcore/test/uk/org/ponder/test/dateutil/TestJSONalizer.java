@@ -3,14 +3,20 @@
  */
 package uk.org.ponder.test.dateutil;
 
-import uk.org.ponder.conversion.SerializationProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Map;
+
+import uk.org.ponder.conversion.StreamingSerializationProvider;
+import uk.org.ponder.json.JSONTokenizer;
 import uk.org.ponder.json.support.JSONProvider;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
 import junit.framework.TestCase;
 
 public class TestJSONalizer extends TestCase {
   private SAXalizerMappingContext smc = new SAXalizerMappingContext();
-  private SerializationProvider json;
+  private StreamingSerializationProvider json;
   protected void setUp() throws Exception {
     super.setUp();
     JSONProvider conv = new JSONProvider();
@@ -61,6 +67,81 @@ public class TestJSONalizer extends TestCase {
     
   }
 
+  
+  public void testStreaming() throws UnsupportedEncodingException {
+    // larger than any internal buffer, all of which must be flushed
+    String[] big = new String[1000];
+    for (int i = 0; i < big.length; ++ i) {
+      big[i] = "element \u00e9 " + i;
+    }
+    String expected = json.toString(big);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    json.writeObject(big, baos, true);
+    assertEquals(expected, baos.toString("UTF-8"));
+    
+    baos.reset();
+    json.writeObject(Arrays.asList(big).iterator(), baos, true);
+    assertEquals(expected, baos.toString("UTF-8"));
+    
+    baos.reset();
+    json.writeObject(Arrays.stream(big), baos, true);
+    assertEquals(expected, baos.toString("UTF-8"));
+  }
+
+  public static class Bean {
+    public int count;
+    public long id;
+    public Double ratio;
+    public String name;
+    public Bean child;
+  }
+  
+  private JSONProvider systemJSON() {
+    JSONProvider provider = new JSONProvider();
+    provider.setMappingContext(SAXalizerMappingContext.instance());
+    return provider;
+  }
+
+  public void testHashes() {
+    Map read = (Map) systemJSON().fromString(" {\"a\" : \"x\\ty\", \"b\": [true, null, false],"
+        + " \"c\": {}, \"d\": {\"e\": 12}}");
+    assertEquals("x\ty", read.get("a"));
+    Object[] b = (Object[]) read.get("b");
+    assertEquals(3, b.length);
+    assertEquals(Boolean.TRUE, b[0]);
+    assertNull(b[1]);
+    assertEquals(Boolean.FALSE, b[2]);
+    assertEquals(0, ((Map) read.get("c")).size());
+    // leaves within maps are untyped, and so are read as Strings
+    assertEquals("12", ((Map) read.get("d")).get("e"));
+    
+    String written = json.toString(read);
+    assertEquals(read.size(), ((Map) systemJSON().fromString(written)).size());
+  }
+  
+  public void testBeans() throws UnsupportedEncodingException {
+    JSONProvider provider = systemJSON();
+    String encoded = "{\"count\": -7, \"id\": 12345678901, \"ratio\": 0.25, "
+        + "\"name\": \"caf\u00e9\", "
+        + "\"child\": {\"count\": \"3\", \"ratio\": 1e400}}";
+    // read twice, the second time through the cached bindings
+    for (int i = 0; i < 2; ++ i) {
+      Bean bean = (Bean) provider.readObject(Bean.class, 
+          new JSONTokenizer(encoded.getBytes("UTF-8")));
+      assertEquals(-7, bean.count);
+      assertEquals(12345678901L, bean.id);
+      assertEquals(new Double(0.25), bean.ratio);
+      assertEquals("caf\u00e9", bean.name);
+      assertEquals(3, bean.child.count);
+      assertEquals(new Double(Double.POSITIVE_INFINITY), bean.child.ratio);
+    }
+    try {
+      provider.fromString("{\"count\": 1 \"id\": 2}");
+      fail("Missing separator not detected");
+    }
+    catch (RuntimeException e) {
+    }
+  }
 
   private void assertArrays(String[] one, String[] two) {
     assertEquals(one.length, two.length);
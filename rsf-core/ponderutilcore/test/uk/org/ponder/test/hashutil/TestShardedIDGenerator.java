@@ -0,0 +1,70 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.hashutil;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import uk.org.ponder.hashutil.ShardedIDGenerator;
+import uk.org.ponder.stringutil.ByteToCharBase64;
+import uk.org.ponder.stringutil.CharWrap;
+
+public class TestShardedIDGenerator extends TestCase {
+
+  public void testEncoding() {
+    Random random = new Random(42);
+    byte[] bytes = new byte[ShardedIDGenerator.ID_BYTES];
+    char[] chars = new char[ShardedIDGenerator.ID_CHARS];
+    for (int i = 0; i < 1000; ++i) {
+      random.nextBytes(bytes);
+      if (i % 2 == 0) {
+        bytes[0] = 0; // check that leading zeroes are written
+      }
+      ShardedIDGenerator.encode(bytes, 0, chars);
+      CharWrap expected = new CharWrap();
+      ByteToCharBase64.writeBytes(expected, bytes, 0, bytes.length, true);
+      assertEquals(expected.toString(), new String(chars));
+    }
+  }
+
+  public void testUnique() throws Exception {
+    checkUnique(4);
+  }
+
+  public void testSharedShards() throws Exception {
+    int shards = new ShardedIDGenerator().getShardCount();
+    assertEquals(0, shards & (shards - 1));
+    // more threads than shards, so that some must share
+    checkUnique(shards * 2 + 1);
+  }
+
+  private void checkUnique(int threadcount) throws Exception {
+    final ShardedIDGenerator generator = new ShardedIDGenerator();
+    generator.setBatchSize(7);
+    generator.setReseedInterval(50);
+    final Set ids = new HashSet();
+    Thread[] threads = new Thread[threadcount];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < 1000; ++j) {
+            String id = generator.generateID();
+            synchronized (ids) {
+              ids.add(id);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i].join();
+    }
+    assertEquals(threadcount * 1000, ids.size());
+    String id = (String) ids.iterator().next();
+    assertEquals(ShardedIDGenerator.ID_CHARS, id.length());
+  }
+}
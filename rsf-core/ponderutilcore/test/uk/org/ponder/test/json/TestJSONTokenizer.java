@@ -0,0 +1,124 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import uk.org.ponder.json.JSONTokenizer;
+
+public class TestJSONTokenizer extends TestCase {
+  private static byte[] toBytes(String json) {
+    try {
+      return json.getBytes("UTF-8");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static final String DOCUMENT = "{\"k\u00e9y\": [\"a\\\"b\\\\c\\/d\\n\\t\\u0041\", "
+      + "\"\u20ac\ud83d\ude00\", -12, 3.5e2, true, null]}";
+
+  private void checkDocument(JSONTokenizer tokenizer) {
+    assertEquals(JSONTokenizer.START_OBJECT, tokenizer.next());
+    assertEquals(JSONTokenizer.STRING, tokenizer.next());
+    assertEquals("k\u00e9y", tokenizer.getText());
+    assertEquals(JSONTokenizer.COLON, tokenizer.next());
+    assertEquals(JSONTokenizer.START_ARRAY, tokenizer.next());
+    assertEquals(JSONTokenizer.STRING, tokenizer.next());
+    assertEquals("a\"b\\c/d\n\tA", tokenizer.getText());
+    assertEquals(JSONTokenizer.COMMA, tokenizer.next());
+    assertEquals(JSONTokenizer.STRING, tokenizer.next());
+    assertEquals("\u20ac\ud83d\ude00", tokenizer.getText());
+    assertEquals(JSONTokenizer.COMMA, tokenizer.next());
+    assertEquals(JSONTokenizer.LITERAL, tokenizer.next());
+    assertTrue(tokenizer.parseLong());
+    assertEquals(-12, tokenizer.getLongValue());
+    assertEquals(JSONTokenizer.COMMA, tokenizer.next());
+    assertEquals(JSONTokenizer.LITERAL, tokenizer.next());
+    assertFalse(tokenizer.parseLong());
+    assertTrue(tokenizer.parseDouble());
+    assertEquals(new Double(350), new Double(tokenizer.getDoubleValue()));
+    assertEquals(JSONTokenizer.COMMA, tokenizer.next());
+    assertEquals(JSONTokenizer.LITERAL, tokenizer.next());
+    assertTrue(tokenizer.textEquals("true"));
+    assertEquals(JSONTokenizer.COMMA, tokenizer.next());
+    assertEquals(JSONTokenizer.LITERAL, tokenizer.next());
+    assertTrue(tokenizer.textEquals("null"));
+    assertEquals(JSONTokenizer.END_ARRAY, tokenizer.next());
+    assertEquals(JSONTokenizer.END_OBJECT, tokenizer.next());
+    assertEquals(JSONTokenizer.END, tokenizer.next());
+  }
+
+  public void testSources() {
+    byte[] bytes = toBytes(DOCUMENT);
+    checkDocument(new JSONTokenizer(bytes));
+    // a tiny buffer forces every token and multibyte character to span a refill
+    checkDocument(new JSONTokenizer(new ByteArrayInputStream(bytes), 1));
+    checkDocument(new JSONTokenizer(new ByteArrayInputStream(bytes), 3));
+
+    byte[] padded = new byte[bytes.length + 10];
+    System.arraycopy(bytes, 0, padded, 5, bytes.length);
+    ByteBuffer heap = ByteBuffer.wrap(padded, 5, bytes.length);
+    checkDocument(new JSONTokenizer(heap));
+    assertEquals(5, heap.position());
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    checkDocument(new JSONTokenizer(direct));
+  }
+
+  public void testDoubles() {
+    String[] numbers = new String[] { "0", "-0.0", "1", "0.1", "123.456",
+        "1e22", "1e-22", "9007199254740991", "123456789012345", ".5", "5.",
+        "1.5E+3", "2.5e-3", "1e23", "1234567890123456789", "1e", "-", "1.2.3",
+        "0x10", "NaN", "1e1000", "4.9e-324" };
+    for (int i = 0; i < numbers.length; ++i) {
+      JSONTokenizer tokenizer = new JSONTokenizer(toBytes(numbers[i]));
+      tokenizer.next();
+      Double expected = null;
+      try {
+        expected = Double.valueOf(numbers[i]);
+      }
+      catch (NumberFormatException e) {
+      }
+      if (tokenizer.parseDouble()) {
+        // any value the fast path accepts must agree exactly with the JDK
+        assertEquals(numbers[i], expected, new Double(tokenizer.getDoubleValue()));
+      }
+    }
+  }
+
+  public void testKeys() {
+    JSONTokenizer tokenizer = new JSONTokenizer(toBytes("\"key\" \"key\" \"other\""));
+    tokenizer.next();
+    String first = tokenizer.getKey();
+    tokenizer.next();
+    assertSame(first, tokenizer.getKey());
+    tokenizer.next();
+    assertEquals("other", tokenizer.getKey());
+  }
+
+  public void testErrors() {
+    String[] bad = new String[] { "\"unterminated", "\"\\u12\"", "\"\\", 
+        "\"\u00e9" };
+    for (int i = 0; i < bad.length; ++i) {
+      byte[] bytes = toBytes(bad[i]);
+      if (i == 3) {
+        // truncate the multibyte character
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        bytes = truncated;
+      }
+      try {
+        new JSONTokenizer(bytes).next();
+        fail("Expected error for " + bad[i]);
+      }
+      catch (RuntimeException e) {
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import uk.org.ponder.conversion.GeneralConverter;
+import uk.org.ponder.conversion.VectorCapableParser;
+import uk.org.ponder.mapping.ShellInfo;
+import uk.org.ponder.mapping.support.DARApplier;
+import uk.org.ponder.reflect.JDKReflectiveCache;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+
+/** Tests navigation of EL paths through DARApplier's cache of parsed paths,
+ * in particular that cached accessors are not reused for a different class
+ * of bean at the same position in a path.
+ */
+
+public class TestDARApplierPaths extends TestCase {
+
+  public static class Holder {
+    public Object child;
+    public String name;
+  }
+
+  public static class OtherHolder {
+    private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  private DARApplier createApplier() {
+    SAXalizerMappingContext smc = SAXalizerMappingContext.instance();
+    JDKReflectiveCache reflectivecache = new JDKReflectiveCache();
+    VectorCapableParser vcp = new VectorCapableParser();
+    vcp.setReflectiveCache(reflectivecache);
+    vcp.setScalarParser(smc.generalLeafParser);
+    GeneralConverter converter = new GeneralConverter();
+    converter.setLeafParser(smc.generalLeafParser);
+    DARApplier applier = new DARApplier();
+    applier.setMappingContext(smc);
+    applier.setReflectiveCache(reflectivecache);
+    applier.setVectorCapableParser(vcp);
+    applier.setGeneralConverter(converter);
+    return applier;
+  }
+
+  public void testPolymorphicPath() {
+    DARApplier applier = createApplier();
+    Holder root = new Holder();
+    Holder child = new Holder();
+    child.name = "field";
+    root.child = child;
+    assertEquals("field", applier.getBeanValue("child.name", root, null));
+
+    OtherHolder other = new OtherHolder();
+    other.setName("property");
+    root.child = other;
+    assertEquals("property", applier.getBeanValue("child.name", root, null));
+
+    Map map = new HashMap();
+    map.put("name", "entry");
+    root.child = map;
+    assertEquals("entry", applier.getBeanValue("child.name", root, null));
+    assertSame(root, applier.getBeanValue("", root, null));
+  }
+
+  public void testSetAndShells() {
+    DARApplier applier = createApplier();
+    applier.setMaxCachedPaths(1);
+    Holder root = new Holder();
+    root.child = new OtherHolder();
+    for (int i = 0; i < 3; ++i) {
+      applier.setBeanValue("child.name", root, "value" + i, null, true);
+      assertEquals("value" + i, applier.getBeanValue("child.name", root, null));
+    }
+    ShellInfo shells = applier.fetchShells("child.name", root, false);
+    assertEquals(2, shells.segments.length);
+    assertEquals(3, shells.shells.length);
+    // segments handed out must not alias those of the cached path
+    shells.segments[0] = "changed";
+    assertEquals("value2", applier.getBeanValue("child.name", root, null));
+  }
+
+  public void testUnreadable() {
+    DARApplier applier = createApplier();
+    try {
+      applier.getBeanValue("missing", new Holder(), null);
+      fail();
+    }
+    catch (RuntimeException e) {
+    }
+    try {
+      applier.getBeanValue("child.name", new Holder(), null);
+      fail();
+    }
+    catch (RuntimeException e) {
+    }
+  }
+}
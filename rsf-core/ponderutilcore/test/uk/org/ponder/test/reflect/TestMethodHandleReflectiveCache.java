@@ -0,0 +1,158 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.reflect;
+
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+import uk.org.ponder.reflect.JDKReflectiveCache;
+import uk.org.ponder.reflect.MethodHandleReflectiveCache;
+import uk.org.ponder.reflect.ReflectiveCache;
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.mapping.ContainerTypeRegistry;
+import uk.org.ponder.saxalizer.mapping.DefaultMapperInferrer;
+import uk.org.ponder.util.UniversalRuntimeException;
+
+/** Tests that accessors compiled to MethodHandles behave, and fail, exactly
+ * as the reflective accessors of JDKReflectiveCache do.
+ */
+
+public class TestMethodHandleReflectiveCache extends TestCase {
+
+  public static class Bean {
+    private int count;
+    private String name;
+
+    public Bean() {
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      if ("bad".equals(name)) {
+        throw new IllegalStateException("bad name");
+      }
+      this.name = name;
+    }
+
+    public String explode() {
+      throw new IllegalStateException("exploded");
+    }
+  }
+
+  public static class ExplodingBean {
+    public ExplodingBean() {
+      throw new IllegalStateException("exploded in constructor");
+    }
+  }
+
+  // the root map of a ReflectiveCache is initialised by its first call to
+  // getConcurrentMap, as made by SAXalizerMappingContext.setReflectiveCache
+  private static ReflectiveCache methodHandleCache() {
+    ReflectiveCache togo = new MethodHandleReflectiveCache();
+    togo.getConcurrentMap(1);
+    return togo;
+  }
+
+  private static AccessMethod accessMethod(ReflectiveCache cache, String name) {
+    SAXalizerMappingContext smc = new SAXalizerMappingContext();
+    DefaultMapperInferrer inferrer = new DefaultMapperInferrer();
+    inferrer.setContainerTypeRegistry(new ContainerTypeRegistry());
+    smc.setDefaultInferrer(inferrer);
+    smc.setReflectiveCache(cache);
+    return smc.getAnalyser(Bean.class).getAccessMethod(name);
+  }
+
+  private static UniversalRuntimeException setFailure(ReflectiveCache cache,
+      String name, Object value) {
+    try {
+      accessMethod(cache, name).setChildObject(new Bean(), value);
+    }
+    catch (UniversalRuntimeException e) {
+      return e;
+    }
+    fail("Setting " + name + " to " + value + " did not fail");
+    return null;
+  }
+
+  private static void assertSameFailure(UniversalRuntimeException expected,
+      UniversalRuntimeException actual) {
+    assertEquals(expected.getCategory(), actual.getCategory());
+    assertEquals(expected.getTargetException().getClass(), actual
+        .getTargetException().getClass());
+  }
+
+  public void testAccess() {
+    Bean bean = new Bean();
+    AccessMethod count = accessMethod(new MethodHandleReflectiveCache(),
+        "count");
+    count.setChildObject(bean, new Integer(3));
+    assertEquals(new Integer(3), count.getChildObject(bean));
+    AccessMethod name = accessMethod(new MethodHandleReflectiveCache(), "name");
+    name.setChildObject(bean, "value");
+    assertEquals("value", name.getChildObject(bean));
+    name.setChildObject(bean, null);
+    assertNull(name.getChildObject(bean));
+  }
+
+  public void testTargetException() {
+    UniversalRuntimeException jdk = setFailure(new JDKReflectiveCache(),
+        "name", "bad");
+    UniversalRuntimeException mh = setFailure(
+        new MethodHandleReflectiveCache(), "name", "bad");
+    assertEquals(InvocationTargetException.class, jdk.getCategory());
+    assertEquals(IllegalStateException.class, jdk.getTargetException()
+        .getClass());
+    assertSameFailure(jdk, mh);
+
+    try {
+      methodHandleCache().invokeMethod(new Bean(), "explode");
+      fail();
+    }
+    catch (UniversalRuntimeException e) {
+      assertEquals(InvocationTargetException.class, e.getCategory());
+      assertEquals(IllegalStateException.class, e.getTargetException()
+          .getClass());
+    }
+
+    try {
+      methodHandleCache().construct(ExplodingBean.class);
+      fail();
+    }
+    catch (UniversalRuntimeException e) {
+      assertEquals(InvocationTargetException.class, e.getCategory());
+      assertEquals(IllegalStateException.class, e.getTargetException()
+          .getClass());
+    }
+  }
+
+  public void testNullToPrimitive() {
+    UniversalRuntimeException jdk = setFailure(new JDKReflectiveCache(),
+        "count", null);
+    UniversalRuntimeException mh = setFailure(
+        new MethodHandleReflectiveCache(), "count", null);
+    assertEquals(IllegalArgumentException.class, jdk.getTargetException()
+        .getClass());
+    assertSameFailure(jdk, mh);
+  }
+
+  public void testMistypedArgument() {
+    UniversalRuntimeException jdk = setFailure(new JDKReflectiveCache(),
+        "name", new Integer(1));
+    UniversalRuntimeException mh = setFailure(
+        new MethodHandleReflectiveCache(), "name", new Integer(1));
+    assertSameFailure(jdk, mh);
+  }
+}
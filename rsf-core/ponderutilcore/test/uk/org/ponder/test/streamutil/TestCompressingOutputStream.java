@@ -0,0 +1,120 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.streamutil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import junit.framework.TestCase;
+import uk.org.ponder.streamutil.CompressingOutputStream;
+import uk.org.ponder.streamutil.DeflatedBlock;
+import uk.org.ponder.streamutil.DeflaterPool;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
+
+public class TestCompressingOutputStream extends TestCase {
+  private static final String MARKUP = "<div class=\"row\"><span>é中</span></div>\n";
+
+  private static byte[] readAll(InputStream is) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int got;
+    while ((got = is.read(buffer)) != -1) {
+      baos.write(buffer, 0, got);
+    }
+    return baos.toByteArray();
+  }
+
+  private static byte[] inflate(byte[] compressed, String encoding)
+      throws Exception {
+    InputStream is = new ByteArrayInputStream(compressed);
+    return readAll(CompressingOutputStream.GZIP.equals(encoding) ? 
+        (InputStream) new GZIPInputStream(is) : new InflaterInputStream(is));
+  }
+
+  // writes plain and precompressed material alternately, with a flush
+  private void roundTrip(String encoding) throws Exception {
+    DeflaterPool pool = new DeflaterPool();
+    StringBuffer expected = new StringBuffer();
+    for (int i = 0; i < 200; ++i) {
+      expected.append(MARKUP);
+    }
+    byte[] static1 = expected.toString().getBytes("UTF-8");
+    DeflatedBlock block = DeflatedBlock.deflate(static1, 0, static1.length, pool);
+    assertTrue(block.deflated.length < static1.length);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(
+        new CompressingOutputStream(baos, encoding, 6, pool));
+    assertTrue(pos.acceptsDeflated());
+    StringBuffer all = new StringBuffer();
+    for (int i = 0; i < 5; ++i) {
+      pos.print("dynamic " + i);
+      pos.writeDeflated(block);
+      if (i == 2) {
+        pos.flush();
+      }
+      all.append("dynamic " + i).append(expected);
+    }
+    pos.close();
+    byte[] result = baos.toByteArray();
+    assertTrue(result.length < all.length());
+    assertTrue(Arrays.equals(all.toString().getBytes("UTF-8"), inflate(result,
+        encoding)));
+    assertEquals(0, pool.getBorrowedCount());
+  }
+
+  public void testGzip() throws Exception {
+    roundTrip(CompressingOutputStream.GZIP);
+  }
+
+  public void testDeflate() throws Exception {
+    roundTrip(CompressingOutputStream.DEFLATE);
+  }
+
+  public void testEmpty() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new CompressingOutputStream(baos, CompressingOutputStream.GZIP, 1,
+        new DeflaterPool()).close();
+    assertEquals(0, inflate(baos.toByteArray(), CompressingOutputStream.GZIP).length);
+  }
+
+  public void testAbandon() throws Exception {
+    DeflaterPool pool = new DeflaterPool();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    CompressingOutputStream cos = new CompressingOutputStream(baos,
+        CompressingOutputStream.GZIP, 6, pool);
+    // nothing is borrowed until the first write
+    assertEquals(0, pool.getBorrowedCount());
+    cos.write(MARKUP.getBytes("UTF-8"));
+    assertEquals(1, pool.getBorrowedCount());
+    cos.abandon();
+    assertEquals(0, pool.getBorrowedCount());
+    cos.abandon();
+    cos.close();
+    assertEquals(0, pool.getBorrowedCount());
+    try {
+      cos.write(1);
+      fail();
+    }
+    catch (IOException e) {
+    }
+  }
+
+  public void testFallback() throws Exception {
+    byte[] raw = MARKUP.getBytes("UTF-8");
+    DeflatedBlock block = DeflatedBlock.deflate(raw, 0, raw.length,
+        new DeflaterPool());
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(baos);
+    assertFalse(pos.acceptsDeflated());
+    pos.writeDeflated(block);
+    pos.close();
+    assertTrue(Arrays.equals(raw, baos.toByteArray()));
+  }
+}
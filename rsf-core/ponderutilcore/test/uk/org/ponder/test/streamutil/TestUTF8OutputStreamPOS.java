@@ -0,0 +1,47 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.streamutil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import uk.org.ponder.streamutil.write.UTF8OutputStreamPOS;
+import uk.org.ponder.xml.XMLWriter;
+
+public class TestUTF8OutputStreamPOS extends TestCase {
+  // ASCII, 2 and 3 byte characters, and a supplementary character
+  private static final String MIXED = "a<b> & \"c\" é中😀z";
+
+  public void testEncoding() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    // a tiny buffer, to force flushes mid-character
+    UTF8OutputStreamPOS pos = new UTF8OutputStreamPOS(baos, 16);
+    StringBuffer expected = new StringBuffer();
+    char[] chars = MIXED.toCharArray();
+    for (int i = 0; i < 20; ++i) {
+      // split the surrogate pair across two writes
+      pos.write(chars, 0, chars.length - 2);
+      pos.write(chars, chars.length - 2, 2);
+      pos.print(MIXED);
+      byte[] encoded = new byte[UTF8OutputStreamPOS.encodedLength(chars, 0,
+          chars.length)];
+      UTF8OutputStreamPOS.encode(chars, 0, chars.length, encoded, 0);
+      pos.writeBytes(encoded, 0, encoded.length);
+      expected.append(MIXED).append(MIXED).append(MIXED);
+    }
+    pos.close();
+    assertTrue(Arrays.equals(expected.toString().getBytes("UTF-8"), baos
+        .toByteArray()));
+  }
+
+  public void testXMLWriter() throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    XMLWriter xmlw = new XMLWriter(baos);
+    xmlw.write(MIXED);
+    xmlw.flush();
+    assertEquals("a&lt;b&gt; &amp; &quot;c&quot; é中😀z",
+        new String(baos.toByteArray(), "UTF-8"));
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.test.xml;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import uk.org.ponder.streamutil.write.StringPOS;
+import uk.org.ponder.xml.FlatAttributeMap;
+import uk.org.ponder.xml.XMLUtil;
+import uk.org.ponder.xml.XMLWriter;
+
+public class TestFlatAttributeMap extends TestCase {
+
+  public void testMapSemantics() {
+    FlatAttributeMap attrs = new FlatAttributeMap(1);
+    attrs.setAll(new String[] { "rsf:id", "class", "href" }, new String[] {
+        "link", "nav", "a.html" });
+    assertEquals(3, attrs.size());
+    assertEquals("link", attrs.remove("rsf:id"));
+    assertNull(attrs.put("id", "link1"));
+    assertEquals("nav", attrs.put("class", "nav current"));
+    assertEquals("class", attrs.getName(0));
+    assertEquals("id", attrs.getName(2));
+
+    Map expected = new HashMap();
+    expected.put("class", "nav current");
+    expected.put("href", "a.html");
+    expected.put("id", "link1");
+    assertEquals(expected, attrs);
+    assertEquals(expected.hashCode(), attrs.hashCode());
+
+    for (Iterator it = attrs.keySet().iterator(); it.hasNext();) {
+      if (it.next().equals("href")) {
+        it.remove();
+      }
+    }
+    assertFalse(attrs.containsKey("href"));
+    assertEquals(2, attrs.size());
+
+    StringPOS pos = new StringPOS();
+    XMLUtil.dumpAttributes(attrs, new XMLWriter(pos));
+    assertEquals(" class=\"nav current\" id=\"link1\"", pos.toString());
+
+    attrs.clear();
+    assertTrue(attrs.isEmpty());
+    assertNull(attrs.get("class"));
+  }
+}
@@ -15,6 +15,13 @@ import uk.org.ponder.beanutil.WriteableBeanLocator;
  * <code>startRequest()</code> before acquiring any request beans, and
  * <code>endRequest()</code> at the end of its cycle (the latter is most
  * important).
+ * <p>
+ * The container for a request is held in an {@link RSACRequestContext}, which
+ * may be moved between threads with <code>detachRequest()</code> and
+ * <code>attachRequest()</code>, or propagated to tasks run on other threads
+ * with {@link RSACContextPropagator}. The request may then be ended on any
+ * thread to which its context is attached. Its container is not reused by a
+ * further request until its context has been unbound from every thread.
  */
 
 public interface RSACBeanLocator {
@@ -39,6 +46,31 @@ public interface RSACBeanLocator {
    */
   public void endRequest();
 
+  /**
+   * Returns the request context bound to the current thread, or
+   * <code>null</code> if no request has been started or attached.
+   */
+  public RSACRequestContext getRequestContext();
+
+  /**
+   * Binds the supplied request context, which must have been created by this
+   * locator, to the current thread. A <code>null</code> argument removes any
+   * binding.
+   * 
+   * @return The context previously bound to this thread, if any, so that it
+   *         may be restored.
+   */
+  public RSACRequestContext attachRequest(RSACRequestContext context);
+
+  /**
+   * Removes the binding of the current request context from this thread
+   * without ending the request, so that it may be attached to, and
+   * subsequently ended on, another thread.
+   * 
+   * @return The context which was bound.
+   */
+  public RSACRequestContext detachRequest();
+
   /**
    * Returns a list of bean names which are known to correspond to beans
    * implementing or derived from the supplied class. RSAC has tried slightly
@@ -0,0 +1,24 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac;
+
+/**
+ * A strategy determining how the current {@link RSACRequestContext} is
+ * associated with a thread. Each RSACBeanLocator holds its own binding, which
+ * defaults to a {@link uk.org.ponder.rsac.support.ThreadLocalContextBinding}.
+ */
+
+public interface RSACContextBinding {
+  /**
+   * Returns the context bound to the current thread, or <code>null</code> if
+   * there is none.
+   */
+  public RSACRequestContext getContext();
+
+  /**
+   * Binds the supplied context to the current thread, replacing any existing
+   * binding, or removes the binding if it is <code>null</code>.
+   */
+  public void setContext(RSACRequestContext context);
+}
@@ -0,0 +1,71 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Propagates the request context of the current thread to tasks which will
+ * be run on other threads, for example by an executor. Each wrapped task
+ * attaches the context captured at the time it was wrapped for the duration
+ * of its run, and then restores whatever binding its thread previously had.
+ * <p>
+ * Since the beans of a request are not synchronized, the submitting thread
+ * should not itself use the request context whilst such a task is running -
+ * typically it will simply await the task's result.
+ */
+
+public class RSACContextPropagator {
+  /**
+   * Returns a Runnable which runs the supplied task with the request context
+   * currently bound to this thread.
+   */
+  public static Runnable wrap(final RSACBeanLocator rsacbl, final Runnable task) {
+    final RSACRequestContext context = rsacbl.getRequestContext();
+    return new Runnable() {
+      public void run() {
+        RSACRequestContext previous = rsacbl.attachRequest(context);
+        try {
+          task.run();
+        }
+        finally {
+          rsacbl.attachRequest(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns a Callable which calls the supplied task with the request context
+   * currently bound to this thread.
+   */
+  public static Callable wrap(final RSACBeanLocator rsacbl, final Callable task) {
+    final RSACRequestContext context = rsacbl.getRequestContext();
+    return new Callable() {
+      public Object call() throws Exception {
+        RSACRequestContext previous = rsacbl.attachRequest(context);
+        try {
+          return task.call();
+        }
+        finally {
+          rsacbl.attachRequest(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns an Executor which runs each task submitted to it on the supplied
+   * executor, with the request context bound to the submitting thread.
+   */
+  public static Executor wrap(final RSACBeanLocator rsacbl,
+      final Executor executor) {
+    return new Executor() {
+      public void execute(Runnable task) {
+        executor.execute(wrap(rsacbl, task));
+      }
+    };
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac;
+
+import uk.org.ponder.beanutil.IterableWriteableBeanLocator;
+import uk.org.ponder.beanutil.WriteableBeanLocator;
+
+/**
+ * The request-scope container for a single RSAC request. A context is
+ * created by {@link RSACBeanLocator#startRequest()} and bound to the starting
+ * thread, but it is not tied to that thread - it may be detached and
+ * attached to another thread, for example to complete an asynchronous
+ * request or to run part of its work on an executor.
+ * <p>
+ * The beans in a context are not synchronized. A context may be bound to
+ * several threads at once, but only one of them should make use of it at any
+ * time.
+ */
+
+public interface RSACRequestContext {
+  /** Returns the RSACBeanLocator which created this context */
+  public RSACBeanLocator getRSACBeanLocator();
+
+  /**
+   * Returns a BeanLocator for this request, which creates request beans on
+   * demand.
+   */
+  public WriteableBeanLocator getBeanLocator();
+
+  /**
+   * Returns a BeanLocator for this request which will NOT create beans that
+   * are not present.
+   */
+  public IterableWriteableBeanLocator getDeadBeanLocator();
+}
@@ -57,7 +57,7 @@ public class RSACFilter implements Filter {
       Logger.log.error("Error servicing RSAC request: ", e);
     }
     finally {
-      rsacbg.endRequest();
+      RSACUtils.endServletRequest((HttpServletRequest) request, rsacbg);
     }
   }
 
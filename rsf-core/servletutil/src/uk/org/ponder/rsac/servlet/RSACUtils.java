@@ -10,6 +10,8 @@ import javax.servlet.http.HttpServletResponse;
 import uk.org.ponder.beanutil.BeanLocator;
 import uk.org.ponder.beanutil.WriteableBeanLocator;
 import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACRequestContext;
+import uk.org.ponder.util.Logger;
 
 /**
  * @author andrew, Antranig
@@ -19,6 +21,11 @@ public class RSACUtils {
   public static final String REQUEST_SCOPE_APP_CONTEXT_ATTRIBUTE = "requestScopeApplicationContext";
   /** The default name for the bean representing the HttpServletFactory * */
   public static final String HTTP_SERVLET_FACTORY = "httpServletFactory";
+  /** The request attribute holding the context of a suspended request */
+  public static final String SUSPENDED_REQUEST_CONTEXT_ATTRIBUTE = "suspendedRSACRequestContext";
+  /** The request attribute marking a request which has been suspended, which
+   * remains once it has been resumed */
+  public static final String SUSPENDED_REQUEST_ATTRIBUTE = "suspendedRSACRequest";
 
   /**
    * This method is to be used in the awkward situation where a request is
@@ -67,4 +74,57 @@ public class RSACUtils {
   public static void removeRequestApplicationContext(ServletRequest request) {
     request.removeAttribute(REQUEST_SCOPE_APP_CONTEXT_ATTRIBUTE);
   }
+
+  /**
+   * Detaches the RSAC context of the supplied request from the current thread
+   * without ending it, and stores it as an attribute of the request, for
+   * example before returning a request placed into asynchronous mode to the
+   * container. The request must later be resumed with
+   * {@link #resumeServletRequest(ServletRequest, RSACBeanLocator)} on the
+   * thread which completes it, which must then end it.
+   */
+  public static void suspendServletRequest(ServletRequest request,
+      RSACBeanLocator rsacbl) {
+    request.setAttribute(SUSPENDED_REQUEST_ATTRIBUTE, Boolean.TRUE);
+    request.setAttribute(SUSPENDED_REQUEST_CONTEXT_ATTRIBUTE, rsacbl
+        .detachRequest());
+  }
+
+  /**
+   * Attaches the RSAC context of a request previously suspended with
+   * {@link #suspendServletRequest(ServletRequest, RSACBeanLocator)} to the
+   * current thread.
+   * 
+   * @return The context previously bound to this thread, if any.
+   */
+  public static RSACRequestContext resumeServletRequest(
+      ServletRequest request, RSACBeanLocator rsacbl) {
+    RSACRequestContext context = (RSACRequestContext) request
+        .getAttribute(SUSPENDED_REQUEST_CONTEXT_ATTRIBUTE);
+    if (context == null) {
+      throw new IllegalStateException("No suspended RSAC request found");
+    }
+    request.removeAttribute(SUSPENDED_REQUEST_CONTEXT_ATTRIBUTE);
+    return rsacbl.attachRequest(context);
+  }
+
+  /**
+   * Ends the RSAC request started for the supplied request by
+   * {@link #startServletRequest(HttpServletRequest, HttpServletResponse, RSACBeanLocator, String)},
+   * as the container's thread finishes servicing it. A request which was
+   * suspended is instead ended by the thread which resumes it. A request
+   * which is otherwise no longer bound to this thread indicates a failure
+   * to start it, or that it was ended or detached elsewhere, which is logged.
+   */
+  public static void endServletRequest(HttpServletRequest request,
+      RSACBeanLocator rsacbl) {
+    if (rsacbl.isStarted()) {
+      rsacbl.endRequest();
+    }
+    else if (request.getAttribute(SUSPENDED_REQUEST_ATTRIBUTE) == null) {
+      Logger.log.warn("RSAC request for " + request.getRequestURI()
+          + " was not bound to the servicing thread on completion, and has"
+          + " not been ended by it");
+    }
+  }
 }
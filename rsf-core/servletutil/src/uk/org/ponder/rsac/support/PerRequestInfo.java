@@ -11,13 +11,21 @@ import org.springframework.aop.framework.ProxyFactoryBean;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanInitializationException;
 
+import uk.org.ponder.beanutil.IterableWriteableBeanLocator;
 import uk.org.ponder.beanutil.WriteableBeanLocator;
 import uk.org.ponder.beanutil.support.ConcreteWBL;
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACRequestContext;
 import uk.org.ponder.springutil.TLABPostProcessor;
 import uk.org.ponder.stringutil.StringList;
 import uk.org.ponder.util.UniversalRuntimeException;
 
-class PerRequestInfo {
+class PerRequestInfo implements RSACRequestContext {
+  RSACBeanLocatorImpl rsacbl;
+  // true from the start of a request using this container until its end
+  private boolean active;
+  // the number of threads to which this container is currently bound
+  private int attachments;
   // HashMap beans = new HashMap();
   int cbeans = 0;
   ConcreteWBL beans = new ConcreteWBL(); // the raw bean container
@@ -28,7 +36,8 @@ class PerRequestInfo {
   // BeanFactoryAware beans
   BeanFactory blfactory;
   TLABPostProcessor tlabpp;
-  // the container of RSACLazyTargetSources, permanent in this ThreadLocal.
+  // the container of RSACLazyTargetSources, retained whilst this container is
+  // pooled between requests.
   Map lazysources;
   Map seedbeans = new HashMap();
 
@@ -42,7 +51,50 @@ class PerRequestInfo {
     postprocessors.clear();
   }
 
+  /** Marks this container as in use by a new request, bound to the thread
+   * which starts it */
+  synchronized void start() {
+    active = true;
+    attachments = 1;
+  }
+
+  /** Records that this container has been bound to a further thread */
+  synchronized void attach() {
+    if (!active) {
+      throw UniversalRuntimeException.accumulate(new IllegalStateException(),
+          "Cannot attach request context whose request has already ended");
+    }
+    ++attachments;
+  }
+
+  /** Records that this container has been unbound from a thread, returning
+   * <code>true</code> if it is now free to be reused by another request */
+  synchronized boolean detach() {
+    --attachments;
+    return !active && attachments == 0;
+  }
+
+  /** Marks the request using this container as ended, after which it may be
+   * attached to no further threads. It is freed once it has been unbound from
+   * every thread to which it is still bound. */
+  synchronized void end() {
+    active = false;
+  }
+
+  public RSACBeanLocator getRSACBeanLocator() {
+    return rsacbl;
+  }
+
+  public WriteableBeanLocator getBeanLocator() {
+    return requestwbl;
+  }
+
+  public IterableWriteableBeanLocator getDeadBeanLocator() {
+    return beans;
+  }
+
   public PerRequestInfo(final RSACBeanLocatorImpl rsacbl, StringList lazysources, TLABPostProcessor tlabpp) {
+    this.rsacbl = rsacbl;
 
     requestwbl = new WriteableBeanLocator() {
       public Object locateBean(String beanname) {
@@ -30,6 +30,9 @@ class RSACBeanInfo {
   // each member is either an app-static RunnableWrapper or a reference to
   // one which can be fetched
   public Object[] fetchwrappers;
+  // the dependency wiring compiled at startup, or null if none could be
+  // compiled.
+  RSACWiringPlan wiringplan;
 
   public boolean hasDependencies() {
     return !localdepends.isEmpty();
@@ -39,6 +42,10 @@ class RSACBeanInfo {
     localdepends.put(propertyname, beanref);
   }
 
+  public int dependencyCount() {
+    return localdepends.size();
+  }
+
   public Iterator dependencies() {
     return localdepends.keySet().iterator();
   }
@@ -8,6 +8,8 @@ import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Level;
 import org.springframework.beans.BeanInstantiationException;
@@ -37,6 +39,8 @@ import uk.org.ponder.reflect.ReflectUtils;
 import uk.org.ponder.reflect.ReflectiveCache;
 import uk.org.ponder.rsac.GlobalBeanAccessor;
 import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACContextBinding;
+import uk.org.ponder.rsac.RSACRequestContext;
 import uk.org.ponder.saxalizer.AccessMethod;
 import uk.org.ponder.saxalizer.SAXalizerMappingContext;
 import uk.org.ponder.saxalizer.support.MethodAnalyser;
@@ -58,6 +62,11 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * <code>endRequest()</code> at the end of its cycle (the latter is most
  * important).
  * <p>
+ * The containers for requests are bound to threads through a pluggable
+ * {@link RSACContextBinding}. Since the lazy proxies within a container are
+ * costly to construct, containers are pooled between requests rather than
+ * being held per thread.
+ * <p>
  * In a "pure RSAC" application, the request logic will be defined by the
  * getting of a single "root bean" from the BeanLocator, although initial setup
  * and any proxies may require additional calls to <code>getBeanLocator()</code>.
@@ -76,7 +85,6 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     BeanDefinitionSource, RSACBeanLocator {
 
   private static CreationMarker BEAN_IN_CREATION_OBJECT = new CreationMarker(0);
-  private static String REQUEST_STARTED_KEY = ".request  started";
   private ConfigurableApplicationContext blankcontext;
   private ApplicationContext parentcontext;
   private SAXalizerMappingContext smc;
@@ -100,24 +108,65 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
     this.reflectivecache = reflectivecache;
   }
 
-  // private ThreadLocal threadlocal = new ThreadLocal() {
-  // public Object initialValue() {
-  // return new PerRequestInfo(RSACBeanLocator.this, lazysources);
-  // }
-  // };
-  // We do not use initialValue here because of bug
-  // http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=5025230 which corrupts
-  // the table when initialising a further ThreadLocal from within
-  // initialValue().
-  // in this case the ThreadLocal is created within CGLib while instantiating
-  // the RSACLazyTargetSource proxies.
-  private ThreadLocal threadlocal = new ThreadLocal();
+  private RSACContextBinding binding = new ThreadLocalContextBinding();
+  // idle containers, whose lazy proxies may be reused by later requests,
+  // most recently used first
+  private ConcurrentLinkedDeque contextpool = new ConcurrentLinkedDeque();
+  private AtomicInteger idlecontexts = new AtomicInteger();
+  private int contextpoolsize = DEFAULT_CONTEXT_POOL_SIZE;
 
-  private PerRequestInfo getPerRequest() {
-    PerRequestInfo pri = (PerRequestInfo) threadlocal.get();
+  /** The default maximum number of idle request containers retained, chosen
+   * to exceed the request threads of a typically configured servlet container
+   */
+  public static final int DEFAULT_CONTEXT_POOL_SIZE = 256;
+
+  /** Sets the strategy by which request contexts are bound to threads. The
+   * default holds them in a ThreadLocal. */
+  public void setContextBinding(RSACContextBinding binding) {
+    this.binding = binding;
+  }
+
+  /** Sets the maximum number of idle request containers which are retained
+   * for reuse, by default {@link #DEFAULT_CONTEXT_POOL_SIZE}, or 0 to retain
+   * one for every request which has ever been in progress at once. This should
+   * be at least the number of request threads of the server, since a smaller
+   * bound causes containers to be created afresh under load.
+   */
+  public void setContextPoolSize(int contextpoolsize) {
+    this.contextpoolsize = contextpoolsize;
+  }
+
+  private PerRequestInfo acquireContext() {
+    PerRequestInfo pri = (PerRequestInfo) contextpool.pollFirst();
     if (pri == null) {
       pri = new PerRequestInfo(RSACBeanLocatorImpl.this, lazysources, tlabpp);
-      threadlocal.set(pri);
+    }
+    else {
+      idlecontexts.decrementAndGet();
+    }
+    pri.start();
+    return pri;
+  }
+
+  // called only once the request has ended and the container is bound to no
+  // thread, since it may then be handed to another request
+  private void releaseContext(PerRequestInfo pri) {
+    // Give the garbage collector a head start
+    pri.clear();
+    int idle = idlecontexts.incrementAndGet();
+    if (contextpoolsize > 0 && idle > contextpoolsize) {
+      idlecontexts.decrementAndGet();
+    }
+    else {
+      contextpool.offerFirst(pri);
+    }
+  }
+
+  private PerRequestInfo getPerRequest() {
+    PerRequestInfo pri = (PerRequestInfo) binding.getContext();
+    if (pri == null) {
+      throw UniversalRuntimeException.accumulate(new IllegalStateException(),
+          "RSAC container has not been started properly: ");
     }
     return pri;
   }
@@ -132,8 +181,7 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
           "RSAC container has already been started: ");
     }
     GlobalBeanAccessor.startRequest(parentcontext);
-    PerRequestInfo pri = getPerRequest();
-    pri.beans.set(REQUEST_STARTED_KEY, BEAN_IN_CREATION_OBJECT);
+    binding.setContext(acquireContext());
   }
 
   /**
@@ -142,22 +190,47 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
    */
 
   public boolean isStarted() {
-    PerRequestInfo pri = getPerRequest();
-    return pri.beans.locateBean(REQUEST_STARTED_KEY) != null;
+    return binding.getContext() != null;
   }
 
-  private void assertIsStarted() {
-    if (!isStarted()) {
-      throw UniversalRuntimeException.accumulate(new IllegalStateException(),
-          "RSAC container has not been started properly: ");
+  public RSACRequestContext getRequestContext() {
+    return binding.getContext();
+  }
+
+  public RSACRequestContext attachRequest(RSACRequestContext context) {
+    if (context != null) {
+      if (!(context instanceof PerRequestInfo)
+          || ((PerRequestInfo) context).rsacbl != this) {
+        throw new IllegalArgumentException(
+            "Request context was not created by this RSACBeanLocator");
+      }
+      ((PerRequestInfo) context).attach();
+    }
+    PerRequestInfo previous = (PerRequestInfo) binding.getContext();
+    binding.setContext(context);
+    // a task which outlives its request frees the container when it finishes
+    if (previous != null && previous.detach()) {
+      releaseContext(previous);
+    }
+    if (context == null) {
+      GlobalBeanAccessor.endRequest();
     }
+    else {
+      GlobalBeanAccessor.startRequest(parentcontext);
+    }
+    return previous;
+  }
+
+  public RSACRequestContext detachRequest() {
+    RSACRequestContext context = getPerRequest();
+    attachRequest(null);
+    return context;
   }
 
   /**
    * Called at the end of a request. I advise doing this in a finally block.
    */
   public void endRequest() {
-    assertIsStarted();
     PerRequestInfo pri = getPerRequest();
     Runnable lazarusList = (Runnable) pri.beans.locateBean("RSACLazarusList");
     GlobalBeanAccessor.endRequest(); // cannot throw
@@ -183,10 +256,20 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
       }
     }
     // System.out.println(pri.cbeans + " beans were created");
-    // Give the garbage collector a head start
-    pri.clear();
-    if (lazarusList != null) {
-      lazarusList.run();
+    pri.end();
+    binding.setContext(null);
+    try {
+      if (lazarusList != null) {
+        lazarusList.run();
+      }
+    }
+    finally {
+      // not returned to the pool until any Lazarus requests, which may still
+      // consult its seed beans, have completed - nor whilst any task on
+      // another thread still has it attached
+      if (pri.detach()) {
+        releaseContext(pri);
+      }
     }
   }
 
@@ -250,6 +333,18 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
         rbi.isfactorybean = FactoryBean.class.isAssignableFrom(rbi.beanclass);
       }
     }
+    // Compile the dependency wiring for each bean once, so that per-request
+    // creation need not revisit the definitions.
+    for (int i = 0; i < converter.rbilist.size(); ++i) {
+      RSACBeanInfo rbi = (RSACBeanInfo) converter.rbilist.get(i);
+      try {
+        rbi.wiringplan = RSACWiringPlan.compile(rbi, smc);
+      }
+      catch (Exception e) {
+        Logger.log.info("Could not compile dependency wiring for bean "
+            + rbi.beanname + " - it will be wired from its definition", e);
+      }
+    }
     BracketerPopulator.populateBracketers(parentcontext, rbimap);
     
     // we must add this manually because it expects a DIFFERENT applicationContext
@@ -506,37 +601,12 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
           newbean = null;
         }
       }
-      if (rbi.hasDependencies()) {
-        // guard this block since if it is a factory-method bean it may be
-        // something
-        // extremely undesirable (like an inner class) that we should not even
-        // dream of reflecting over. If on the other hand the user has specified
-        // some dependencies they doubtless know what they are doing.
-        MethodAnalyser ma = smc.getAnalyser(newbean.getClass());
-        // Object clonebean = deadbean.copy();
-        // iterate over each LOCAL dependency of the bean with given name.
-        for (Iterator depit = rbi.dependencies(); depit.hasNext();) {
-          String propertyname = (String) depit.next();
-      
-          try {
-            AccessMethod setter = ma.getAccessMethod(propertyname);
-            if (setter == null) {
-              throw new IllegalArgumentException(newbean.getClass()
-                  + " has no writeable property named " + propertyname);
-            }
-            Object beanref = rbi.beanref(propertyname);
-            Class targetclazz = setter.getAccessedType();
-            Object depbean = resolveDependent(beanref, pri, targetclazz, setter.getDeclaredType());
-        
-            // Lose another 500ns here, until we bring on FastClass.
-            setter.setChildObject(newbean, depbean);
-          }
-          catch (Exception e) {
-            throw UniversalRuntimeException.accumulate(e,
-                "Error setting dependency " + propertyname + " of bean "
-                    + beanname);
-          }
-        }
+      if (rbi.wiringplan != null
+          && rbi.wiringplan.beanclass == newbean.getClass()) {
+        wireBean(pri, rbi.wiringplan, beanname, newbean);
+      }
+      else if (rbi.hasDependencies()) {
+        wireBean(pri, rbi, beanname, newbean);
       }
       if (rbi.dependson != null) {
         for (int i = 0; i < rbi.dependson.length; ++i) {
@@ -597,6 +667,71 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
 
   }
 
+  private void wireBean(PerRequestInfo pri, RSACWiringPlan plan,
+      String beanname, Object newbean) {
+    for (int i = 0; i < plan.setters.length; ++i) {
+      AccessMethod setter = plan.setters[i];
+      Object value = plan.values[i];
+      try {
+        Object depbean;
+        switch (plan.kinds[i]) {
+        case RSACWiringPlan.BEAN:
+          depbean = getBean(pri, (String) value, false);
+          BeanUtil.censorNullBean((String) value, depbean);
+          break;
+        case RSACWiringPlan.CONSTANT:
+          depbean = value;
+          break;
+        case RSACWiringPlan.VECTOR:
+          depbean = assembleVectorProperty(pri, (StringList) value, setter
+              .getDeclaredType());
+          break;
+        default:
+          depbean = resolveDependent(value, pri, setter.getAccessedType(),
+              setter.getDeclaredType());
+        }
+        setter.setChildObject(newbean, depbean);
+      }
+      catch (Exception e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error setting dependency " + plan.propertynames[i] + " of bean "
+                + beanname);
+      }
+    }
+  }
+
+  private void wireBean(PerRequestInfo pri, RSACBeanInfo rbi,
+      String beanname, Object newbean) {
+    // guard this block since if it is a factory-method bean it may be
+    // something extremely undesirable (like an inner class) that we should
+    // not even dream of reflecting over. If on the other hand the user has
+    // specified some dependencies they doubtless know what they are doing.
+    MethodAnalyser ma = smc.getAnalyser(newbean.getClass());
+    // iterate over each LOCAL dependency of the bean with given name.
+    for (Iterator depit = rbi.dependencies(); depit.hasNext();) {
+      String propertyname = (String) depit.next();
+
+      try {
+        AccessMethod setter = ma.getAccessMethod(propertyname);
+        if (setter == null) {
+          throw new IllegalArgumentException(newbean.getClass()
+              + " has no writeable property named " + propertyname);
+        }
+        Object beanref = rbi.beanref(propertyname);
+        Class targetclazz = setter.getAccessedType();
+        Object depbean = resolveDependent(beanref, pri, targetclazz, setter.getDeclaredType());
+
+        // Lose another 500ns here, unless MethodHandleReflectiveCache is configured.
+        setter.setChildObject(newbean, depbean);
+      }
+      catch (Exception e) {
+        throw UniversalRuntimeException.accumulate(e,
+            "Error setting dependency " + propertyname + " of bean "
+                + beanname);
+      }
+    }
+  }
+
   private Object resolveDependent(Object beanref, PerRequestInfo pri, 
        Class accessedType, Class declaredType) {
     Object depbean = null;
@@ -687,7 +822,6 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
    * object, and evaluation will proceed quickly.
    */
   public WriteableBeanLocator getBeanLocator() {
-    assertIsStarted();
     PerRequestInfo pri = getPerRequest();
     return pri.requestwbl;
   }
@@ -697,7 +831,6 @@ public class RSACBeanLocatorImpl implements ApplicationContextAware,
    * auto-create beans that are not present.
    */
   public IterableWriteableBeanLocator getDeadBeanLocator() {
-    assertIsStarted();
     PerRequestInfo pri = getPerRequest();
     return pri.beans;
   }
@@ -7,8 +7,8 @@ import org.springframework.aop.TargetSource;
 
 
 /**
- * An RSAC-specific TargetSource, which will be permanently maintained in the
- * RSAC ThreadLocal container. A sort of multi-way cross between 
+ * An RSAC-specific TargetSource, which will be permanently maintained in an
+ * RSAC request container. A sort of multi-way cross between 
  * ThreadLocalTargetSource, HotSwappableTargetSource and
  * LazyInitTargetSource...
  * <p>An RLTS will be automatically created for every bean in the context
@@ -16,8 +16,8 @@ import org.springframework.aop.TargetSource;
  * <a href="http://www2.caret.cam.ac.uk/rsfwiki/Wiki.jsp?page=VeryLazyBeans">
  * very lazy bean</a>
  * <p>Note that the one exposed dependency, targetBeanName, is actually fake.
- * Since we have only ONE RLTS per thread, the name is actually stashed by
- * RSACBeanLocator, which on thread init creates not only a ProxyFactoryBean,
+ * Since we have only ONE RLTS per container, the name is actually stashed by
+ * RSACBeanLocator, which on container creation creates not only a ProxyFactoryBean,
  * but also a forked instance of this bean, with all the dependencies 
  * delivered via constructor.
  * <p>This facility could be provided by a Spring AutoProxyCreator but there
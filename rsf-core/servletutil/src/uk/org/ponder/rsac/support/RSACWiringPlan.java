@@ -0,0 +1,134 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac.support;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import uk.org.ponder.conversion.GeneralLeafParser;
+import uk.org.ponder.saxalizer.AccessMethod;
+import uk.org.ponder.saxalizer.SAXalizerMappingContext;
+import uk.org.ponder.saxalizer.support.MethodAnalyser;
+import uk.org.ponder.util.ObjectFactory;
+
+/**
+ * The precompiled dependency wiring for a single request-scope bean,
+ * computed once at container startup from its RSACBeanInfo. Each dependency
+ * is held as a resolved setter together with the form of value it is to
+ * receive, so that per-request creation of a bean requires no property name
+ * lookups or reintrospection of its definition.
+ * <p>
+ * A plan is only valid for beans whose concrete class is exactly
+ * <code>beanclass</code> - a factory-method bean may turn out to be of a
+ * more derived class, in which case the container falls back to wiring it
+ * from the bean definition.
+ */
+
+class RSACWiringPlan {
+  /** The dependency is a reference to another bean by name */
+  static final int BEAN = 0;
+  /** The dependency is an RSF ObjectFactory for another bean */
+  static final int OBJECT_FACTORY = 1;
+  /** The dependency is a Spring ObjectFactory for another bean */
+  static final int SPRING_OBJECT_FACTORY = 2;
+  /** The dependency is a leaf value which must be parsed on each creation */
+  static final int VALUE = 3;
+  /** The dependency is an immutable leaf value parsed at startup */
+  static final int CONSTANT = 4;
+  /** The dependency is a list of bean names assembled into a container */
+  static final int VECTOR = 5;
+
+  // Leaf types whose parsed values may safely be shared between requests.
+  private static final Set immutabletypes = new HashSet();
+
+  static {
+    immutabletypes.add(String.class);
+    immutabletypes.add(Boolean.class);
+    immutabletypes.add(Character.class);
+    immutabletypes.add(Byte.class);
+    immutabletypes.add(Short.class);
+    immutabletypes.add(Integer.class);
+    immutabletypes.add(Long.class);
+    immutabletypes.add(Float.class);
+    immutabletypes.add(Double.class);
+    immutabletypes.add(Class.class);
+  }
+
+  /** The exact class of bean which this plan was compiled for */
+  Class beanclass;
+  String[] propertynames;
+  AccessMethod[] setters;
+  int[] kinds;
+  /**
+   * For each dependency, either the bean name, the unparsed value, the parsed
+   * constant, or the StringList of bean names, depending on its kind.
+   */
+  Object[] values;
+
+  /**
+   * Compiles the wiring plan for the supplied bean, or returns
+   * <code>null</code> if its class is not statically known or any of its
+   * dependencies cannot be resolved. In the latter case the error will be
+   * reported when the bean is first created.
+   */
+  static RSACWiringPlan compile(RSACBeanInfo rbi, SAXalizerMappingContext smc) {
+    if (rbi.beanclass == null || rbi.isabstract || !rbi.hasDependencies()
+        || rbi.beanclass.isInterface()) {
+      return null;
+    }
+    MethodAnalyser ma = smc.getAnalyser(rbi.beanclass);
+    int size = rbi.dependencyCount();
+    RSACWiringPlan togo = new RSACWiringPlan();
+    togo.beanclass = rbi.beanclass;
+    togo.propertynames = new String[size];
+    togo.setters = new AccessMethod[size];
+    togo.kinds = new int[size];
+    togo.values = new Object[size];
+    int i = 0;
+    for (Iterator depit = rbi.dependencies(); depit.hasNext(); ++i) {
+      String propertyname = (String) depit.next();
+      AccessMethod setter = ma.getAccessMethod(propertyname);
+      if (setter == null || !setter.canSet()) {
+        return null;
+      }
+      Object beanref = rbi.beanref(propertyname);
+      Class accessedtype = setter.getAccessedType();
+      togo.propertynames[i] = propertyname;
+      togo.setters[i] = setter;
+      if (beanref instanceof String) {
+        togo.values[i] = beanref;
+        togo.kinds[i] = ObjectFactory.class.isAssignableFrom(accessedtype) ? OBJECT_FACTORY
+            : org.springframework.beans.factory.ObjectFactory.class
+                .isAssignableFrom(accessedtype) ? SPRING_OBJECT_FACTORY
+                : BEAN;
+      }
+      else if (beanref instanceof ValueHolder) {
+        String value = ((ValueHolder) beanref).value;
+        Class wrapped = GeneralLeafParser.wrapClass(accessedtype);
+        togo.values[i] = beanref;
+        togo.kinds[i] = VALUE;
+        if (immutabletypes.contains(wrapped)) {
+          try {
+            togo.values[i] = value == null ? null
+                : smc.generalLeafParser.parse(accessedtype, value);
+            togo.kinds[i] = CONSTANT;
+          }
+          catch (Exception e) {
+            // leave unparsed so that the error is reported on creation
+            togo.values[i] = beanref;
+          }
+        }
+        else if (!smc.generalLeafParser.isLeafType(accessedtype)) {
+          return null;
+        }
+      }
+      else {
+        togo.values[i] = beanref;
+        togo.kinds[i] = VECTOR;
+      }
+    }
+    return togo;
+  }
+}
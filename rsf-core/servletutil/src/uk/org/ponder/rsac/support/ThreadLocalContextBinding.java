@@ -0,0 +1,31 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac.support;
+
+import uk.org.ponder.rsac.RSACContextBinding;
+import uk.org.ponder.rsac.RSACRequestContext;
+
+/**
+ * The default RSACContextBinding, holding the context in a ThreadLocal. The
+ * ThreadLocal is cleared rather than retaining an idle container when no
+ * request is in progress, so this is suitable for use with pooled and
+ * virtual threads alike.
+ */
+
+public class ThreadLocalContextBinding implements RSACContextBinding {
+  private ThreadLocal threadlocal = new ThreadLocal();
+
+  public RSACRequestContext getContext() {
+    return (RSACRequestContext) threadlocal.get();
+  }
+
+  public void setContext(RSACRequestContext context) {
+    if (context == null) {
+      threadlocal.remove();
+    }
+    else {
+      threadlocal.set(context);
+    }
+  }
+}
@@ -4,27 +4,93 @@
 package uk.org.ponder.servletutil;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
+import uk.org.ponder.streamutil.CompressingOutputStream;
+import uk.org.ponder.streamutil.DeflaterPool;
 import uk.org.ponder.streamutil.StreamCloseUtil;
 import uk.org.ponder.util.UniversalRuntimeException;
 
+/**
+ * Buffers the body of a servlet response, so that the response may still be
+ * redirected or otherwise reset until it is complete. The complete body is
+ * written with an exact Content-Length when the stream is closed.
+ * <p>
+ * In streaming mode, a call to <code>flush()</code> instead sends all
+ * material buffered so far to the client, committing the response.
+ * <p>
+ * A {@link CompletionHandler} may be supplied to take over the writing of a
+ * complete, uncommitted body, for example to cache or compress it.
+ * <p>
+ * If a content encoding is set, the body is compressed as it is written,
+ * with the <code>Content-Encoding</code> header only being declared once
+ * the body is actually sent, so that a redirect issued in its place is
+ * unaffected.
+ */
+
 public class ServletResponseWriter {
+  /** Receives the complete body of a response which has not been committed,
+   * just before it would be written to the client.
+   */
+  public interface CompletionHandler {
+    /** @return <code>true</code> if this handler has written the response
+     * itself, in which case the body will not be written again.
+     */
+    public boolean complete(byte[] body, HttpServletResponse response)
+        throws IOException;
+  }
+
   private ByteArrayOutputStream baos;
   private HttpServletResponse response;
+  private boolean streaming;
+  // set once any part of the body has been sent to the client, after which
+  // its length can no longer be declared
+  private boolean committed;
+  private CompletionHandler completionhandler;
+  private String contentencoding;
+  private int compressionlevel;
+  private CompressingOutputStream compressor;
   
   private class ServletBAOS extends ByteArrayOutputStream {
-    public void close() {
-      byte[] bytes = baos.toByteArray();
+    private void declareEncoding() {
+      if (!committed && contentencoding != null) {
+        response.setHeader("Content-Encoding", contentencoding);
+      }
+    }
+
+    public void flush() {
+      if (streaming && size() > 0) {
+        try {
+          declareEncoding();
+          OutputStream os = response.getOutputStream();
+          writeTo(os);
+          os.flush();
+          reset();
+          committed = true;
+        }
+        catch (Exception e) {
+          throw UniversalRuntimeException.accumulate(e, "Error writing response");
+        }
+      }
+    }
     
+    public void close() {
       OutputStream os = null;
       try {
         os = response.getOutputStream();
-        response.setContentLength(bytes.length);
-        response.getOutputStream();
-        os.write(bytes);
+        if (!committed && completionhandler != null
+            && completionhandler.complete(toByteArray(), response)) {
+          return;
+        }
+        declareEncoding();
+        if (!committed) {
+          response.setContentLength(size());
+        }
+        // write straight from our buffer rather than taking a copy
+        writeTo(os);
       }
       catch (Exception e) {
         throw UniversalRuntimeException.accumulate(e, "Error writing response");
@@ -36,11 +102,87 @@ public class ServletResponseWriter {
   }
   
   public ServletResponseWriter(HttpServletResponse response) {
+    this(response, false);
+  }
+  
+  public ServletResponseWriter(HttpServletResponse response, boolean streaming) {
     this.response = response;
+    this.streaming = streaming;
     baos = new ServletBAOS();
   }
   
+  public void setCompletionHandler(CompletionHandler completionhandler) {
+    this.completionhandler = completionhandler;
+  }
+
+  /**
+   * Requests that the body be compressed as it is written.
+   * @param contentencoding Either "gzip" or "deflate", as returned from
+   *          {@link #negotiateContentEncoding(String)}.
+   * @param compressionlevel The compression level, as for
+   *          {@link java.util.zip.Deflater}
+   */
+  public void setContentEncoding(String contentencoding, int compressionlevel) {
+    this.contentencoding = contentencoding;
+    this.compressionlevel = compressionlevel;
+  }
+
   public OutputStream getOutputStream() {
-    return baos;
+    if (contentencoding == null) {
+      return baos;
+    }
+    if (compressor == null) {
+      compressor = new CompressingOutputStream(baos, contentencoding,
+          compressionlevel, DeflaterPool.instance());
+    }
+    return compressor;
+  }
+
+  /**
+   * Releases any resources held for compressing the body, for a response
+   * whose body will not be completed - for example, because it has been
+   * redirected. Has no effect once the body has been closed.
+   */
+  public void abandon() {
+    if (compressor != null) {
+      compressor.abandon();
+    }
+  }
+
+  /**
+   * Chooses the content encoding to be used for a response, given the value
+   * of the request's <code>Accept-Encoding</code> header.
+   * @return "gzip" or "deflate", preferring gzip, or <code>null</code> if
+   *         the client accepts neither.
+   */
+  public static String negotiateContentEncoding(String acceptencoding) {
+    if (acceptencoding == null) return null;
+    boolean gzip = false, deflate = false;
+    // explicit refusals override any wildcard
+    boolean nogzip = false, nodeflate = false, wildcard = false;
+    String[] codings = acceptencoding.split(",");
+    for (int i = 0; i < codings.length; ++i) {
+      String coding = codings[i].trim();
+      int semipos = coding.indexOf(';');
+      String name = semipos == -1 ? coding : coding.substring(0, semipos).trim();
+      boolean refused = semipos != -1
+          && coding.substring(semipos + 1).replaceAll(" ", "").matches(
+              "q=0(\\.0*)?");
+      if (name.equalsIgnoreCase(CompressingOutputStream.GZIP)
+          || name.equalsIgnoreCase("x-gzip")) {
+        gzip |= !refused;
+        nogzip |= refused;
+      }
+      else if (name.equalsIgnoreCase(CompressingOutputStream.DEFLATE)) {
+        deflate |= !refused;
+        nodeflate |= refused;
+      }
+      else if (name.equals("*")) {
+        wildcard = !refused;
+      }
+    }
+    if (!nogzip && (gzip || wildcard)) return CompressingOutputStream.GZIP;
+    if (!nodeflate && (deflate || wildcard)) return CompressingOutputStream.DEFLATE;
+    return null;
   }
 }
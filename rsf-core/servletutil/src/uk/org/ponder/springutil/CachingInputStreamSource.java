@@ -6,8 +6,7 @@ package uk.org.ponder.springutil;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
@@ -22,6 +21,11 @@ import uk.org.ponder.util.UniversalRuntimeException;
  * changes after a specified lag. Currently any non-filesystem resources are
  * assumed to be ALWAYS STALE, that is, they will always have their streams
  * returned rather than the marker.
+ * <p>
+ * This class is safe for use by concurrent request threads. For each change
+ * detected in a filesystem resource, exactly one caller will be returned the
+ * fresh stream - all other callers continue to receive the UP_TO_DATE marker
+ * and may carry on serving their existing cached product.
  * 
  * @author Antranig Basman (antranig@caret.cam.ac.uk)
  */
@@ -56,7 +60,7 @@ public class CachingInputStreamSource implements StreamResolver {
 
   private StreamResolver baseresolver;
 
-  private Map stalenesses = new HashMap();
+  private ConcurrentHashMap stalenesses = new ConcurrentHashMap();
 
   // The first argument here is typically the ApplicationContext - note that
   // it will stubbornly interpret ALL paths as relative to the ServletContext,
@@ -93,6 +97,13 @@ public class CachingInputStreamSource implements StreamResolver {
         if (res == null || !res.exists())
           return null;
         try {
+          if (isnew) {
+            StalenessEntry existing = (StalenessEntry) stalenesses
+                .putIfAbsent(fullpath, staleness);
+            if (existing != null) {
+              staleness = existing;
+            }
+          }
           if (res instanceof ClassPathResource) {
             staleness.modtime = NEVER_STALE_MODTIME;
           }
@@ -100,14 +111,14 @@ public class CachingInputStreamSource implements StreamResolver {
             // Logger.log.debug("Trying to load from path " + fullpath);
             File f = res.getFile(); // throws IOException
             long modtime = f.lastModified();
-            if (modtime > staleness.modtime) {
-              staleness.modtime = modtime;
-              isstale = true;
+            // only one thread may claim any particular modification
+            synchronized (staleness) {
+              if (modtime > staleness.modtime) {
+                staleness.modtime = modtime;
+                isstale = true;
+              }
             }
           }
-          if (isnew) {
-            stalenesses.put(fullpath, staleness);
-          }
         }
         catch (Exception e) {
           // If it's not a file, it's always stale.
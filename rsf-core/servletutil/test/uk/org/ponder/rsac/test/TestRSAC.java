@@ -3,10 +3,22 @@
  */
 package uk.org.ponder.rsac.test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.test.context.ContextConfiguration;
 
+import uk.org.ponder.rsac.RSACBeanLocator;
+import uk.org.ponder.rsac.RSACContextPropagator;
+import uk.org.ponder.rsac.RSACRequestContext;
+
 @ContextConfiguration()
 public class TestRSAC extends AbstractRSACTests {
 
@@ -21,4 +33,107 @@ public class TestRSAC extends AbstractRSACTests {
     
     Assert.assertTrue(obj instanceof NullHolder);
   }
+
+  @Test
+  public void testTransferContext() throws Exception {
+    final RSACBeanLocator rsacbl = getRSACBeanLocator();
+    final Object obj = locateRequestBean("nullTest");
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // the same container is visible from a propagated task
+      Object fetched = executor.submit(RSACContextPropagator.wrap(rsacbl,
+          new Callable() {
+            public Object call() {
+              return rsacbl.getBeanLocator().locateBean("nullTest");
+            }
+          })).get();
+      Assert.assertSame(obj, fetched);
+      // and is unbound from the worker thread afterwards
+      Boolean started = (Boolean) executor.submit(new Callable() {
+        public Object call() {
+          return Boolean.valueOf(rsacbl.isStarted());
+        }
+      }).get();
+      Assert.assertFalse(started.booleanValue());
+    }
+    finally {
+      executor.shutdown();
+    }
+
+    RSACRequestContext context = rsacbl.detachRequest();
+    Assert.assertFalse(rsacbl.isStarted());
+    Assert.assertNull(rsacbl.attachRequest(context));
+    Assert.assertSame(obj, locateRequestBean("nullTest"));
+  }
+
+  // starts the specified number of requests at once, detaching each
+  private RSACRequestContext[] startRequests(int count) {
+    RSACBeanLocator rsacbl = getRSACBeanLocator();
+    RSACRequestContext[] togo = new RSACRequestContext[count];
+    for (int i = 0; i < count; ++i) {
+      rsacbl.startRequest();
+      togo[i] = rsacbl.detachRequest();
+    }
+    return togo;
+  }
+
+  private void endRequests(RSACRequestContext[] contexts) {
+    RSACBeanLocator rsacbl = getRSACBeanLocator();
+    for (int i = 0; i < contexts.length; ++i) {
+      rsacbl.attachRequest(contexts[i]);
+      rsacbl.endRequest();
+    }
+  }
+
+  @Test
+  public void testContextPool() {
+    RSACBeanLocator rsacbl = getRSACBeanLocator();
+    RSACRequestContext own = rsacbl.detachRequest();
+    // every container used by concurrent requests is retained for reuse
+    RSACRequestContext[] first = startRequests(200);
+    endRequests(first);
+    RSACRequestContext[] second = startRequests(200);
+    endRequests(second);
+    Assert.assertEquals(new HashSet(Arrays.asList(first)), new HashSet(Arrays
+        .asList(second)));
+    rsacbl.attachRequest(own);
+  }
+
+  @Test
+  public void testContextOutlivesRequest() throws Exception {
+    final RSACBeanLocator rsacbl = getRSACBeanLocator();
+    RSACRequestContext own = rsacbl.detachRequest();
+    rsacbl.startRequest();
+    RSACRequestContext ending = rsacbl.getRequestContext();
+    final CountDownLatch attached = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future task = executor.submit(RSACContextPropagator.wrap(rsacbl,
+          new Callable() {
+            public Object call() throws Exception {
+              attached.countDown();
+              release.await();
+              return rsacbl.getRequestContext();
+            }
+          }));
+      attached.await();
+      rsacbl.endRequest();
+      // the container is still attached to the task, so is not reused
+      RSACRequestContext[] during = startRequests(1);
+      Assert.assertNotSame(ending, during[0]);
+      endRequests(during);
+      release.countDown();
+      Assert.assertSame(ending, task.get());
+      // and is reused only once the task has finished with it
+      RSACRequestContext[] after = startRequests(1);
+      Assert.assertSame(ending, after[0]);
+      endRequests(after);
+    }
+    finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    rsacbl.attachRequest(own);
+  }
 }
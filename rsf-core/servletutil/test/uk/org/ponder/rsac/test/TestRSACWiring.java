@@ -0,0 +1,71 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac.test;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+
+import uk.org.ponder.rsac.RSACBeanLocator;
+
+/** Tests the dependency wiring of request beans which is precompiled at
+ * startup, across more than one request */
+
+@ContextConfiguration()
+public class TestRSACWiring extends AbstractRSACTests {
+
+  public TestRSACWiring() {
+    contributeRequestConfigLocation("classpath:uk/org/ponder/rsac/test/rsac-request-context.xml");
+    contributeConfigLocation("classpath:conf/core-rsac-context.xml");
+  }
+
+  private static void assertWired(WiredBean wired, Object holder) {
+    Assert.assertSame(holder, wired.holder);
+    Assert.assertEquals(3, wired.count);
+    Assert.assertEquals("wired", wired.name);
+    Assert.assertEquals(1792281600000L, wired.date.getTime());
+    Assert.assertEquals(2, wired.holders.size());
+    Assert.assertSame(holder, wired.holders.get(0));
+    Assert.assertSame(holder, wired.holders.get(1));
+    Assert.assertSame(holder, wired.holderFactory.getObject());
+  }
+
+  @Test
+  public void testWiring() {
+    WiredBean wired = (WiredBean) locateRequestBean("wiredTest");
+    Object holder = locateRequestBean("nullTest");
+    assertWired(wired, holder);
+
+    RSACBeanLocator rsacbl = getRSACBeanLocator();
+    rsacbl.endRequest();
+    rsacbl.startRequest();
+    WiredBean wired2 = (WiredBean) locateRequestBean("wiredTest");
+    Object holder2 = locateRequestBean("nullTest");
+    Assert.assertNotSame(wired, wired2);
+    Assert.assertNotSame(holder, holder2);
+    // every request is wired to its own beans
+    assertWired(wired2, holder2);
+    // immutable values are parsed once and shared, mutable ones are not
+    Assert.assertSame(wired.name, wired2.name);
+    Assert.assertNotSame(wired.date, wired2.date);
+    Date date = wired2.date;
+    date.setTime(0);
+    rsacbl.endRequest();
+    rsacbl.startRequest();
+    Assert.assertEquals(1792281600000L,
+        ((WiredBean) locateRequestBean("wiredTest")).date.getTime());
+  }
+
+  @Test
+  public void testDerivedFactoryBean() {
+    // a factory method may deliver a class other than that the plan was
+    // compiled for, which must still be wired
+    WiredBean derived = (WiredBean) locateRequestBean("derivedWiredTest");
+    Assert.assertTrue(derived instanceof WiredBean.DerivedWiredBean);
+    Assert.assertSame(locateRequestBean("nullTest"), derived.holder);
+    Assert.assertEquals(4, derived.count);
+  }
+}
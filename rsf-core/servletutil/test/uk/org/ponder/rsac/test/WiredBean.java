@@ -0,0 +1,51 @@
+/*
+ * Created on 18 Oct 2026
+ */
+package uk.org.ponder.rsac.test;
+
+import java.util.Date;
+import java.util.List;
+
+import uk.org.ponder.util.ObjectFactory;
+
+/** A request bean with one dependency of each kind wired by RSAC */
+
+public class WiredBean {
+  public NullHolder holder;
+  public int count;
+  public String name;
+  public Date date;
+  public List holders;
+  public ObjectFactory holderFactory;
+
+  public WiredBean createDerived() {
+    return new DerivedWiredBean();
+  }
+
+  public void setHolder(NullHolder holder) {
+    this.holder = holder;
+  }
+
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setDate(Date date) {
+    this.date = date;
+  }
+
+  public void setHolders(List holders) {
+    this.holders = holders;
+  }
+
+  public void setHolderFactory(ObjectFactory holderFactory) {
+    this.holderFactory = holderFactory;
+  }
+
+  public static class DerivedWiredBean extends WiredBean {
+  }
+}